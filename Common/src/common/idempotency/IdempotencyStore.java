@@ -0,0 +1,75 @@
+package common.idempotency;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Backing store for idempotency keys.
+ *
+ * A key is first claimed by the request that executes it and then completed with that request's response, which
+ * later retries replay. The default is {@link InMemoryIdempotencyStore}; define an {@code IdempotencyStore} bean to
+ * share keys between instances. Implementations must make {@link #tryClaim} atomic.
+ */
+public interface IdempotencyStore {
+
+    /**
+     * Returns the completed response for a key, if there is one that has not expired.
+     */
+    Optional<StoredResponse> find(String key);
+
+    /**
+     * Claims a key for execution.
+     *
+     * @param key The idempotency key.
+     * @param requestFingerprint Hash of the request, used to reject reuse of the key for a different request.
+     * @param ttl How long the claim is held if the executing request never completes or releases it.
+     * @return true if the caller now owns the key; false if it is claimed or completed already.
+     */
+    boolean tryClaim(String key, String requestFingerprint, Duration ttl);
+
+    /**
+     * Records the response for a claimed key.
+     */
+    void complete(String key, StoredResponse response, Duration ttl);
+
+    /**
+     * Gives up a claim without a response, so a retry executes the request again.
+     */
+    void release(String key);
+
+    /**
+     * A response as it is replayed to retries.
+     */
+    final class StoredResponse {
+
+        private final String requestFingerprint;
+        private final int status;
+        private final Map<String, List<String>> headers;
+        private final Object body;
+
+        public StoredResponse(String requestFingerprint, int status, Map<String, List<String>> headers, Object body) {
+            this.requestFingerprint = requestFingerprint;
+            this.status = status;
+            this.headers = headers;
+            this.body = body;
+        }
+
+        public String getRequestFingerprint() {
+            return requestFingerprint;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public Map<String, List<String>> getHeaders() {
+            return headers;
+        }
+
+        public Object getBody() {
+            return body;
+        }
+    }
+}
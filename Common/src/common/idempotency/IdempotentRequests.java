@@ -0,0 +1,233 @@
+package common.idempotency;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import common.idempotency.IdempotencyStore.StoredResponse;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Executes create requests at most once per {@code Idempotency-Key}.
+ *
+ * Concurrent duplicates on this instance wait for the first execution and receive its response. Once that response
+ * is stored, later retries are answered from the {@link IdempotencyStore} without running the request again. A key
+ * still executing on another instance gets 409 with Retry-After. Reusing a key with a different request body gets
+ * 422. With {@link #execute}, server errors are not stored, so a retry after a 5xx or an exception executes again.
+ * Requests whose side effects cannot be undone, such as card charges, use {@link #executeOnce} instead: a 5xx or an
+ * exception is stored like any other response, unless the action reports with {@link NotExecutedException} that it
+ * failed before doing anything.
+ *
+ * Shared by services on Spring 5 and Spring 6, so it only calls {@link ResponseEntity} methods whose signatures are
+ * the same in both (status codes are handled as ints, not as {@code HttpStatus}).
+ */
+@Component
+public class IdempotentRequests {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyStore store;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Duration inFlightTimeout;
+    private final Map<String, InFlight> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong executions = new AtomicLong();
+    private final AtomicLong replays = new AtomicLong();
+
+    public IdempotentRequests(ObjectProvider<IdempotencyStore> stores, ObjectMapper objectMapper,
+                              @Value("${idempotency.ttl-seconds:86400}") long ttlSeconds,
+                              @Value("${idempotency.max-entries:100000}") int maxEntries,
+                              @Value("${idempotency.in-flight-timeout-ms:30000}") long inFlightTimeoutMs) {
+        this.store = stores.getIfAvailable(() -> new InMemoryIdempotencyStore(maxEntries));
+        this.objectMapper = objectMapper;
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+        this.inFlightTimeout = Duration.ofMillis(inFlightTimeoutMs);
+    }
+
+    /**
+     * Runs the action unless the key has been seen before.
+     *
+     * @param key The client's Idempotency-Key header, or null to run the action unconditionally.
+     * @param request The request body, fingerprinted to detect a key reused for a different request.
+     * @param action Produces the response on first execution.
+     */
+    public <T> ResponseEntity<T> execute(String key, Object request, Supplier<ResponseEntity<T>> action) {
+        return execute(key, request, action, false);
+    }
+
+    /**
+     * Runs the action at most once per key, even if it fails: a 5xx response or an exception is kept for the key's
+     * TTL, and retries get a 5xx back instead of a second execution. Only a {@link NotExecutedException} frees the
+     * key for a retry.
+     *
+     * @param key The client's Idempotency-Key header, or null to run the action unconditionally.
+     * @param request The request body, fingerprinted to detect a key reused for a different request.
+     * @param action Produces the response on first execution.
+     */
+    public <T> ResponseEntity<T> executeOnce(String key, Object request, Supplier<ResponseEntity<T>> action) {
+        return execute(key, request, action, true);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> ResponseEntity<T> execute(String key, Object request, Supplier<ResponseEntity<T>> action,
+                                          boolean keepFailures) {
+        if (key == null) {
+            return action.get();
+        }
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            return ResponseEntity.badRequest().build();
+        }
+        String fingerprint = fingerprint(request);
+
+        InFlight mine = new InFlight(fingerprint);
+        InFlight running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            if (!running.fingerprint.equals(fingerprint)) {
+                return ResponseEntity.unprocessableEntity().build();
+            }
+            StoredResponse first = awaitFirst(running);
+            return first != null ? (ResponseEntity<T>) replay(first) : inProgress();
+        }
+
+        try {
+            Optional<StoredResponse> stored = store.find(key);
+            if (stored.isEmpty() && !store.tryClaim(key, fingerprint, inFlightTimeout)) {
+                // Claimed elsewhere, or completed between the two calls
+                stored = store.find(key);
+                if (stored.isEmpty()) {
+                    mine.result.complete(null);
+                    return inProgress();
+                }
+            }
+            if (stored.isPresent()) {
+                mine.result.complete(stored.get());
+                if (!stored.get().getRequestFingerprint().equals(fingerprint)) {
+                    return ResponseEntity.unprocessableEntity().build();
+                }
+                return (ResponseEntity<T>) replay(stored.get());
+            }
+
+            ResponseEntity<T> response;
+            try {
+                executions.incrementAndGet();
+                response = action.get();
+            } catch (RuntimeException e) {
+                if (keepFailures && !(e instanceof NotExecutedException)) {
+                    // The action may have had its effect before failing, so the key stays taken
+                    StoredResponse failure = new StoredResponse(fingerprint, 500, Map.of(), null);
+                    store.complete(key, failure, ttl);
+                    mine.result.complete(failure);
+                } else {
+                    store.release(key);
+                    mine.result.completeExceptionally(e);
+                }
+                throw e;
+            }
+
+            int status = response.getStatusCodeValue();
+            StoredResponse result = new StoredResponse(fingerprint, status, Map.copyOf(response.getHeaders()),
+                    response.getBody());
+            if (status >= 500 && !keepFailures) {
+                store.release(key);
+            } else {
+                store.complete(key, result, ttl);
+            }
+            mine.result.complete(result);
+            return response;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    public long getExecutionCount() {
+        return executions.get();
+    }
+
+    public long getReplayCount() {
+        return replays.get();
+    }
+
+    private static <T> ResponseEntity<T> inProgress() {
+        return ResponseEntity.status(409).header(HttpHeaders.RETRY_AFTER, "1").build();
+    }
+
+    /**
+     * Waits for the execution this request duplicates. Returns null if that execution found the key claimed
+     * on another instance.
+     */
+    private StoredResponse awaitFirst(InFlight running) {
+        try {
+            return running.result.get(inFlightTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Timed out waiting for request with the same Idempotency-Key", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private ResponseEntity<Object> replay(StoredResponse stored) {
+        replays.incrementAndGet();
+        HttpHeaders headers = new HttpHeaders();
+        stored.getHeaders().forEach(headers::addAll);
+        headers.set(REPLAYED_HEADER, "true");
+        return ResponseEntity.status(stored.getStatus()).headers(headers).body(stored.getBody());
+    }
+
+    private String fingerprint(Object request) {
+        byte[] body;
+        try {
+            body = request == null ? new byte[0] : objectMapper.writeValueAsBytes(request);
+        } catch (JsonProcessingException e) {
+            body = String.valueOf(request).getBytes(StandardCharsets.UTF_8);
+        }
+        try {
+            return Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256").digest(body));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Thrown by an action passed to {@link #executeOnce} that failed before it had any effect, so the request may
+     * run again under the same key.
+     */
+    public static class NotExecutedException extends RuntimeException {
+        public NotExecutedException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    private static final class InFlight {
+        private final String fingerprint;
+        private final CompletableFuture<StoredResponse> result = new CompletableFuture<>();
+
+        private InFlight(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package common.idempotency;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Default {@link IdempotencyStore}: a bounded map held in this instance's memory.
+ *
+ * Entries expire after their TTL; when the map is full the oldest entry is evicted, so memory stays bounded
+ * during retry storms. Keys are not shared between instances.
+ */
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+
+    private final int maxEntries;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+
+    public InMemoryIdempotencyStore(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    @Override
+    public synchronized Optional<StoredResponse> find(String key) {
+        Entry entry = live(key);
+        return entry == null ? Optional.empty() : Optional.ofNullable(entry.response);
+    }
+
+    @Override
+    public synchronized boolean tryClaim(String key, String requestFingerprint, Duration ttl) {
+        if (live(key) != null) {
+            return false;
+        }
+        put(key, new Entry(null, deadline(ttl)));
+        return true;
+    }
+
+    @Override
+    public synchronized void complete(String key, StoredResponse response, Duration ttl) {
+        put(key, new Entry(response, deadline(ttl)));
+    }
+
+    @Override
+    public synchronized void release(String key) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.response == null) {
+            entries.remove(key);
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private Entry live(String key) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expiresAt - System.nanoTime() <= 0) {
+            entries.remove(key);
+            return null;
+        }
+        return entry;
+    }
+
+    private void put(String key, Entry entry) {
+        // Re-insert so the map stays ordered by last write, which is also roughly expiry order
+        entries.remove(key);
+        entries.put(key, entry);
+        Iterator<Map.Entry<String, Entry>> oldest = entries.entrySet().iterator();
+        long now = System.nanoTime();
+        while (oldest.hasNext()) {
+            Map.Entry<String, Entry> next = oldest.next();
+            if (entries.size() <= maxEntries && next.getValue().expiresAt - now > 0) {
+                break;
+            }
+            oldest.remove();
+        }
+    }
+
+    private static long deadline(Duration ttl) {
+        return System.nanoTime() + ttl.toNanos();
+    }
+
+    private static final class Entry {
+        private final StoredResponse response;
+        private final long expiresAt;
+
+        private Entry(StoredResponse response, long expiresAt) {
+            this.response = response;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package common.threads;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfigureBefore;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import java.util.concurrent.Executors;
+import java.util.logging.Logger;
+
+/**
+ * Virtual-thread mode for request handling: Tomcat runs each request on its own virtual thread instead of its
+ * 200-thread worker pool, and MVC async work (e.g. streamed exports) gets a virtual thread per task as well.
+ *
+ * Active when {@code threads.virtual.enabled=true} is set anywhere Spring reads properties, including
+ * application.properties, and the runtime is Java 21 or newer. The flag is read from the Spring environment here,
+ * so it does not depend on {@link VirtualThreads}, which is created before the environment exists and only sees the
+ * system property or environment variable; the internal executors it builds need one of those. Registered through
+ * auto-configuration ahead of Boot's task execution configuration, so every service that depends on this library
+ * picks it up and its task executor replaces Boot's; threads are named after {@code spring.application.name}.
+ */
+@Configuration
+@AutoConfigureBefore(TaskExecutionAutoConfiguration.class)
+@ConditionalOnProperty(name = VirtualThreads.ENABLED_PROPERTY, havingValue = "true")
+public class VirtualThreadConfig {
+
+    private static final Logger logger = Logger.getLogger(VirtualThreadConfig.class.getName());
+
+    private static final int PLATFORM_TASK_THREADS = 8;
+
+    private final String threadNamePrefix;
+    private final boolean virtualThreads;
+
+    public VirtualThreadConfig(Environment environment,
+                               @Value("${spring.application.name:service}") String threadNamePrefix) {
+        this.threadNamePrefix = threadNamePrefix;
+        this.virtualThreads = environment.getProperty(VirtualThreads.ENABLED_PROPERTY, Boolean.class, false)
+                && VirtualThreads.isSupported();
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandler() {
+        if (!virtualThreads) {
+            logger.warning("Virtual threads unavailable; Tomcat keeps its platform worker pool");
+            return protocolHandler -> { };
+        }
+        logger.info("Tomcat requests run on virtual threads");
+        return protocolHandler -> protocolHandler.setExecutor(VirtualThreads.newVirtualThreadPerTaskExecutor(threadNamePrefix + "-http"));
+    }
+
+    @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        String name = threadNamePrefix + "-task";
+        return new TaskExecutorAdapter(virtualThreads
+                ? VirtualThreads.newVirtualThreadPerTaskExecutor(name)
+                : Executors.newFixedThreadPool(PLATFORM_TASK_THREADS, VirtualThreads.daemonThreads(name)));
+    }
+}
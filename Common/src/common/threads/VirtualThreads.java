@@ -0,0 +1,114 @@
+package common.threads;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Executors for blocking work (JDBC, HTTP, SMTP, Kafka acks) that run on virtual threads when the mode is switched on.
+ *
+ * The mode is enabled with {@code -Dthreads.virtual.enabled=true} or {@code THREADS_VIRTUAL_ENABLED=true} and needs a
+ * Java 21 runtime. The services are still compiled for Java 11 and 17, so the virtual thread API is looked up
+ * reflectively; when the mode is off or the runtime is older, callers get the bounded daemon pool they had before.
+ */
+public final class VirtualThreads {
+
+    private static final Logger logger = Logger.getLogger(VirtualThreads.class.getName());
+
+    public static final String ENABLED_PROPERTY = "threads.virtual.enabled";
+
+    private static final Method OF_VIRTUAL = lookup(Thread.class, "ofVirtual");
+    private static final Method THREAD_PER_TASK = lookup(Executors.class, "newThreadPerTaskExecutor", ThreadFactory.class);
+    private static final boolean ENABLED = isRequested() && isSupported();
+
+    static {
+        if (isRequested() && !isSupported()) {
+            logger.warning(ENABLED_PROPERTY + " is set but runtime " + Runtime.version()
+                    + " has no virtual threads; keeping platform thread pools");
+        }
+    }
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * Whether this JVM can create virtual threads at all.
+     */
+    public static boolean isSupported() {
+        return OF_VIRTUAL != null && THREAD_PER_TASK != null;
+    }
+
+    /**
+     * Whether blocking work should run on virtual threads.
+     */
+    public static boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * One new virtual thread per task when enabled, otherwise a fixed pool of {@code platformThreads} daemon threads.
+     * Either way threads are named {@code name-N}.
+     */
+    public static ExecutorService newExecutor(String name, int platformThreads) {
+        if (ENABLED) {
+            return newVirtualThreadPerTaskExecutor(name);
+        }
+        return Executors.newFixedThreadPool(platformThreads, daemonThreads(name));
+    }
+
+    /**
+     * Starts a new virtual thread named {@code name-N} for every task, regardless of whether the mode is enabled.
+     *
+     * @throws IllegalStateException if the runtime has no virtual threads.
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor(String name) {
+        try {
+            return (ExecutorService) THREAD_PER_TASK.invoke(null, virtualThreadFactory(name));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to create a virtual thread executor", e);
+        }
+    }
+
+    /**
+     * Factory for virtual threads named {@code name-N}.
+     *
+     * @throws IllegalStateException if the runtime has no virtual threads.
+     */
+    public static ThreadFactory virtualThreadFactory(String name) {
+        if (!isSupported()) {
+            throw new IllegalStateException("Virtual threads need a Java 21 runtime, running " + Runtime.version());
+        }
+        try {
+            Object builder = OF_VIRTUAL.invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, name + "-", 1L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to create a virtual thread factory", e);
+        }
+    }
+
+    public static ThreadFactory daemonThreads(String name) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static boolean isRequested() {
+        return Boolean.parseBoolean(System.getProperty(ENABLED_PROPERTY, System.getenv("THREADS_VIRTUAL_ENABLED")));
+    }
+
+    private static Method lookup(Class<?> type, String name, Class<?>... parameterTypes) {
+        try {
+            return type.getMethod(name, parameterTypes);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package common.ids;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimeOrderedIdsTest {
+
+    @Test
+    void idsAreStrictlyIncreasing() {
+        // Far more ids than the 4096 a millisecond holds, so the sequence overflows into later milliseconds
+        UUID previous = TimeOrderedIds.next();
+        for (int i = 0; i < 200000; i++) {
+            UUID next = TimeOrderedIds.next();
+            assertTrue(Long.compareUnsigned(next.getMostSignificantBits(), previous.getMostSignificantBits()) > 0,
+                    next + " does not sort after " + previous);
+            assertTrue(next.compareTo(previous) > 0);
+            assertTrue(next.toString().compareTo(previous.toString()) > 0);
+            previous = next;
+        }
+    }
+
+    @Test
+    void usesTheVersion7Layout() {
+        long before = System.currentTimeMillis();
+        UUID id = TimeOrderedIds.next();
+        long after = System.currentTimeMillis();
+
+        assertEquals(7, id.version());
+        assertEquals(2, id.variant());
+        assertTrue(TimeOrderedIds.timestampOf(id) >= before, "timestamp before creation");
+        // Only ahead of the clock if the sequence had to borrow from the next millisecond
+        assertTrue(TimeOrderedIds.timestampOf(id) <= after + 1000, "timestamp far after creation");
+    }
+
+    @Test
+    void concurrentCallersGetUniqueIncreasingIds() throws Exception {
+        int threads = 8;
+        int perThread = 20000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Callable<List<UUID>>> tasks = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                tasks.add(() -> {
+                    List<UUID> ids = new ArrayList<>(perThread);
+                    for (int i = 0; i < perThread; i++) {
+                        ids.add(TimeOrderedIds.next());
+                    }
+                    return ids;
+                });
+            }
+
+            Set<UUID> all = new HashSet<>();
+            for (Future<List<UUID>> future : executor.invokeAll(tasks)) {
+                List<UUID> ids = future.get();
+                for (int i = 1; i < ids.size(); i++) {
+                    assertTrue(ids.get(i).compareTo(ids.get(i - 1)) > 0);
+                }
+                all.addAll(ids);
+            }
+            assertEquals(threads * perThread, all.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -5,10 +5,10 @@ import java.util.logging.Logger;
 import java.time.LocalDateTime;
 import java.util.concurrent.CompletableFuture;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import common.threads.VirtualThreads;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.ProducerConfig;
@@ -74,7 +74,7 @@ public class OrderPlacedEventPublisher {
 
     public OrderPlacedEventPublisher() {
         this.producer = createKafkaProducer();
-        this.executorService = Executors.newFixedThreadPool(10);  // Create a thread pool for asynchronous publishing
+        this.executorService = VirtualThreads.newExecutor("order-placed-publisher", 10);  // Blocks on producer acks; virtual threads when enabled
     }
 
     // Create the Kafka producer with appropriate configurations
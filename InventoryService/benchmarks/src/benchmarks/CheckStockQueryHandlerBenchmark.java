@@ -0,0 +1,69 @@
+package benchmarks;
+
+import application.dtos.StockLevelDTO;
+import application.queries.CheckStockQueryHandler;
+import benchmarks.support.InMemoryProductRepository;
+import benchmarks.support.InMemoryStockLevels;
+import core.valueobjects.ProductID;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stock checks against a warm stock level cache, spread across the catalogue and concentrated on one hot product.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class CheckStockQueryHandlerBenchmark {
+
+    private static final int PRODUCT_COUNT = 10_000;
+
+    private CheckStockQueryHandler handler;
+    private ProductID[] ids;
+
+    @Setup
+    public void setUp() {
+        InMemoryProductRepository productRepository = new InMemoryProductRepository();
+        List<ProductID> seeded = productRepository.seed(PRODUCT_COUNT);
+        ids = seeded.toArray(new ProductID[0]);
+        handler = new CheckStockQueryHandler(productRepository, InMemoryStockLevels.create(seeded, 1_000_000));
+    }
+
+    private ProductID randomId() {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+
+    @Benchmark
+    @Threads(1)
+    public StockLevelDTO spreadSingleThread() throws Exception {
+        return handler.handle(randomId());
+    }
+
+    @Benchmark
+    @Threads(8)
+    public StockLevelDTO spreadEightThreads() throws Exception {
+        return handler.handle(randomId());
+    }
+
+    @Benchmark
+    @Threads(8)
+    public StockLevelDTO hotProductEightThreads() throws Exception {
+        return handler.handle(ids[0]);
+    }
+}
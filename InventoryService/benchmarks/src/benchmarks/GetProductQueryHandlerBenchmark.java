@@ -0,0 +1,79 @@
+package benchmarks;
+
+import application.dtos.ProductDTO;
+import application.dtos.VersionedProductDTO;
+import application.queries.GetProductQueryHandler;
+import application.queries.ProductVersionRegistry;
+import benchmarks.support.InMemoryProductRepository;
+import core.valueobjects.ProductID;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Product reads: repository lookup plus ProductEntity to ProductDTO mapping, and the in-memory ETag revalidation path.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class GetProductQueryHandlerBenchmark {
+
+    private static final int PRODUCT_COUNT = 10_000;
+
+    private GetProductQueryHandler handler;
+    private ProductID[] ids;
+
+    @Setup
+    public void setUp() {
+        InMemoryProductRepository repository = new InMemoryProductRepository();
+        List<ProductID> seeded = repository.seed(PRODUCT_COUNT);
+        ids = seeded.toArray(new ProductID[0]);
+        handler = new GetProductQueryHandler(repository, new ProductVersionRegistry(1000));
+        for (ProductID id : ids) {
+            handler.handleVersioned(id);
+        }
+    }
+
+    private ProductID randomId() {
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+
+    @Benchmark
+    @Threads(1)
+    public ProductDTO handleSingleThread() {
+        return handler.handle(randomId());
+    }
+
+    @Benchmark
+    @Threads(8)
+    public ProductDTO handleEightThreads() {
+        return handler.handle(randomId());
+    }
+
+    @Benchmark
+    @Threads(1)
+    public VersionedProductDTO handleVersioned() {
+        return handler.handleVersioned(randomId());
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String revalidateFromMemory() {
+        return handler.currentETag(randomId());
+    }
+}
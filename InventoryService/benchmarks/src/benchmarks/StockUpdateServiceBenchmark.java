@@ -0,0 +1,81 @@
+package benchmarks;
+
+import benchmarks.support.InMemoryProductRepository;
+import benchmarks.support.InMemoryStockLevels;
+import benchmarks.support.NoOpInventoryEventPublisher;
+import core.services.StockUpdateService;
+import core.valueobjects.ProductID;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reserve-and-release cycles through StockUpdateService. Each invocation reserves one unit and releases it again,
+ * so stock never runs out regardless of run length. The hot-product variants show contention on a single row.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+@State(Scope.Benchmark)
+public class StockUpdateServiceBenchmark {
+
+    private static final int PRODUCT_COUNT = 1_000;
+
+    private StockUpdateService stockUpdateService;
+    private ProductID[] ids;
+
+    @Setup
+    public void setUp() {
+        InMemoryProductRepository productRepository = new InMemoryProductRepository();
+        List<ProductID> seeded = productRepository.seed(PRODUCT_COUNT);
+        ids = seeded.toArray(new ProductID[0]);
+        stockUpdateService = new StockUpdateService(
+                productRepository,
+                InMemoryStockLevels.create(seeded, 1_000_000),
+                new NoOpInventoryEventPublisher(),
+                null);
+    }
+
+    private void reserveAndRelease(ProductID productId) {
+        stockUpdateService.reserveStock(productId, 1);
+        stockUpdateService.releaseStock(productId, 1);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void spreadSingleThread() {
+        reserveAndRelease(ids[ThreadLocalRandom.current().nextInt(ids.length)]);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void spreadEightThreads() {
+        reserveAndRelease(ids[ThreadLocalRandom.current().nextInt(ids.length)]);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void hotProductSingleThread() {
+        reserveAndRelease(ids[0]);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void hotProductEightThreads() {
+        reserveAndRelease(ids[0]);
+    }
+}
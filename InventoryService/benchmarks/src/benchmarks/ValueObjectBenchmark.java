@@ -0,0 +1,91 @@
+package benchmarks;
+
+import core.valueobjects.ProductID;
+import core.valueobjects.StockLevel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ProductID hashing and StockLevel arithmetic, the building blocks of every cache lookup and stock change.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class ValueObjectBenchmark {
+
+    @Param({"1024", "65536"})
+    public int productCount;
+
+    private ProductID[] ids;
+    private String[] rawIds;
+    private Map<ProductID, Integer> stockByProduct;
+    private StockLevel stockLevel;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        ids = new ProductID[productCount];
+        rawIds = new String[productCount];
+        stockByProduct = new HashMap<>();
+        for (int i = 0; i < productCount; i++) {
+            rawIds[i] = UUID.randomUUID().toString();
+            ids[i] = ProductID.of(rawIds[i]);
+            stockByProduct.put(ids[i], i);
+        }
+        stockLevel = new StockLevel(1_000, 100);
+    }
+
+    private int next() {
+        cursor = (cursor + 1) & (productCount - 1);
+        return cursor;
+    }
+
+    @Benchmark
+    public int productIdHashCode() {
+        return ids[next()].hashCode();
+    }
+
+    @Benchmark
+    public Integer productIdMapLookup() {
+        return stockByProduct.get(ids[next()]);
+    }
+
+    @Benchmark
+    public Integer productIdParseAndLookup() {
+        return stockByProduct.get(ProductID.of(rawIds[next()]));
+    }
+
+    @Benchmark
+    public void stockLevelReserveRelease(Blackhole blackhole) {
+        StockLevel reserved = stockLevel.reserveStock(5);
+        blackhole.consume(reserved.releaseReservedStock(5));
+    }
+
+    @Benchmark
+    public StockLevel stockLevelAddReduce() {
+        return stockLevel.addStock(10).reduceStock(10);
+    }
+
+    @Benchmark
+    public int stockLevelAvailable() {
+        return stockLevel.getAvailableStock();
+    }
+}
@@ -0,0 +1,153 @@
+package benchmarks.support;
+
+import core.entities.ProductEntity;
+import core.repositories.ProductRepository;
+import core.valueobjects.ProductID;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Map-backed stand-in for ProductRepositoryImpl, so benchmarks measure handler and mapping cost
+ * rather than database round trips.
+ */
+public class InMemoryProductRepository implements ProductRepository {
+
+    private final Map<ProductID, ProductEntity> products = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a repository seeded with the given number of products.
+     *
+     * @param count Number of products to create.
+     * @return The product IDs, in creation order.
+     */
+    public List<ProductID> seed(int count) {
+        List<ProductID> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ProductEntity product = new ProductEntity();
+            product.setName("Product " + i);
+            product.setDescription("Benchmark product number " + i);
+            product.setPrice(BigDecimal.valueOf(1000 + i, 2));
+            product.setStockLevel(1_000_000);
+            product.setCategory("category-" + (i % 16));
+            product.setSku("SKU-" + i);
+            ProductID id = ProductID.of(product.getId().toString());
+            products.put(id, product);
+            ids.add(id);
+        }
+        return ids;
+    }
+
+    @Override
+    public ProductEntity save(ProductEntity product) {
+        products.put(ProductID.of(product.getId().toString()), product);
+        return product;
+    }
+
+    @Override
+    public Optional<ProductEntity> findById(ProductID productId) {
+        return Optional.ofNullable(products.get(productId));
+    }
+
+    @Override
+    public List<ProductEntity> findAll() {
+        return new ArrayList<>(products.values());
+    }
+
+    @Override
+    public List<ProductEntity> findByName(String name) {
+        return products.values().stream()
+                .filter(p -> p.getName().contains(name))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void deleteById(ProductID productId) {
+        products.remove(productId);
+    }
+
+    @Override
+    public void updateStockLevel(ProductID productId, int newStockLevel) {
+        ProductEntity product = products.get(productId);
+        if (product != null) {
+            product.setStockLevel(newStockLevel);
+        }
+    }
+
+    @Override
+    public List<ProductEntity> findLowStockProducts(int threshold) {
+        return products.values().stream()
+                .filter(p -> p.getStockLevel() < threshold)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<ProductEntity> findProductsByCategory(String category) {
+        return products.values().stream()
+                .filter(p -> category.equals(p.getCategory()))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public long countProducts() {
+        return products.size();
+    }
+
+    @Override
+    public void updateProductDetails(ProductEntity product) {
+        save(product);
+    }
+
+    @Override
+    public List<ProductEntity> searchProducts(String searchTerm) {
+        return findByName(searchTerm);
+    }
+
+    @Override
+    public boolean existsById(ProductID productId) {
+        return products.containsKey(productId);
+    }
+
+    @Override
+    public void bulkUpdateStockLevel(List<ProductID> productIds, int newStockLevel) {
+        productIds.forEach(id -> updateStockLevel(id, newStockLevel));
+    }
+
+    @Override
+    public List<ProductEntity> findProductsByPriceRange(double minPrice, double maxPrice) {
+        return products.values().stream()
+                .filter(p -> p.getPrice().doubleValue() >= minPrice && p.getPrice().doubleValue() <= maxPrice)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<ProductEntity> findProductsCreatedAfter(Date date) {
+        return new ArrayList<>();
+    }
+
+    @Override
+    public void batchDeleteProducts(List<ProductID> productIds) {
+        productIds.forEach(products::remove);
+    }
+
+    @Override
+    public List<ProductEntity> findDiscountedProducts(double discountThreshold) {
+        return new ArrayList<>();
+    }
+
+    @Override
+    public List<ProductEntity> findProductsByTags(List<String> tags) {
+        return new ArrayList<>();
+    }
+
+    @Override
+    public List<ProductEntity> findFeaturedProducts() {
+        return new ArrayList<>();
+    }
+}
@@ -0,0 +1,50 @@
+package benchmarks.support;
+
+import core.repositories.StockLevelRepository;
+import core.valueobjects.ProductID;
+import org.h2.jdbcx.JdbcDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Builds a StockLevelRepository on a private in-memory H2 database, so the real JDBC and cache code
+ * runs without an external PostgreSQL instance.
+ */
+public final class InMemoryStockLevels {
+
+    private static final AtomicInteger DATABASE_COUNTER = new AtomicInteger();
+
+    private InMemoryStockLevels() {
+    }
+
+    public static StockLevelRepository create(List<ProductID> productIds, int initialQuantity) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:stock" + DATABASE_COUNTER.incrementAndGet() + ";DB_CLOSE_DELAY=-1");
+        seed(dataSource, productIds, initialQuantity);
+        return new StockLevelRepository(dataSource);
+    }
+
+    private static void seed(DataSource dataSource, List<ProductID> productIds, int initialQuantity) {
+        try (Connection conn = dataSource.getConnection()) {
+            try (Statement ddl = conn.createStatement()) {
+                ddl.execute("CREATE TABLE stock_levels (product_id VARCHAR(36) PRIMARY KEY, stock_quantity INT NOT NULL)");
+            }
+            try (PreparedStatement insert = conn.prepareStatement("INSERT INTO stock_levels (product_id, stock_quantity) VALUES (?, ?)")) {
+                for (ProductID productId : productIds) {
+                    insert.setString(1, productId.getValue());
+                    insert.setInt(2, initialQuantity);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to seed in-memory stock levels", e);
+        }
+    }
+}
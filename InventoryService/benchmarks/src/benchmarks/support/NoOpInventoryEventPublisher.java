@@ -0,0 +1,18 @@
+package benchmarks.support;
+
+import core.valueobjects.ProductID;
+import infrastructure.messaging.InventoryEventPublisher;
+
+/**
+ * Event publisher that drops every event, keeping Kafka out of the measured path.
+ */
+public class NoOpInventoryEventPublisher extends InventoryEventPublisher {
+
+    public NoOpInventoryEventPublisher() {
+        super(null);
+    }
+
+    public void publishStockUpdateEvent(ProductID productId, int quantity) {
+        // Intentionally empty
+    }
+}
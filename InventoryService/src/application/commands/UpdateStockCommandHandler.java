@@ -6,10 +6,14 @@ import core.repositories.ProductRepository;
 import core.repositories.StockLevelRepository;
 import core.services.StockUpdateService;
 import infrastructure.messaging.InventoryEventPublisher;
+import application.dtos.StockAdjustmentDTO;
 import application.dtos.StockLevelDTO;
 import valueobjects.ProductID;
 import valueobjects.StockLevel;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public class UpdateStockCommandHandler {
@@ -59,6 +63,55 @@ public class UpdateStockCommandHandler {
         inventoryEventPublisher.publishStockUpdatedEvent(stockLevel.toDTO());
     }
 
+    /**
+     * Applies a list of stock adjustments all-or-nothing. Entries for the same product are merged first.
+     *
+     * @param adjustments The signed stock changes to apply.
+     * @return The resulting quantity per product ID.
+     */
+    public Map<String, Integer> adjustStockAtomically(List<StockAdjustmentDTO> adjustments) {
+        return adjustStockAtomically(adjustments, null);
+    }
+
+    /**
+     * Applies a list of stock adjustments all-or-nothing under a reservation id, which
+     * {@link #releaseReservation} can later undo. Reusing a reservation id applies nothing.
+     *
+     * @param reservationId The reservation id, or null for a plain adjustment.
+     * @return The resulting quantity per product ID; empty if the reservation id was already used.
+     */
+    public Map<String, Integer> adjustStockAtomically(List<StockAdjustmentDTO> adjustments, String reservationId) {
+        Map<ProductID, Integer> deltas = new LinkedHashMap<>();
+        for (StockAdjustmentDTO adjustment : adjustments) {
+            deltas.merge(new ProductID(adjustment.getProductId()), adjustment.getQuantityChange(), Integer::sum);
+        }
+        return toResult(stockUpdateService.adjustStockAtomically(deltas, reservationId));
+    }
+
+    /**
+     * Returns the stock taken under a reservation id, at most once.
+     *
+     * @return The resulting quantity per product ID whose stock was returned.
+     */
+    public Map<String, Integer> releaseReservation(String reservationId) {
+        return toResult(stockUpdateService.releaseReservation(reservationId));
+    }
+
+    private static Map<String, Integer> toResult(Map<ProductID, Integer> quantities) {
+        Map<String, Integer> result = new LinkedHashMap<>();
+        quantities.forEach((productId, quantity) -> result.put(productId.getValue(), quantity));
+        return result;
+    }
+
+    public boolean transferStock(ProductID fromProductId, ProductID toProductId, int quantity) {
+        try {
+            stockUpdateService.transferStock(fromProductId, toProductId, quantity);
+            return true;
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return false;
+        }
+    }
+
     // Inner class to represent the command
     public static class UpdateStockCommand {
         private final String productId;
@@ -0,0 +1,67 @@
+package application.dtos;
+
+import java.io.Serializable;
+import java.util.Objects;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+
+/**
+ * Data Transfer Object for a single signed stock change within an atomic multi-product adjustment.
+ */
+public class StockAdjustmentDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @NotNull(message = "Product ID cannot be null")
+    @Size(min = 1, max = 50, message = "Product ID must be between 1 and 50 characters")
+    private String productId;
+
+    private int quantityChange;
+
+    public StockAdjustmentDTO() {
+        // Default constructor
+    }
+
+    public StockAdjustmentDTO(String productId, int quantityChange) {
+        this.productId = productId;
+        this.quantityChange = quantityChange;
+    }
+
+    public String getProductId() {
+        return productId;
+    }
+
+    public void setProductId(String productId) {
+        this.productId = productId;
+    }
+
+    public int getQuantityChange() {
+        return quantityChange;
+    }
+
+    public void setQuantityChange(int quantityChange) {
+        this.quantityChange = quantityChange;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        StockAdjustmentDTO that = (StockAdjustmentDTO) o;
+        return quantityChange == that.quantityChange &&
+                Objects.equals(productId, that.productId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(productId, quantityChange);
+    }
+
+    @Override
+    public String toString() {
+        return "StockAdjustmentDTO{" +
+                "productId='" + productId + '\'' +
+                ", quantityChange=" + quantityChange +
+                '}';
+    }
+}
@@ -0,0 +1,87 @@
+package application.dtos;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Data Transfer Object for one line of a batch availability check.
+ * Requests carry productId and requestedQuantity; responses additionally carry the available quantity and verdict.
+ */
+public class StockAvailabilityDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private String productId;
+    private int requestedQuantity;
+    private int availableQuantity;
+    private boolean available;
+
+    public StockAvailabilityDTO() {
+        // Default constructor
+    }
+
+    public StockAvailabilityDTO(String productId, int requestedQuantity, int availableQuantity, boolean available) {
+        this.productId = productId;
+        this.requestedQuantity = requestedQuantity;
+        this.availableQuantity = availableQuantity;
+        this.available = available;
+    }
+
+    public String getProductId() {
+        return productId;
+    }
+
+    public void setProductId(String productId) {
+        this.productId = productId;
+    }
+
+    public int getRequestedQuantity() {
+        return requestedQuantity;
+    }
+
+    public void setRequestedQuantity(int requestedQuantity) {
+        this.requestedQuantity = requestedQuantity;
+    }
+
+    public int getAvailableQuantity() {
+        return availableQuantity;
+    }
+
+    public void setAvailableQuantity(int availableQuantity) {
+        this.availableQuantity = availableQuantity;
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+
+    public void setAvailable(boolean available) {
+        this.available = available;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        StockAvailabilityDTO that = (StockAvailabilityDTO) o;
+        return requestedQuantity == that.requestedQuantity &&
+                availableQuantity == that.availableQuantity &&
+                available == that.available &&
+                Objects.equals(productId, that.productId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(productId, requestedQuantity, availableQuantity, available);
+    }
+
+    @Override
+    public String toString() {
+        return "StockAvailabilityDTO{" +
+                "productId='" + productId + '\'' +
+                ", requestedQuantity=" + requestedQuantity +
+                ", availableQuantity=" + availableQuantity +
+                ", available=" + available +
+                '}';
+    }
+}
@@ -0,0 +1,65 @@
+package application.dtos;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * Data Transfer Object for a single stock change pushed to feed subscribers.
+ */
+public class StockChangeDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long sequence;
+    private final String productId;
+    private final String category;
+    private final Integer previousQuantity;
+    private final int newQuantity;
+    private final Instant changedAt;
+
+    public StockChangeDTO(long sequence, String productId, String category, Integer previousQuantity,
+                          int newQuantity, Instant changedAt) {
+        this.sequence = sequence;
+        this.productId = productId;
+        this.category = category;
+        this.previousQuantity = previousQuantity;
+        this.newQuantity = newQuantity;
+        this.changedAt = changedAt;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public String getProductId() {
+        return productId;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public Integer getPreviousQuantity() {
+        return previousQuantity;
+    }
+
+    public int getNewQuantity() {
+        return newQuantity;
+    }
+
+    public Instant getChangedAt() {
+        return changedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "StockChangeDTO{" +
+                "sequence=" + sequence +
+                ", productId='" + productId + '\'' +
+                ", category='" + category + '\'' +
+                ", previousQuantity=" + previousQuantity +
+                ", newQuantity=" + newQuantity +
+                ", changedAt=" + changedAt +
+                '}';
+    }
+}
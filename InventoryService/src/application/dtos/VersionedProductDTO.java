@@ -0,0 +1,31 @@
+package application.dtos;
+
+/**
+ * Data Transfer Object pairing a product with the entity tag of the version it was read at.
+ */
+public class VersionedProductDTO {
+
+    private final ProductDTO product;
+    private final String eTag;
+
+    public VersionedProductDTO(ProductDTO product, String eTag) {
+        this.product = product;
+        this.eTag = eTag;
+    }
+
+    public ProductDTO getProduct() {
+        return product;
+    }
+
+    public String getETag() {
+        return eTag;
+    }
+
+    @Override
+    public String toString() {
+        return "VersionedProductDTO{" +
+                "product=" + product +
+                ", eTag='" + eTag + '\'' +
+                '}';
+    }
+}
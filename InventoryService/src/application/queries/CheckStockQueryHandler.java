@@ -4,12 +4,16 @@ import com.website.inventoryservice.core.entities.ProductEntity;
 import com.website.inventoryservice.core.entities.StockLevelEntity;
 import com.website.inventoryservice.core.repositories.ProductRepository;
 import com.website.inventoryservice.core.repositories.StockLevelRepository;
+import com.website.inventoryservice.application.dtos.StockAvailabilityDTO;
 import com.website.inventoryservice.application.dtos.StockLevelDTO;
 import com.website.inventoryservice.core.valueobjects.ProductID;
 import com.website.inventoryservice.application.exceptions.ProductNotFoundException;
 import com.website.inventoryservice.application.exceptions.StockLevelNotFoundException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
@@ -96,6 +100,42 @@ public class CheckStockQueryHandler {
                 .toList();
     }
 
+    /**
+     * Checks availability for a whole cart in one call. Quantities for the same product are summed
+     * before comparing against stock, and stock levels are read once per distinct product.
+     *
+     * @param requests One entry per cart line with productId and requestedQuantity.
+     * @return One entry per request, in request order, with availableQuantity and the availability verdict.
+     */
+    public List<StockAvailabilityDTO> handleAvailability(List<StockAvailabilityDTO> requests) {
+        logger.info("Handling batch availability check for {} items", requests.size());
+
+        Map<String, Integer> requestedByProduct = new HashMap<>();
+        for (StockAvailabilityDTO request : requests) {
+            requestedByProduct.merge(request.getProductId(), request.getRequestedQuantity(), Integer::sum);
+        }
+
+        Map<String, Integer> availableByProduct = new HashMap<>();
+        for (String productId : requestedByProduct.keySet()) {
+            int available = 0;
+            if (ProductID.isValid(productId)) {
+                available = stockLevelRepository.findByProductID(ProductID.of(productId))
+                        .map(StockLevelEntity::getStockLevel)
+                        .orElse(0);
+            }
+            availableByProduct.put(productId, available);
+        }
+
+        List<StockAvailabilityDTO> results = new ArrayList<>(requests.size());
+        for (StockAvailabilityDTO request : requests) {
+            int available = availableByProduct.get(request.getProductId());
+            boolean isAvailable = request.getRequestedQuantity() > 0
+                    && requestedByProduct.get(request.getProductId()) <= available;
+            results.add(new StockAvailabilityDTO(request.getProductId(), request.getRequestedQuantity(), available, isAvailable));
+        }
+        return results;
+    }
+
     /**
      * Silently handles stock checking, ignoring exceptions for batch operations.
      *
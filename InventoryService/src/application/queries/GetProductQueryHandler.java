@@ -3,6 +3,7 @@ package application.queries;
 import core.entities.ProductEntity;
 import core.repositories.ProductRepository;
 import application.dtos.ProductDTO;
+import application.dtos.VersionedProductDTO;
 import core.valueobjects.ProductID;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,11 +17,13 @@ import java.util.Optional;
 public class GetProductQueryHandler {
 
     private final ProductRepository productRepository;
+    private final ProductVersionRegistry versionRegistry;
     private static final Logger logger = LoggerFactory.getLogger(GetProductQueryHandler.class);
 
     @Inject
-    public GetProductQueryHandler(ProductRepository productRepository) {
+    public GetProductQueryHandler(ProductRepository productRepository, ProductVersionRegistry versionRegistry) {
         this.productRepository = productRepository;
+        this.versionRegistry = versionRegistry;
     }
 
     /**
@@ -30,18 +33,45 @@ public class GetProductQueryHandler {
      * @return ProductDTO containing the product details, or null if not found.
      */
     public ProductDTO handle(ProductID productId) {
+        VersionedProductDTO versioned = handleVersioned(productId);
+        return versioned != null ? versioned.getProduct() : null;
+    }
+
+    /**
+     * Retrieves the product details together with the entity tag of the version that was read,
+     * and records that version so later revalidations can be answered from memory.
+     *
+     * @param productId The unique identifier of the product.
+     * @return VersionedProductDTO containing the product and its entity tag, or null if not found.
+     */
+    public VersionedProductDTO handleVersioned(ProductID productId) {
         logger.info("Handling GetProductQuery for productId: {}", productId.getValue());
 
+        long stamp = versionRegistry.stamp(productId.getValue());
         Optional<ProductEntity> productEntityOpt = productRepository.findById(productId);
         if (productEntityOpt.isPresent()) {
             logger.info("Product found for productId: {}", productId.getValue());
-            return mapToDTO(productEntityOpt.get());
+            ProductEntity productEntity = productEntityOpt.get();
+            versionRegistry.record(productId.getValue(), productEntity.getVersion(), stamp);
+            String eTag = ProductVersionRegistry.toETag(productId.getValue(), productEntity.getVersion());
+            return new VersionedProductDTO(mapToDTO(productEntity), eTag);
         } else {
             logger.warn("Product not found for productId: {}", productId.getValue());
             return null;
         }
     }
 
+    /**
+     * Returns the entity tag of the last known product version without reading the repository.
+     *
+     * @param productId The unique identifier of the product.
+     * @return The entity tag, or null if the version is not known and the product must be read.
+     */
+    public String currentETag(ProductID productId) {
+        Integer version = versionRegistry.currentVersion(productId.getValue());
+        return version != null ? ProductVersionRegistry.toETag(productId.getValue(), version) : null;
+    }
+
     /**
      * Maps the ProductEntity to a ProductDTO.
      * 
@@ -104,6 +134,7 @@ public class GetProductQueryHandler {
             ProductEntity productEntity = productEntityOpt.get();
             productEntity.setStockLevel(newStockLevel);
             productRepository.save(productEntity);
+            versionRegistry.invalidate(productId.getValue());
             logger.info("Stock level updated successfully for productId: {}", productId.getValue());
             return true;
         } else {
@@ -124,6 +155,7 @@ public class GetProductQueryHandler {
 
         if (productEntityOpt.isPresent()) {
             productRepository.delete(productEntityOpt.get());
+            versionRegistry.invalidate(productId.getValue());
             logger.info("Product deleted successfully for productId: {}", productId.getValue());
             return true;
         } else {
@@ -0,0 +1,146 @@
+package application.queries;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-memory map of product ID to the last known entity version.
+ * Lets conditional product reads be revalidated without touching the database.
+ *
+ * Writes made through this instance invalidate the version at once, and other replicas invalidate it when they
+ * receive the change from {@code ProductInvalidationBroadcaster}. Every version is still only trusted for
+ * {@code inventory.etag.version-ttl-ms} after it was read, which bounds staleness if a broadcast is lost.
+ */
+@Component
+public class ProductVersionRegistry {
+
+    // Invalidation stamps are kept per stripe of products, so a write only discards concurrent reads of
+    // products that share its stripe rather than of every product
+    private static final int STAMP_STRIPES = 1024;
+
+    private final Map<String, KnownVersion> versions = new ConcurrentHashMap<>();
+    private final AtomicLongArray stamps = new AtomicLongArray(STAMP_STRIPES);
+    private final long ttlNanos;
+
+    public ProductVersionRegistry(@Value("${inventory.etag.version-ttl-ms:30000}") long ttlMillis) {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+    }
+
+    /**
+     * Returns a stamp to be taken before reading a product from the repository.
+     * A version recorded with a stamp older than the product's latest invalidation is discarded,
+     * so a slow reader can never reinstate a version that a concurrent write replaced.
+     *
+     * @param productId The product identifier.
+     * @return The product's current invalidation stamp.
+     */
+    public long stamp(String productId) {
+        return stamps.get(stripe(productId));
+    }
+
+    /**
+     * Records the version of a product that was read from the repository.
+     *
+     * @param productId The product identifier.
+     * @param version The entity version that was read.
+     * @param stamp The stamp taken before the read.
+     */
+    public void record(String productId, int version, long stamp) {
+        if (ttlNanos <= 0 || stamps.get(stripe(productId)) != stamp) {
+            return;
+        }
+        KnownVersion known = new KnownVersion(version, System.nanoTime() + ttlNanos);
+        versions.merge(productId, known, (current, read) -> read.version >= current.version ? read : current);
+    }
+
+    /**
+     * Returns the last known version of a product, or null if it must be read from the repository.
+     *
+     * @param productId The product identifier.
+     * @return The cached version, or null if unknown or expired.
+     */
+    public Integer currentVersion(String productId) {
+        KnownVersion known = versions.get(productId);
+        if (known == null) {
+            return null;
+        }
+        if (System.nanoTime() - known.expiresAtNanos >= 0) {
+            versions.remove(productId, known);
+            return null;
+        }
+        return known.version;
+    }
+
+    /**
+     * Forgets the version of a product after it has been modified or deleted.
+     *
+     * @param productId The product identifier.
+     */
+    public void invalidate(String productId) {
+        stamps.incrementAndGet(stripe(productId));
+        versions.remove(productId);
+    }
+
+    /**
+     * Forgets all versions, used after bulk updates that touch many products at once.
+     */
+    public void invalidateAll() {
+        for (int i = 0; i < STAMP_STRIPES; i++) {
+            stamps.incrementAndGet(i);
+        }
+        versions.clear();
+    }
+
+    /**
+     * Builds the strong entity tag for a product version.
+     *
+     * @param productId The product identifier.
+     * @param version The entity version.
+     * @return The quoted entity tag.
+     */
+    public static String toETag(String productId, int version) {
+        return "\"" + productId + "-" + version + "\"";
+    }
+
+    /**
+     * Weak comparison of an If-None-Match header against a strong entity tag, as required for GET.
+     *
+     * @param ifNoneMatch The header value.
+     * @param eTag The current entity tag.
+     * @return true if the client's copy is current.
+     */
+    public static boolean matchesIfNoneMatch(String ifNoneMatch, String eTag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int stripe(String productId) {
+        return (productId.hashCode() & 0x7fffffff) % STAMP_STRIPES;
+    }
+
+    private static final class KnownVersion {
+        private final int version;
+        private final long expiresAtNanos;
+
+        private KnownVersion(int version, long expiresAtNanos) {
+            this.version = version;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package core.repositories;
+
+import core.valueobjects.ProductID;
+
+/**
+ * Callback for product changes written through {@link ProductRepository}.
+ */
+public interface ProductChangeListener {
+
+    /**
+     * Called after a product change has been committed.
+     *
+     * @param productId The product that was modified or deleted, or null if a bulk change touched many products.
+     */
+    void onProductChanged(ProductID productId);
+}
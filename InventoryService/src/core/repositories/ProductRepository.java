@@ -241,4 +241,18 @@ public interface ProductRepository {
      * @param supplier The new supplier information to set.
      */
     void updateSupplier(Long id, String supplier);
+
+    /**
+     * Registers a listener notified after each committed product change.
+     *
+     * @param listener The listener to add.
+     */
+    void addChangeListener(ProductChangeListener listener);
+
+    /**
+     * Removes a listener added with {@link #addChangeListener}.
+     *
+     * @param listener The listener to remove.
+     */
+    void removeChangeListener(ProductChangeListener listener);
 }
\ No newline at end of file
@@ -0,0 +1,18 @@
+package core.repositories;
+
+import core.valueobjects.ProductID;
+
+/**
+ * Callback for stock quantity changes written through {@link StockLevelRepository}.
+ */
+public interface StockChangeListener {
+
+    /**
+     * Called after a stock change has been committed.
+     *
+     * @param productId The product whose stock changed.
+     * @param previousQuantity The quantity before the change, or null if it was not known.
+     * @param newQuantity The quantity after the change.
+     */
+    void onStockChanged(ProductID productId, Integer previousQuantity, int newQuantity);
+}
@@ -1,8 +1,16 @@
 package core.repositories;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.Map;
 
 import core.entities.StockLevelEntity;
@@ -15,8 +23,22 @@ import java.sql.SQLException;
 
 public class StockLevelRepository {
 
+    private static final String RESERVED = "RESERVED";
+    private static final String RELEASED = "RELEASED";
+    private static final String CLAIM_RESERVATION =
+            "INSERT INTO stock_reservations (reservation_id, status) VALUES (?, ?) ON CONFLICT (reservation_id) DO NOTHING";
+    private static final String LOCK_RESERVATION =
+            "SELECT status FROM stock_reservations WHERE reservation_id = ? FOR UPDATE";
+    private static final String RELEASE_RESERVATION =
+            "UPDATE stock_reservations SET status = 'RELEASED', updated_at = CURRENT_TIMESTAMP WHERE reservation_id = ?";
+    private static final String INSERT_RESERVATION_LINE =
+            "INSERT INTO stock_reservation_lines (reservation_id, product_id, quantity_change) VALUES (?, ?, ?)";
+    private static final String SELECT_RESERVATION_LINES =
+            "SELECT product_id, quantity_change FROM stock_reservation_lines WHERE reservation_id = ?";
+
     private final Map<ProductID, StockLevelEntity> stockLevelCache = new ConcurrentHashMap<>();
     private final DataSource dataSource;
+    private final List<StockChangeListener> changeListeners = new CopyOnWriteArrayList<>();
 
     public StockLevelRepository(DataSource dataSource) {
         this.dataSource = dataSource;
@@ -37,6 +59,21 @@ public class StockLevelRepository {
         }
     }
 
+    public void addChangeListener(StockChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    public void removeChangeListener(StockChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+
+    private void notifyChange(ProductID productId, StockLevelEntity previous, int newQuantity) {
+        Integer previousQuantity = previous != null ? previous.getStockQuantity() : null;
+        for (StockChangeListener listener : changeListeners) {
+            listener.onStockChanged(productId, previousQuantity, newQuantity);
+        }
+    }
+
     public Optional<StockLevelEntity> findStockByProductId(ProductID productId) {
         if (stockLevelCache.containsKey(productId)) {
             return Optional.of(stockLevelCache.get(productId));
@@ -78,19 +115,236 @@ public class StockLevelRepository {
             stmt.setInt(1, newQuantity);
             stmt.setString(2, productId.getValue());
             stmt.executeUpdate();
-            stockLevelCache.put(productId, new StockLevelEntity(productId, newQuantity));
+            StockLevelEntity previous = stockLevelCache.put(productId, new StockLevelEntity(productId, newQuantity));
+            notifyChange(productId, previous, newQuantity);
         } catch (SQLException e) {
             throw new RuntimeException("Error updating stock level for product ID: " + productId, e);
         }
     }
 
+    /**
+     * Applies a set of stock deltas all-or-nothing in a single transaction.
+     * Rows are locked in ascending product ID order so overlapping adjustments queue behind each other
+     * instead of deadlocking, and all updates are sent as one JDBC batch.
+     *
+     * @param deltas Quantity change per product; negative values remove stock.
+     * @return The resulting quantity per product.
+     * @throws IllegalArgumentException if a product has no stock level.
+     * @throws IllegalStateException if any product would go below zero; nothing is applied in that case.
+     */
+    public Map<ProductID, Integer> applyAdjustments(Map<ProductID, Integer> deltas) {
+        return applyAdjustments(deltas, null);
+    }
+
+    /**
+     * Applies stock deltas like {@link #applyAdjustments(Map)} and records them under a caller-chosen reservation
+     * id in the same transaction, so {@link #releaseReservation} can undo exactly what was applied. A reservation id
+     * that was already reserved or released applies nothing, which makes retries after a timeout safe and keeps a
+     * reservation that arrives after its own release from taking stock.
+     *
+     * @param reservationId The reservation id, or null to apply without recording.
+     * @return The resulting quantity per product; empty if the reservation id was already used.
+     */
+    public Map<ProductID, Integer> applyAdjustments(Map<ProductID, Integer> deltas, String reservationId) {
+        if (deltas.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        return inTransaction(conn -> {
+            if (reservationId != null && !claimReservation(conn, reservationId, RESERVED)) {
+                return Collections.<ProductID, Integer>emptyMap();
+            }
+            Map<String, Integer> current = lockQuantities(conn, deltas.keySet());
+            Map<ProductID, Integer> result = new HashMap<>();
+            for (ProductID productId : deltas.keySet()) {
+                Integer quantity = current.get(productId.getValue());
+                if (quantity == null) {
+                    throw new IllegalArgumentException("Stock level not found for product: " + productId);
+                }
+                int newQuantity = quantity + deltas.get(productId);
+                if (newQuantity < 0) {
+                    throw new IllegalStateException("Insufficient stock for product: " + productId);
+                }
+                result.put(productId, newQuantity);
+            }
+            writeQuantities(conn, result);
+            if (reservationId != null) {
+                recordReservationLines(conn, reservationId, deltas);
+            }
+            return result;
+        }, deltas.keySet().toString());
+    }
+
+    /**
+     * Undoes the stock deltas recorded under a reservation id, once. Releasing a reservation that was never
+     * recorded marks it released, so the reservation applies nothing if it arrives later.
+     *
+     * @return The resulting quantity per product whose stock was returned; empty if nothing was returned.
+     */
+    public Map<ProductID, Integer> releaseReservation(String reservationId) {
+        return inTransaction(conn -> {
+            String status = lockReservationStatus(conn, reservationId);
+            if (status == null && claimReservation(conn, reservationId, RELEASED)) {
+                return Collections.<ProductID, Integer>emptyMap();
+            }
+            if (status == null) {
+                // A concurrent reservation recorded it first; wait for it and release what it applied
+                status = lockReservationStatus(conn, reservationId);
+            }
+            if (!RESERVED.equals(status)) {
+                return Collections.<ProductID, Integer>emptyMap();
+            }
+
+            Map<ProductID, Integer> reserved = loadReservationLines(conn, reservationId);
+            Map<String, Integer> current = lockQuantities(conn, reserved.keySet());
+            Map<ProductID, Integer> result = new HashMap<>();
+            for (Map.Entry<ProductID, Integer> line : reserved.entrySet()) {
+                Integer quantity = current.get(line.getKey().getValue());
+                if (quantity != null) {
+                    result.put(line.getKey(), quantity - line.getValue());
+                }
+            }
+            writeQuantities(conn, result);
+            try (PreparedStatement update = conn.prepareStatement(RELEASE_RESERVATION)) {
+                update.setString(1, reservationId);
+                update.executeUpdate();
+            }
+            return result;
+        }, "reservation " + reservationId);
+    }
+
+    /**
+     * Runs work in one transaction and, after commit, refreshes the cache and notifies listeners of the returned
+     * quantities.
+     */
+    private Map<ProductID, Integer> inTransaction(TransactionWork work, String subject) {
+        try (Connection conn = dataSource.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                Map<ProductID, Integer> result = work.run(conn);
+                conn.commit();
+
+                for (Map.Entry<ProductID, Integer> entry : result.entrySet()) {
+                    StockLevelEntity previous = stockLevelCache.put(entry.getKey(), new StockLevelEntity(entry.getKey(), entry.getValue()));
+                    notifyChange(entry.getKey(), previous, entry.getValue());
+                }
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error applying stock adjustments for " + subject, e);
+        }
+    }
+
+    private interface TransactionWork {
+        Map<ProductID, Integer> run(Connection conn) throws SQLException;
+    }
+
+    /**
+     * Locks the stock rows of the given products in ascending product ID order and returns their quantities.
+     */
+    private static Map<String, Integer> lockQuantities(Connection conn, Collection<ProductID> productIds) throws SQLException {
+        Map<String, Integer> current = new HashMap<>();
+        if (productIds.isEmpty()) {
+            return current;
+        }
+        Set<String> ordered = new TreeSet<>();
+        for (ProductID productId : productIds) {
+            ordered.add(productId.getValue());
+        }
+        StringBuilder placeholders = new StringBuilder();
+        for (int i = 0; i < ordered.size(); i++) {
+            placeholders.append(i == 0 ? "?" : ", ?");
+        }
+        String lockSql = "SELECT product_id, stock_quantity FROM stock_levels WHERE product_id IN (" + placeholders
+                + ") ORDER BY product_id FOR UPDATE";
+        try (PreparedStatement lock = conn.prepareStatement(lockSql)) {
+            int index = 1;
+            for (String productId : ordered) {
+                lock.setString(index++, productId);
+            }
+            ResultSet rs = lock.executeQuery();
+            while (rs.next()) {
+                current.put(rs.getString("product_id"), rs.getInt("stock_quantity"));
+            }
+        }
+        return current;
+    }
+
+    private static void writeQuantities(Connection conn, Map<ProductID, Integer> quantities) throws SQLException {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        Map<String, Integer> ordered = new TreeMap<>();
+        quantities.forEach((productId, quantity) -> ordered.put(productId.getValue(), quantity));
+        try (PreparedStatement update = conn.prepareStatement("UPDATE stock_levels SET stock_quantity = ? WHERE product_id = ?")) {
+            for (Map.Entry<String, Integer> entry : ordered.entrySet()) {
+                update.setInt(1, entry.getValue());
+                update.setString(2, entry.getKey());
+                update.addBatch();
+            }
+            update.executeBatch();
+        }
+    }
+
+    /**
+     * Records a reservation id with the given status unless it is already known.
+     *
+     * @return false if the reservation id was already recorded.
+     */
+    private static boolean claimReservation(Connection conn, String reservationId, String status) throws SQLException {
+        try (PreparedStatement insert = conn.prepareStatement(CLAIM_RESERVATION)) {
+            insert.setString(1, reservationId);
+            insert.setString(2, status);
+            return insert.executeUpdate() == 1;
+        }
+    }
+
+    private static String lockReservationStatus(Connection conn, String reservationId) throws SQLException {
+        try (PreparedStatement select = conn.prepareStatement(LOCK_RESERVATION)) {
+            select.setString(1, reservationId);
+            ResultSet rs = select.executeQuery();
+            return rs.next() ? rs.getString(1) : null;
+        }
+    }
+
+    private static void recordReservationLines(Connection conn, String reservationId, Map<ProductID, Integer> deltas)
+            throws SQLException {
+        try (PreparedStatement insert = conn.prepareStatement(INSERT_RESERVATION_LINE)) {
+            for (Map.Entry<ProductID, Integer> delta : deltas.entrySet()) {
+                insert.setString(1, reservationId);
+                insert.setString(2, delta.getKey().getValue());
+                insert.setInt(3, delta.getValue());
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+    }
+
+    private static Map<ProductID, Integer> loadReservationLines(Connection conn, String reservationId) throws SQLException {
+        Map<ProductID, Integer> lines = new HashMap<>();
+        try (PreparedStatement select = conn.prepareStatement(SELECT_RESERVATION_LINES)) {
+            select.setString(1, reservationId);
+            ResultSet rs = select.executeQuery();
+            while (rs.next()) {
+                lines.put(new ProductID(rs.getString(1)), rs.getInt(2));
+            }
+        }
+        return lines;
+    }
+
     public void createStockLevel(ProductID productId, int initialQuantity) {
         try (Connection conn = dataSource.getConnection();
              PreparedStatement stmt = conn.prepareStatement("INSERT INTO stock_levels (product_id, stock_quantity) VALUES (?, ?)")) {
             stmt.setString(1, productId.getValue());
             stmt.setInt(2, initialQuantity);
             stmt.executeUpdate();
-            stockLevelCache.put(productId, new StockLevelEntity(productId, initialQuantity));
+            StockLevelEntity previous = stockLevelCache.put(productId, new StockLevelEntity(productId, initialQuantity));
+            notifyChange(productId, previous, initialQuantity);
         } catch (SQLException e) {
             throw new RuntimeException("Error creating stock level for product ID: " + productId, e);
         }
@@ -101,7 +355,8 @@ public class StockLevelRepository {
              PreparedStatement stmt = conn.prepareStatement("DELETE FROM stock_levels WHERE product_id = ?")) {
             stmt.setString(1, productId.getValue());
             stmt.executeUpdate();
-            stockLevelCache.remove(productId);
+            StockLevelEntity previous = stockLevelCache.remove(productId);
+            notifyChange(productId, previous, 0);
         } catch (SQLException e) {
             throw new RuntimeException("Error deleting stock level for product ID: " + productId, e);
         }
@@ -8,6 +8,8 @@ import valueobjects.ProductID;
 import valueobjects.StockLevel;
 import infrastructure.messaging.InventoryEventPublisher;
 import infrastructure.messaging.StockUpdateEventSubscriber;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
 import java.util.logging.Logger;
 import javax.transaction.Transactional;
@@ -71,9 +73,73 @@ public class StockUpdateService {
             throw new IllegalArgumentException("Product IDs and quantities length mismatch.");
         }
 
+        Map<ProductID, Integer> deltas = new LinkedHashMap<>();
         for (int i = 0; i < productIds.length; i++) {
-            updateStock(productIds[i], quantities[i]);
+            deltas.merge(productIds[i], quantities[i], Integer::sum);
         }
+        adjustStockAtomically(deltas);
+    }
+
+    /**
+     * Applies stock deltas across several products all-or-nothing, e.g. for transfers,
+     * kit assembly or cart-wide reservations. Deltas for the same product are expected
+     * to be merged by the caller.
+     *
+     * @param deltas Quantity change per product; negative values remove stock.
+     * @return The resulting quantity per product.
+     */
+    public Map<ProductID, Integer> adjustStockAtomically(Map<ProductID, Integer> deltas) {
+        return adjustStockAtomically(deltas, null);
+    }
+
+    /**
+     * Applies stock deltas all-or-nothing under a reservation id; applying the same id again, or after it was
+     * released, changes nothing.
+     *
+     * @param reservationId The reservation id, or null for a plain adjustment.
+     * @return The resulting quantity per product; empty if the reservation id was already used.
+     */
+    public Map<ProductID, Integer> adjustStockAtomically(Map<ProductID, Integer> deltas, String reservationId) {
+        Map<ProductID, Integer> result = stockLevelRepository.applyAdjustments(deltas, reservationId);
+        if (result.isEmpty()) {
+            return result;
+        }
+        for (Map.Entry<ProductID, Integer> entry : deltas.entrySet()) {
+            eventPublisher.publishStockUpdateEvent(entry.getKey(), entry.getValue());
+        }
+        LOGGER.info("Atomic stock adjustment applied to " + deltas.size() + " products");
+        return result;
+    }
+
+    /**
+     * Returns the stock taken under a reservation id. Safe to repeat, and safe to call when the reservation may
+     * never have been applied.
+     *
+     * @return The resulting quantity per product whose stock was returned.
+     */
+    public Map<ProductID, Integer> releaseReservation(String reservationId) {
+        Map<ProductID, Integer> result = stockLevelRepository.releaseReservation(reservationId);
+        for (Map.Entry<ProductID, Integer> entry : result.entrySet()) {
+            eventPublisher.publishStockUpdateEvent(entry.getKey(), entry.getValue());
+        }
+        if (!result.isEmpty()) {
+            LOGGER.info("Released stock reservation " + reservationId + " for " + result.size() + " products");
+        }
+        return result;
+    }
+
+    public void transferStock(ProductID fromProductId, ProductID toProductId, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Transfer quantity must be positive.");
+        }
+        if (fromProductId.equals(toProductId)) {
+            throw new IllegalArgumentException("Cannot transfer stock to the same product.");
+        }
+
+        Map<ProductID, Integer> deltas = new LinkedHashMap<>();
+        deltas.put(fromProductId, -quantity);
+        deltas.put(toProductId, quantity);
+        adjustStockAtomically(deltas);
     }
 
     public boolean hasSufficientStock(ProductID productId, int requiredQuantity) {
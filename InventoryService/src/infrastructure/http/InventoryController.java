@@ -4,10 +4,14 @@ import com.website.inventory.application.commands.CreateProductCommandHandler;
 import com.website.inventory.application.commands.UpdateStockCommandHandler;
 import com.website.inventory.application.queries.CheckStockQueryHandler;
 import com.website.inventory.application.queries.GetProductQueryHandler;
+import application.queries.ProductVersionRegistry;
 import com.website.inventory.application.dtos.ProductDTO;
 import com.website.inventory.application.dtos.StockLevelDTO;
+import com.website.inventory.application.dtos.VersionedProductDTO;
 import com.website.inventory.core.valueobjects.ProductID;
 import com.website.inventory.core.entities.ProductEntity;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -40,14 +44,27 @@ public class InventoryController {
     }
 
     @GetMapping("/product/{id}")
-    public ResponseEntity<ProductDTO> getProductById(@PathVariable String id) {
+    public ResponseEntity<ProductDTO> getProductById(@PathVariable String id,
+                                                     @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         ProductID productID = new ProductID(id);
-        ProductDTO product = getProductQueryHandler.getProductById(productID);
-        if (product != null) {
-            return new ResponseEntity<>(product, HttpStatus.OK);
-        } else {
+        if (ifNoneMatch != null) {
+            String knownETag = getProductQueryHandler.currentETag(productID);
+            if (knownETag != null && ProductVersionRegistry.matchesIfNoneMatch(ifNoneMatch, knownETag)) {
+                return notModified(knownETag);
+            }
+        }
+
+        VersionedProductDTO product = getProductQueryHandler.handleVersioned(productID);
+        if (product == null) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
+        if (ifNoneMatch != null && ProductVersionRegistry.matchesIfNoneMatch(ifNoneMatch, product.getETag())) {
+            return notModified(product.getETag());
+        }
+        return ResponseEntity.ok()
+                .eTag(product.getETag())
+                .cacheControl(CacheControl.noCache())
+                .body(product.getProduct());
     }
 
     @PostMapping("/product")
@@ -98,6 +115,13 @@ public class InventoryController {
         return new ResponseEntity<>("Inventory service is up and running", HttpStatus.OK);
     }
 
+    private ResponseEntity<ProductDTO> notModified(String eTag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache())
+                .build();
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<String> handleException(Exception e) {
         return new ResponseEntity<>(e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
@@ -1,5 +1,7 @@
 package infrastructure.http;
 
+import com.website.inventoryservice.application.dtos.StockAdjustmentDTO;
+import com.website.inventoryservice.application.dtos.StockAvailabilityDTO;
 import com.website.inventoryservice.application.dtos.StockLevelDTO;
 import com.website.inventoryservice.application.commands.UpdateStockCommandHandler;
 import com.website.inventoryservice.application.queries.CheckStockQueryHandler;
@@ -7,23 +9,35 @@ import com.website.inventoryservice.core.valueobjects.ProductID;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/stock")
 public class StockController {
 
+    /**
+     * Time budget in milliseconds that the caller grants a request, e.g. what is left of an order's deadline.
+     */
+    public static final String REQUEST_TIMEOUT_HEADER = "X-Request-Timeout-Ms";
+
     private final UpdateStockCommandHandler updateStockCommandHandler;
     private final CheckStockQueryHandler checkStockQueryHandler;
+    private final PlatformTransactionManager transactionManager;
 
     @Autowired
     public StockController(UpdateStockCommandHandler updateStockCommandHandler,
-                           CheckStockQueryHandler checkStockQueryHandler) {
+                           CheckStockQueryHandler checkStockQueryHandler,
+                           PlatformTransactionManager transactionManager) {
         this.updateStockCommandHandler = updateStockCommandHandler;
         this.checkStockQueryHandler = checkStockQueryHandler;
+        this.transactionManager = transactionManager;
     }
 
     @PostMapping("/update")
@@ -47,6 +61,19 @@ public class StockController {
         }
     }
 
+    @PostMapping("/availability")
+    public ResponseEntity<List<StockAvailabilityDTO>> checkAvailability(
+            @RequestHeader(value = REQUEST_TIMEOUT_HEADER, required = false) Long timeoutMillis,
+            @RequestBody List<StockAvailabilityDTO> requests) {
+        return withinBudget(timeoutMillis, () -> {
+            try {
+                return new ResponseEntity<>(checkStockQueryHandler.handleAvailability(requests), HttpStatus.OK);
+            } catch (Exception e) {
+                return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+            }
+        });
+    }
+
     @PostMapping("/bulk-update")
     public ResponseEntity<String> bulkUpdateStock(@RequestBody List<StockLevelDTO> stockLevelDTOList) {
         try {
@@ -125,6 +152,34 @@ public class StockController {
         }
     }
 
+    @PostMapping("/adjust-batch")
+    public ResponseEntity<Map<String, Integer>> adjustStockAtomically(
+            @RequestHeader(value = REQUEST_TIMEOUT_HEADER, required = false) Long timeoutMillis,
+            @RequestParam(value = "reservationId", required = false) String reservationId,
+            @RequestBody List<StockAdjustmentDTO> adjustments) {
+        return withinBudget(timeoutMillis, () -> {
+            try {
+                Map<String, Integer> result = updateStockCommandHandler.adjustStockAtomically(adjustments, reservationId);
+                return new ResponseEntity<>(result, HttpStatus.OK);
+            } catch (IllegalStateException e) {
+                return new ResponseEntity<>(HttpStatus.CONFLICT);
+            } catch (IllegalArgumentException e) {
+                return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+            } catch (Exception e) {
+                return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+            }
+        });
+    }
+
+    @PostMapping("/reservations/{reservationId}/release")
+    public ResponseEntity<Map<String, Integer>> releaseReservation(@PathVariable("reservationId") String reservationId) {
+        try {
+            return new ResponseEntity<>(updateStockCommandHandler.releaseReservation(reservationId), HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
     @PatchMapping("/adjust/{productId}")
     public ResponseEntity<String> adjustStock(@PathVariable("productId") String productId,
                                               @RequestParam("adjustment") int adjustment) {
@@ -139,4 +194,28 @@ public class StockController {
             return new ResponseEntity<>("Failed to adjust stock", HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Runs the work in one transaction that times out with the caller's budget, so its statements give up once the
+     * caller has (Hibernate applies the transaction timeout to each statement, in whole seconds). A request whose
+     * budget is already spent gets 503 without touching the database, and a response other than 2xx rolls the
+     * transaction back. Without a budget the work runs as before.
+     */
+    private <T> ResponseEntity<T> withinBudget(Long timeoutMillis, Supplier<ResponseEntity<T>> work) {
+        if (timeoutMillis == null) {
+            return work.get();
+        }
+        if (timeoutMillis <= 0) {
+            return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setTimeout((int) Math.min(Integer.MAX_VALUE, (timeoutMillis + 999) / 1000));
+        return transaction.execute(status -> {
+            ResponseEntity<T> response = work.get();
+            if (!response.getStatusCode().is2xxSuccessful()) {
+                status.setRollbackOnly();
+            }
+            return response;
+        });
+    }
+}
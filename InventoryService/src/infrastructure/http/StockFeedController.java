@@ -0,0 +1,70 @@
+package infrastructure.http;
+
+import application.dtos.StockChangeDTO;
+import infrastructure.messaging.StockChangeFeed;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/stock")
+public class StockFeedController {
+
+    private static final long EMITTER_TIMEOUT_MS = 30 * 60 * 1000L;
+    private static final int MAX_BUFFER_SIZE = 4096;
+
+    private final StockChangeFeed stockChangeFeed;
+
+    @Autowired
+    public StockFeedController(StockChangeFeed stockChangeFeed) {
+        this.stockChangeFeed = stockChangeFeed;
+    }
+
+    /**
+     * Streams stock changes as Server-Sent Events instead of clients polling the full stock list.
+     * Clients that fall more than bufferSize events behind are disconnected and should reconnect.
+     */
+    @GetMapping(value = "/feed", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(@RequestParam(value = "productId", required = false) Set<String> productIds,
+                                @RequestParam(value = "category", required = false) Set<String> categories,
+                                @RequestParam(value = "below", required = false) Integer belowThreshold,
+                                @RequestParam(value = "bufferSize", defaultValue = "" + StockChangeFeed.DEFAULT_BUFFER_SIZE) int bufferSize) {
+        SseEmitter emitter = new SseEmitter(EMITTER_TIMEOUT_MS);
+        StockChangeFeed.Filter filter = new StockChangeFeed.Filter(productIds, categories, belowThreshold);
+        int boundedBufferSize = Math.max(1, Math.min(bufferSize, MAX_BUFFER_SIZE));
+
+        StockChangeFeed.Subscription subscription = stockChangeFeed.subscribe(filter, boundedBufferSize, new StockChangeFeed.Sink() {
+            @Override
+            public void send(StockChangeDTO change) throws IOException {
+                emitter.send(SseEmitter.event()
+                        .id(Long.toString(change.getSequence()))
+                        .name("stock-change")
+                        .data(change, MediaType.APPLICATION_JSON));
+            }
+
+            @Override
+            public void close(String reason) {
+                if (reason != null) {
+                    try {
+                        emitter.send(SseEmitter.event().name("closed").data(reason));
+                    } catch (IOException | IllegalStateException e) {
+                        // Client already gone
+                    }
+                }
+                emitter.complete();
+            }
+        });
+
+        emitter.onCompletion(subscription::cancel);
+        emitter.onTimeout(subscription::cancel);
+        emitter.onError(error -> subscription.cancel());
+        return emitter;
+    }
+}
@@ -0,0 +1,117 @@
+package infrastructure.messaging;
+
+import application.queries.ProductVersionRegistry;
+import core.repositories.ProductChangeListener;
+import core.repositories.ProductRepository;
+import core.valueobjects.ProductID;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Spreads product cache invalidations across InventoryService replicas.
+ *
+ * A product write already drops this instance's cached version and category through {@link ProductChangeListener}.
+ * This component also publishes every committed change to {@value #TOPIC}, keyed by this instance's id. Each replica
+ * reads the topic in a consumer group of its own, starting from the latest offset, and drops the same entries for
+ * changes made elsewhere, so a write reaches the other replicas' caches within moments instead of after the version
+ * TTL. The TTL still bounds staleness when a message is lost or a replica is cut off from Kafka.
+ */
+@Component
+public class ProductInvalidationBroadcaster implements ProductChangeListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductInvalidationBroadcaster.class);
+
+    static final String TOPIC = "inventory.product.invalidated";
+    // Message value for a bulk change that touched many products
+    private static final String ALL_PRODUCTS = "*";
+
+    private final String instanceId = UUID.randomUUID().toString();
+    private final ProductRepository productRepository;
+    private final ProductVersionRegistry versionRegistry;
+    private final StockChangeFeed stockChangeFeed;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final AtomicLong sentInvalidations = new AtomicLong();
+    private final AtomicLong receivedInvalidations = new AtomicLong();
+    private final AtomicLong failedSends = new AtomicLong();
+
+    public ProductInvalidationBroadcaster(ProductRepository productRepository,
+                                          ProductVersionRegistry versionRegistry,
+                                          StockChangeFeed stockChangeFeed,
+                                          KafkaProperties kafkaProperties) {
+        this.productRepository = productRepository;
+        this.versionRegistry = versionRegistry;
+        this.stockChangeFeed = stockChangeFeed;
+        // Plain string payloads, independent of the serializers configured for the inventory events
+        this.kafkaTemplate = new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(
+                kafkaProperties.buildProducerProperties(), new StringSerializer(), new StringSerializer()));
+        productRepository.addChangeListener(this);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        productRepository.removeChangeListener(this);
+        kafkaTemplate.getProducerFactory().reset();
+    }
+
+    /**
+     * Consumer group of this instance alone, so every replica receives every invalidation.
+     */
+    public String getGroupId() {
+        return "inventory-product-invalidations-" + instanceId;
+    }
+
+    public long getSentInvalidationCount() {
+        return sentInvalidations.get();
+    }
+
+    public long getReceivedInvalidationCount() {
+        return receivedInvalidations.get();
+    }
+
+    public long getFailedSendCount() {
+        return failedSends.get();
+    }
+
+    @Override
+    public void onProductChanged(ProductID productId) {
+        String value = productId != null ? productId.getId() : ALL_PRODUCTS;
+        kafkaTemplate.send(TOPIC, instanceId, value).addCallback(
+                result -> sentInvalidations.incrementAndGet(),
+                error -> {
+                    failedSends.incrementAndGet();
+                    logger.warn("Failed to broadcast invalidation of product {}: {}", value, error.getMessage());
+                });
+    }
+
+    @KafkaListener(topics = TOPIC, groupId = "#{__listener.groupId}", properties = {
+            "auto.offset.reset=latest",
+            "key.deserializer=org.apache.kafka.common.serialization.StringDeserializer",
+            "value.deserializer=org.apache.kafka.common.serialization.StringDeserializer"})
+    public void onInvalidation(ConsumerRecord<String, String> record) {
+        if (instanceId.equals(record.key()) || record.value() == null) {
+            // Written here, so the local caches were invalidated when the change committed
+            return;
+        }
+        receivedInvalidations.incrementAndGet();
+        if (ALL_PRODUCTS.equals(record.value())) {
+            versionRegistry.invalidateAll();
+            stockChangeFeed.onProductChanged(null);
+        } else {
+            versionRegistry.invalidate(record.value());
+            if (ProductID.isValid(record.value())) {
+                stockChangeFeed.onProductChanged(ProductID.of(record.value()));
+            }
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package infrastructure.messaging;
+
+import application.dtos.StockChangeDTO;
+import core.repositories.ProductChangeListener;
+import core.repositories.ProductRepository;
+import core.repositories.StockChangeListener;
+import core.repositories.StockLevelRepository;
+import core.valueobjects.ProductID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fans out committed stock changes to push subscribers (SSE dashboards, view models).
+ *
+ * A single dispatcher thread matches each change against subscriptions indexed by product and category,
+ * and hands it to per-subscriber bounded buffers. A small sender pool drains the buffers, so one slow
+ * connection never delays the others; a subscriber whose buffer overflows is dropped and has to reconnect.
+ * Every call into a subscriber's sink, including closing it, happens on a sender, one at a time.
+ *
+ * Product categories are cached and resolved before a change is queued, so the dispatcher never waits on the
+ * database; a product's cached category is dropped when the product changes.
+ */
+@Component
+public class StockChangeFeed implements StockChangeListener, ProductChangeListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockChangeFeed.class);
+
+    public static final int DEFAULT_BUFFER_SIZE = 256;
+    // Platform threads even in virtual-thread mode: SseEmitter.send writes to the socket inside a synchronized
+    // block, which would pin a carrier thread for as long as a slow client takes to read.
+    private static final int SENDER_THREADS = 4;
+    private static final String NO_CATEGORY = "";
+
+    private final ProductRepository productRepository;
+    private final StockLevelRepository stockLevelRepository;
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor();
+    private final ExecutorService senders = Executors.newFixedThreadPool(SENDER_THREADS);
+
+    private final Map<String, Set<Subscription>> byProduct = new ConcurrentHashMap<>();
+    private final Map<String, Set<Subscription>> byCategory = new ConcurrentHashMap<>();
+    private final Set<Subscription> unkeyed = ConcurrentHashMap.newKeySet();
+    private final Map<ProductID, String> categories = new ConcurrentHashMap<>();
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong droppedSubscribers = new AtomicLong();
+
+    public StockChangeFeed(ProductRepository productRepository, StockLevelRepository stockLevelRepository) {
+        this.productRepository = productRepository;
+        this.stockLevelRepository = stockLevelRepository;
+        stockLevelRepository.addChangeListener(this);
+        productRepository.addChangeListener(this);
+    }
+
+    @Override
+    public void onStockChanged(ProductID productId, Integer previousQuantity, int newQuantity) {
+        long seq = sequence.incrementAndGet();
+        Instant changedAt = Instant.now();
+        StockChangeDTO change = new StockChangeDTO(seq, productId.getValue(), categoryOf(productId),
+                previousQuantity, newQuantity, changedAt);
+        dispatcher.execute(() -> dispatch(change));
+    }
+
+    @Override
+    public void onProductChanged(ProductID productId) {
+        if (productId != null) {
+            evictCategory(productId);
+        } else {
+            categories.clear();
+        }
+    }
+
+    /**
+     * Registers a subscriber. Only changes matching the filter are delivered.
+     *
+     * @param filter The products, categories and threshold the subscriber is interested in.
+     * @param bufferSize Maximum number of undelivered changes before the subscriber is dropped.
+     * @param sink Where matching changes are delivered.
+     * @return The subscription, to be cancelled when the client goes away.
+     */
+    public Subscription subscribe(Filter filter, int bufferSize, Sink sink) {
+        Subscription subscription = new Subscription(filter, bufferSize, sink);
+        if (filter.productIds.isEmpty() && filter.categories.isEmpty()) {
+            unkeyed.add(subscription);
+        }
+        for (String productId : filter.productIds) {
+            byProduct.computeIfAbsent(productId, key -> ConcurrentHashMap.newKeySet()).add(subscription);
+        }
+        for (String category : filter.categories) {
+            byCategory.computeIfAbsent(category, key -> ConcurrentHashMap.newKeySet()).add(subscription);
+        }
+        logger.info("Stock feed subscriber added: {}", filter);
+        return subscription;
+    }
+
+    /**
+     * Forgets the cached category of a product after it has been recategorised.
+     */
+    public void evictCategory(ProductID productId) {
+        categories.remove(productId);
+    }
+
+    public int getSubscriberCount() {
+        Set<Subscription> all = Collections.newSetFromMap(new IdentityHashMap<>());
+        all.addAll(unkeyed);
+        byProduct.values().forEach(all::addAll);
+        byCategory.values().forEach(all::addAll);
+        return all.size();
+    }
+
+    public long getDroppedSubscriberCount() {
+        return droppedSubscribers.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        stockLevelRepository.removeChangeListener(this);
+        productRepository.removeChangeListener(this);
+        dispatcher.shutdown();
+        senders.shutdown();
+    }
+
+    private void dispatch(StockChangeDTO change) {
+        Set<Subscription> candidates = new LinkedHashSet<>(unkeyed);
+        Set<Subscription> productSubscribers = byProduct.get(change.getProductId());
+        if (productSubscribers != null) {
+            candidates.addAll(productSubscribers);
+        }
+        if (change.getCategory() != null) {
+            Set<Subscription> categorySubscribers = byCategory.get(change.getCategory());
+            if (categorySubscribers != null) {
+                candidates.addAll(categorySubscribers);
+            }
+        }
+        for (Subscription subscription : candidates) {
+            if (subscription.filter.matchesThreshold(change)) {
+                subscription.offer(change);
+            }
+        }
+    }
+
+    private String categoryOf(ProductID productId) {
+        String category = categories.computeIfAbsent(productId, id -> productRepository.findById(id)
+                .map(product -> product.getCategory() != null ? product.getCategory() : NO_CATEGORY)
+                .orElse(NO_CATEGORY));
+        return category.isEmpty() ? null : category;
+    }
+
+    private void remove(Subscription subscription) {
+        unkeyed.remove(subscription);
+        for (String productId : subscription.filter.productIds) {
+            byProduct.computeIfPresent(productId, (key, set) -> {
+                set.remove(subscription);
+                return set.isEmpty() ? null : set;
+            });
+        }
+        for (String category : subscription.filter.categories) {
+            byCategory.computeIfPresent(category, (key, set) -> {
+                set.remove(subscription);
+                return set.isEmpty() ? null : set;
+            });
+        }
+    }
+
+    /**
+     * Transport-specific delivery of changes to one subscriber.
+     */
+    public interface Sink {
+
+        void send(StockChangeDTO change) throws IOException;
+
+        void close(String reason);
+    }
+
+    /**
+     * Subscription criteria. Product and category sets are alternatives; an empty filter receives every change.
+     * A threshold restricts delivery to changes that end, or start, below it.
+     */
+    public static final class Filter {
+
+        private final Set<String> productIds;
+        private final Set<String> categories;
+        private final Integer belowThreshold;
+
+        public Filter(Set<String> productIds, Set<String> categories, Integer belowThreshold) {
+            this.productIds = productIds != null ? Set.copyOf(productIds) : Set.of();
+            this.categories = categories != null ? Set.copyOf(categories) : Set.of();
+            this.belowThreshold = belowThreshold;
+        }
+
+        boolean matchesThreshold(StockChangeDTO change) {
+            if (belowThreshold == null) {
+                return true;
+            }
+            Integer previous = change.getPreviousQuantity();
+            return change.getNewQuantity() < belowThreshold || (previous != null && previous < belowThreshold);
+        }
+
+        @Override
+        public String toString() {
+            return "Filter{" +
+                    "productIds=" + productIds +
+                    ", categories=" + categories +
+                    ", belowThreshold=" + belowThreshold +
+                    '}';
+        }
+    }
+
+    /**
+     * A registered subscriber with its own bounded buffer.
+     */
+    public final class Subscription {
+
+        private final Filter filter;
+        private final BlockingQueue<StockChangeDTO> buffer;
+        private final Sink sink;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private final AtomicBoolean sinkClosed = new AtomicBoolean();
+        // Set once closed, before closeRequested, and read by the sender that closes the sink
+        private volatile String closeReason;
+        private volatile boolean closeRequested;
+
+        private Subscription(Filter filter, int bufferSize, Sink sink) {
+            this.filter = filter;
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+            this.sink = sink;
+        }
+
+        public void cancel() {
+            close(null);
+        }
+
+        private void offer(StockChangeDTO change) {
+            if (closed.get()) {
+                return;
+            }
+            if (!buffer.offer(change)) {
+                droppedSubscribers.incrementAndGet();
+                logger.warn("Dropping slow stock feed subscriber {}", filter);
+                close("slow consumer");
+                return;
+            }
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    senders.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    // The feed is shutting down and the container closes the connection itself
+                    draining.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            do {
+                StockChangeDTO change;
+                while (!closed.get() && (change = buffer.poll()) != null) {
+                    try {
+                        sink.send(change);
+                    } catch (IOException | RuntimeException e) {
+                        logger.debug("Stock feed subscriber disconnected: {}", e.getMessage());
+                        close(null);
+                    }
+                }
+                if (closeRequested && sinkClosed.compareAndSet(false, true)) {
+                    sink.close(closeReason);
+                }
+                draining.set(false);
+            } while (hasWork() && draining.compareAndSet(false, true));
+        }
+
+        private boolean hasWork() {
+            return closed.get() ? closeRequested && !sinkClosed.get() : !buffer.isEmpty();
+        }
+
+        /**
+         * Stops delivery at once. The sink itself is closed by a sender, never by the dispatcher, so closing a slow
+         * client cannot stall the fan-out or overlap a send in progress on another thread.
+         */
+        private void close(String reason) {
+            if (closed.compareAndSet(false, true)) {
+                remove(this);
+                buffer.clear();
+                closeReason = reason;
+                closeRequested = true;
+                scheduleDrain();
+            }
+        }
+    }
+}
@@ -69,6 +69,23 @@ CREATE TABLE inventory_audit_logs (
     FOREIGN KEY (movement_id) REFERENCES inventory_movements (movement_id) ON DELETE CASCADE
 );
 
+-- Stock taken under a caller-chosen reservation id, so reserving and releasing it are idempotent.
+-- A release that arrives before its reservation leaves a RELEASED row with no lines.
+CREATE TABLE stock_reservations (
+    reservation_id VARCHAR(64) PRIMARY KEY,
+    status VARCHAR(16) NOT NULL CHECK (status IN ('RESERVED', 'RELEASED')),
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE stock_reservation_lines (
+    reservation_id VARCHAR(64) NOT NULL,
+    product_id VARCHAR(50) NOT NULL,
+    quantity_change INT NOT NULL,
+    PRIMARY KEY (reservation_id, product_id),
+    FOREIGN KEY (reservation_id) REFERENCES stock_reservations (reservation_id) ON DELETE CASCADE
+);
+
 CREATE INDEX idx_product_name ON products (product_name);
 CREATE INDEX idx_sku ON products (sku);
 CREATE INDEX idx_category ON products (category_id);
@@ -3,8 +3,12 @@ package infrastructure.persistence;
 import com.website.inventoryservice.core.entities.ProductEntity;
 import com.website.inventoryservice.core.repositories.ProductRepository;
 import com.website.inventoryservice.valueobjects.ProductID;
+import application.queries.ProductVersionRegistry;
+import core.repositories.ProductChangeListener;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
@@ -12,6 +16,7 @@ import javax.persistence.Query;
 import javax.transaction.Transactional;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 @Repository
 public class ProductRepositoryImpl implements ProductRepository {
@@ -19,9 +24,13 @@ public class ProductRepositoryImpl implements ProductRepository {
     @PersistenceContext
     private EntityManager entityManager;
 
+    private final ProductVersionRegistry versionRegistry;
+    private final List<ProductChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+
     @Autowired
-    public ProductRepositoryImpl(EntityManager entityManager) {
+    public ProductRepositoryImpl(EntityManager entityManager, ProductVersionRegistry versionRegistry) {
         this.entityManager = entityManager;
+        this.versionRegistry = versionRegistry;
     }
 
     @Override
@@ -31,6 +40,7 @@ public class ProductRepositoryImpl implements ProductRepository {
             entityManager.persist(product);
         } else {
             entityManager.merge(product);
+            invalidateVersions(product.getId().toString());
         }
         return product;
     }
@@ -60,6 +70,7 @@ public class ProductRepositoryImpl implements ProductRepository {
         ProductEntity product = entityManager.find(ProductEntity.class, productId);
         if (product != null) {
             entityManager.remove(product);
+            invalidateVersions(productId.getValue());
         }
     }
 
@@ -70,6 +81,7 @@ public class ProductRepositoryImpl implements ProductRepository {
         if (product != null) {
             product.setStockLevel(newStockLevel);
             entityManager.merge(product);
+            invalidateVersions(productId.getValue());
         }
     }
 
@@ -103,6 +115,7 @@ public class ProductRepositoryImpl implements ProductRepository {
             existingProduct.setCategory(product.getCategory());
             existingProduct.setStockLevel(product.getStockLevel());
             entityManager.merge(existingProduct);
+            invalidateVersions(product.getId().toString());
         }
     }
 
@@ -122,10 +135,11 @@ public class ProductRepositoryImpl implements ProductRepository {
     @Override
     @Transactional
     public void bulkUpdateStockLevel(List<ProductID> productIds, int newStockLevel) {
-        Query query = entityManager.createQuery("UPDATE ProductEntity p SET p.stockLevel = :newStockLevel WHERE p.id IN :productIds");
+        Query query = entityManager.createQuery("UPDATE ProductEntity p SET p.stockLevel = :newStockLevel, p.version = p.version + 1 WHERE p.id IN :productIds");
         query.setParameter("newStockLevel", newStockLevel);
         query.setParameter("productIds", productIds);
         query.executeUpdate();
+        invalidateVersions(null);
     }
 
     @Override
@@ -149,6 +163,7 @@ public class ProductRepositoryImpl implements ProductRepository {
         Query query = entityManager.createQuery("DELETE FROM ProductEntity p WHERE p.id IN :productIds");
         query.setParameter("productIds", productIds);
         query.executeUpdate();
+        invalidateVersions(null);
     }
 
     @Override
@@ -170,4 +185,46 @@ public class ProductRepositoryImpl implements ProductRepository {
         Query query = entityManager.createQuery("SELECT p FROM ProductEntity p WHERE p.isFeatured = true");
         return query.getResultList();
     }
-}
\ No newline at end of file
+
+    @Override
+    public void addChangeListener(ProductChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    @Override
+    public void removeChangeListener(ProductChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+
+    /**
+     * Drops cached product versions now and again once the surrounding transaction commits,
+     * so a read that overlaps the write cannot leave the pre-commit version behind.
+     * Change listeners are notified once the change has committed.
+     *
+     * @param productId The product identifier, or null to drop every cached version.
+     */
+    private void invalidateVersions(String productId) {
+        Runnable invalidation = productId != null
+                ? () -> versionRegistry.invalidate(productId)
+                : versionRegistry::invalidateAll;
+        invalidation.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidation.run();
+                    notifyChange(productId);
+                }
+            });
+        } else {
+            notifyChange(productId);
+        }
+    }
+
+    private void notifyChange(String productId) {
+        ProductID changed = productId != null ? ProductID.of(productId) : null;
+        for (ProductChangeListener listener : changeListeners) {
+            listener.onProductChanged(changed);
+        }
+    }
+}
@@ -2,11 +2,14 @@ package presentation.controllers;
 
 import application.dtos.ProductDTO;
 import application.dtos.StockLevelDTO;
+import application.queries.ProductVersionRegistry;
 import core.entities.ProductEntity;
 import core.entities.StockLevelEntity;
 import core.services.InventoryService;
 import core.services.StockUpdateService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -50,15 +53,29 @@ public class InventoryController {
         }
     }
 
+    /**
+     * Returns the product with an ETag taken from the version it was read at, so any replica answers a
+     * revalidation against the persisted version.
+     */
     @GetMapping("/product/{productId}")
-    public ResponseEntity<ProductDTO> getProductById(@PathVariable Long productId) {
+    public ResponseEntity<ProductDTO> getProductById(@PathVariable Long productId,
+                                                     @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
             ProductEntity product = inventoryService.getProductById(productId);
-            if (product != null) {
-                return new ResponseEntity<>(new ProductDTO(product), HttpStatus.OK);
-            } else {
+            if (product == null) {
                 return new ResponseEntity<>(HttpStatus.NOT_FOUND);
             }
+            String eTag = ProductVersionRegistry.toETag(String.valueOf(productId), product.getVersion());
+            if (ifNoneMatch != null && ProductVersionRegistry.matchesIfNoneMatch(ifNoneMatch, eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(eTag)
+                        .cacheControl(CacheControl.noCache())
+                        .build();
+            }
+            return ResponseEntity.ok()
+                    .eTag(eTag)
+                    .cacheControl(CacheControl.noCache())
+                    .body(new ProductDTO(product));
         } catch (Exception e) {
             return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
         }
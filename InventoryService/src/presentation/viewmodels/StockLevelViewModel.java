@@ -4,7 +4,9 @@ import core.entities.StockLevelEntity;
 import core.valueobjects.StockLevel;
 import core.repositories.StockLevelRepository;
 import core.services.StockUpdateService;
+import application.dtos.StockChangeDTO;
 import application.dtos.StockLevelDTO;
+import infrastructure.messaging.StockChangeFeed;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.logging.Logger;
@@ -162,7 +164,31 @@ public class StockLevelViewModel {
     }
 
     /**
-     * Monitors stock levels to ensure they're within acceptable ranges.
+     * Monitors stock levels by subscribing to pushed changes below the "In Stock" boundary,
+     * instead of re-reading every stock level on each check.
+     *
+     * @param stockChangeFeed The feed of committed stock changes.
+     * @return The subscription; cancel it to stop monitoring.
+     */
+    public StockChangeFeed.Subscription monitorStockLevels(StockChangeFeed stockChangeFeed) {
+        StockChangeFeed.Filter filter = new StockChangeFeed.Filter(null, null, 51);
+        return stockChangeFeed.subscribe(filter, StockChangeFeed.DEFAULT_BUFFER_SIZE, new StockChangeFeed.Sink() {
+            @Override
+            public void send(StockChangeDTO change) {
+                String stockStatus = getStockStatus(change.getNewQuantity());
+                logger.info("Product ID: " + change.getProductId() + " - Stock Status: " + stockStatus);
+            }
+
+            @Override
+            public void close(String reason) {
+                logger.warning("Stock level monitoring stopped" + (reason != null ? ": " + reason : ""));
+            }
+        });
+    }
+
+    /**
+     * Logs the status of every stock level once. Prefer {@link #monitorStockLevels(StockChangeFeed)}
+     * for continuous monitoring.
      */
     public void monitorStockLevels() {
         List<StockLevelDTO> stockLevels = getAllStockLevels();
@@ -5,11 +5,11 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import javax.mail.*;
 import javax.mail.internet.InternetAddress;
 import javax.mail.internet.MimeMessage;
 
+import common.threads.VirtualThreads;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -31,7 +31,7 @@ public class EmailProviderIntegration {
         this.smtpUser = smtpUser;
         this.smtpPassword = smtpPassword;
         this.fromEmail = fromEmail;
-        this.executorService = Executors.newFixedThreadPool(10); // Handle parallel email sending
+        this.executorService = VirtualThreads.newExecutor("email-sender", 10); // Handle parallel email sending
     }
 
     private Properties getEmailProperties() {
@@ -0,0 +1,123 @@
+package benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import core.OrderEntity;
+import infrastructure.OrderEventCodec;
+import infrastructure.OrderEventField;
+import infrastructure.OrderEventReader;
+import infrastructure.OrderEventType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order event payloads: the previous full-order JSON against the binary schema encoding.
+ * Encoded sizes for each variant are printed once per trial, next to the timing results.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class OrderEventEncodingBenchmark {
+
+    @Param({"1", "10"})
+    public int itemCount;
+
+    @Param({"ORDER_PLACED", "ORDER_SHIPPED", "PAYMENT_COMPLETED"})
+    public OrderEventType eventType;
+
+    private ObjectMapper objectMapper;
+    private OrderEntity order;
+    private Instant occurredAt;
+    private byte[] json;
+    private byte[] binary;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        objectMapper = new ObjectMapper()
+                .findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        List<OrderEntity.OrderItem> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            items.add(new OrderEntity.OrderItem(UUID.randomUUID().toString(), "Product " + i, 1 + i % 3,
+                    new BigDecimal("19.99")));
+        }
+        OrderEntity.PaymentInfo paymentInfo = new OrderEntity.PaymentInfo(UUID.randomUUID().toString(),
+                new BigDecimal("59.97"), true);
+        order = new OrderEntity(UUID.randomUUID().toString(), items, "221B Baker Street, London NW1 6XE", paymentInfo);
+        occurredAt = Instant.now();
+
+        json = objectMapper.writeValueAsBytes(order);
+        binary = OrderEventCodec.encode(eventType, order, occurredAt);
+        System.out.println();
+        System.out.println("# Bytes per event (" + eventType + ", " + itemCount + " items): json=" + json.length
+                + " binary=" + binary.length);
+    }
+
+    @Benchmark
+    public byte[] encodeJson() throws IOException {
+        return objectMapper.writeValueAsBytes(order);
+    }
+
+    @Benchmark
+    public byte[] encodeBinary() {
+        return OrderEventCodec.encode(eventType, order, occurredAt);
+    }
+
+    /**
+     * What a typical consumer does: route on the order id and ignore the rest.
+     */
+    @Benchmark
+    public String readOrderIdJson() throws IOException {
+        JsonNode tree = objectMapper.readTree(json);
+        return tree.get("orderId").asText();
+    }
+
+    @Benchmark
+    public String readOrderIdBinary() {
+        return OrderEventReader.wrap(binary).getString(OrderEventField.ORDER_ID);
+    }
+
+    @Benchmark
+    public void readAllFieldsBinary(Blackhole blackhole) {
+        OrderEventReader reader = OrderEventReader.wrap(binary);
+        for (OrderEventField field : reader.getType().getFields()) {
+            switch (field.getEncoding()) {
+                case STRING:
+                    blackhole.consume(reader.getString(field));
+                    break;
+                case DECIMAL:
+                    blackhole.consume(reader.getDecimal(field));
+                    break;
+                case TIMESTAMP:
+                    blackhole.consume(reader.getInstant(field));
+                    break;
+                default:
+                    blackhole.consume(reader.getLong(field, 0));
+            }
+        }
+    }
+}
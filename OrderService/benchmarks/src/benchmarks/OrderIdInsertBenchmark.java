@@ -0,0 +1,112 @@
+package benchmarks;
+
+import common.ids.TimeOrderedIds;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Primary-key insert cost with random UUIDs against time-ordered ids, into a table that already holds
+ * {@code preloadRows} rows so the index is deep enough for insert locality to matter. Results are per row.
+ *
+ * Defaults to in-memory H2; pass {@code -p jdbcUrl=... -p user=... -p password=...} to run against a real database.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class OrderIdInsertBenchmark {
+
+    private static final int BATCH_SIZE = 1000;
+
+    public enum IdStrategy {
+        RANDOM {
+            @Override
+            String next() {
+                return UUID.randomUUID().toString();
+            }
+        },
+        TIME_ORDERED {
+            @Override
+            String next() {
+                return TimeOrderedIds.next().toString();
+            }
+        };
+
+        abstract String next();
+    }
+
+    @Param({"RANDOM", "TIME_ORDERED"})
+    public IdStrategy idStrategy;
+
+    @Param({"200000"})
+    public int preloadRows;
+
+    @Param({"jdbc:h2:mem:order_ids;DB_CLOSE_DELAY=-1"})
+    public String jdbcUrl;
+
+    @Param({"sa"})
+    public String user;
+
+    @Param({""})
+    public String password;
+
+    private Connection connection;
+    private PreparedStatement insert;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(jdbcUrl, user, password);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS order_id_bench");
+            statement.execute("CREATE TABLE order_id_bench (order_id CHAR(36) PRIMARY KEY, customer_id VARCHAR(36))");
+        }
+        connection.setAutoCommit(false);
+        insert = connection.prepareStatement("INSERT INTO order_id_bench (order_id, customer_id) VALUES (?, ?)");
+        for (int loaded = 0; loaded < preloadRows; loaded += BATCH_SIZE) {
+            insertBatch();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE order_id_bench");
+        }
+        connection.commit();
+        connection.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void insertBatch() throws SQLException {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            insert.setString(1, idStrategy.next());
+            insert.setString(2, "customer-" + (i & 1023));
+            insert.addBatch();
+        }
+        insert.executeBatch();
+        connection.commit();
+    }
+}
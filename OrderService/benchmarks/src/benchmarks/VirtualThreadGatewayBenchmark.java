@@ -0,0 +1,99 @@
+package benchmarks;
+
+import common.threads.VirtualThreads;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to complete a burst of concurrent calls to a slow gateway, e.g. 10k payment captures waiting on a 20 ms
+ * acquirer. Each call blocks its thread for {@code gatewayLatencyMillis}, the way the payment and SMTP clients do.
+ *
+ * {@code fixed-10} is the pool the notification and event bus publishers used, {@code fixed-200} matches Tomcat's
+ * default worker pool, and {@code virtual} is the virtual-thread mode. A fixed pool finishes the burst in about
+ * {@code requests / poolSize * latency}; virtual threads approach a single latency. The {@code virtual} case needs a
+ * Java 21 JVM; on older runtimes run with {@code -p executor=fixed-10,fixed-200}.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VirtualThreadGatewayBenchmark {
+
+    @Param({"fixed-10", "fixed-200", "virtual"})
+    public String executor;
+
+    @Param({"10000"})
+    public int requests;
+
+    @Param({"20"})
+    public long gatewayLatencyMillis;
+
+    private ExecutorService executorService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        switch (executor) {
+            case "fixed-10":
+                executorService = Executors.newFixedThreadPool(10, VirtualThreads.daemonThreads("gateway-fixed"));
+                break;
+            case "fixed-200":
+                executorService = Executors.newFixedThreadPool(200, VirtualThreads.daemonThreads("gateway-fixed"));
+                break;
+            case "virtual":
+                executorService = VirtualThreads.newVirtualThreadPerTaskExecutor("gateway-virtual");
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown executor " + executor);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        executorService.shutdown();
+        executorService.awaitTermination(1, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Submits the whole burst at once and waits for every call; returns the number of calls that succeeded.
+     */
+    @Benchmark
+    public int burst() throws InterruptedException, ExecutionException {
+        List<Future<Boolean>> calls = new ArrayList<>(requests);
+        for (int i = 0; i < requests; i++) {
+            calls.add(executorService.submit(this::callGateway));
+        }
+        int succeeded = 0;
+        for (Future<Boolean> call : calls) {
+            if (call.get()) {
+                succeeded++;
+            }
+        }
+        return succeeded;
+    }
+
+    private boolean callGateway() throws InterruptedException {
+        Thread.sleep(gatewayLatencyMillis);
+        return true;
+    }
+}
@@ -0,0 +1,143 @@
+package application;
+
+import core.OrderEntity;
+import infrastructure.TransactionCallbacks;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Cache of each active customer's most recent orders, newest first.
+ *
+ * A customer's entry is loaded from the database on first use and then kept current incrementally: placed orders
+ * are prepended and status changes update the summary in place, both after commit. Only the last
+ * {@code recentPerCustomer} orders are kept; older history is paged from the database. When more than
+ * {@code maxCustomers} customers are cached, the least recently used one is evicted.
+ *
+ * A load that races with a change of the same customer is returned to its caller but not cached, so the cache
+ * never keeps a list that missed an update. Changes are tracked per stripe of customers rather than per customer,
+ * so an unrelated change occasionally costs one extra load.
+ */
+@Component
+public class CustomerOrderHistory {
+
+    private static final int VERSION_STRIPES = 256;
+
+    private final int recentPerCustomer;
+    private final Map<String, RecentOrders> customers;
+    private final long[] stripeVersions = new long[VERSION_STRIPES];
+
+    public CustomerOrderHistory(@Value("${orders.history.recent-per-customer:20}") int recentPerCustomer,
+                                @Value("${orders.history.max-customers:100000}") int maxCustomers) {
+        this.recentPerCustomer = Math.max(1, recentPerCustomer);
+        this.customers = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, RecentOrders> eldest) {
+                return size() > maxCustomers;
+            }
+        };
+    }
+
+    public int getRecentPerCustomer() {
+        return recentPerCustomer;
+    }
+
+    /**
+     * Returns the cached recent orders of a customer, if loaded.
+     */
+    public synchronized Optional<List<OrderSummary>> find(String customerId) {
+        RecentOrders recent = customers.get(customerId);
+        return recent == null ? Optional.empty() : Optional.of(recent.snapshot());
+    }
+
+    /**
+     * Captures the change version to pass to {@link #install} before loading a customer's orders.
+     */
+    public synchronized long version(String customerId) {
+        return stripeVersions[stripe(customerId)];
+    }
+
+    /**
+     * Caches orders loaded from the database, newest first, unless the customer changed since {@code version}.
+     */
+    public synchronized void install(String customerId, List<OrderSummary> newestFirst, long version) {
+        if (stripeVersions[stripe(customerId)] == version && !customers.containsKey(customerId)) {
+            customers.put(customerId, new RecentOrders(newestFirst, recentPerCustomer));
+        }
+    }
+
+    public void onOrderPlaced(OrderEntity order) {
+        OrderSummary summary = OrderSummary.of(order);
+        TransactionCallbacks.afterCommit(() -> apply(order.getCustomerId(), recent -> recent.prepend(summary)));
+    }
+
+    public void onStatusChanged(OrderEntity order) {
+        String orderId = order.getOrderId();
+        String status = order.getStatus().name();
+        TransactionCallbacks.afterCommit(() -> apply(order.getCustomerId(), recent -> recent.updateStatus(orderId, status)));
+    }
+
+    public synchronized int getCachedCustomerCount() {
+        return customers.size();
+    }
+
+    private synchronized void apply(String customerId, Consumer<RecentOrders> change) {
+        stripeVersions[stripe(customerId)]++;
+        RecentOrders recent = customers.get(customerId);
+        if (recent != null) {
+            change.accept(recent);
+        }
+    }
+
+    private static int stripe(String customerId) {
+        return Math.floorMod(customerId.hashCode(), VERSION_STRIPES);
+    }
+
+    /**
+     * Fixed-capacity ring of summaries; the slot after the newest is overwritten by the next placed order.
+     * Guarded by the enclosing cache's lock.
+     */
+    private static final class RecentOrders {
+
+        private final OrderSummary[] ring;
+        private int newest = -1;
+        private int size;
+
+        private RecentOrders(List<OrderSummary> newestFirst, int capacity) {
+            this.ring = new OrderSummary[capacity];
+            for (int i = Math.min(newestFirst.size(), capacity) - 1; i >= 0; i--) {
+                prepend(newestFirst.get(i));
+            }
+        }
+
+        void prepend(OrderSummary summary) {
+            newest = (newest + 1) % ring.length;
+            ring[newest] = summary;
+            size = Math.min(size + 1, ring.length);
+        }
+
+        void updateStatus(String orderId, String status) {
+            for (int i = 0; i < size; i++) {
+                int slot = Math.floorMod(newest - i, ring.length);
+                if (ring[slot].getOrderId().equals(orderId)) {
+                    ring[slot] = ring[slot].withStatus(status);
+                    return;
+                }
+            }
+        }
+
+        List<OrderSummary> snapshot() {
+            List<OrderSummary> newestFirst = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                newestFirst.add(ring[Math.floorMod(newest - i, ring.length)]);
+            }
+            return newestFirst;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package application;
+
+import dtos.OrderDTO;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated order listing.
+ */
+public class OrderPage {
+
+    private final List<OrderDTO> orders;
+    private final Long nextCursor;
+
+    public OrderPage(List<OrderDTO> orders, Long nextCursor) {
+        this.orders = orders;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<OrderDTO> getOrders() {
+        return orders;
+    }
+
+    /**
+     * The cursor to pass as {@code after} for the next page, or null if this is the last page.
+     */
+    public Long getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,62 @@
+package application;
+
+import java.time.Instant;
+
+/**
+ * Progress of one asynchronous order placement, as reported to polling clients.
+ */
+public final class OrderPlacementStatus {
+
+    public enum Stage {
+        ACCEPTED,
+        STOCK_RESERVED,
+        PAYMENT_CAPTURED,
+        COMPLETED,
+        COMPENSATING,
+        FAILED;
+
+        public boolean isFinal() {
+            return this == COMPLETED || this == FAILED;
+        }
+    }
+
+    private final String orderId;
+    private final Stage stage;
+    private final String failureReason;
+    private final Instant updatedAt;
+
+    private OrderPlacementStatus(String orderId, Stage stage, String failureReason) {
+        this.orderId = orderId;
+        this.stage = stage;
+        this.failureReason = failureReason;
+        this.updatedAt = Instant.now();
+    }
+
+    static OrderPlacementStatus accepted(String orderId) {
+        return new OrderPlacementStatus(orderId, Stage.ACCEPTED, null);
+    }
+
+    OrderPlacementStatus advance(Stage next) {
+        return new OrderPlacementStatus(orderId, next, failureReason);
+    }
+
+    OrderPlacementStatus fail(Stage next, String reason) {
+        return new OrderPlacementStatus(orderId, next, reason);
+    }
+
+    public String getOrderId() {
+        return orderId;
+    }
+
+    public Stage getStage() {
+        return stage;
+    }
+
+    public String getFailureReason() {
+        return failureReason;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+}
@@ -0,0 +1,59 @@
+package application;
+
+import core.OrderEntity;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * The few fields an order history row shows. Immutable and small, so a customer's recent orders can be kept
+ * in memory without holding entities or their items.
+ */
+public final class OrderSummary {
+
+    private final Long id;
+    private final String orderId;
+    private final String status;
+    private final BigDecimal totalAmount;
+    private final LocalDateTime createdAt;
+
+    private OrderSummary(Long id, String orderId, String status, BigDecimal totalAmount, LocalDateTime createdAt) {
+        this.id = id;
+        this.orderId = orderId;
+        this.status = status;
+        this.totalAmount = totalAmount;
+        this.createdAt = createdAt;
+    }
+
+    public static OrderSummary of(OrderEntity order) {
+        return new OrderSummary(order.getId(), order.getOrderId(), order.getStatus().name(),
+                order.getTotalAmount(), order.getOrderDate());
+    }
+
+    OrderSummary withStatus(String newStatus) {
+        return new OrderSummary(id, orderId, newStatus, totalAmount, createdAt);
+    }
+
+    /**
+     * Storage id, usable as the {@code before} cursor to fetch older history.
+     */
+    public Long getId() {
+        return id;
+    }
+
+    public String getOrderId() {
+        return orderId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,139 @@
+package application;
+
+import core.OrderEntity;
+import infrastructure.OrderStatusEvents;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Read model behind order tracking: one {@link OrderTrackingView} per order, keyed by order id.
+ *
+ * Reads are a single map lookup. Writes are applied on a single background thread in the order they were
+ * submitted, so order placement does not pay for the projection and the last change always wins.
+ * Changes made by this instance refresh the whole view; status changes made by any instance, including bulk
+ * transitions, arrive through {@link OrderStatusEvents} and move the status of a view already held here, unless
+ * the view has seen a later change. Views not held are rebuilt on demand by the next read.
+ *
+ * At most {@code maxViews} views are kept, evicting the least recently used. Orders in a final state are also
+ * dropped some time after their last change.
+ */
+@Component
+public class OrderTrackingProjection {
+
+    private static final Logger logger = Logger.getLogger(OrderTrackingProjection.class.getName());
+
+    private static final Duration TERMINAL_RETENTION = Duration.ofDays(7);
+    private static final long SWEEP_INTERVAL_MINUTES = 60;
+
+    private final Map<String, OrderTrackingView> views;
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "order-tracking-projection");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public OrderTrackingProjection(OrderStatusEvents statusEvents,
+                                   @Value("${orders.tracking.max-views:200000}") int maxViews) {
+        this.views = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, OrderTrackingView> eldest) {
+                return size() > maxViews;
+            }
+        };
+        writer.scheduleWithFixedDelay(this::evictSettledOrders, SWEEP_INTERVAL_MINUTES, SWEEP_INTERVAL_MINUTES,
+                TimeUnit.MINUTES);
+        statusEvents.addListener(this::onStatusChanged);
+    }
+
+    public Optional<OrderTrackingView> find(String orderId) {
+        synchronized (views) {
+            return Optional.ofNullable(views.get(orderId));
+        }
+    }
+
+    /**
+     * Refreshes the view of an order after it was placed or changed status.
+     */
+    public void onOrderChanged(String orderId, OrderEntity order) {
+        // Snapshot on the caller's thread; the entity may be modified again after this returns
+        OrderTrackingView view = OrderTrackingView.of(orderId, order);
+        submit(() -> {
+            synchronized (views) {
+                views.put(orderId, view);
+            }
+        });
+    }
+
+    /**
+     * Moves a held view to the status reported by an order event. Events older than the view's last status change
+     * are ignored, so a late event cannot move an order back.
+     */
+    public void onStatusChanged(String orderId, String status, Instant occurredAt) {
+        LocalDateTime changedAt = LocalDateTime.ofInstant(occurredAt, ZoneId.systemDefault());
+        submit(() -> {
+            synchronized (views) {
+                OrderTrackingView view = views.get(orderId);
+                if (view != null && !status.equals(view.getStatus()) && changedAt.isAfter(view.getStatusChangedAt())) {
+                    views.put(orderId, view.withStatus(status, changedAt));
+                }
+            }
+        });
+    }
+
+    /**
+     * Stores a view built by a reader after a miss. An existing view is kept, since it may already be newer;
+     * a stale one stored here is overwritten by the pending refresh of the change that made it stale.
+     */
+    public void putIfAbsent(OrderTrackingView view) {
+        synchronized (views) {
+            views.putIfAbsent(view.getOrderId(), view);
+        }
+    }
+
+    public void evict(String orderId) {
+        submit(() -> {
+            synchronized (views) {
+                views.remove(orderId);
+            }
+        });
+    }
+
+    public int size() {
+        synchronized (views) {
+            return views.size();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writer.shutdown();
+    }
+
+    private void submit(Runnable update) {
+        try {
+            writer.execute(update);
+        } catch (RuntimeException e) {
+            logger.warning("Order tracking projection update rejected: " + e.getMessage());
+        }
+    }
+
+    private void evictSettledOrders() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(TERMINAL_RETENTION);
+        synchronized (views) {
+            views.values().removeIf(view -> view.isTerminal() && view.getRefreshedAt().isBefore(cutoff));
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package application;
+
+import core.OrderEntity;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Denormalized, immutable tracking snapshot of one order. Everything a tracking page shows is copied in when the
+ * order changes, so serving it needs no entity load and no item join.
+ */
+public final class OrderTrackingView {
+
+    private final String orderId;
+    private final String customerId;
+    private final String status;
+    private final BigDecimal totalAmount;
+    private final List<OrderEntity.OrderItem> items;
+    private final LocalDateTime deliveryDate;
+    private final LocalDateTime statusChangedAt;
+    private final LocalDateTime refreshedAt;
+
+    private OrderTrackingView(String orderId, String customerId, String status, BigDecimal totalAmount,
+                              List<OrderEntity.OrderItem> items, LocalDateTime deliveryDate,
+                              LocalDateTime statusChangedAt, LocalDateTime refreshedAt) {
+        this.orderId = orderId;
+        this.customerId = customerId;
+        this.status = status;
+        this.totalAmount = totalAmount;
+        this.items = items;
+        this.deliveryDate = deliveryDate;
+        this.statusChangedAt = statusChangedAt;
+        this.refreshedAt = refreshedAt;
+    }
+
+    /**
+     * Snapshots the tracking fields of an order.
+     */
+    public static OrderTrackingView of(String orderId, OrderEntity order) {
+        return new OrderTrackingView(orderId, order.getCustomerId(), order.getStatus().name(),
+                order.getTotalAmount(), order.getItems() != null ? List.copyOf(order.getItems()) : List.of(),
+                order.getDeliveryDate(), order.getUpdatedAt() != null ? order.getUpdatedAt() : order.getOrderDate(),
+                LocalDateTime.now());
+    }
+
+    /**
+     * Returns a copy moved to another status, as reported by an order event.
+     */
+    public OrderTrackingView withStatus(String newStatus, LocalDateTime changedAt) {
+        LocalDateTime delivered = OrderEntity.OrderStatus.DELIVERED.name().equals(newStatus) ? changedAt : deliveryDate;
+        return new OrderTrackingView(orderId, customerId, newStatus, totalAmount, items, delivered, changedAt,
+                LocalDateTime.now());
+    }
+
+    public String getOrderId() {
+        return orderId;
+    }
+
+    public String getCustomerId() {
+        return customerId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public BigDecimal getTotalAmount() {
+        return totalAmount;
+    }
+
+    public List<OrderEntity.OrderItem> getItems() {
+        return items;
+    }
+
+    public LocalDateTime getDeliveryDate() {
+        return deliveryDate;
+    }
+
+    /**
+     * When the order last changed status, or when it was placed if it never has.
+     */
+    public LocalDateTime getStatusChangedAt() {
+        return statusChangedAt;
+    }
+
+    public LocalDateTime getRefreshedAt() {
+        return refreshedAt;
+    }
+
+    public boolean isTerminal() {
+        return OrderEntity.OrderStatus.DELIVERED.name().equals(status)
+                || OrderEntity.OrderStatus.CANCELED.name().equals(status)
+                || OrderEntity.OrderStatus.FRAUDULENT.name().equals(status);
+    }
+}
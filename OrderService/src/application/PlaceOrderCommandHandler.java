@@ -1,82 +1,266 @@
 package application;
 
-import com.ecommerce.orderservice.core.OrderEntity;
-import com.ecommerce.orderservice.core.OrderService;
-import com.ecommerce.orderservice.infrastructure.OrderRepositoryImpl;
-import com.ecommerce.inventoryservice.application.CheckStockQueryHandler;
 import com.ecommerce.paymentservice.application.ProcessPaymentCommandHandler;
-import com.ecommerce.sharedkernel.messaging.EventBus;
-import com.ecommerce.sharedkernel.events.OrderPlacedEvent;
-import com.ecommerce.sharedkernel.valueobjects.CustomerID;
-import com.ecommerce.sharedkernel.valueobjects.OrderID;
 import com.ecommerce.sharedkernel.valueobjects.PaymentID;
 import com.ecommerce.sharedkernel.exceptions.OrderPlacementException;
-import java.time.LocalDateTime;
+import common.threads.VirtualThreads;
+import core.OrderEntity;
+import core.OrderService;
+import infrastructure.InventoryServiceClient;
+import infrastructure.OrderRepositoryImpl;
+import infrastructure.RequestDeadline;
+import valueobjects.OrderID;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Logger;
 
+/**
+ * Places orders as an asynchronous saga.
+ *
+ * {@link #handle} only validates the command and accepts the order as PENDING through {@link OrderService}, which
+ * runs the fraud checks and writes the order and its placed event in one transaction; the request thread never
+ * waits on inventory or the payment gateway. The saga then reserves stock (non-blocking HTTP), captures payment on
+ * its own executor (virtual threads when enabled), and confirms the order. If a step fails, the steps already done
+ * are undone in reverse order (payment voided, stock released) and the order is cancelled, again through
+ * {@link OrderService}, so every state change reaches the outbox and the read models.
+ *
+ * Stock is reserved under the order id, which InventoryService applies at most once. A reservation whose outcome is
+ * unknown, e.g. because the call timed out after InventoryService applied it, is therefore always released: the
+ * release is idempotent and turns a reservation that never arrived into a no-op. Clients follow progress with
+ * {@link #getPlacementStatus}. Saga progress is held in memory, so a restart leaves in-flight orders PENDING.
+ *
+ * Accepting the order runs under the request's {@link RequestDeadline}. The saga gets its own deadline of
+ * {@code SAGA_TIMEOUT}: the stock reservation's HTTP timeout is capped at the time left, a payment attempt that
+ * has not started when it passes is skipped rather than captured late, and the saga compensates as soon as it
+ * expires. Confirmation and compensation are not cut short, since undoing a captured payment costs more than
+ * finishing the order.
+ *
+ * Callers pass {@code onFinished} to learn when the saga is done; the order controller releases the request's
+ * admission slot there, so sagas in flight, and with them payment captures queued on the payment executor, never
+ * exceed the admission limit.
+ */
 public class PlaceOrderCommandHandler {
 
+    private static final Logger logger = Logger.getLogger(PlaceOrderCommandHandler.class.getName());
+
+    private static final int PAYMENT_THREADS = 32;
+    private static final Duration SAGA_TIMEOUT = Duration.ofSeconds(30);
+    private static final Duration STATUS_RETENTION = Duration.ofHours(1);
+
     private final OrderService orderService;
-    private final OrderRepositoryImpl orderRepository;
-    private final CheckStockQueryHandler checkStockHandler;
+    private final InventoryServiceClient inventoryServiceClient;
     private final ProcessPaymentCommandHandler processPaymentHandler;
-    private final EventBus eventBus;
+    private final Map<String, OrderPlacementStatus> placements = new ConcurrentHashMap<>();
+    private final ExecutorService paymentExecutor = VirtualThreads.newExecutor("order-saga-payment", PAYMENT_THREADS);
+    private final ScheduledExecutorService housekeeping = Executors.newSingleThreadScheduledExecutor(VirtualThreads.daemonThreads("order-saga-housekeeping"));
 
     public PlaceOrderCommandHandler(OrderService orderService,
-                                    OrderRepositoryImpl orderRepository,
-                                    CheckStockQueryHandler checkStockHandler,
-                                    ProcessPaymentCommandHandler processPaymentHandler,
-                                    EventBus eventBus) {
+                                    InventoryServiceClient inventoryServiceClient,
+                                    ProcessPaymentCommandHandler processPaymentHandler) {
         this.orderService = orderService;
-        this.orderRepository = orderRepository;
-        this.checkStockHandler = checkStockHandler;
+        this.inventoryServiceClient = inventoryServiceClient;
         this.processPaymentHandler = processPaymentHandler;
-        this.eventBus = eventBus;
+        housekeeping.scheduleWithFixedDelay(this::evictFinishedPlacements, 5, 5, TimeUnit.MINUTES);
     }
 
-    public void handle(PlaceOrderCommand command) throws OrderPlacementException {
-        // Validate the command inputs
-        validateCommand(command);
-
-        // Check stock availability
-        boolean isStockAvailable = checkStockHandler.handle(command.getProductID(), command.getQuantity());
-        if (!isStockAvailable) {
-            throw new OrderPlacementException("Stock is insufficient for the requested quantity.");
-        }
+    /**
+     * Accepts an order and starts its placement saga.
+     *
+     * @return The id of the accepted order; its progress is available from {@link #getPlacementStatus}.
+     */
+    public OrderID handle(PlaceOrderCommand command) throws OrderPlacementException {
+        return handle(command, () -> { });
+    }
 
-        // Initiate payment
-        PaymentID paymentID = processPayment(command);
+    /**
+     * Accepts an order and starts its placement saga.
+     *
+     * @param onFinished Run once the order needs no more work from the saga: after it is confirmed or compensated,
+     *                   straight away if it was rejected by the fraud checks, and also if accepting it fails.
+     * @return The id of the accepted order; its progress is available from {@link #getPlacementStatus}.
+     */
+    public OrderID handle(PlaceOrderCommand command, Runnable onFinished) throws OrderPlacementException {
+        boolean sagaStarted = false;
+        try {
+            // Validate the command inputs
+            validateCommand(command);
 
-        // Create Order
-        OrderEntity order = createOrder(command, paymentID);
+            // Accept the order as PENDING; inventory and payment run after the caller has its answer
+            OrderEntity order = orderService.acceptOrder(createOrder(command));
 
-        // Save order in repository
-        orderRepository.save(order);
+            String orderId = order.getOrderId();
+            if (order.getStatus() == OrderEntity.OrderStatus.FRAUDULENT) {
+                placements.put(orderId, OrderPlacementStatus.accepted(orderId)
+                        .fail(OrderPlacementStatus.Stage.FAILED, "Order rejected by fraud checks"));
+                return new OrderID(orderId);
+            }
+            placements.put(orderId, OrderPlacementStatus.accepted(orderId));
+            runSaga(orderId, command).whenComplete((finished, error) -> onFinished.run());
+            sagaStarted = true;
+            return new OrderID(orderId);
+        } finally {
+            if (!sagaStarted) {
+                onFinished.run();
+            }
+        }
+    }
 
-        // Publish event that the order was placed successfully
-        OrderPlacedEvent event = new OrderPlacedEvent(order.getOrderID(), order.getCustomerID(), LocalDateTime.now());
-        eventBus.publish(event);
+    public Optional<OrderPlacementStatus> getPlacementStatus(String orderId) {
+        return Optional.ofNullable(placements.get(orderId));
+    }
 
-        // Log successful order placement
-        System.out.println("Order placed successfully: " + order.getOrderID());
+    public List<OrderRepositoryImpl.TransitionOutcome> transitionOrders(List<Long> orderIds,
+                                                                        OrderEntity.OrderStatus targetStatus) {
+        return orderService.transitionOrders(orderIds, targetStatus);
     }
 
-    private void validateCommand(PlaceOrderCommand command) throws OrderPlacementException {
-        if (command.getCustomerID() == null || command.getProductID() == null || command.getQuantity() <= 0) {
-            throw new OrderPlacementException("Invalid order command. Ensure all fields are correctly populated.");
+    /**
+     * Cancels an order that has not shipped and returns its reserved stock.
+     *
+     * @return false if the order does not exist.
+     * @throws IllegalStateException if the order can no longer be cancelled.
+     */
+    public boolean cancelOrder(UUID orderId) {
+        String id = orderId.toString();
+        if (!orderService.cancelOrder(id)) {
+            return false;
         }
+        releaseStock(id, List.of());
+        return true;
+    }
+
+    private CompletableFuture<Void> runSaga(String orderId, PlaceOrderCommand command) {
+        Map<String, Integer> reservation = Map.of(command.getProductID().toString(), command.getQuantity());
+        AtomicReference<PaymentID> capturedPayment = new AtomicReference<>();
+        AtomicReference<CompletableFuture<PaymentID>> paymentAttempt = new AtomicReference<>();
+        RequestDeadline deadline = RequestDeadline.after(SAGA_TIMEOUT);
+
+        return deadline.call(() -> inventoryServiceClient.reserveStock(orderId, reservation))
+                .thenCompose(reserved -> {
+                    advance(orderId, OrderPlacementStatus.Stage.STOCK_RESERVED);
+                    CompletableFuture<PaymentID> payment = CompletableFuture.supplyAsync(
+                            deadline.wrap(() -> processPayment(command)), paymentExecutor);
+                    paymentAttempt.set(payment);
+                    return payment.copy().orTimeout(deadline.remainingNanos(), TimeUnit.NANOSECONDS);
+                })
+                .thenAccept(paymentID -> {
+                    capturedPayment.set(paymentID);
+                    advance(orderId, OrderPlacementStatus.Stage.PAYMENT_CAPTURED);
+                    orderService.confirmPayment(orderId, paymentID.toString());
+                    advance(orderId, OrderPlacementStatus.Stage.COMPLETED);
+                    logger.info("Order placed successfully: " + orderId);
+                })
+                .exceptionallyCompose(error ->
+                        compensate(orderId, reservation, paymentAttempt.get(), capturedPayment.get(), unwrap(error)));
     }
 
-    private PaymentID processPayment(PlaceOrderCommand command) throws OrderPlacementException {
+    private PaymentID processPayment(PlaceOrderCommand command) {
+        // The payment may have queued behind others; once the saga has given up, capturing it would only be voided
+        RequestDeadline.current().ifPresent(deadline -> deadline.check("payment capture"));
         try {
             return processPaymentHandler.handle(command.getCustomerID(), command.getTotalAmount());
         } catch (Exception e) {
-            throw new OrderPlacementException("Payment processing failed: " + e.getMessage());
+            throw new CompletionException(new OrderPlacementException("Payment processing failed: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Undoes completed steps in reverse order and cancels the order. Compensation failures are logged for manual
+     * follow-up; they do not stop the remaining steps.
+     *
+     * @return Completes once the stock is released and the order cancelled.
+     */
+    private CompletableFuture<Void> compensate(String orderId, Map<String, Integer> reservation,
+                                               CompletableFuture<PaymentID> paymentAttempt, PaymentID paymentID, Throwable cause) {
+        String reason = cause instanceof TimeoutException ? "Order placement timed out" : cause.getMessage();
+        logger.warning("Order placement failed for " + orderId + ": " + reason);
+        placements.computeIfPresent(orderId, (id, status) -> status.fail(OrderPlacementStatus.Stage.COMPENSATING, reason));
+
+        if (paymentID != null) {
+            voidPayment(orderId, paymentID);
+        } else if (paymentAttempt != null && !paymentAttempt.isDone()) {
+            // A timed-out payment may still be captured later; void it as soon as it completes
+            paymentAttempt.thenAccept(lateCapture -> voidPayment(orderId, lateCapture));
+        }
+        // Only a rejected reservation is known to have taken nothing; after a timeout or I/O error it may have been
+        // applied, and releasing one that was not is a no-op
+        CompletableFuture<Void> release = cause instanceof InventoryServiceClient.InsufficientStockException
+                ? CompletableFuture.completedFuture(null)
+                : releaseStock(orderId, reservation.keySet());
+
+        return release.handle((released, releaseError) -> {
+            try {
+                orderService.cancelOrder(orderId);
+            } catch (RuntimeException e) {
+                logger.severe("Failed to cancel order " + orderId + ": " + e.getMessage());
+            }
+            placements.computeIfPresent(orderId, (id, status) -> status.fail(OrderPlacementStatus.Stage.FAILED, reason));
+            return null;
+        });
+    }
+
+    private CompletableFuture<Void> releaseStock(String orderId, Collection<String> productIds) {
+        return inventoryServiceClient.releaseStock(orderId, productIds)
+                .whenComplete((released, error) -> {
+                    if (error != null) {
+                        logger.severe("Failed to release stock for order " + orderId + ": " + unwrap(error).getMessage());
+                    }
+                });
+    }
+
+    private void voidPayment(String orderId, PaymentID paymentID) {
+        paymentExecutor.execute(() -> {
+            try {
+                processPaymentHandler.voidPayment(paymentID.toString());
+            } catch (RuntimeException e) {
+                logger.severe("Failed to void payment " + paymentID + " for order " + orderId + ": " + e.getMessage());
+            }
+        });
+    }
+
+    private void advance(String orderId, OrderPlacementStatus.Stage stage) {
+        placements.computeIfPresent(orderId, (id, status) -> status.advance(stage));
+    }
+
+    private void evictFinishedPlacements() {
+        Instant cutoff = Instant.now().minus(STATUS_RETENTION);
+        placements.values().removeIf(status -> status.getStage().isFinal() && status.getUpdatedAt().isBefore(cutoff));
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        Throwable cause = error;
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    private void validateCommand(PlaceOrderCommand command) throws OrderPlacementException {
+        if (command.getCustomerID() == null || command.getProductID() == null || command.getQuantity() <= 0) {
+            throw new OrderPlacementException("Invalid order command. Ensure all fields are correctly populated.");
         }
     }
 
-    private OrderEntity createOrder(PlaceOrderCommand command, PaymentID paymentID) {
-        OrderID orderID = OrderID.generate();
-        return new OrderEntity(orderID, command.getCustomerID(), command.getProductID(),
-                command.getQuantity(), command.getTotalAmount(), paymentID, LocalDateTime.now());
+    private OrderEntity createOrder(PlaceOrderCommand command) {
+        BigDecimal unitPrice = command.getTotalAmount().divide(BigDecimal.valueOf(command.getQuantity()), 2, RoundingMode.HALF_UP);
+        OrderEntity.OrderItem item = new OrderEntity.OrderItem(command.getProductID().toString(), null,
+                command.getQuantity(), unitPrice);
+        return new OrderEntity(command.getCustomerID().toString(), List.of(item), null, null);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,193 @@
+package application;
+
+import core.OrderEntity;
+import core.PostingList;
+import infrastructure.OrderRepositoryImpl;
+import infrastructure.TransactionCallbacks;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Inverted index from product id to the ids of the orders containing it, for recalls and "who bought this".
+ *
+ * Each product has a {@link PostingList} of order ids. The index is built from both order tiers on startup, so
+ * archived orders stay findable, and then maintained after commit: placed orders are added under each of their
+ * products, cancelled orders removed. Until the initial build has finished, {@link #find} returns empty and callers
+ * fall back to the database join; a failed build is retried after {@link #BUILD_RETRY_DELAY}. Cancellations seen
+ * during the build are replayed once it completes, so the build cannot resurrect them.
+ */
+@Component
+public class ProductOrderIndex {
+
+    private static final Logger logger = Logger.getLogger(ProductOrderIndex.class.getName());
+    private static final String CANCELED = "CANCELED";
+    private static final Duration BUILD_RETRY_DELAY = Duration.ofMinutes(1);
+
+    private final OrderRepositoryImpl orderRepository;
+    private final Map<String, PostingList> postings = new ConcurrentHashMap<>();
+    private final Set<CancelledOrder> cancelledDuringBuild = new HashSet<>();
+    private final ScheduledExecutorService builder = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "product-order-index-build");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile boolean ready;
+
+    public ProductOrderIndex(OrderRepositoryImpl orderRepository) {
+        this.orderRepository = orderRepository;
+    }
+
+    @PostConstruct
+    public void start() {
+        builder.execute(this::build);
+    }
+
+    @PreDestroy
+    public void stop() {
+        builder.shutdownNow();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Returns up to {@code limit} ids of the orders containing a product, ascending and after {@code afterId}, or
+     * empty if the index is still building.
+     *
+     * @param afterId The last id already returned, or null to start from the first.
+     */
+    public Optional<long[]> find(String productId, Long afterId, int limit) {
+        if (!ready) {
+            return Optional.empty();
+        }
+        PostingList list = postings.get(productId);
+        return Optional.of(list == null ? new long[0] : list.idsAfter(afterId == null ? -1 : afterId, limit));
+    }
+
+    public void onOrderPlaced(OrderEntity order) {
+        TransactionCallbacks.afterCommit(() -> add(order));
+    }
+
+    public void onOrderCancelled(OrderEntity order) {
+        onOrdersCancelled(List.of(order));
+    }
+
+    /**
+     * Removes cancelled orders after commit, with one batched removal per affected product.
+     */
+    public void onOrdersCancelled(List<OrderEntity> orders) {
+        TransactionCallbacks.afterCommit(() -> remove(orders));
+    }
+
+    public int getProductCount() {
+        return postings.size();
+    }
+
+    /**
+     * Encoded size of all posting lists, in bytes.
+     */
+    public long getIndexSize() {
+        long bytes = 0;
+        for (PostingList list : postings.values()) {
+            bytes += list.byteSize();
+        }
+        return bytes;
+    }
+
+    private void build() {
+        long started = System.nanoTime();
+        try {
+            long lines = orderRepository.streamOrderProducts(CANCELED, (orderId, productId) ->
+                    postings.computeIfAbsent(productId, id -> new PostingList()).add(orderId));
+            synchronized (cancelledDuringBuild) {
+                Map<String, List<Long>> byProduct = new HashMap<>();
+                for (CancelledOrder cancelled : cancelledDuringBuild) {
+                    byProduct.computeIfAbsent(cancelled.productId, id -> new ArrayList<>()).add(cancelled.orderId);
+                }
+                removeFromPostings(byProduct);
+                cancelledDuringBuild.clear();
+                ready = true;
+            }
+            logger.info("Product order index built from " + lines + " order lines over " + postings.size()
+                    + " products in " + (System.nanoTime() - started) / 1_000_000 + " ms");
+        } catch (RuntimeException e) {
+            logger.warning("Product order index build failed, queries use the database until a retry in "
+                    + BUILD_RETRY_DELAY.toSeconds() + " s: " + e.getMessage());
+            builder.schedule(this::build, BUILD_RETRY_DELAY.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void add(OrderEntity order) {
+        long orderId = order.getId();
+        for (OrderEntity.OrderItem item : order.getItems()) {
+            postings.computeIfAbsent(item.getProductId(), id -> new PostingList()).add(orderId);
+        }
+    }
+
+    private void remove(List<OrderEntity> orders) {
+        Map<String, List<Long>> byProduct = new HashMap<>();
+        for (OrderEntity order : orders) {
+            for (OrderEntity.OrderItem item : order.getItems()) {
+                byProduct.computeIfAbsent(item.getProductId(), id -> new ArrayList<>()).add(order.getId());
+            }
+        }
+        if (!ready) {
+            synchronized (cancelledDuringBuild) {
+                if (!ready) {
+                    byProduct.forEach((productId, orderIds) -> orderIds.forEach(orderId ->
+                            cancelledDuringBuild.add(new CancelledOrder(productId, orderId))));
+                }
+            }
+        }
+        removeFromPostings(byProduct);
+    }
+
+    private void removeFromPostings(Map<String, List<Long>> orderIdsByProduct) {
+        orderIdsByProduct.forEach((productId, orderIds) -> {
+            PostingList list = postings.get(productId);
+            if (list != null) {
+                list.removeAll(orderIds.stream().mapToLong(Long::longValue).toArray());
+            }
+        });
+    }
+
+    private static final class CancelledOrder {
+        private final String productId;
+        private final long orderId;
+
+        private CancelledOrder(String productId, long orderId) {
+            this.productId = productId;
+            this.orderId = orderId;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof CancelledOrder)) {
+                return false;
+            }
+            CancelledOrder that = (CancelledOrder) other;
+            return orderId == that.orderId && productId.equals(that.productId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(orderId) * 31 + productId.hashCode();
+        }
+    }
+}
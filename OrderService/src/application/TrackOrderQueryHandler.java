@@ -5,23 +5,40 @@ import com.ecommerce.order.core.OrderStatus;
 import com.ecommerce.order.core.OrderService;
 import com.ecommerce.order.infrastructure.OrderRepository;
 import com.ecommerce.order.presentation.OrderViewModel;
+import infrastructure.OrderRollups;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.logging.Logger;
+import dtos.OrderDTO;
 
 public class TrackOrderQueryHandler {
 
     private final OrderRepository orderRepository;
     private final OrderService orderService;
+    private final OrderTrackingProjection trackingProjection;
+    private final OrderRollups orderRollups;
     private final Logger logger = Logger.getLogger(TrackOrderQueryHandler.class.getName());
 
-    public TrackOrderQueryHandler(OrderRepository orderRepository, OrderService orderService) {
+    public TrackOrderQueryHandler(OrderRepository orderRepository, OrderService orderService,
+                                  OrderTrackingProjection trackingProjection, OrderRollups orderRollups) {
         this.orderRepository = orderRepository;
         this.orderService = orderService;
+        this.trackingProjection = trackingProjection;
+        this.orderRollups = orderRollups;
     }
 
     public OrderViewModel handle(TrackOrderQuery query) {
-        logger.info("Handling TrackOrderQuery for Order ID: " + query.getOrderId());
+        logger.fine("Handling TrackOrderQuery for Order ID: " + query.getOrderId());
 
+        Optional<OrderTrackingView> view = trackingProjection.find(query.getOrderId());
+        if (view.isPresent()) {
+            return convertToViewModel(view.get());
+        }
+
+        // Miss: load the order once and back-fill the projection for the next poll
         Optional<OrderEntity> orderEntity = orderRepository.findById(query.getOrderId());
 
         if (orderEntity.isEmpty()) {
@@ -29,25 +46,44 @@ public class TrackOrderQueryHandler {
             throw new OrderNotFoundException("Order with ID " + query.getOrderId() + " not found.");
         }
 
-        OrderEntity order = orderEntity.get();
-        return convertToViewModel(order);
+        OrderTrackingView loaded = OrderTrackingView.of(query.getOrderId(), orderEntity.get());
+        trackingProjection.putIfAbsent(loaded);
+        return convertToViewModel(loaded);
+    }
+
+    public OrderPage getOrdersPage(Long afterId, int limit, String status) {
+        return orderService.getOrdersPage(afterId, limit, status);
+    }
+
+    public long streamOrders(String status, Consumer<OrderDTO> consumer) {
+        return orderService.streamOrders(status, consumer);
     }
 
-    private OrderViewModel convertToViewModel(OrderEntity order) {
-        logger.info("Converting OrderEntity to OrderViewModel for Order ID: " + order.getOrderId());
+    public List<OrderSummary> getCustomerOrderHistory(String customerId, Long beforeId, int limit) {
+        return orderService.getCustomerOrderHistory(customerId, beforeId, limit);
+    }
+
+    public List<OrderSummary> findOrdersByProduct(String productId, LocalDateTime from, LocalDateTime to,
+                                                  Long afterId, int limit) {
+        return orderService.findOrdersByProduct(productId, from, to, afterId, limit);
+    }
 
+    public List<OrderRollups.Row> getOrderRollups(OrderRollups.Granularity granularity, OrderRollups.Dimension dimension,
+                                                  Instant from, Instant to) {
+        return orderRollups.find(granularity, dimension, from, to);
+    }
+
+    private OrderViewModel convertToViewModel(OrderTrackingView view) {
         OrderViewModel viewModel = new OrderViewModel();
-        viewModel.setOrderId(order.getOrderId());
-        viewModel.setCustomerId(order.getCustomerId());
-        viewModel.setOrderStatus(order.getOrderStatus().name());
-        viewModel.setTotalAmount(order.getTotalAmount());
-        viewModel.setItems(order.getItems());
-
-        if (order.getOrderStatus() == OrderStatus.DELIVERED) {
-            viewModel.setDeliveryDate(order.getDeliveryDate());
+        viewModel.setOrderId(view.getOrderId());
+        viewModel.setCustomerId(view.getCustomerId());
+        viewModel.setOrderStatus(view.getStatus());
+        viewModel.setTotalAmount(view.getTotalAmount());
+        viewModel.setItems(view.getItems());
+
+        if (OrderStatus.DELIVERED.name().equals(view.getStatus())) {
+            viewModel.setDeliveryDate(view.getDeliveryDate());
         }
-
-        logger.info("OrderViewModel successfully created for Order ID: " + order.getOrderId());
         return viewModel;
     }
 }
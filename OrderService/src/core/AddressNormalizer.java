@@ -0,0 +1,62 @@
+package core;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reduces shipping addresses to a canonical form before blocklist hashing, so that
+ * "123 Fraud Street", "123  fraud st." and "123 FRAUD ST" are treated as the same address.
+ */
+public final class AddressNormalizer {
+
+    private static final Map<String, String> ABBREVIATIONS = Map.ofEntries(
+            Map.entry("street", "st"),
+            Map.entry("avenue", "ave"),
+            Map.entry("road", "rd"),
+            Map.entry("boulevard", "blvd"),
+            Map.entry("drive", "dr"),
+            Map.entry("lane", "ln"),
+            Map.entry("court", "ct"),
+            Map.entry("place", "pl"),
+            Map.entry("square", "sq"),
+            Map.entry("highway", "hwy"),
+            Map.entry("parkway", "pkwy"),
+            Map.entry("apartment", "apt"),
+            Map.entry("suite", "ste"),
+            Map.entry("building", "bldg"),
+            Map.entry("floor", "fl"),
+            Map.entry("north", "n"),
+            Map.entry("south", "s"),
+            Map.entry("east", "e"),
+            Map.entry("west", "w")
+    );
+
+    private AddressNormalizer() {
+    }
+
+    public static String normalize(String address) {
+        if (address == null) {
+            return "";
+        }
+        String folded = Normalizer.normalize(address, Normalizer.Form.NFKD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT);
+
+        StringBuilder normalized = new StringBuilder(folded.length());
+        for (String token : folded.split("[^\\p{Alnum}]+")) {
+            if (token.isEmpty()) {
+                continue;
+            }
+            if (normalized.length() > 0) {
+                normalized.append(' ');
+            }
+            normalized.append(ABBREVIATIONS.getOrDefault(token, token));
+        }
+        return normalized.toString();
+    }
+
+    public static String normalizeCustomerId(String customerId) {
+        return customerId == null ? "" : customerId.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,221 @@
+package core;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Immutable blocklist: a Bloom filter in front of an open-addressing set of 64-bit key hashes.
+ *
+ * Most lookups are for keys that are not listed and are rejected by the Bloom filter after a few bit probes.
+ * The hashed set behind it confirms positives without keeping the original strings, which keeps
+ * millions of entries to at most about 34 bytes each. With 64-bit hashes a false match needs a full hash collision,
+ * which is negligible at this size. Snapshots are never modified; reloads build a new one and swap it in.
+ */
+public final class BlocklistSnapshot {
+
+    private static final int BITS_PER_ENTRY = 10;
+    private static final int HASH_FUNCTIONS = 7;
+    private static final long EMPTY = 0L;
+
+    private final long[] bloomBits;
+    private final long bloomBitCount;
+    private final long[] hashes;
+    private final int mask;
+    private final int size;
+    private final boolean containsZeroHash;
+
+    private BlocklistSnapshot(Collection<String> keys) {
+        long bitCount = Math.max(64L, (long) keys.size() * BITS_PER_ENTRY);
+        this.bloomBits = new long[(int) ((bitCount + 63) >>> 6)];
+        this.bloomBitCount = (long) bloomBits.length << 6;
+
+        int capacity = Integer.highestOneBit(Math.max(4, keys.size() * 2 - 1)) << 1;
+        this.hashes = new long[capacity];
+        this.mask = capacity - 1;
+
+        int count = 0;
+        boolean zero = false;
+        for (String key : keys) {
+            long[] hash = hash(key);
+            addToBloom(hash);
+            if (hash[0] == EMPTY) {
+                if (!zero) {
+                    zero = true;
+                    count++;
+                }
+            } else if (insert(hash[0])) {
+                count++;
+            }
+        }
+        this.size = count;
+        this.containsZeroHash = zero;
+    }
+
+    /**
+     * Builds a snapshot from already normalized keys.
+     */
+    public static BlocklistSnapshot of(Collection<String> normalizedKeys) {
+        return new BlocklistSnapshot(normalizedKeys);
+    }
+
+    public static BlocklistSnapshot empty() {
+        return new BlocklistSnapshot(List.of());
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Looks up an already normalized key.
+     *
+     * @return A result telling whether the key is listed and whether the Bloom filter alone decided it.
+     */
+    public Lookup lookup(String normalizedKey) {
+        long[] hash = hash(normalizedKey);
+        if (!mightContain(hash)) {
+            return Lookup.BLOOM_NEGATIVE;
+        }
+        boolean listed = hash[0] == EMPTY ? containsZeroHash : containsHash(hash[0]);
+        return listed ? Lookup.LISTED : Lookup.BLOOM_FALSE_POSITIVE;
+    }
+
+    public enum Lookup {
+        BLOOM_NEGATIVE,
+        BLOOM_FALSE_POSITIVE,
+        LISTED;
+
+        public boolean isListed() {
+            return this == LISTED;
+        }
+    }
+
+    private void addToBloom(long[] hash) {
+        long combined = hash[0];
+        for (int i = 0; i < HASH_FUNCTIONS; i++) {
+            long bit = (combined & Long.MAX_VALUE) % bloomBitCount;
+            bloomBits[(int) (bit >>> 6)] |= 1L << bit;
+            combined += hash[1];
+        }
+    }
+
+    private boolean mightContain(long[] hash) {
+        long combined = hash[0];
+        for (int i = 0; i < HASH_FUNCTIONS; i++) {
+            long bit = (combined & Long.MAX_VALUE) % bloomBitCount;
+            if ((bloomBits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+            combined += hash[1];
+        }
+        return true;
+    }
+
+    private boolean insert(long value) {
+        int slot = (int) mix(value) & mask;
+        while (hashes[slot] != EMPTY) {
+            if (hashes[slot] == value) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        hashes[slot] = value;
+        return true;
+    }
+
+    private boolean containsHash(long value) {
+        int slot = (int) mix(value) & mask;
+        while (hashes[slot] != EMPTY) {
+            if (hashes[slot] == value) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    private static long mix(long value) {
+        return value ^ (value >>> 32) ^ (value >>> 16);
+    }
+
+    /**
+     * MurmurHash3 x64 128-bit of the key's UTF-8 bytes, returned as two longs.
+     */
+    static long[] hash(String key) {
+        byte[] data = key.getBytes(StandardCharsets.UTF_8);
+        final long c1 = 0x87c37b91114253d5L;
+        final long c2 = 0x4cf5ad432745937fL;
+        long h1 = 0;
+        long h2 = 0;
+        int blocks = data.length / 16;
+
+        for (int i = 0; i < blocks; i++) {
+            long k1 = getLong(data, i * 16);
+            long k2 = getLong(data, i * 16 + 8);
+
+            k1 *= c1; k1 = Long.rotateLeft(k1, 31); k1 *= c2; h1 ^= k1;
+            h1 = Long.rotateLeft(h1, 27); h1 += h2; h1 = h1 * 5 + 0x52dce729;
+
+            k2 *= c2; k2 = Long.rotateLeft(k2, 33); k2 *= c1; h2 ^= k2;
+            h2 = Long.rotateLeft(h2, 31); h2 += h1; h2 = h2 * 5 + 0x38495ab5;
+        }
+
+        long k1 = 0;
+        long k2 = 0;
+        int tail = blocks * 16;
+        switch (data.length & 15) {
+            case 15: k2 ^= (long) (data[tail + 14] & 0xff) << 48;
+            case 14: k2 ^= (long) (data[tail + 13] & 0xff) << 40;
+            case 13: k2 ^= (long) (data[tail + 12] & 0xff) << 32;
+            case 12: k2 ^= (long) (data[tail + 11] & 0xff) << 24;
+            case 11: k2 ^= (long) (data[tail + 10] & 0xff) << 16;
+            case 10: k2 ^= (long) (data[tail + 9] & 0xff) << 8;
+            case 9:
+                k2 ^= data[tail + 8] & 0xff;
+                k2 *= c2; k2 = Long.rotateLeft(k2, 33); k2 *= c1; h2 ^= k2;
+            case 8: k1 ^= (long) (data[tail + 7] & 0xff) << 56;
+            case 7: k1 ^= (long) (data[tail + 6] & 0xff) << 48;
+            case 6: k1 ^= (long) (data[tail + 5] & 0xff) << 40;
+            case 5: k1 ^= (long) (data[tail + 4] & 0xff) << 32;
+            case 4: k1 ^= (long) (data[tail + 3] & 0xff) << 24;
+            case 3: k1 ^= (long) (data[tail + 2] & 0xff) << 16;
+            case 2: k1 ^= (long) (data[tail + 1] & 0xff) << 8;
+            case 1:
+                k1 ^= data[tail] & 0xff;
+                k1 *= c1; k1 = Long.rotateLeft(k1, 31); k1 *= c2; h1 ^= k1;
+            default:
+                break;
+        }
+
+        h1 ^= data.length;
+        h2 ^= data.length;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix(h1);
+        h2 = fmix(h2);
+        h1 += h2;
+        h2 += h1;
+        return new long[] {h1, h2};
+    }
+
+    private static long getLong(byte[] data, int offset) {
+        return (data[offset] & 0xffL)
+                | (data[offset + 1] & 0xffL) << 8
+                | (data[offset + 2] & 0xffL) << 16
+                | (data[offset + 3] & 0xffL) << 24
+                | (data[offset + 4] & 0xffL) << 32
+                | (data[offset + 5] & 0xffL) << 40
+                | (data[offset + 6] & 0xffL) << 48
+                | (data[offset + 7] & 0xffL) << 56;
+    }
+
+    private static long fmix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
@@ -0,0 +1,151 @@
+package core;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-customer sliding-window order counters for fraud velocity rules.
+ *
+ * Each customer has a ring of one-minute buckets covering the last hour, fed on order placement,
+ * so "orders in the last N minutes" is answered from memory in constant time instead of a range query.
+ * Customers with no orders inside the window are evicted by a periodic sweep piggybacked on writes.
+ *
+ * A new tracker knows nothing about orders placed before it was created. It is warm once it has been seeded with
+ * the orders of the last {@link #MAX_WINDOW}, or once it has been running for the window being asked about;
+ * until then callers should count from the database instead.
+ */
+public class CustomerVelocityTracker {
+
+    private static final int BUCKET_COUNT = 60;
+    private static final long BUCKET_MILLIS = Duration.ofMinutes(1).toMillis();
+    private static final long SWEEP_INTERVAL_MILLIS = Duration.ofMinutes(5).toMillis();
+
+    public static final Duration MAX_WINDOW = Duration.ofMillis(BUCKET_COUNT * BUCKET_MILLIS);
+
+    private final BigDecimal highValueThreshold;
+    private final Map<String, CustomerWindow> windows = new ConcurrentHashMap<>();
+    private final AtomicLong lastSweep = new AtomicLong(System.currentTimeMillis());
+    private final long createdAtMillis = System.currentTimeMillis();
+    private volatile boolean seeded;
+
+    public CustomerVelocityTracker(BigDecimal highValueThreshold) {
+        this.highValueThreshold = highValueThreshold;
+    }
+
+    /**
+     * Records a placed order.
+     *
+     * @param customerId The customer who placed the order.
+     * @param totalAmount The order total.
+     * @param placedAt When the order was placed.
+     */
+    public void record(String customerId, BigDecimal totalAmount, Instant placedAt) {
+        boolean highValue = totalAmount != null && totalAmount.compareTo(highValueThreshold) > 0;
+        long minute = placedAt.toEpochMilli() / BUCKET_MILLIS;
+        windows.computeIfAbsent(customerId, id -> new CustomerWindow()).add(minute, highValue);
+        sweepIfDue(System.currentTimeMillis());
+    }
+
+    /**
+     * Marks the tracker as holding every order of the last {@link #MAX_WINDOW}, after the orders placed before it
+     * was created have been passed to {@link #record}.
+     */
+    public void markSeeded() {
+        seeded = true;
+    }
+
+    /**
+     * Whether counts over the given window include every order placed in it.
+     */
+    public boolean isWarm(Duration window) {
+        return seeded || System.currentTimeMillis() - createdAtMillis >= window.toMillis();
+    }
+
+    /**
+     * Counts the customer's orders placed within the given window ending now.
+     */
+    public int countOrders(String customerId, Duration window) {
+        CustomerWindow customerWindow = windows.get(customerId);
+        return customerWindow == null ? 0 : customerWindow.sum(currentMinute(), bucketsFor(window), false);
+    }
+
+    /**
+     * Counts the customer's orders above the high-value threshold placed within the given window ending now.
+     */
+    public int countHighValueOrders(String customerId, Duration window) {
+        CustomerWindow customerWindow = windows.get(customerId);
+        return customerWindow == null ? 0 : customerWindow.sum(currentMinute(), bucketsFor(window), true);
+    }
+
+    public int trackedCustomerCount() {
+        return windows.size();
+    }
+
+    private static long currentMinute() {
+        return System.currentTimeMillis() / BUCKET_MILLIS;
+    }
+
+    private static int bucketsFor(Duration window) {
+        if (window.compareTo(MAX_WINDOW) > 0) {
+            throw new IllegalArgumentException("Velocity window cannot exceed " + MAX_WINDOW);
+        }
+        return (int) Math.max(1, (window.toMillis() + BUCKET_MILLIS - 1) / BUCKET_MILLIS);
+    }
+
+    private void sweepIfDue(long nowMillis) {
+        long previous = lastSweep.get();
+        if (nowMillis - previous < SWEEP_INTERVAL_MILLIS || !lastSweep.compareAndSet(previous, nowMillis)) {
+            return;
+        }
+        long oldestLiveMinute = nowMillis / BUCKET_MILLIS - BUCKET_COUNT + 1;
+        windows.entrySet().removeIf(entry -> entry.getValue().lastMinute() < oldestLiveMinute);
+    }
+
+    /**
+     * Ring of per-minute buckets for one customer. A bucket is reused when its minute falls out of the window.
+     */
+    private static final class CustomerWindow {
+
+        private final long[] minutes = new long[BUCKET_COUNT];
+        private final int[] orderCounts = new int[BUCKET_COUNT];
+        private final int[] highValueCounts = new int[BUCKET_COUNT];
+        private long lastMinute = Long.MIN_VALUE;
+
+        synchronized void add(long minute, boolean highValue) {
+            int slot = (int) Math.floorMod(minute, (long) BUCKET_COUNT);
+            if (minute < minutes[slot]) {
+                // Older than the window the slot already holds, e.g. a seed record arriving after a live one
+                return;
+            }
+            if (minutes[slot] != minute) {
+                minutes[slot] = minute;
+                orderCounts[slot] = 0;
+                highValueCounts[slot] = 0;
+            }
+            orderCounts[slot]++;
+            if (highValue) {
+                highValueCounts[slot]++;
+            }
+            lastMinute = Math.max(lastMinute, minute);
+        }
+
+        synchronized int sum(long currentMinute, int bucketCount, boolean highValueOnly) {
+            long oldest = currentMinute - bucketCount + 1;
+            int total = 0;
+            for (int slot = 0; slot < BUCKET_COUNT; slot++) {
+                if (minutes[slot] >= oldest && minutes[slot] <= currentMinute) {
+                    total += highValueOnly ? highValueCounts[slot] : orderCounts[slot];
+                }
+            }
+            return total;
+        }
+
+        synchronized long lastMinute() {
+            return lastMinute;
+        }
+    }
+}
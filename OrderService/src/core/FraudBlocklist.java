@@ -0,0 +1,137 @@
+package core;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Flagged shipping addresses and customers used by the fraud checks.
+ *
+ * Each list is an immutable {@link BlocklistSnapshot} behind an atomic reference. A reload builds the new
+ * snapshot on the caller's thread and swaps it in with a single write, so order placement never waits on a reload
+ * and always sees either the old or the new list in full.
+ */
+@Component
+public class FraudBlocklist {
+
+    private final AtomicReference<BlocklistSnapshot> addresses = new AtomicReference<>(BlocklistSnapshot.empty());
+    private final AtomicReference<BlocklistSnapshot> customers = new AtomicReference<>(BlocklistSnapshot.empty());
+    private final LookupMetrics addressMetrics = new LookupMetrics();
+    private final LookupMetrics customerMetrics = new LookupMetrics();
+
+    public boolean isFlaggedAddress(String shippingAddress) {
+        return lookup(addresses.get(), AddressNormalizer.normalize(shippingAddress), addressMetrics);
+    }
+
+    public boolean isFlaggedCustomer(String customerId) {
+        return lookup(customers.get(), AddressNormalizer.normalizeCustomerId(customerId), customerMetrics);
+    }
+
+    /**
+     * Replaces the flagged address list. Entries are normalized before hashing.
+     *
+     * @return The number of distinct entries now loaded.
+     */
+    public int reloadAddresses(Collection<String> rawAddresses) {
+        BlocklistSnapshot snapshot = BlocklistSnapshot.of(normalizeAll(rawAddresses, AddressNormalizer::normalize));
+        addresses.set(snapshot);
+        return snapshot.size();
+    }
+
+    /**
+     * Replaces the flagged customer list.
+     *
+     * @return The number of distinct entries now loaded.
+     */
+    public int reloadCustomers(Collection<String> rawCustomerIds) {
+        BlocklistSnapshot snapshot = BlocklistSnapshot.of(normalizeAll(rawCustomerIds, AddressNormalizer::normalizeCustomerId));
+        customers.set(snapshot);
+        return snapshot.size();
+    }
+
+    public LookupMetrics getAddressMetrics() {
+        return addressMetrics;
+    }
+
+    public LookupMetrics getCustomerMetrics() {
+        return customerMetrics;
+    }
+
+    private static List<String> normalizeAll(Collection<String> raw, Function<String, String> normalizer) {
+        List<String> normalized = new ArrayList<>(raw.size());
+        for (String entry : raw) {
+            String key = normalizer.apply(entry);
+            if (!key.isEmpty()) {
+                normalized.add(key);
+            }
+        }
+        return normalized;
+    }
+
+    private static boolean lookup(BlocklistSnapshot snapshot, String key, LookupMetrics metrics) {
+        long start = System.nanoTime();
+        BlocklistSnapshot.Lookup result = key.isEmpty() ? BlocklistSnapshot.Lookup.BLOOM_NEGATIVE : snapshot.lookup(key);
+        metrics.record(result, System.nanoTime() - start);
+        return result.isListed();
+    }
+
+    /**
+     * Lookup counters and latency for one blocklist.
+     */
+    public static final class LookupMetrics {
+
+        private final LongAdder lookups = new LongAdder();
+        private final LongAdder bloomNegatives = new LongAdder();
+        private final LongAdder bloomFalsePositives = new LongAdder();
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0L);
+
+        void record(BlocklistSnapshot.Lookup result, long nanos) {
+            lookups.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+            switch (result) {
+                case BLOOM_NEGATIVE:
+                    bloomNegatives.increment();
+                    break;
+                case BLOOM_FALSE_POSITIVE:
+                    bloomFalsePositives.increment();
+                    break;
+                default:
+                    hits.increment();
+            }
+        }
+
+        public long getLookups() {
+            return lookups.sum();
+        }
+
+        public long getBloomNegatives() {
+            return bloomNegatives.sum();
+        }
+
+        public long getBloomFalsePositives() {
+            return bloomFalsePositives.sum();
+        }
+
+        public long getHits() {
+            return hits.sum();
+        }
+
+        public double getAverageLatencyNanos() {
+            long count = lookups.sum();
+            return count == 0 ? 0.0 : (double) totalNanos.sum() / count;
+        }
+
+        public long getMaxLatencyNanos() {
+            return maxNanos.get();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package core;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * A single fraud check run by {@link FraudRulePipeline}.
+ *
+ * Rules declare their relative cost and the data they read. Cheap rules run inline; expensive rules run after
+ * every cheap rule has passed, in parallel with expensive rules that read different inputs. A rule's cost may change
+ * over time, e.g. a database fallback that becomes an in-memory lookup once a cache is warm.
+ */
+public interface FraudRule {
+
+    enum Cost {
+        CHEAP,
+        EXPENSIVE
+    }
+
+    enum Input {
+        ORDER,
+        CUSTOMER_VELOCITY,
+        BLOCKLIST,
+        REMOTE_SERVICE
+    }
+
+    String getName();
+
+    /**
+     * The rule's cost right now. The pipeline re-plans as soon as this changes.
+     */
+    Cost getCost();
+
+    Set<Input> getInputs();
+
+    /**
+     * Evaluates the rule against an order.
+     *
+     * @param order The order being placed.
+     * @return The reason the order is considered fraudulent, or empty if this rule has no objection.
+     */
+    Optional<String> evaluate(OrderEntity order);
+
+    static FraudRule of(String name, Cost cost, Set<Input> inputs, Function<OrderEntity, Optional<String>> check) {
+        return of(name, () -> cost, inputs, check);
+    }
+
+    static FraudRule of(String name, Supplier<Cost> cost, Set<Input> inputs,
+                        Function<OrderEntity, Optional<String>> check) {
+        Set<Input> declaredInputs = Set.copyOf(inputs);
+        return new FraudRule() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public Cost getCost() {
+                return cost.get();
+            }
+
+            @Override
+            public Set<Input> getInputs() {
+                return declaredInputs;
+            }
+
+            @Override
+            public Optional<String> evaluate(OrderEntity order) {
+                return check.apply(order);
+            }
+
+            @Override
+            public String toString() {
+                return name;
+            }
+        };
+    }
+}
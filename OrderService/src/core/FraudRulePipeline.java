@@ -0,0 +1,416 @@
+package core;
+
+import infrastructure.RequestDeadline;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Runs a fixed set of fraud rules against an order and stops at the first rule that flags it.
+ *
+ * The rule list is compiled into an execution plan: cheap rules in one array run inline, expensive rules are grouped
+ * so that rules reading the same input run one after another while groups run in parallel. Every
+ * {@value #REPLAN_INTERVAL} evaluations the plan is rebuilt, ordering rules by observed latency divided by hit rate,
+ * so rules that are fast and often decisive run first; it is also rebuilt as soon as a rule reports a different cost.
+ * Expensive rules run on the pipeline's pool under the time budget and the caller's {@link RequestDeadline}. When the
+ * pool's queue is full a group runs on the calling thread instead, so load never turns into skipped checks.
+ * A rule that throws or misses the time budget is treated as passing, so it never blocks order placement; such an
+ * evaluation is counted in {@link #getFailOpenCount} and logged. {@link #shutdown} stops the pool.
+ */
+public class FraudRulePipeline {
+
+    private static final Logger logger = Logger.getLogger(FraudRulePipeline.class.getName());
+
+    static final int REPLAN_INTERVAL = 1024;
+    private static final int EXPENSIVE_RULE_THREADS = 4;
+    private static final int EXPENSIVE_RULE_QUEUE = 64;
+
+    private final List<RuleMetrics> rules;
+    private final Duration expensiveRuleTimeout;
+    private final AtomicLong evaluations = new AtomicLong();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder failOpen = new LongAdder();
+    private volatile Plan plan;
+    private volatile ExecutorService executor;
+
+    public FraudRulePipeline(List<FraudRule> rules, Duration expensiveRuleTimeout) {
+        List<RuleMetrics> metrics = new ArrayList<>(rules.size());
+        for (FraudRule rule : rules) {
+            metrics.add(new RuleMetrics(rule));
+        }
+        this.rules = List.copyOf(metrics);
+        this.expensiveRuleTimeout = expensiveRuleTimeout;
+        this.plan = compile(this.rules);
+    }
+
+    /**
+     * Evaluates the order against all rules until one flags it.
+     *
+     * @return The verdict, naming the deciding rule if the order was flagged.
+     */
+    public Verdict evaluate(OrderEntity order) {
+        Plan current = plan;
+        if (evaluations.incrementAndGet() % REPLAN_INTERVAL == 0 || current.costsChanged(rules)) {
+            current = compile(rules);
+            plan = current;
+        }
+
+        Verdict cheap = runGroup(current.cheapRules, order);
+        if (cheap.isFraudulent()) {
+            return cheap;
+        }
+
+        Verdict verdict = current.expensiveGroups.length == 0
+                ? Verdict.CLEAN
+                : runInParallel(current.expensiveGroups, order);
+        if (verdict.isFraudulent()) {
+            return verdict;
+        }
+        if (cheap.isFailedOpen() || verdict.isFailedOpen()) {
+            failOpen.increment();
+            logger.warning("Order " + order.getOrderId() + " passed fraud checks with rules failed or timed out");
+            return Verdict.FAILED_OPEN;
+        }
+        return Verdict.CLEAN;
+    }
+
+    /**
+     * Per-rule metrics, in declaration order.
+     */
+    public List<RuleMetrics> getRuleMetrics() {
+        return rules;
+    }
+
+    /**
+     * Rule names in the order the current plan runs them.
+     */
+    public List<String> getExecutionOrder() {
+        Plan current = plan;
+        List<String> names = new ArrayList<>();
+        for (RuleMetrics rule : current.cheapRules) {
+            names.add(rule.getName());
+        }
+        for (RuleMetrics[] group : current.expensiveGroups) {
+            for (RuleMetrics rule : group) {
+                names.add(rule.getName());
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Number of evaluations in which the expensive rules ran out of time.
+     */
+    public long getTimeoutCount() {
+        return timeouts.sum();
+    }
+
+    /**
+     * Number of evaluations that passed only because a rule threw or the expensive rules ran out of time.
+     */
+    public long getFailOpenCount() {
+        return failOpen.sum();
+    }
+
+    public void shutdown() {
+        ExecutorService running = executor;
+        if (running != null) {
+            running.shutdownNow();
+        }
+    }
+
+    private Verdict runInParallel(RuleMetrics[][] groups, OrderEntity order) {
+        CompletionService<Verdict> completion = new ExecutorCompletionService<>(executor());
+        List<Future<Verdict>> futures = new ArrayList<>(groups.length);
+        long deadline = System.nanoTime() + expensiveRuleTimeout.toNanos();
+        RequestDeadline requestDeadline = RequestDeadline.current().orElse(null);
+        boolean failedOpen = false;
+        try {
+            for (RuleMetrics[] group : groups) {
+                futures.add(completion.submit(() -> requestDeadline != null
+                        ? requestDeadline.call(() -> runGroup(group, order))
+                        : runGroup(group, order)));
+            }
+            for (int remaining = groups.length; remaining > 0; remaining--) {
+                Future<Verdict> done = completion.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (done == null) {
+                    logger.warning("Fraud rules did not finish within " + expensiveRuleTimeout.toMillis() + " ms");
+                    timeouts.increment();
+                    return Verdict.FAILED_OPEN;
+                }
+                Verdict verdict = done.get();
+                if (verdict.isFraudulent()) {
+                    return verdict;
+                }
+                failedOpen |= verdict.isFailedOpen();
+            }
+            return failedOpen ? Verdict.FAILED_OPEN : Verdict.CLEAN;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Verdict.FAILED_OPEN;
+        } catch (ExecutionException e) {
+            // runGroup catches rule failures itself; this only happens if the task was cancelled
+            logger.warning("Fraud rule group failed: " + e.getCause());
+            return Verdict.FAILED_OPEN;
+        } catch (RejectedExecutionException e) {
+            logger.warning("Fraud rule pool is shut down, skipping expensive rules");
+            return Verdict.FAILED_OPEN;
+        } finally {
+            for (Future<Verdict> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private static Verdict runGroup(RuleMetrics[] group, OrderEntity order) {
+        boolean failedOpen = false;
+        for (RuleMetrics rule : group) {
+            if (Thread.currentThread().isInterrupted()) {
+                return Verdict.FAILED_OPEN;
+            }
+            Verdict verdict = rule.run(order);
+            if (verdict.isFraudulent()) {
+                return verdict;
+            }
+            failedOpen |= verdict.isFailedOpen();
+        }
+        return failedOpen ? Verdict.FAILED_OPEN : Verdict.CLEAN;
+    }
+
+    private ExecutorService executor() {
+        ExecutorService running = executor;
+        if (running == null) {
+            synchronized (this) {
+                running = executor;
+                if (running == null) {
+                    AtomicInteger threadCount = new AtomicInteger();
+                    running = new ThreadPoolExecutor(EXPENSIVE_RULE_THREADS, EXPENSIVE_RULE_THREADS, 0L,
+                            TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(EXPENSIVE_RULE_QUEUE), runnable -> {
+                                Thread thread = new Thread(runnable, "fraud-rule-" + threadCount.incrementAndGet());
+                                thread.setDaemon(true);
+                                return thread;
+                            }, (task, pool) -> {
+                                // A full queue means the pool is saturated: check on the caller rather than skip
+                                if (pool.isShutdown()) {
+                                    throw new RejectedExecutionException("Fraud rule pool is shut down");
+                                }
+                                task.run();
+                            });
+                    executor = running;
+                }
+            }
+        }
+        return running;
+    }
+
+    private static Plan compile(List<RuleMetrics> rules) {
+        // Read each cost once, so the plan and the costs it was built for agree
+        FraudRule.Cost[] costs = new FraudRule.Cost[rules.size()];
+        Map<RuleMetrics, FraudRule.Cost> costByRule = new IdentityHashMap<>();
+        for (int i = 0; i < costs.length; i++) {
+            costs[i] = rules.get(i).rule.getCost();
+            costByRule.put(rules.get(i), costs[i]);
+        }
+        List<RuleMetrics> ranked = new ArrayList<>(rules);
+        ranked.sort(Comparator.comparingDouble(RuleMetrics::expectedCostPerHit));
+
+        List<RuleMetrics> cheap = new ArrayList<>();
+        List<List<RuleMetrics>> groups = new ArrayList<>();
+        List<Set<FraudRule.Input>> groupInputs = new ArrayList<>();
+        for (RuleMetrics rule : ranked) {
+            if (costByRule.get(rule) == FraudRule.Cost.CHEAP) {
+                cheap.add(rule);
+                continue;
+            }
+            // Merge every group sharing an input with this rule, so rules reading the same data never overlap
+            List<RuleMetrics> merged = new ArrayList<>();
+            Set<FraudRule.Input> mergedInputs = EnumSet.noneOf(FraudRule.Input.class);
+            for (int i = groups.size() - 1; i >= 0; i--) {
+                if (!Collections.disjoint(groupInputs.get(i), rule.rule.getInputs())) {
+                    merged.addAll(0, groups.remove(i));
+                    mergedInputs.addAll(groupInputs.remove(i));
+                }
+            }
+            merged.add(rule);
+            mergedInputs.addAll(rule.rule.getInputs());
+            groups.add(merged);
+            groupInputs.add(mergedInputs);
+        }
+
+        RuleMetrics[][] expensive = new RuleMetrics[groups.size()][];
+        for (int i = 0; i < groups.size(); i++) {
+            expensive[i] = groups.get(i).toArray(new RuleMetrics[0]);
+        }
+        return new Plan(cheap.toArray(new RuleMetrics[0]), expensive, costs);
+    }
+
+    private static final class Plan {
+        private final RuleMetrics[] cheapRules;
+        private final RuleMetrics[][] expensiveGroups;
+        // Cost of each rule, in declaration order, when the plan was built
+        private final FraudRule.Cost[] costs;
+
+        private Plan(RuleMetrics[] cheapRules, RuleMetrics[][] expensiveGroups, FraudRule.Cost[] costs) {
+            this.cheapRules = cheapRules;
+            this.expensiveGroups = expensiveGroups;
+            this.costs = costs;
+        }
+
+        private boolean costsChanged(List<RuleMetrics> rules) {
+            for (int i = 0; i < costs.length; i++) {
+                if (rules.get(i).rule.getCost() != costs[i]) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Outcome of a pipeline run.
+     */
+    public static final class Verdict {
+
+        static final Verdict CLEAN = new Verdict(null, null, false);
+        static final Verdict FAILED_OPEN = new Verdict(null, null, true);
+
+        private final String ruleName;
+        private final String reason;
+        private final boolean failedOpen;
+
+        private Verdict(String ruleName, String reason, boolean failedOpen) {
+            this.ruleName = ruleName;
+            this.reason = reason;
+            this.failedOpen = failedOpen;
+        }
+
+        public boolean isFraudulent() {
+            return ruleName != null;
+        }
+
+        /**
+         * Whether the order passed only because a rule threw or ran out of time.
+         */
+        public boolean isFailedOpen() {
+            return failedOpen;
+        }
+
+        public String getRuleName() {
+            return ruleName;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+    }
+
+    /**
+     * Latency and hit-rate counters for one rule.
+     */
+    public static final class RuleMetrics {
+
+        private final FraudRule rule;
+        private final LongAdder evaluations = new LongAdder();
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0L);
+
+        private RuleMetrics(FraudRule rule) {
+            this.rule = rule;
+        }
+
+        private Verdict run(OrderEntity order) {
+            long start = System.nanoTime();
+            Optional<String> reason;
+            boolean failed = false;
+            try {
+                reason = rule.evaluate(order);
+            } catch (RuntimeException e) {
+                errors.increment();
+                logger.warning("Fraud rule " + rule.getName() + " failed: " + e.getMessage());
+                reason = Optional.empty();
+                failed = true;
+            }
+            long elapsed = System.nanoTime() - start;
+            evaluations.increment();
+            totalNanos.add(elapsed);
+            maxNanos.accumulate(elapsed);
+            if (reason.isPresent()) {
+                hits.increment();
+                return new Verdict(rule.getName(), reason.get(), false);
+            }
+            return failed ? Verdict.FAILED_OPEN : Verdict.CLEAN;
+        }
+
+        /**
+         * Average latency divided by the smoothed hit rate: the expected time spent in this rule per fraud it catches.
+         */
+        private double expectedCostPerHit() {
+            long count = evaluations.sum();
+            double hitRate = (hits.sum() + 1.0) / (count + 2.0);
+            double latency = count == 0 ? 1.0 : Math.max(1.0, (double) totalNanos.sum() / count);
+            return latency / hitRate;
+        }
+
+        public String getName() {
+            return rule.getName();
+        }
+
+        public FraudRule.Cost getCost() {
+            return rule.getCost();
+        }
+
+        public Set<FraudRule.Input> getInputs() {
+            return rule.getInputs();
+        }
+
+        public long getEvaluations() {
+            return evaluations.sum();
+        }
+
+        public long getHits() {
+            return hits.sum();
+        }
+
+        public double getHitRate() {
+            long count = evaluations.sum();
+            return count == 0 ? 0.0 : (double) hits.sum() / count;
+        }
+
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        public double getAverageLatencyNanos() {
+            long count = evaluations.sum();
+            return count == 0 ? 0.0 : (double) totalNanos.sum() / count;
+        }
+
+        public long getMaxLatencyNanos() {
+            return maxNanos.get();
+        }
+    }
+}
@@ -1,14 +1,16 @@
 package core;
 
+import common.ids.TimeOrderedIds;
+
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
-import java.util.UUID;
 
 public class OrderEntity {
     
+    private Long id;
     private String orderId;
     private String customerId;
     private OrderStatus status;
@@ -18,9 +20,10 @@ public class OrderEntity {
     private BigDecimal totalAmount;
     private String deliveryAddress;
     private PaymentInfo paymentInfo;
+    private LocalDateTime updatedAt;
 
     public OrderEntity(String customerId, List<OrderItem> items, String deliveryAddress, PaymentInfo paymentInfo) {
-        this.orderId = UUID.randomUUID().toString();
+        this.orderId = TimeOrderedIds.next().toString();
         this.customerId = customerId;
         this.status = OrderStatus.PENDING;
         this.orderDate = LocalDateTime.now();
@@ -30,6 +33,18 @@ public class OrderEntity {
         calculateTotalAmount();
     }
 
+    /**
+     * Storage key, assigned by the database when the order is first inserted and null before that. It increases
+     * with insertion order, so keyset pages, history cursors and the product index use it rather than the order id.
+     */
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
     public String getOrderId() {
         return orderId;
     }
@@ -44,6 +59,7 @@ public class OrderEntity {
 
     public void setStatus(OrderStatus status) {
         this.status = status;
+        this.updatedAt = LocalDateTime.now();
     }
 
     public LocalDateTime getOrderDate() {
@@ -62,6 +78,11 @@ public class OrderEntity {
         return new ArrayList<>(items);
     }
 
+    public void setItems(List<OrderItem> items) {
+        this.items = new ArrayList<>(items);
+        calculateTotalAmount();
+    }
+
     public BigDecimal getTotalAmount() {
         return totalAmount;
     }
@@ -82,6 +103,13 @@ public class OrderEntity {
         this.paymentInfo = paymentInfo;
     }
 
+    /**
+     * When the order last changed status, or null if it never has.
+     */
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
     private void calculateTotalAmount() {
         this.totalAmount = items.stream()
                 .map(OrderItem::getTotalPrice)
@@ -103,12 +131,12 @@ public class OrderEntity {
     }
 
     public void markAsDelivered() {
-        this.status = OrderStatus.DELIVERED;
-        this.deliveryDate = LocalDateTime.now();
+        setStatus(OrderStatus.DELIVERED);
+        this.deliveryDate = updatedAt;
     }
 
     public void markAsCancelled() {
-        this.status = OrderStatus.CANCELLED;
+        setStatus(OrderStatus.CANCELED);
     }
 
     public boolean isPaymentCompleted() {
@@ -120,7 +148,8 @@ public class OrderEntity {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         OrderEntity that = (OrderEntity) o;
-        return Objects.equals(orderId, that.orderId) &&
+        return Objects.equals(id, that.id) &&
+                Objects.equals(orderId, that.orderId) &&
                 Objects.equals(customerId, that.customerId) &&
                 status == that.status &&
                 Objects.equals(orderDate, that.orderDate) &&
@@ -133,13 +162,14 @@ public class OrderEntity {
 
     @Override
     public int hashCode() {
-        return Objects.hash(orderId, customerId, status, orderDate, deliveryDate, items, totalAmount, deliveryAddress, paymentInfo);
+        return Objects.hash(id, orderId, customerId, status, orderDate, deliveryDate, items, totalAmount, deliveryAddress, paymentInfo);
     }
 
     @Override
     public String toString() {
         return "OrderEntity{" +
-                "orderId='" + orderId + '\'' +
+                "id=" + id +
+                ", orderId='" + orderId + '\'' +
                 ", customerId='" + customerId + '\'' +
                 ", status=" + status +
                 ", orderDate=" + orderDate +
@@ -148,14 +178,18 @@ public class OrderEntity {
                 ", totalAmount=" + totalAmount +
                 ", deliveryAddress='" + deliveryAddress + '\'' +
                 ", paymentInfo=" + paymentInfo +
+                ", updatedAt=" + updatedAt +
                 '}';
     }
 
+    // Names match the status values stored in the orders table
     public enum OrderStatus {
         PENDING,
+        PROCESSING,
         SHIPPED,
         DELIVERED,
-        CANCELLED
+        CANCELED,
+        FRAUDULENT
     }
 
     public static class OrderItem {
@@ -164,12 +198,18 @@ public class OrderEntity {
         private String productName;
         private int quantity;
         private BigDecimal unitPrice;
+        private String category;
 
         public OrderItem(String productId, String productName, int quantity, BigDecimal unitPrice) {
+            this(productId, productName, quantity, unitPrice, null);
+        }
+
+        public OrderItem(String productId, String productName, int quantity, BigDecimal unitPrice, String category) {
             this.productId = productId;
             this.productName = productName;
             this.quantity = quantity;
             this.unitPrice = unitPrice;
+            this.category = category;
         }
 
         public String getProductId() {
@@ -200,6 +240,13 @@ public class OrderEntity {
             return unitPrice.multiply(BigDecimal.valueOf(quantity));
         }
 
+        /**
+         * Catalog category of the product at the time of ordering, or null if unknown.
+         */
+        public String getCategory() {
+            return category;
+        }
+
         @Override
         public boolean equals(Object o) {
             if (this == o) return true;
@@ -208,12 +255,13 @@ public class OrderEntity {
             return quantity == orderItem.quantity &&
                     Objects.equals(productId, orderItem.productId) &&
                     Objects.equals(productName, orderItem.productName) &&
-                    Objects.equals(unitPrice, orderItem.unitPrice);
+                    Objects.equals(unitPrice, orderItem.unitPrice) &&
+                    Objects.equals(category, orderItem.category);
         }
 
         @Override
         public int hashCode() {
-            return Objects.hash(productId, productName, quantity, unitPrice);
+            return Objects.hash(productId, productName, quantity, unitPrice, category);
         }
 
         @Override
@@ -223,6 +271,7 @@ public class OrderEntity {
                     ", productName='" + productName + '\'' +
                     ", quantity=" + quantity +
                     ", unitPrice=" + unitPrice +
+                    ", category='" + category + '\'' +
                     '}';
         }
     }
@@ -232,11 +281,17 @@ public class OrderEntity {
         private String paymentId;
         private BigDecimal amountPaid;
         private boolean paymentCompleted;
+        private String paymentMethod;
 
         public PaymentInfo(String paymentId, BigDecimal amountPaid, boolean paymentCompleted) {
+            this(paymentId, amountPaid, paymentCompleted, null);
+        }
+
+        public PaymentInfo(String paymentId, BigDecimal amountPaid, boolean paymentCompleted, String paymentMethod) {
             this.paymentId = paymentId;
             this.amountPaid = amountPaid;
             this.paymentCompleted = paymentCompleted;
+            this.paymentMethod = paymentMethod;
         }
 
         public String getPaymentId() {
@@ -251,6 +306,13 @@ public class OrderEntity {
             return paymentCompleted;
         }
 
+        /**
+         * How the customer paid, e.g. CARD or PAYPAL, or null if unknown.
+         */
+        public String getPaymentMethod() {
+            return paymentMethod;
+        }
+
         public void markPaymentCompleted() {
             this.paymentCompleted = true;
         }
@@ -262,12 +324,13 @@ public class OrderEntity {
             PaymentInfo that = (PaymentInfo) o;
             return paymentCompleted == that.paymentCompleted &&
                     Objects.equals(paymentId, that.paymentId) &&
-                    Objects.equals(amountPaid, that.amountPaid);
+                    Objects.equals(amountPaid, that.amountPaid) &&
+                    Objects.equals(paymentMethod, that.paymentMethod);
         }
 
         @Override
         public int hashCode() {
-            return Objects.hash(paymentId, amountPaid, paymentCompleted);
+            return Objects.hash(paymentId, amountPaid, paymentCompleted, paymentMethod);
         }
 
         @Override
@@ -276,6 +339,7 @@ public class OrderEntity {
                     "paymentId='" + paymentId + '\'' +
                     ", amountPaid=" + amountPaid +
                     ", paymentCompleted=" + paymentCompleted +
+                    ", paymentMethod='" + paymentMethod + '\'' +
                     '}';
         }
     }
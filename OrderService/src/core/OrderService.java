@@ -1,63 +1,181 @@
 package core;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.UUID;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
-import application.PlaceOrderCommandHandler;
-import application.TrackOrderQueryHandler;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import application.CustomerOrderHistory;
+import application.OrderPage;
+import application.OrderSummary;
+import application.OrderTrackingProjection;
+import application.ProductOrderIndex;
 import infrastructure.OrderRepositoryImpl;
 import infrastructure.InventoryServiceClient;
-import domain.OrderEntity;
-import domain.OrderStatus;
+import infrastructure.OrderCounters;
+import infrastructure.OrderEventType;
+import infrastructure.OrderGroupCommitWriter;
+import infrastructure.OrderEventPublisher;
+import infrastructure.OrderRepositoryImpl.TransitionOutcome;
+import core.OrderEntity.OrderStatus;
 import valueobjects.OrderID;
-import messaging.OrderEventPublisher;
 import dtos.OrderDTO;
-import dtos.ItemDTO;
 
+@Service
 public class OrderService {
 
+    private static final BigDecimal HIGH_ORDER_AMOUNT_THRESHOLD = new BigDecimal("10000");
+    private static final BigDecimal HIGH_VALUE_ORDER_THRESHOLD = new BigDecimal("5000");
+    private static final Duration HIGH_VALUE_VELOCITY_WINDOW = Duration.ofHours(1);
+    private static final int MAX_HIGH_VALUE_ORDERS_PER_WINDOW = 3;
+    private static final Duration FRAUD_RULE_TIMEOUT = Duration.ofMillis(200);
+    public static final int MAX_PAGE_SIZE = 500;
+    public static final int MAX_BULK_TRANSITION_SIZE = 10000;
+
+    // Statuses each bulk transition target may be reached from
+    private static final Map<OrderStatus, Set<String>> BULK_TRANSITIONS = new EnumMap<>(Map.of(
+            OrderStatus.SHIPPED, Set.of(OrderStatus.PROCESSING.name()),
+            OrderStatus.DELIVERED, Set.of(OrderStatus.SHIPPED.name()),
+            OrderStatus.CANCELED, Set.of(OrderStatus.PENDING.name(), OrderStatus.PROCESSING.name())));
+
+    private static final Logger logger = Logger.getLogger(OrderService.class.getName());
+
     private final OrderRepositoryImpl orderRepository;
     private final OrderEventPublisher orderEventPublisher;
-    private final PlaceOrderCommandHandler placeOrderHandler;
-    private final TrackOrderQueryHandler trackOrderHandler;
     private final InventoryServiceClient inventoryServiceClient;
+    private final FraudBlocklist fraudBlocklist;
+    private final OrderCounters orderCounters;
+    private final OrderTrackingProjection trackingProjection;
+    private final OrderGroupCommitWriter orderWriter;
+    private final CustomerOrderHistory customerHistory;
+    private final ProductOrderIndex productOrderIndex;
+    private final CustomerVelocityTracker velocityTracker = new CustomerVelocityTracker(HIGH_VALUE_ORDER_THRESHOLD);
+    // Orders placed from here on reach the velocity tracker as they are accepted
+    private final LocalDateTime startedAt = LocalDateTime.now();
+    private final FraudRulePipeline fraudRules;
 
     public OrderService(OrderRepositoryImpl orderRepository, OrderEventPublisher orderEventPublisher,
-                        PlaceOrderCommandHandler placeOrderHandler, TrackOrderQueryHandler trackOrderHandler,
-                        InventoryServiceClient inventoryServiceClient) {
+                        InventoryServiceClient inventoryServiceClient, FraudBlocklist fraudBlocklist,
+                        OrderCounters orderCounters, OrderTrackingProjection trackingProjection,
+                        OrderGroupCommitWriter orderWriter, CustomerOrderHistory customerHistory,
+                        ProductOrderIndex productOrderIndex) {
         this.orderRepository = orderRepository;
         this.orderEventPublisher = orderEventPublisher;
-        this.placeOrderHandler = placeOrderHandler;
-        this.trackOrderHandler = trackOrderHandler;
         this.inventoryServiceClient = inventoryServiceClient;
+        this.fraudBlocklist = fraudBlocklist;
+        this.orderCounters = orderCounters;
+        this.trackingProjection = trackingProjection;
+        this.orderWriter = orderWriter;
+        this.customerHistory = customerHistory;
+        this.productOrderIndex = productOrderIndex;
+        this.fraudRules = new FraudRulePipeline(fraudRules(), FRAUD_RULE_TIMEOUT);
+    }
+
+    /**
+     * Seeds the velocity tracker with the orders placed in the last velocity window before this instance started,
+     * so a restart does not reset every customer's count. If seeding fails, the velocity rule counts from the
+     * database until the tracker has seen a full window itself.
+     */
+    @PostConstruct
+    public void seedVelocityTracker() {
+        try {
+            long start = System.nanoTime();
+            long seeded = orderRepository.streamOrderTotalsPlacedBetween(startedAt.minus(CustomerVelocityTracker.MAX_WINDOW),
+                    startedAt, (customerId, totalAmount, orderDate) -> velocityTracker.record(customerId, totalAmount,
+                            orderDate.atZone(ZoneId.systemDefault()).toInstant()));
+            velocityTracker.markSeeded();
+            logger.info("Seeded velocity tracker with " + seeded + " recent orders in "
+                    + Duration.ofNanos(System.nanoTime() - start).toMillis() + " ms");
+        } catch (RuntimeException e) {
+            logger.warning("Failed to seed velocity tracker, counting from the database until it is warm: "
+                    + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fraudRules.shutdown();
     }
 
+    /**
+     * Places an order. The insert goes through the group-commit writer, so this returns once the order, and its
+     * placed event in the outbox, are committed together with other concurrently placed orders.
+     */
     public OrderDTO placeOrder(OrderDTO orderDTO) {
         if (!validateOrderItems(orderDTO)) {
             throw new IllegalArgumentException("One or more items in the order are not available in stock.");
         }
+        // New entities start PENDING with a fresh time-ordered order id
+        return convertToDTO(acceptOrder(convertToEntity(orderDTO)));
+    }
 
-        OrderEntity orderEntity = convertToEntity(orderDTO);
-        orderEntity.setOrderStatus(OrderStatus.PENDING);
-        orderEntity.setOrderId(new OrderID(UUID.randomUUID().toString()));
-        orderEntity.setCreatedAt(LocalDateTime.now());
-
+    /**
+     * Runs the fraud checks on a new PENDING order and inserts it like {@link #placeOrder}, without checking
+     * stock; callers that reserve stock themselves, such as the placement saga, use this directly.
+     *
+     * @return The saved order; FRAUDULENT, with no placed event, if a fraud rule matched.
+     */
+    public OrderEntity acceptOrder(OrderEntity orderEntity) {
         // Fraud detection logic
         if (checkOrderForFraud(orderEntity)) {
-            orderEntity.setOrderStatus(OrderStatus.FRAUDULENT);
-            orderRepository.saveOrder(orderEntity);
-            return convertToDTO(orderEntity);
+            orderEntity.setStatus(OrderStatus.FRAUDULENT);
+            insertOrder(orderEntity, null);
+            recordOrderVelocity(orderEntity);
+            orderCounters.recordPlaced(orderEntity.getCustomerId(), OrderStatus.FRAUDULENT.name());
+            refreshTrackingView(orderEntity);
+            customerHistory.onOrderPlaced(orderEntity);
+            productOrderIndex.onOrderPlaced(orderEntity);
+            return orderEntity;
         }
 
-        OrderEntity savedOrder = orderRepository.saveOrder(orderEntity);
-
-        orderEventPublisher.publishOrderPlacedEvent(savedOrder.getOrderId(), savedOrder.getTotalAmount());
+        OrderEntity savedOrder = insertOrder(orderEntity, orderEventPublisher::publishOrderPlacedEvent);
+        recordOrderVelocity(savedOrder);
+        orderCounters.recordPlaced(savedOrder.getCustomerId(), OrderStatus.PENDING.name());
+        refreshTrackingView(savedOrder);
+        customerHistory.onOrderPlaced(savedOrder);
+        productOrderIndex.onOrderPlaced(savedOrder);
+        return savedOrder;
+    }
 
-        return convertToDTO(savedOrder);
+    /**
+     * Records the captured payment of a PENDING order and moves it to PROCESSING.
+     *
+     * @throws IllegalStateException if the order is missing or no longer PENDING, e.g. because it was cancelled
+     *         while the payment was being captured; the caller should then void the payment.
+     */
+    @Transactional
+    public OrderEntity confirmPayment(String orderId, String paymentId) {
+        OrderEntity entity = orderRepository.findOrderById(new OrderID(orderId))
+                .orElseThrow(() -> new IllegalStateException("Order " + orderId + " not found"));
+        OrderStatus previousStatus = entity.getStatus();
+        if (previousStatus != OrderStatus.PENDING) {
+            throw new IllegalStateException("Order " + orderId + " cannot be confirmed from status " + previousStatus);
+        }
+        entity.setPaymentInfo(new OrderEntity.PaymentInfo(paymentId, entity.getTotalAmount(), true));
+        entity.setStatus(OrderStatus.PROCESSING);
+        orderRepository.updateOrder(entity);
+        recordStatusTransition(previousStatus, OrderStatus.PROCESSING);
+        refreshTrackingView(entity);
+        customerHistory.onStatusChanged(entity);
+        orderEventPublisher.publishPaymentCompletedEvent(entity);
+        return entity;
     }
 
     public Optional<OrderDTO> trackOrder(String orderId) {
@@ -75,55 +193,172 @@ public class OrderService {
         return convertToDTOList(orderEntities);
     }
 
-    public void cancelOrder(String orderId) {
+    /**
+     * Returns one page of orders in id order, optionally restricted to one status.
+     *
+     * @param afterId The cursor returned with the previous page, or null for the first page.
+     * @param limit The page size, capped at {@value #MAX_PAGE_SIZE}.
+     * @param status The status to filter on, or null for all orders.
+     */
+    public OrderPage getOrdersPage(Long afterId, int limit, String status) {
+        int pageSize = Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+        // Fetch one extra row to know whether another page exists
+        List<OrderEntity> orderEntities = status == null
+                ? orderRepository.findOrdersAfter(afterId, pageSize + 1)
+                : orderRepository.findOrdersByStatusAfter(status, afterId, pageSize + 1);
+
+        Long nextCursor = null;
+        if (orderEntities.size() > pageSize) {
+            orderEntities = orderEntities.subList(0, pageSize);
+            nextCursor = orderEntities.get(pageSize - 1).getId();
+        }
+        return new OrderPage(convertToDTOList(orderEntities), nextCursor);
+    }
+
+    /**
+     * Streams all orders, optionally restricted to one status, converting each to a DTO as it is read.
+     *
+     * @return The number of orders streamed.
+     */
+    public long streamOrders(String status, Consumer<OrderDTO> consumer) {
+        return orderRepository.streamOrders(status, orderEntity -> consumer.accept(convertToDTO(orderEntity)));
+    }
+
+    /**
+     * Returns a customer's orders newest first. The most recent page is served from the history cache; pass the
+     * id of the oldest order shown as {@code beforeId} to page further back, which reads from the database.
+     *
+     * @param limit The page size, capped at {@value #MAX_PAGE_SIZE}.
+     */
+    public List<OrderSummary> getCustomerOrderHistory(String customerId, Long beforeId, int limit) {
+        int pageSize = Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+        if (beforeId == null && pageSize <= customerHistory.getRecentPerCustomer()) {
+            List<OrderSummary> recent = customerHistory.find(customerId).orElseGet(() -> loadRecentOrders(customerId));
+            return recent.size() > pageSize ? List.copyOf(recent.subList(0, pageSize)) : recent;
+        }
+        return orderRepository.findOrdersByCustomerIdBefore(customerId, beforeId, pageSize).stream()
+                .map(OrderSummary::of)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Finds the orders containing a product, e.g. for a recall, in id order and optionally restricted to orders
+     * placed in {@code [from, to)}. Served from the product index plus batched fetches of the matching orders;
+     * falls back to the join query while the index is still building.
+     *
+     * @param afterId The id of the last order of the previous page, or null for the first page.
+     * @param limit The page size, capped at {@value #MAX_PAGE_SIZE}.
+     */
+    public List<OrderSummary> findOrdersByProduct(String productId, LocalDateTime from, LocalDateTime to,
+                                                  Long afterId, int limit) {
+        int pageSize = Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+        // Fetch a few times the page size per round trip, since the date filter may drop some
+        int batchSize = pageSize * 4;
+        Optional<long[]> indexed = productOrderIndex.find(productId, afterId, batchSize);
+        if (indexed.isEmpty()) {
+            return orderRepository.findOrdersByProductId(productId).stream()
+                    .filter(order -> afterId == null || order.getId() > afterId)
+                    .filter(order -> from == null || !order.getOrderDate().isBefore(from))
+                    .filter(order -> to == null || order.getOrderDate().isBefore(to))
+                    .limit(pageSize)
+                    .map(OrderSummary::of)
+                    .collect(Collectors.toList());
+        }
+
+        long[] candidates = indexed.get();
+        List<OrderSummary> page = new ArrayList<>(pageSize);
+        while (candidates.length > 0) {
+            List<Long> ids = Arrays.stream(candidates).boxed().collect(Collectors.toList());
+            for (OrderEntity order : orderRepository.findOrdersByIdsPlacedBetween(ids, from, to)) {
+                page.add(OrderSummary.of(order));
+                if (page.size() == pageSize) {
+                    return page;
+                }
+            }
+            if (candidates.length < batchSize) {
+                break;
+            }
+            candidates = productOrderIndex.find(productId, candidates[candidates.length - 1], batchSize)
+                    .orElse(new long[0]);
+        }
+        return page;
+    }
+
+    private List<OrderSummary> loadRecentOrders(String customerId) {
+        long version = customerHistory.version(customerId);
+        List<OrderSummary> recent = orderRepository
+                .findOrdersByCustomerIdBefore(customerId, null, customerHistory.getRecentPerCustomer()).stream()
+                .map(OrderSummary::of)
+                .collect(Collectors.toList());
+        customerHistory.install(customerId, recent, version);
+        return recent;
+    }
+
+    /**
+     * Cancels an order that has not shipped yet. Only PENDING and PROCESSING orders can be cancelled, so an order
+     * is cancelled, and its cancelled event published, at most once.
+     *
+     * @return false if the order does not exist.
+     * @throws IllegalStateException if the order is in a status that cannot be cancelled.
+     */
+    @Transactional
+    public boolean cancelOrder(String orderId) {
         OrderID orderID = new OrderID(orderId);
         Optional<OrderEntity> orderEntity = orderRepository.findOrderById(orderID);
+        if (orderEntity.isEmpty()) {
+            return false;
+        }
 
-        if (orderEntity.isPresent()) {
-            OrderEntity entity = orderEntity.get();
-            entity.setOrderStatus(OrderStatus.CANCELED);
-            entity.setUpdatedAt(LocalDateTime.now());
-            orderRepository.updateOrder(entity);
-            orderEventPublisher.publishOrderCanceledEvent(entity.getOrderId());
+        OrderEntity entity = orderEntity.get();
+        OrderStatus previousStatus = entity.getStatus();
+        if (!BULK_TRANSITIONS.get(OrderStatus.CANCELED).contains(previousStatus.name())) {
+            throw new IllegalStateException("Order " + orderId + " cannot be cancelled from status " + previousStatus);
         }
+        entity.markAsCancelled();
+        orderRepository.updateOrder(entity);
+        recordStatusTransition(previousStatus, OrderStatus.CANCELED);
+        refreshTrackingView(entity);
+        customerHistory.onStatusChanged(entity);
+        productOrderIndex.onOrderCancelled(entity);
+        orderEventPublisher.publishOrderCancelledEvent(entity);
+        return true;
     }
 
+    @Transactional
     public OrderDTO updateOrder(OrderDTO orderDTO) {
         OrderID orderId = new OrderID(orderDTO.getOrderId());
         Optional<OrderEntity> existingOrder = orderRepository.findOrderById(orderId);
 
         if (existingOrder.isPresent()) {
             OrderEntity orderEntity = existingOrder.get();
+            OrderStatus previousStatus = orderEntity.getStatus();
+            // The total is recalculated from the items
             orderEntity.setItems(orderDTO.getItems());
-            orderEntity.setTotalAmount(orderDTO.getTotalAmount());
-            orderEntity.setUpdatedAt(LocalDateTime.now());
-            orderEntity.setOrderStatus(orderDTO.getOrderStatus());
+            orderEntity.setStatus(orderDTO.getOrderStatus());
 
             OrderEntity updatedOrder = orderRepository.updateOrder(orderEntity);
+            recordStatusTransition(previousStatus, orderDTO.getOrderStatus());
+            refreshTrackingView(updatedOrder);
+            customerHistory.onStatusChanged(updatedOrder);
+            orderEventPublisher.publishOrderUpdatedEvent(updatedOrder);
             return convertToDTO(updatedOrder);
         }
         return null;
     }
 
     private OrderEntity convertToEntity(OrderDTO orderDTO) {
-        OrderEntity orderEntity = new OrderEntity();
-        orderEntity.setOrderId(new OrderID(orderDTO.getOrderId()));
-        orderEntity.setCustomerId(orderDTO.getCustomerId());
-        orderEntity.setItems(orderDTO.getItems());
-        orderEntity.setTotalAmount(orderDTO.getTotalAmount());
-        orderEntity.setOrderStatus(orderDTO.getOrderStatus());
-        orderEntity.setCreatedAt(orderDTO.getCreatedAt());
-        return orderEntity;
+        return new OrderEntity(orderDTO.getCustomerId(), orderDTO.getItems(), orderDTO.getShippingAddress(), null);
     }
 
     private OrderDTO convertToDTO(OrderEntity orderEntity) {
         OrderDTO orderDTO = new OrderDTO();
-        orderDTO.setOrderId(orderEntity.getOrderId().getValue());
+        orderDTO.setOrderId(orderEntity.getOrderId());
         orderDTO.setCustomerId(orderEntity.getCustomerId());
         orderDTO.setItems(orderEntity.getItems());
+        orderDTO.setShippingAddress(orderEntity.getDeliveryAddress());
         orderDTO.setTotalAmount(orderEntity.getTotalAmount());
-        orderDTO.setOrderStatus(orderEntity.getOrderStatus());
-        orderDTO.setCreatedAt(orderEntity.getCreatedAt());
+        orderDTO.setOrderStatus(orderEntity.getStatus());
+        orderDTO.setCreatedAt(orderEntity.getOrderDate());
         orderDTO.setUpdatedAt(orderEntity.getUpdatedAt());
         return orderDTO;
     }
@@ -138,91 +373,231 @@ public class OrderService {
         OrderID orderID = new OrderID(orderId);
         Optional<OrderEntity> orderEntity = orderRepository.findOrderById(orderID);
 
-        return orderEntity.isPresent() && orderEntity.get().getOrderStatus() == OrderStatus.SHIPPED;
+        return orderEntity.isPresent() && orderEntity.get().getStatus() == OrderStatus.SHIPPED;
     }
 
     public boolean validateOrderItems(OrderDTO orderDTO) {
-        for (ItemDTO item : orderDTO.getItems()) {
-            boolean isAvailable = inventoryServiceClient.checkStockAvailability(item.getProductId(), item.getQuantity());
-            if (!isAvailable) {
-                return false; // Item not available in stock
-            }
-        }
-        return true; // All items are available
+        // One batched availability call for the whole cart instead of one round trip per item
+        List<InventoryServiceClient.AvailabilityRequest> requests = orderDTO.getItems().stream()
+                .map(item -> new InventoryServiceClient.AvailabilityRequest(item.getProductId(), item.getQuantity()))
+                .collect(Collectors.toList());
+        return inventoryServiceClient.checkStockAvailability(requests).stream()
+                .allMatch(InventoryServiceClient.AvailabilityResult::isAvailable);
     }
     
+    @Transactional
     public void confirmOrderDelivery(String orderId) {
         OrderID orderID = new OrderID(orderId);
         Optional<OrderEntity> orderEntity = orderRepository.findOrderById(orderID);
 
         if (orderEntity.isPresent()) {
             OrderEntity entity = orderEntity.get();
-            entity.setOrderStatus(OrderStatus.DELIVERED);
-            entity.setUpdatedAt(LocalDateTime.now());
+            OrderStatus previousStatus = entity.getStatus();
+            entity.markAsDelivered();
             orderRepository.updateOrder(entity);
-            orderEventPublisher.publishOrderDeliveredEvent(entity.getOrderId());
+            recordStatusTransition(previousStatus, OrderStatus.DELIVERED);
+            refreshTrackingView(entity);
+            customerHistory.onStatusChanged(entity);
+            orderEventPublisher.publishOrderDeliveredEvent(entity);
         }
     }
-    
-    public boolean checkOrderForFraud(OrderEntity orderEntity) {
-        double totalAmount = orderEntity.getTotalAmount();
-        int itemCount = orderEntity.getItems().size();
-        String customerId = orderEntity.getCustomerId();
-    
-        // Check if the total order amount exceeds the threshold for fraud detection
-        if (totalAmount > 10000) {
-            logFraudDetection("High order amount detected: " + totalAmount, orderEntity);
-            return true; // Fraud detected due to high order amount
+
+    @Transactional
+    public void shipOrder(String orderId) {
+        OrderID orderID = new OrderID(orderId);
+        Optional<OrderEntity> orderEntity = orderRepository.findOrderById(orderID);
+
+        if (orderEntity.isPresent()) {
+            OrderEntity entity = orderEntity.get();
+            OrderStatus previousStatus = entity.getStatus();
+            entity.setStatus(OrderStatus.SHIPPED);
+            orderRepository.updateOrder(entity);
+            recordStatusTransition(previousStatus, OrderStatus.SHIPPED);
+            refreshTrackingView(entity);
+            customerHistory.onStatusChanged(entity);
+            orderEventPublisher.publishOrderShippedEvent(entity);
         }
-    
-        // Check if the number of items in the order exceeds a suspicious limit
-        if (itemCount > 10) {
-            logFraudDetection("Unusually high number of items detected: " + itemCount, orderEntity);
-            return true; // Fraud detected due to unusually high number of items
+    }
+
+    /**
+     * Moves many orders to one status at once, e.g. for a warehouse shipping confirmation. Valid transitions are
+     * applied with conditional set-based updates; orders that are missing or in a status the target cannot be
+     * reached from are left alone and reported. Events for the transitioned orders are written as one batch.
+     *
+     * @return One outcome per distinct order id, in request order.
+     */
+    @Transactional
+    public List<TransitionOutcome> transitionOrders(List<Long> orderIds, OrderStatus targetStatus) {
+        Set<String> allowedFrom = BULK_TRANSITIONS.get(targetStatus);
+        if (allowedFrom == null) {
+            throw new IllegalArgumentException("Bulk transition to " + targetStatus + " is not supported");
+        }
+        if (orderIds.size() > MAX_BULK_TRANSITION_SIZE) {
+            throw new IllegalArgumentException("At most " + MAX_BULK_TRANSITION_SIZE + " orders per bulk transition");
         }
-    
-        // Check for multiple high-value orders from the same customer in a short time span
-        List<OrderEntity> recentOrders = orderRepository.findRecentOrdersByCustomerId(customerId, LocalDateTime.now().minusHours(1));
-        long highValueOrderCount = recentOrders.stream()
-                                            .filter(order -> order.getTotalAmount().compareTo(new BigDecimal("5000")) > 0)
-                                            .count();
 
-        if (highValueOrderCount >= 3) {
-            logFraudDetection("Multiple high-value orders detected for customer: " + customerId, orderEntity);
-            return true; // Fraud detected due to multiple high-value orders in a short time frame
+        List<TransitionOutcome> outcomes = orderRepository.transitionStatuses(orderIds, targetStatus.name(), allowedFrom);
+        List<Long> transitioned = new ArrayList<>();
+        for (TransitionOutcome outcome : outcomes) {
+            if (outcome.getResult() == TransitionOutcome.Result.TRANSITIONED) {
+                transitioned.add(outcome.getOrderId());
+                orderCounters.recordTransition(outcome.getPreviousStatus(), targetStatus.name());
+            }
         }
-    
-        // Check if the order is being shipped to a flagged address
-        String shippingAddress = orderEntity.getShippingAddress();
-        if (isFlaggedAddress(shippingAddress)) {
-            logFraudDetection("Order being shipped to flagged address: " + shippingAddress, orderEntity);
-            return true; // Fraud detected due to flagged shipping address
+        if (transitioned.isEmpty()) {
+            return outcomes;
         }
-    
-        // Check if the customer has been flagged for past fraudulent activity
-        if (isFlaggedCustomer(customerId)) {
-            logFraudDetection("Customer has been flagged for fraudulent activity: " + customerId, orderEntity);
-            return true; // Fraud detected due to flagged customer
+
+        List<OrderEntity> orders = orderRepository.findAllByIds(transitioned);
+        for (OrderEntity order : orders) {
+            refreshTrackingView(order);
+            customerHistory.onStatusChanged(order);
+        }
+        if (targetStatus == OrderStatus.CANCELED) {
+            productOrderIndex.onOrdersCancelled(orders);
         }
+        orderEventPublisher.publishBatch(bulkEventType(targetStatus), orders);
+        logger.info("Bulk transition to " + targetStatus + ": " + transitioned.size() + " of " + outcomes.size() + " orders");
+        return outcomes;
+    }
+
+    private static OrderEventType bulkEventType(OrderStatus targetStatus) {
+        switch (targetStatus) {
+            case SHIPPED:
+                return OrderEventType.ORDER_SHIPPED;
+            case DELIVERED:
+                return OrderEventType.ORDER_DELIVERED;
+            case CANCELED:
+                return OrderEventType.ORDER_CANCELLED;
+            default:
+                return OrderEventType.ORDER_UPDATED;
+        }
+    }
+
+    public long countOrdersByStatus(OrderStatus status) {
+        return orderCounters.countOrdersByStatus(status.name());
+    }
+
+    public long countOrdersByCustomerId(String customerId) {
+        return orderCounters.countOrdersByCustomerId(customerId);
+    }
+
+    public long countTotalOrders() {
+        return orderCounters.countTotalOrders();
+    }
     
-        // No fraud detected
+    public boolean checkOrderForFraud(OrderEntity orderEntity) {
+        FraudRulePipeline.Verdict verdict = fraudRules.evaluate(orderEntity);
+        if (verdict.isFraudulent()) {
+            logFraudDetection(verdict.getRuleName() + ": " + verdict.getReason(), orderEntity);
+            return true;
+        }
         return false;
     }
-    
+
+    public List<FraudRulePipeline.RuleMetrics> getFraudRuleMetrics() {
+        return fraudRules.getRuleMetrics();
+    }
+
+    /**
+     * Orders that passed fraud checks only because a rule failed or timed out.
+     */
+    public long getFraudFailOpenCount() {
+        return fraudRules.getFailOpenCount();
+    }
+
+    private List<FraudRule> fraudRules() {
+        Set<FraudRule.Input> order = EnumSet.of(FraudRule.Input.ORDER);
+        return List.of(
+                // Check if the total order amount exceeds the threshold for fraud detection
+                FraudRule.of("high-order-amount", FraudRule.Cost.CHEAP, order, orderEntity -> {
+                    BigDecimal totalAmount = orderEntity.getTotalAmount();
+                    return totalAmount.compareTo(HIGH_ORDER_AMOUNT_THRESHOLD) > 0
+                            ? Optional.of("High order amount detected: " + totalAmount)
+                            : Optional.empty();
+                }),
+                // Check if the number of items in the order exceeds a suspicious limit
+                FraudRule.of("item-count", FraudRule.Cost.CHEAP, order, orderEntity -> {
+                    int itemCount = orderEntity.getItems().size();
+                    return itemCount > 10
+                            ? Optional.of("Unusually high number of items detected: " + itemCount)
+                            : Optional.empty();
+                }),
+                // Check for multiple high-value orders from the same customer in a short time span. A lookup in the
+                // velocity tracker once it is warm; until then it queries the database, so it runs off-thread
+                FraudRule.of("high-value-velocity",
+                        () -> velocityTracker.isWarm(HIGH_VALUE_VELOCITY_WINDOW) ? FraudRule.Cost.CHEAP : FraudRule.Cost.EXPENSIVE,
+                        EnumSet.of(FraudRule.Input.CUSTOMER_VELOCITY), orderEntity -> {
+                    String customerId = orderEntity.getCustomerId();
+                    return countHighValueOrders(customerId) >= MAX_HIGH_VALUE_ORDERS_PER_WINDOW
+                            ? Optional.of("Multiple high-value orders detected for customer: " + customerId)
+                            : Optional.empty();
+                }),
+                // Check if the order is being shipped to a flagged address
+                FraudRule.of("flagged-address", FraudRule.Cost.CHEAP, EnumSet.of(FraudRule.Input.BLOCKLIST), orderEntity -> {
+                    String shippingAddress = orderEntity.getDeliveryAddress();
+                    return isFlaggedAddress(shippingAddress)
+                            ? Optional.of("Order being shipped to flagged address: " + shippingAddress)
+                            : Optional.empty();
+                }),
+                // Check if the customer has been flagged for past fraudulent activity
+                FraudRule.of("flagged-customer", FraudRule.Cost.CHEAP, EnumSet.of(FraudRule.Input.BLOCKLIST), orderEntity -> {
+                    String customerId = orderEntity.getCustomerId();
+                    return isFlaggedCustomer(customerId)
+                            ? Optional.of("Customer has been flagged for fraudulent activity: " + customerId)
+                            : Optional.empty();
+                })
+        );
+    }
+
+    private OrderEntity insertOrder(OrderEntity orderEntity, Consumer<OrderEntity> inTransaction) {
+        try {
+            return orderWriter.submit(orderEntity, inTransaction).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private void refreshTrackingView(OrderEntity orderEntity) {
+        trackingProjection.onOrderChanged(orderEntity.getOrderId(), orderEntity);
+    }
+
+    private void recordStatusTransition(OrderStatus previousStatus, OrderStatus newStatus) {
+        if (newStatus == null) {
+            return;
+        }
+        orderCounters.recordTransition(previousStatus != null ? previousStatus.name() : null, newStatus.name());
+    }
+
+    private long countHighValueOrders(String customerId) {
+        if (velocityTracker.isWarm(HIGH_VALUE_VELOCITY_WINDOW)) {
+            return velocityTracker.countHighValueOrders(customerId, HIGH_VALUE_VELOCITY_WINDOW);
+        }
+        return orderRepository.countOrdersAboveTotalPlacedSince(customerId, HIGH_VALUE_ORDER_THRESHOLD,
+                LocalDateTime.now().minus(HIGH_VALUE_VELOCITY_WINDOW));
+    }
+
+    private void recordOrderVelocity(OrderEntity orderEntity) {
+        velocityTracker.record(orderEntity.getCustomerId(), orderEntity.getTotalAmount(),
+                orderEntity.getOrderDate().atZone(ZoneId.systemDefault()).toInstant());
+    }
+
     private boolean isFlaggedAddress(String shippingAddress) {
-        // Check against a list of known fraudulent addresses
-        List<String> flaggedAddresses = List.of("123 Fraud St", "456 Fake Ave");
-        return flaggedAddresses.contains(shippingAddress);
+        // Check against the normalized list of known fraudulent addresses
+        return fraudBlocklist.isFlaggedAddress(shippingAddress);
     }
     
     private boolean isFlaggedCustomer(String customerId) {
         // Check if the customer is on a blacklist or has been flagged for past fraudulent activities
-        return fraudDetectionService.isCustomerFlagged(customerId);
+        return fraudBlocklist.isFlaggedCustomer(customerId);
     }
     
     private void logFraudDetection(String reason, OrderEntity orderEntity) {
         // Log the fraud detection reason and details for further analysis and reporting
-        System.out.println("Fraud detected: " + reason + " for order ID: " + orderEntity.getOrderId());
+        logger.warning("Fraud detected: " + reason + " for order ID: " + orderEntity.getOrderId());
     }
     
 }
\ No newline at end of file
@@ -0,0 +1,269 @@
+package core;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.LongPredicate;
+
+/**
+ * Sorted set of order ids stored as varint-encoded deltas.
+ *
+ * Ids mostly arrive in increasing order, so an add is normally an append of one to three bytes. A product with a
+ * million orders takes a few megabytes instead of the tens a {@code TreeSet<Long>} would. Every
+ * {@value #SKIP_INTERVAL}th id records its byte offset, so a page read seeks close to its cursor and decodes only
+ * what it returns. Removals are kept as tombstones and the list is re-encoded once they reach 1/{@value #COMPACT_RATIO}
+ * of it, so a cancellation costs a seek rather than a rewrite. Ids below the last encoded one, such as an index build
+ * overtaken by live adds or commits completing out of order, wait in a small sorted side set that is merged in by the
+ * next re-encode, due once it reaches the same share of the list. All methods are synchronized; readers get copies.
+ */
+public final class PostingList {
+
+    private static final int SKIP_INTERVAL = 128;
+    private static final int COMPACT_RATIO = 32;
+    private static final int MIN_TOMBSTONES_TO_COMPACT = 64;
+
+    private byte[] data = new byte[16];
+    private int length;
+    // Encoded ids, including tombstoned ones
+    private int count;
+    private long last = Long.MIN_VALUE;
+    // Checkpoint k is where id number k * SKIP_INTERVAL starts, and the id decoded just before it
+    private int[] skipOffsets = new int[4];
+    private long[] skipBases = new long[4];
+    private int checkpoints;
+    private final Set<Long> removed = new HashSet<>();
+    // Ids below last that are not encoded yet
+    private final NavigableSet<Long> pending = new TreeSet<>();
+
+    public synchronized int size() {
+        return count - removed.size() + pending.size();
+    }
+
+    /**
+     * Encoded size in bytes.
+     */
+    public synchronized int byteSize() {
+        return length;
+    }
+
+    /**
+     * Adds an id. Ids must not be negative.
+     *
+     * @return false if the id was already present.
+     */
+    public synchronized boolean add(long id) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Posting ids must not be negative: " + id);
+        }
+        if (count == 0 || id > last) {
+            append(id);
+            return true;
+        }
+        if (removed.remove(id)) {
+            return true;
+        }
+        if (contains(id) || !pending.add(id)) {
+            return false;
+        }
+        compactIfDue();
+        return true;
+    }
+
+    /**
+     * Removes an id.
+     *
+     * @return false if the id was not present.
+     */
+    public synchronized boolean remove(long id) {
+        if (pending.remove(id)) {
+            return true;
+        }
+        if (!tombstone(id)) {
+            return false;
+        }
+        compactIfDue();
+        return true;
+    }
+
+    /**
+     * Removes several ids, re-encoding at most once.
+     *
+     * @return The number of ids that were present.
+     */
+    public synchronized int removeAll(long[] ids) {
+        int removedCount = 0;
+        for (long id : ids) {
+            if (pending.remove(id) || tombstone(id)) {
+                removedCount++;
+            }
+        }
+        if (removedCount > 0) {
+            compactIfDue();
+        }
+        return removedCount;
+    }
+
+    /**
+     * Returns up to {@code max} ids greater than {@code afterId}, ascending. Pass -1 to read from the start.
+     */
+    public synchronized long[] idsAfter(long afterId, int max) {
+        if (count == 0 || afterId >= last || max <= 0) {
+            return new long[0];
+        }
+        long[] page = new long[Math.min(max, count - removed.size())];
+        int[] found = new int[1];
+        if (page.length > 0) {
+            scanFrom(checkpointFor(afterId), id -> {
+                if (id > afterId && !removed.contains(id)) {
+                    page[found[0]++] = id;
+                }
+                return found[0] < page.length;
+            });
+        }
+        long[] encoded = found[0] == page.length ? page : Arrays.copyOf(page, found[0]);
+        return pending.isEmpty() ? encoded : merge(encoded, pending.tailSet(afterId, false), max);
+    }
+
+    /**
+     * Returns the ids in ascending order.
+     */
+    public synchronized long[] toArray() {
+        return liveIds();
+    }
+
+    private boolean tombstone(long id) {
+        return count > 0 && id <= last && !removed.contains(id) && contains(id) && removed.add(id);
+    }
+
+    private void compactIfDue() {
+        int threshold = Math.max(MIN_TOMBSTONES_TO_COMPACT, count / COMPACT_RATIO);
+        if (removed.size() >= threshold || pending.size() >= threshold || (count > 0 && removed.size() == count)) {
+            encode(liveIds());
+        }
+    }
+
+    private boolean contains(long id) {
+        if (count == 0 || id > last) {
+            return false;
+        }
+        boolean[] found = new boolean[1];
+        scanFrom(checkpointFor(id - 1), decoded -> {
+            found[0] = decoded == id;
+            return decoded < id;
+        });
+        return found[0];
+    }
+
+    /**
+     * Index of the last checkpoint whose preceding id is at most {@code afterId}; every id from there on that
+     * could exceed {@code afterId} lies at or after it.
+     */
+    private int checkpointFor(long afterId) {
+        int low = 0;
+        int high = checkpoints - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (skipBases[mid] <= afterId) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Decodes ids from a checkpoint onwards, passing each to the visitor until it returns false.
+     */
+    private void scanFrom(int checkpoint, LongPredicate visitor) {
+        int position = skipOffsets[checkpoint];
+        long current = skipBases[checkpoint];
+        for (int index = checkpoint * SKIP_INTERVAL; index < count; index++) {
+            long delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[position++];
+                delta |= (long) (b & 0x7f) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            current += delta;
+            if (!visitor.test(current)) {
+                return;
+            }
+        }
+    }
+
+    private long[] liveIds() {
+        long[] ids = new long[count - removed.size()];
+        if (ids.length > 0) {
+            int[] found = new int[1];
+            scanFrom(0, id -> {
+                if (!removed.contains(id)) {
+                    ids[found[0]++] = id;
+                }
+                return found[0] < ids.length;
+            });
+        }
+        return pending.isEmpty() ? ids : merge(ids, pending, ids.length + pending.size());
+    }
+
+    /**
+     * Merges ascending encoded ids with ascending pending ones, keeping the first {@code max}.
+     */
+    private static long[] merge(long[] encoded, Set<Long> pendingIds, int max) {
+        long[] merged = new long[Math.min(max, encoded.length + pendingIds.size())];
+        Iterator<Long> others = pendingIds.iterator();
+        long other = others.hasNext() ? others.next() : Long.MAX_VALUE;
+        int e = 0;
+        for (int i = 0; i < merged.length; i++) {
+            if (e < encoded.length && encoded[e] < other) {
+                merged[i] = encoded[e++];
+            } else {
+                merged[i] = other;
+                other = others.hasNext() ? others.next() : Long.MAX_VALUE;
+            }
+        }
+        return merged;
+    }
+
+    private void encode(long[] ids) {
+        data = new byte[Math.max(16, ids.length * 2)];
+        length = 0;
+        count = 0;
+        last = Long.MIN_VALUE;
+        checkpoints = 0;
+        removed.clear();
+        pending.clear();
+        for (long id : ids) {
+            append(id);
+        }
+    }
+
+    private void append(long id) {
+        long previous = count == 0 ? 0 : last;
+        if (count % SKIP_INTERVAL == 0) {
+            if (checkpoints == skipOffsets.length) {
+                skipOffsets = Arrays.copyOf(skipOffsets, checkpoints * 2);
+                skipBases = Arrays.copyOf(skipBases, checkpoints * 2);
+            }
+            skipOffsets[checkpoints] = length;
+            skipBases[checkpoints] = previous;
+            checkpoints++;
+        }
+        if (length + 10 > data.length) {
+            data = Arrays.copyOf(data, data.length * 2);
+        }
+        long value = id - previous;
+        while ((value & ~0x7fL) != 0) {
+            data[length++] = (byte) ((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        data[length++] = (byte) value;
+        last = id;
+        count++;
+    }
+}
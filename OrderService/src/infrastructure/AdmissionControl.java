@@ -0,0 +1,396 @@
+package infrastructure;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Admission control for order placement.
+ *
+ * A request must pass two gates before any inventory or payment work starts:
+ * <ul>
+ *   <li>Its customer's token bucket, so one customer cannot take the capacity others need.</li>
+ *   <li>A global concurrency limit that adapts to observed latency. The baseline is the lowest median latency of
+ *   the last few windows of completions, and latency is smoothed with an exponentially weighted moving average, so
+ *   neither one fast request nor one slow one moves the limit. While smoothed latency stays within
+ *   {@code latencyTolerance} times the baseline, the limit grows by about one per limit's worth of completions;
+ *   above it, the limit is cut by {@code backoffRatio}, at most once per baseline latency.</li>
+ * </ul>
+ * A request arriving at the limit waits in a short FIFO queue. Each request has a deadline, and a request whose
+ * remaining time is below the baseline latency is dropped rather than started, since it would likely finish
+ * after its client gave up. Rejections are fast, so the service keeps completing work at capacity instead of
+ * timing out everything at once under overload. An admitted request runs with its deadline installed as the
+ * {@link RequestDeadline}, so the work it starts stops waiting once the client has.
+ *
+ * Work that outlives the request, such as the order placement saga, uses {@link #admit} instead of
+ * {@link #execute}: the returned {@link Admission} holds its slot until it is released, so that work stays within
+ * the limit and the limit adapts to how long it really takes.
+ */
+@Component
+public class AdmissionControl {
+
+    private static final Logger logger = Logger.getLogger(AdmissionControl.class.getName());
+
+    private static final int BASELINE_WINDOW = 500;
+    // Windows whose medians the baseline is taken from; it follows a lasting slowdown only after this many
+    private static final int BASELINE_WINDOWS = 10;
+    // Weight of the newest sample in the smoothed latency, about the last ten completions
+    private static final double LATENCY_SMOOTHING = 0.1;
+    private static final long BUCKET_SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final double customerRatePerSecond;
+    private final double customerBurst;
+    private final int maxTrackedCustomers;
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueueLength;
+    private final long requestTimeoutNanos;
+    private final double latencyTolerance;
+    private final double backoffRatio;
+
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong lastBucketSweep = new AtomicLong(System.nanoTime());
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition slotFreed = lock.newCondition();
+    private double limit;
+    private int inFlight;
+    private int waiting;
+    private long baselineNanos = Long.MAX_VALUE;
+    private final long[] window = new long[BASELINE_WINDOW];
+    private int windowSamples;
+    private final long[] windowMedians = new long[BASELINE_WINDOWS];
+    private int completedWindows;
+    private double smoothedNanos = -1;
+    private long lastDecreaseNanos;
+
+    private final AtomicLong admitted = new AtomicLong();
+    private final AtomicLong rejectedByRate = new AtomicLong();
+    private final AtomicLong rejectedByLimit = new AtomicLong();
+    private final AtomicLong droppedExpired = new AtomicLong();
+
+    public AdmissionControl(@Value("${orders.admission.customer-rate-per-second:2}") double customerRatePerSecond,
+                            @Value("${orders.admission.customer-burst:10}") double customerBurst,
+                            @Value("${orders.admission.max-tracked-customers:100000}") int maxTrackedCustomers,
+                            @Value("${orders.admission.initial-limit:50}") int initialLimit,
+                            @Value("${orders.admission.min-limit:4}") int minLimit,
+                            @Value("${orders.admission.max-limit:1000}") int maxLimit,
+                            @Value("${orders.admission.max-queue-length:200}") int maxQueueLength,
+                            @Value("${orders.admission.request-timeout-ms:2000}") long requestTimeoutMs,
+                            @Value("${orders.admission.latency-tolerance:2.0}") double latencyTolerance,
+                            @Value("${orders.admission.backoff-ratio:0.9}") double backoffRatio) {
+        this.customerRatePerSecond = customerRatePerSecond;
+        this.customerBurst = customerBurst;
+        this.maxTrackedCustomers = maxTrackedCustomers;
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+        this.maxQueueLength = maxQueueLength;
+        this.requestTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(requestTimeoutMs);
+        this.latencyTolerance = latencyTolerance;
+        this.backoffRatio = backoffRatio;
+    }
+
+    public <T> T execute(String customerId, Supplier<T> action) {
+        return execute(customerId, null, action);
+    }
+
+    /**
+     * Runs the action if the request is admitted, and feeds its latency back into the limit.
+     *
+     * @param customerId The customer placing the order, or null to skip the per-customer gate.
+     * @param clientBudget How long the client is willing to wait, or null. The request's deadline is the shorter
+     *                     of this and {@code orders.admission.request-timeout-ms}.
+     * @throws AdmissionRejectedException if the request is rate limited, the queue is full, or its deadline
+     *         passed while queued.
+     */
+    public <T> T execute(String customerId, Duration clientBudget, Supplier<T> action) {
+        Admission admission = admit(customerId, clientBudget);
+        try {
+            return admission.call(action);
+        } finally {
+            admission.release();
+        }
+    }
+
+    /**
+     * Admits a request and returns its slot, which stays taken until {@link Admission#release} is called.
+     *
+     * @param customerId The customer placing the order, or null to skip the per-customer gate.
+     * @param clientBudget How long the client is willing to wait, or null.
+     * @throws AdmissionRejectedException if the request is rate limited, the queue is full, or its deadline
+     *         passed while queued.
+     */
+    public Admission admit(String customerId, Duration clientBudget) {
+        long arrivedAt = System.nanoTime();
+        long budgetNanos = clientBudget != null && !clientBudget.isNegative()
+                ? Math.min(requestTimeoutNanos, clientBudget.toNanos())
+                : requestTimeoutNanos;
+        RequestDeadline deadline = RequestDeadline.after(Duration.ofNanos(budgetNanos));
+        if (customerId != null) {
+            checkCustomerRate(customerId);
+        }
+        acquire(arrivedAt + budgetNanos);
+        return new Admission(deadline);
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Lowest median latency of the last {@value #BASELINE_WINDOWS} windows of completions, or -1 before the first
+     * window is complete.
+     */
+    public long getBaselineNanos() {
+        lock.lock();
+        try {
+            return baselineNanos == Long.MAX_VALUE ? -1 : baselineNanos;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getAdmittedCount() {
+        return admitted.get();
+    }
+
+    public long getRejectedByRateCount() {
+        return rejectedByRate.get();
+    }
+
+    public long getRejectedByLimitCount() {
+        return rejectedByLimit.get();
+    }
+
+    public long getDroppedExpiredCount() {
+        return droppedExpired.get();
+    }
+
+    private void checkCustomerRate(String customerId) {
+        long now = System.nanoTime();
+        long previousSweep = lastBucketSweep.get();
+        if (buckets.size() > maxTrackedCustomers && now - previousSweep >= BUCKET_SWEEP_INTERVAL_NANOS
+                && lastBucketSweep.compareAndSet(previousSweep, now)) {
+            // A full bucket behaves exactly like a missing one, so idle customers can be forgotten
+            buckets.values().removeIf(TokenBucket::isFull);
+        }
+        long waitNanos = buckets.computeIfAbsent(customerId, id -> new TokenBucket(customerBurst, customerRatePerSecond))
+                .tryTake();
+        if (waitNanos > 0) {
+            rejectedByRate.incrementAndGet();
+            throw new AdmissionRejectedException("Too many orders from this customer", retryAfterSeconds(waitNanos));
+        }
+    }
+
+    private void acquire(long deadline) {
+        lock.lock();
+        try {
+            if (waiting == 0 && inFlight < (int) limit) {
+                inFlight++;
+                admitted.incrementAndGet();
+                return;
+            }
+            if (waiting >= maxQueueLength) {
+                rejectedByLimit.incrementAndGet();
+                throw new AdmissionRejectedException("Order placement is at capacity", 1);
+            }
+            waiting++;
+            try {
+                while (inFlight >= (int) limit) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    slotFreed.awaitNanos(remaining);
+                }
+                // Too little time left to finish: drop before spending work on it
+                long expectedNanos = baselineNanos == Long.MAX_VALUE ? 0 : baselineNanos;
+                if (inFlight >= (int) limit || deadline - System.nanoTime() < expectedNanos) {
+                    droppedExpired.incrementAndGet();
+                    throw new AdmissionRejectedException("Order placement is at capacity", 1);
+                }
+                inFlight++;
+                admitted.incrementAndGet();
+            } finally {
+                waiting--;
+                // Pass the wake-up on if this waiter did not take the slot it was woken for
+                if (inFlight < (int) limit && waiting > 0) {
+                    slotFreed.signal();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AdmissionRejectedException("Interrupted while waiting for admission", 1);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(long latencyNanos) {
+        lock.lock();
+        try {
+            int inFlightAtCompletion = inFlight;
+            inFlight--;
+            adjustLimit(latencyNanos, inFlightAtCompletion);
+            int free = (int) limit - inFlight;
+            for (int i = 0; i < Math.min(free, waiting); i++) {
+                slotFreed.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * AIMD on smoothed latency relative to a baseline: the lowest of the recent window medians, so the baseline
+     * follows the service's real speed instead of one lucky request, and latency that creeps up as the limit grows
+     * does not drag the baseline along with it. Until the first window is complete the limit only grows.
+     */
+    private void adjustLimit(long latencyNanos, int inFlightAtCompletion) {
+        window[windowSamples++] = latencyNanos;
+        if (windowSamples == BASELINE_WINDOW) {
+            Arrays.sort(window);
+            windowMedians[completedWindows++ % BASELINE_WINDOWS] = window[BASELINE_WINDOW / 2];
+            baselineNanos = Arrays.stream(windowMedians, 0, Math.min(completedWindows, BASELINE_WINDOWS)).min().getAsLong();
+            windowSamples = 0;
+        }
+        smoothedNanos = smoothedNanos < 0
+                ? latencyNanos
+                : smoothedNanos + LATENCY_SMOOTHING * (latencyNanos - smoothedNanos);
+        long baseline = baselineNanos;
+
+        long now = System.nanoTime();
+        if (baseline != Long.MAX_VALUE && smoothedNanos > baseline * latencyTolerance) {
+            if (now - lastDecreaseNanos >= baseline) {
+                double previous = limit;
+                limit = Math.max(minLimit, limit * backoffRatio);
+                lastDecreaseNanos = now;
+                if ((int) previous != (int) limit) {
+                    logger.fine("Order admission limit decreased to " + (int) limit);
+                }
+            }
+        } else if (inFlightAtCompletion >= (int) limit / 2) {
+            // Only grow when the current limit is actually being used
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+    }
+
+    private static long retryAfterSeconds(long waitNanos) {
+        return Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    /**
+     * An admitted request's slot. Its latency, from admission to release, is what the limit adapts to.
+     */
+    public final class Admission {
+
+        private final RequestDeadline deadline;
+        private final long admittedAt = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Admission(RequestDeadline deadline) {
+            this.deadline = deadline;
+        }
+
+        public RequestDeadline getDeadline() {
+            return deadline;
+        }
+
+        /**
+         * Runs the action with the request's deadline installed as the current {@link RequestDeadline}.
+         */
+        public <T> T call(Supplier<T> action) {
+            return deadline.call(action);
+        }
+
+        /**
+         * Frees the slot. Only the first call has an effect, so every path that ends the work may call it.
+         */
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                AdmissionControl.this.release(System.nanoTime() - admittedAt);
+            }
+        }
+    }
+
+    private static final class TokenBucket {
+
+        private final double capacity;
+        private final double tokensPerNano;
+        private double tokens;
+        private long refilledAt = System.nanoTime();
+
+        private TokenBucket(double capacity, double tokensPerSecond) {
+            this.capacity = capacity;
+            this.tokensPerNano = tokensPerSecond / Duration.ofSeconds(1).toNanos();
+            this.tokens = capacity;
+        }
+
+        /**
+         * Takes a token if one is available.
+         *
+         * @return 0 if taken, otherwise the nanoseconds until the next token.
+         */
+        synchronized long tryTake() {
+            refill();
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - tokens) / tokensPerNano);
+        }
+
+        synchronized boolean isFull() {
+            refill();
+            return tokens >= capacity;
+        }
+
+        private void refill() {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+            refilledAt = now;
+        }
+    }
+
+    /**
+     * Thrown when a request is not admitted. Maps to 429 with the given Retry-After.
+     */
+    public static class AdmissionRejectedException extends RuntimeException {
+
+        private final long retryAfterSeconds;
+
+        public AdmissionRejectedException(String message, long retryAfterSeconds) {
+            super(message);
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+
+        public long getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package infrastructure;
+
+import core.FraudBlocklist;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Loads the fraud blocklists into {@link FraudBlocklist} at startup and refreshes them periodically.
+ *
+ * Entries come from plain text files (one entry per line, '#' for comments) when a path is configured,
+ * otherwise from the fraud_blocklist table (see FraudBlocklistSchema.sql). The first load must succeed: a missing
+ * file or table fails startup rather than leaving the service screening orders against empty lists. A failed
+ * refresh after that keeps the previous lists in place. The built-in flagged addresses are part of every address
+ * load, so an empty source never unflags them.
+ */
+@Component
+public class FraudBlocklistLoader {
+
+    private static final Logger logger = Logger.getLogger(FraudBlocklistLoader.class.getName());
+
+    private static final String SELECT_ENTRIES = "SELECT entry_value FROM fraud_blocklist WHERE entry_kind = ?";
+    private static final String KIND_ADDRESS = "ADDRESS";
+    private static final String KIND_CUSTOMER = "CUSTOMER";
+    private static final int FETCH_SIZE = 10_000;
+    private static final List<String> DEFAULT_FLAGGED_ADDRESSES = List.of("123 Fraud St", "456 Fake Ave");
+
+    private final FraudBlocklist fraudBlocklist;
+    private final ObjectProvider<DataSource> dataSource;
+    private final String addressFile;
+    private final String customerFile;
+    private final long refreshIntervalSeconds;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "fraud-blocklist-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public FraudBlocklistLoader(FraudBlocklist fraudBlocklist, ObjectProvider<DataSource> dataSource,
+                                @Value("${fraud.blocklist.address-file:}") String addressFile,
+                                @Value("${fraud.blocklist.customer-file:}") String customerFile,
+                                @Value("${fraud.blocklist.refresh-interval-seconds:300}") long refreshIntervalSeconds) {
+        this.fraudBlocklist = fraudBlocklist;
+        this.dataSource = dataSource;
+        this.addressFile = addressFile;
+        this.customerFile = customerFile;
+        this.refreshIntervalSeconds = refreshIntervalSeconds;
+    }
+
+    @PostConstruct
+    public void start() {
+        reload(true);
+        if (refreshIntervalSeconds > 0) {
+            scheduler.scheduleWithFixedDelay(this::reload, refreshIntervalSeconds, refreshIntervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Reloads both lists. Each list is swapped independently, so one failing source does not block the other.
+     */
+    public void reload() {
+        reload(false);
+    }
+
+    /**
+     * @param required Whether a failing source is fatal instead of leaving the previous list in place.
+     * @throws IllegalStateException if {@code required} and a list could not be loaded.
+     */
+    private void reload(boolean required) {
+        try {
+            long start = System.nanoTime();
+            List<String> addresses = new ArrayList<>(DEFAULT_FLAGGED_ADDRESSES);
+            addresses.addAll(load(addressFile, KIND_ADDRESS));
+            int count = fraudBlocklist.reloadAddresses(addresses);
+            logger.info("Loaded " + count + " flagged addresses in " + elapsedMillis(start) + " ms");
+        } catch (IOException | SQLException e) {
+            failOrWarn(required, "flagged addresses", e);
+        }
+        try {
+            long start = System.nanoTime();
+            int count = fraudBlocklist.reloadCustomers(load(customerFile, KIND_CUSTOMER));
+            logger.info("Loaded " + count + " flagged customers in " + elapsedMillis(start) + " ms");
+        } catch (IOException | SQLException e) {
+            failOrWarn(required, "flagged customers", e);
+        }
+    }
+
+    private static void failOrWarn(boolean required, String list, Exception e) {
+        if (required) {
+            throw new IllegalStateException("Failed to load " + list + ": " + e.getMessage(), e);
+        }
+        logger.warning("Failed to reload " + list + ", keeping previous list: " + e.getMessage());
+    }
+
+    private List<String> load(String file, String kind) throws IOException, SQLException {
+        if (file != null && !file.isBlank()) {
+            return loadFile(Path.of(file));
+        }
+        DataSource source = dataSource.getIfAvailable();
+        if (source == null) {
+            return List.of();
+        }
+        return loadTable(source, kind);
+    }
+
+    private static List<String> loadFile(Path path) throws IOException {
+        try (Stream<String> lines = Files.lines(path, StandardCharsets.UTF_8)) {
+            return lines.map(String::trim)
+                    .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static List<String> loadTable(DataSource source, String kind) throws SQLException {
+        List<String> entries = new ArrayList<>();
+        try (Connection connection = source.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SELECT_ENTRIES)) {
+            statement.setFetchSize(FETCH_SIZE);
+            statement.setString(1, kind);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    entries.add(resultSet.getString(1));
+                }
+            }
+        }
+        return entries;
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+}
@@ -0,0 +1,9 @@
+-- Schema for the Order Service fraud blocklists
+-- Loaded by FraudBlocklistLoader when no blocklist files are configured; entry_kind is ADDRESS or CUSTOMER
+
+CREATE TABLE fraud_blocklist (
+    entry_kind VARCHAR(16) NOT NULL,
+    entry_value TEXT NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (entry_kind, entry_value)
+);
@@ -0,0 +1,339 @@
+package infrastructure;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Client for the InventoryService availability API.
+ *
+ * A whole cart is checked with a single POST to /api/stock/availability under a fixed time budget.
+ * Recent answers are cached for a short TTL, so lines already known to be in stock skip the call entirely. The cache
+ * holds at most {@code inventory.availability.cache-max-entries} products: expired answers are purged once it is
+ * full, and if it is still full the answers that expire first are dropped. Reserving or releasing stock for a product
+ * evicts its answer at once.
+ * Under a {@link RequestDeadline}, availability checks and reservations wait no longer than the time remaining and
+ * forward it to InventoryService in the {@value RequestDeadline#HEADER} header.
+ */
+@Component
+public class InventoryServiceClient {
+
+    private static final Logger logger = Logger.getLogger(InventoryServiceClient.class.getName());
+    private static final TypeReference<List<AvailabilityResult>> RESULT_LIST = new TypeReference<>() {};
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final URI availabilityUri;
+    private final URI adjustUri;
+    private final String reservationsUrl;
+    private final Duration timeout;
+    private final Duration reservationTimeout;
+    private final long cacheTtlNanos;
+    private final int cacheMaxEntries;
+    private final Map<String, CachedAvailability> availabilityCache = new ConcurrentHashMap<>();
+
+    public InventoryServiceClient(ObjectMapper objectMapper,
+                                  @Value("${inventory.service.url:http://inventory-service:8081}") String baseUrl,
+                                  @Value("${inventory.availability.timeout-ms:300}") long timeoutMs,
+                                  @Value("${inventory.availability.cache-ttl-ms:2000}") long cacheTtlMs,
+                                  @Value("${inventory.availability.cache-max-entries:10000}") int cacheMaxEntries,
+                                  @Value("${inventory.reservation.timeout-ms:2000}") long reservationTimeoutMs) {
+        this.objectMapper = objectMapper;
+        this.availabilityUri = URI.create(baseUrl + "/api/stock/availability");
+        this.adjustUri = URI.create(baseUrl + "/api/stock/adjust-batch");
+        this.reservationsUrl = baseUrl + "/api/stock/reservations/";
+        this.timeout = Duration.ofMillis(timeoutMs);
+        this.reservationTimeout = Duration.ofMillis(reservationTimeoutMs);
+        this.cacheTtlNanos = Duration.ofMillis(cacheTtlMs).toNanos();
+        this.cacheMaxEntries = cacheMaxEntries;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(this.timeout)
+                .build();
+    }
+
+    /**
+     * Checks a single product. Prefer the batch variant for carts.
+     */
+    public boolean checkStockAvailability(String productId, int quantity) {
+        return checkStockAvailability(List.of(new AvailabilityRequest(productId, quantity))).get(0).isAvailable();
+    }
+
+    /**
+     * Checks availability for every cart line with at most one round trip to InventoryService.
+     *
+     * @param requests One entry per cart line.
+     * @return One result per request, in request order.
+     * @throws InventoryUnavailableException if InventoryService does not answer within the time budget.
+     * @throws RequestDeadline.DeadlineExceededException if the caller's deadline passed before the call.
+     */
+    public List<AvailabilityResult> checkStockAvailability(List<AvailabilityRequest> requests) {
+        Map<String, Integer> requestedByProduct = new LinkedHashMap<>();
+        for (AvailabilityRequest request : requests) {
+            requestedByProduct.merge(request.getProductId(), request.getRequestedQuantity(), Integer::sum);
+        }
+
+        long now = System.nanoTime();
+        Map<String, Integer> availableByProduct = new LinkedHashMap<>();
+        List<AvailabilityRequest> remote = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : requestedByProduct.entrySet()) {
+            CachedAvailability cached = availabilityCache.get(entry.getKey());
+            if (cached != null && cached.expiresAt - now <= 0) {
+                availabilityCache.remove(entry.getKey(), cached);
+                cached = null;
+            }
+            if (cached != null && cached.availableQuantity >= entry.getValue()) {
+                availableByProduct.put(entry.getKey(), cached.availableQuantity);
+            } else {
+                remote.add(new AvailabilityRequest(entry.getKey(), entry.getValue()));
+            }
+        }
+
+        if (!remote.isEmpty()) {
+            long expiresAt = System.nanoTime() + cacheTtlNanos;
+            for (AvailabilityResult result : fetch(remote)) {
+                availableByProduct.put(result.getProductId(), result.getAvailableQuantity());
+                availabilityCache.put(result.getProductId(), new CachedAvailability(result.getAvailableQuantity(), expiresAt));
+            }
+            if (availabilityCache.size() > cacheMaxEntries) {
+                purgeCache();
+            }
+        }
+
+        List<AvailabilityResult> results = new ArrayList<>(requests.size());
+        for (AvailabilityRequest request : requests) {
+            int available = availableByProduct.getOrDefault(request.getProductId(), 0);
+            boolean isAvailable = request.getRequestedQuantity() > 0
+                    && requestedByProduct.get(request.getProductId()) <= available;
+            results.add(new AvailabilityResult(request.getProductId(), request.getRequestedQuantity(), available, isAvailable));
+        }
+        return results;
+    }
+
+    /**
+     * Drops the cached availability of a product, e.g. after this service reserved stock for it.
+     */
+    public void evict(String productId) {
+        availabilityCache.remove(productId);
+    }
+
+    /**
+     * Takes the given quantities out of stock in one atomic adjustment under a reservation id, without blocking
+     * the caller. InventoryService applies a reservation id at most once, so a retry cannot take stock twice.
+     *
+     * @param reservationId Identifies the reservation for {@link #releaseStock}, e.g. the order id.
+     * @param quantities Quantity to reserve per product.
+     * @return A future that completes when InventoryService has applied the reservation, or fails with
+     *         {@link InsufficientStockException} if any product lacks stock, in which case nothing was reserved.
+     */
+    public CompletableFuture<Void> reserveStock(String reservationId, Map<String, Integer> quantities) {
+        Duration timeout;
+        try {
+            timeout = RequestDeadline.capToCurrent(reservationTimeout, "stock reservation");
+        } catch (RequestDeadline.DeadlineExceededException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        List<Map<String, Object>> adjustments = new ArrayList<>(quantities.size());
+        quantities.forEach((productId, quantity) -> adjustments.add(Map.of(
+                "productId", productId,
+                "quantityChange", -quantity)));
+
+        HttpRequest httpRequest;
+        try {
+            URI uri = URI.create(adjustUri + "?reservationId=" + URLEncoder.encode(reservationId, StandardCharsets.UTF_8));
+            httpRequest = HttpRequest.newBuilder(uri)
+                    .timeout(timeout)
+                    .header("Content-Type", "application/json")
+                    .header(RequestDeadline.HEADER, Long.toString(timeout.toMillis()))
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(adjustments)))
+                    .build();
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(new InventoryUnavailableException("Failed to encode stock adjustment", e));
+        }
+
+        return httpClient.sendAsync(httpRequest, HttpResponse.BodyHandlers.discarding())
+                .handle((response, error) -> {
+                    quantities.keySet().forEach(this::evict);
+                    if (error != null) {
+                        throw new InventoryUnavailableException("Stock adjustment failed", error);
+                    }
+                    if (response.statusCode() == 409) {
+                        throw new InsufficientStockException("Insufficient stock for " + quantities.keySet());
+                    }
+                    if (response.statusCode() != 200) {
+                        throw new InventoryUnavailableException("Stock adjustment failed with status " + response.statusCode(), null);
+                    }
+                    return null;
+                });
+    }
+
+    /**
+     * Returns the stock taken under a reservation id. Idempotent, and safe when the reservation's outcome is
+     * unknown: a reservation that was never applied is marked released, so it applies nothing if it arrives later.
+     * Used to compensate an order that failed, so it ignores any deadline of the caller and always gets the full
+     * reservation timeout.
+     *
+     * @param productIds The reserved products, whose cached availability is dropped.
+     */
+    public CompletableFuture<Void> releaseStock(String reservationId, Collection<String> productIds) {
+        HttpRequest httpRequest = HttpRequest.newBuilder(URI.create(reservationsUrl
+                        + URLEncoder.encode(reservationId, StandardCharsets.UTF_8) + "/release"))
+                .timeout(reservationTimeout)
+                .header(RequestDeadline.HEADER, Long.toString(reservationTimeout.toMillis()))
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+        return httpClient.sendAsync(httpRequest, HttpResponse.BodyHandlers.discarding())
+                .handle((response, error) -> {
+                    productIds.forEach(this::evict);
+                    if (error != null) {
+                        throw new InventoryUnavailableException("Stock release failed", error);
+                    }
+                    if (response.statusCode() != 200) {
+                        throw new InventoryUnavailableException("Stock release failed with status " + response.statusCode(), null);
+                    }
+                    return null;
+                });
+    }
+
+    public int getCachedProductCount() {
+        return availabilityCache.size();
+    }
+
+    /**
+     * Drops expired answers and, if the cache is still over its bound, the answers closest to expiry.
+     * Concurrent callers may purge at the same time; that only drops a few more entries than needed.
+     */
+    private void purgeCache() {
+        long now = System.nanoTime();
+        availabilityCache.values().removeIf(cached -> cached.expiresAt - now <= 0);
+        int excess = availabilityCache.size() - cacheMaxEntries;
+        if (excess <= 0) {
+            return;
+        }
+        List<Map.Entry<String, CachedAvailability>> oldest = new ArrayList<>(availabilityCache.entrySet());
+        oldest.sort(Comparator.comparingLong(entry -> entry.getValue().expiresAt - now));
+        for (int i = 0; i < excess && i < oldest.size(); i++) {
+            availabilityCache.remove(oldest.get(i).getKey(), oldest.get(i).getValue());
+        }
+    }
+
+    private List<AvailabilityResult> fetch(List<AvailabilityRequest> requests) {
+        Duration budget = RequestDeadline.capToCurrent(timeout, "inventory availability check");
+        try {
+            HttpRequest httpRequest = HttpRequest.newBuilder(availabilityUri)
+                    .timeout(budget)
+                    .header("Content-Type", "application/json")
+                    .header(RequestDeadline.HEADER, Long.toString(budget.toMillis()))
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(requests)))
+                    .build();
+            HttpResponse<byte[]> response = httpClient.send(httpRequest, HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() != 200) {
+                throw new InventoryUnavailableException("Availability check failed with status " + response.statusCode(), null);
+            }
+            return objectMapper.readValue(response.body(), RESULT_LIST);
+        } catch (IOException e) {
+            logger.warning("Availability check for " + requests.size() + " products failed: " + e.getMessage());
+            throw new InventoryUnavailableException("Inventory availability check failed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InventoryUnavailableException("Inventory availability check interrupted", e);
+        }
+    }
+
+    private static final class CachedAvailability {
+        private final int availableQuantity;
+        private final long expiresAt;
+
+        private CachedAvailability(int availableQuantity, long expiresAt) {
+            this.availableQuantity = availableQuantity;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    public static class AvailabilityRequest {
+
+        private String productId;
+        private int requestedQuantity;
+
+        public AvailabilityRequest() {
+        }
+
+        public AvailabilityRequest(String productId, int requestedQuantity) {
+            this.productId = productId;
+            this.requestedQuantity = requestedQuantity;
+        }
+
+        public String getProductId() {
+            return productId;
+        }
+
+        public int getRequestedQuantity() {
+            return requestedQuantity;
+        }
+    }
+
+    public static class AvailabilityResult {
+
+        private String productId;
+        private int requestedQuantity;
+        private int availableQuantity;
+        private boolean available;
+
+        public AvailabilityResult() {
+        }
+
+        public AvailabilityResult(String productId, int requestedQuantity, int availableQuantity, boolean available) {
+            this.productId = productId;
+            this.requestedQuantity = requestedQuantity;
+            this.availableQuantity = availableQuantity;
+            this.available = available;
+        }
+
+        public String getProductId() {
+            return productId;
+        }
+
+        public int getRequestedQuantity() {
+            return requestedQuantity;
+        }
+
+        public int getAvailableQuantity() {
+            return availableQuantity;
+        }
+
+        public boolean isAvailable() {
+            return available;
+        }
+    }
+
+    public static class InventoryUnavailableException extends RuntimeException {
+        public InventoryUnavailableException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    public static class InsufficientStockException extends RuntimeException {
+        public InsufficientStockException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package infrastructure;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Maintains the monthly order partitions and moves closed orders to the cold tier.
+ *
+ * Each pass creates partitions for the coming months, then moves closed orders older than {@code archiveAfterDays}
+ * from "orders" to "orders_archive" in batches, each batch in its own transaction. A monthly partition that lies
+ * entirely before the archive horizon and has no rows left is dropped, so the hot table and its indexes only cover
+ * the working set. Orders that are still open stay hot however old they are.
+ *
+ * Rows for a month without a partition land in the default partition, and Postgres refuses to create a partition
+ * whose range the default partition already holds rows for. A new partition is therefore created detached, the
+ * default partition's rows for its month are moved into it, and it is attached, all in one transaction. Each
+ * partition and each step of a pass fails on its own, so one bad month does not stop archival.
+ */
+@Component
+public class OrderArchiver {
+
+    private static final Logger logger = Logger.getLogger(OrderArchiver.class.getName());
+
+    static final String CLOSED_STATUSES = "'DELIVERED', 'CANCELED', 'FRAUDULENT'";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("'y'yyyy'm'MM");
+
+    private static final String MOVE_BATCH =
+            "WITH moved AS (DELETE FROM orders WHERE (id, order_date) IN ("
+                    + "SELECT id, order_date FROM orders WHERE order_date < ? AND status IN (" + CLOSED_STATUSES + ") "
+                    + "ORDER BY order_date LIMIT ?) RETURNING *) "
+                    + "INSERT INTO orders_archive SELECT * FROM moved";
+    private static final String LIST_PARTITIONS =
+            "SELECT child.relname FROM pg_inherits "
+                    + "JOIN pg_class parent ON pg_inherits.inhparent = parent.oid "
+                    + "JOIN pg_class child ON pg_inherits.inhrelid = child.oid "
+                    + "WHERE parent.relname = 'orders' AND child.relname LIKE 'orders\\_y%'";
+    private static final String PARTITION_EXISTS = "SELECT to_regclass(?) IS NOT NULL";
+    private static final String DEFAULT_PARTITION = "orders_default";
+
+    private final DataSource dataSource;
+    private final int archiveAfterDays;
+    private final int batchSize;
+    private final int monthsAhead;
+    private final long intervalMinutes;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "order-archiver");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicLong archivedOrders = new AtomicLong();
+    private final AtomicLong droppedPartitions = new AtomicLong();
+    private final AtomicLong failedSteps = new AtomicLong();
+
+    public OrderArchiver(DataSource dataSource,
+                         @Value("${orders.archive.after-days:90}") int archiveAfterDays,
+                         @Value("${orders.archive.batch-size:5000}") int batchSize,
+                         @Value("${orders.partitions.months-ahead:3}") int monthsAhead,
+                         @Value("${orders.archive.interval-minutes:60}") long intervalMinutes) {
+        this.dataSource = dataSource;
+        this.archiveAfterDays = archiveAfterDays;
+        this.batchSize = batchSize;
+        this.monthsAhead = monthsAhead;
+        this.intervalMinutes = intervalMinutes;
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::runOnce, 0, intervalMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdown();
+    }
+
+    /**
+     * The order date before which closed orders may already be in the cold tier.
+     */
+    public LocalDateTime archiveHorizon() {
+        return LocalDate.now().minusDays(archiveAfterDays).atStartOfDay();
+    }
+
+    public long getArchivedOrderCount() {
+        return archivedOrders.get();
+    }
+
+    public long getDroppedPartitionCount() {
+        return droppedPartitions.get();
+    }
+
+    /**
+     * Partition creations, archival batches and partition drops that failed and will be retried on a later pass.
+     */
+    public long getFailedStepCount() {
+        return failedSteps.get();
+    }
+
+    void runOnce() {
+        YearMonth current = YearMonth.now();
+        for (int i = 0; i <= monthsAhead; i++) {
+            YearMonth month = current.plusMonths(i);
+            try {
+                createPartition(month);
+            } catch (SQLException | RuntimeException e) {
+                stepFailed("Creating order partition " + partitionName(month), e);
+            }
+        }
+
+        LocalDateTime horizon = archiveHorizon();
+        try {
+            long moved = archiveClosedOrders(horizon);
+            if (moved > 0) {
+                logger.info("Archived " + moved + " closed orders placed before " + horizon);
+            }
+        } catch (SQLException | RuntimeException e) {
+            stepFailed("Archiving closed orders", e);
+        }
+
+        try {
+            dropEmptyPartitions(YearMonth.from(horizon));
+        } catch (SQLException | RuntimeException e) {
+            stepFailed("Dropping empty order partitions", e);
+        }
+    }
+
+    /**
+     * Creates the partition for a month unless it exists, taking over the rows the default partition holds for it.
+     */
+    private void createPartition(YearMonth month) throws SQLException {
+        String name = partitionName(month);
+        String from = "'" + month.atDay(1) + "'";
+        String to = "'" + month.plusMonths(1).atDay(1) + "'";
+        try (Connection connection = dataSource.getConnection()) {
+            try (PreparedStatement exists = connection.prepareStatement(PARTITION_EXISTS)) {
+                exists.setString(1, name);
+                try (ResultSet resultSet = exists.executeQuery()) {
+                    if (resultSet.next() && resultSet.getBoolean(1)) {
+                        return;
+                    }
+                }
+            }
+
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE TABLE " + name + " (LIKE orders INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+                int adopted = statement.executeUpdate("WITH moved AS (DELETE FROM " + DEFAULT_PARTITION
+                        + " WHERE order_date >= " + from + " AND order_date < " + to + " RETURNING *) "
+                        + "INSERT INTO " + name + " SELECT * FROM moved");
+                statement.execute("ALTER TABLE orders ATTACH PARTITION " + name
+                        + " FOR VALUES FROM (" + from + ") TO (" + to + ")");
+                connection.commit();
+                if (adopted > 0) {
+                    logger.info("Created order partition " + name + " with " + adopted
+                            + " orders from the default partition");
+                }
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    private long archiveClosedOrders(LocalDateTime horizon) throws SQLException {
+        long total = 0;
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(MOVE_BATCH)) {
+            connection.setAutoCommit(true);
+            statement.setTimestamp(1, Timestamp.valueOf(horizon));
+            statement.setInt(2, batchSize);
+            int moved;
+            do {
+                moved = statement.executeUpdate();
+                total += moved;
+                archivedOrders.addAndGet(moved);
+            } while (moved == batchSize && !Thread.currentThread().isInterrupted());
+        }
+        return total;
+    }
+
+    /**
+     * Drops monthly partitions that end before the horizon month and hold no rows. A partition that still has
+     * open orders is kept.
+     */
+    private void dropEmptyPartitions(YearMonth horizonMonth) throws SQLException {
+        String horizonName = partitionName(horizonMonth);
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            List<String> candidates = new ArrayList<>();
+            try (ResultSet resultSet = statement.executeQuery(LIST_PARTITIONS)) {
+                while (resultSet.next()) {
+                    // Names sort chronologically, so anything before the horizon month's name is fully archivable
+                    String name = resultSet.getString(1);
+                    if (name.compareTo(horizonName) < 0) {
+                        candidates.add(name);
+                    }
+                }
+            }
+            for (String name : candidates) {
+                try {
+                    try (ResultSet resultSet = statement.executeQuery("SELECT 1 FROM " + name + " LIMIT 1")) {
+                        if (resultSet.next()) {
+                            continue;
+                        }
+                    }
+                    statement.execute("DROP TABLE IF EXISTS " + name);
+                    droppedPartitions.incrementAndGet();
+                    logger.info("Dropped empty order partition " + name);
+                } catch (SQLException e) {
+                    stepFailed("Dropping order partition " + name, e);
+                }
+            }
+        }
+    }
+
+    private void stepFailed(String step, Exception e) {
+        failedSteps.incrementAndGet();
+        logger.warning(step + " failed, retrying on the next pass: " + e.getMessage());
+    }
+
+    static String partitionName(YearMonth month) {
+        return "orders_" + month.format(PARTITION_SUFFIX);
+    }
+}
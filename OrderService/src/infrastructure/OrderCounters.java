@@ -0,0 +1,183 @@
+package infrastructure;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * In-memory order counts by status and by customer, so dashboards read counts without a COUNT query.
+ *
+ * Counters are rebuilt from the orders table on startup and adjusted on every status transition once the
+ * surrounding transaction commits. A periodic drift check recounts the table and corrects any counter that
+ * disagrees, skipping counters that changed while the recount was running.
+ */
+@Component
+public class OrderCounters {
+
+    private static final Logger logger = Logger.getLogger(OrderCounters.class.getName());
+
+    private final OrderRepositoryImpl orderRepository;
+    private final long driftCheckIntervalSeconds;
+    private final Map<String, LongAdder> byStatus = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> byCustomer = new ConcurrentHashMap<>();
+    private final LongAdder total = new LongAdder();
+    private final AtomicLong driftCorrections = new AtomicLong();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "order-counter-drift-check");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public OrderCounters(OrderRepositoryImpl orderRepository,
+                         @Value("${orders.counters.drift-check-interval-seconds:600}") long driftCheckIntervalSeconds) {
+        this.orderRepository = orderRepository;
+        this.driftCheckIntervalSeconds = driftCheckIntervalSeconds;
+    }
+
+    @PostConstruct
+    public void start() {
+        // Counters start at zero, so the first check loads the current counts
+        checkDrift();
+        if (driftCheckIntervalSeconds > 0) {
+            scheduler.scheduleWithFixedDelay(this::checkDrift, driftCheckIntervalSeconds, driftCheckIntervalSeconds,
+                    TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Counts a newly placed order.
+     */
+    public void recordPlaced(String customerId, String status) {
+        TransactionCallbacks.afterCommit(() -> {
+            total.increment();
+            statusCounter(status).increment();
+            customerCounter(customerId).incrementAndGet();
+        });
+    }
+
+    /**
+     * Moves an order from one status to another.
+     */
+    public void recordTransition(String previousStatus, String newStatus) {
+        if (previousStatus != null && previousStatus.equals(newStatus)) {
+            return;
+        }
+        TransactionCallbacks.afterCommit(() -> {
+            if (previousStatus != null) {
+                statusCounter(previousStatus).decrement();
+            }
+            statusCounter(newStatus).increment();
+        });
+    }
+
+    public long countOrdersByStatus(String status) {
+        LongAdder counter = byStatus.get(status);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    public long countOrdersByCustomerId(String customerId) {
+        AtomicLong counter = byCustomer.get(customerId);
+        return counter == null ? 0 : counter.get();
+    }
+
+    public long countTotalOrders() {
+        return total.sum();
+    }
+
+    public long getDriftCorrectionCount() {
+        return driftCorrections.get();
+    }
+
+    /**
+     * Recounts the orders table and corrects counters that drifted from it.
+     */
+    public void checkDrift() {
+        try {
+            long start = System.nanoTime();
+            Map<String, Long> statusBefore = snapshotStatuses();
+            Map<String, Long> customerBefore = snapshotCustomers();
+            long totalBefore = total.sum();
+
+            Map<String, Long> actualByStatus = orderRepository.countOrdersGroupedByStatus();
+            Map<String, Long> actualByCustomer = orderRepository.countOrdersGroupedByCustomerId();
+
+            int corrected = 0;
+            long actualTotal = 0;
+            for (long count : actualByStatus.values()) {
+                actualTotal += count;
+            }
+            if (total.sum() == totalBefore && totalBefore != actualTotal) {
+                total.add(actualTotal - totalBefore);
+                corrected++;
+            }
+            for (String status : union(statusBefore, actualByStatus)) {
+                long counted = statusBefore.getOrDefault(status, 0L);
+                long actual = actualByStatus.getOrDefault(status, 0L);
+                if (counted != actual && countOrdersByStatus(status) == counted) {
+                    statusCounter(status).add(actual - counted);
+                    corrected++;
+                }
+            }
+            for (String customerId : union(customerBefore, actualByCustomer)) {
+                long counted = customerBefore.getOrDefault(customerId, 0L);
+                long actual = actualByCustomer.getOrDefault(customerId, 0L);
+                if (counted != actual && customerCounter(customerId).compareAndSet(counted, actual)) {
+                    corrected++;
+                }
+            }
+
+            if (corrected > 0) {
+                driftCorrections.addAndGet(corrected);
+                logger.warning("Corrected " + corrected + " drifted order counters");
+            }
+            logger.fine("Order counter drift check took "
+                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+        } catch (RuntimeException e) {
+            logger.warning("Order counter drift check failed: " + e.getMessage());
+        }
+    }
+
+    private LongAdder statusCounter(String status) {
+        return byStatus.computeIfAbsent(status, key -> new LongAdder());
+    }
+
+    private AtomicLong customerCounter(String customerId) {
+        return byCustomer.computeIfAbsent(customerId, key -> new AtomicLong());
+    }
+
+    private Map<String, Long> snapshotStatuses() {
+        Map<String, Long> snapshot = new HashMap<>();
+        byStatus.forEach((status, counter) -> snapshot.put(status, counter.sum()));
+        return snapshot;
+    }
+
+    private Map<String, Long> snapshotCustomers() {
+        Map<String, Long> snapshot = new HashMap<>();
+        byCustomer.forEach((customerId, counter) -> snapshot.put(customerId, counter.get()));
+        return snapshot;
+    }
+
+    private static Set<String> union(Map<String, Long> first, Map<String, Long> second) {
+        Set<String> keys = new HashSet<>(first.keySet());
+        keys.addAll(second.keySet());
+        return keys;
+    }
+}
@@ -0,0 +1,173 @@
+package infrastructure;
+
+import core.OrderEntity;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary encoder for order events.
+ *
+ * Layout: schema id (1 byte), schema version (1 byte), field count (1 byte), then the fields of the event's
+ * {@link OrderEventType} in schema order. Only the fields the schema lists are written, so an event is a few
+ * dozen bytes instead of the whole serialized order. Decoding is done by {@link OrderEventReader}.
+ */
+public final class OrderEventCodec {
+
+    static final int HEADER_SIZE = 3;
+    static final int NULL_SCALE = 0xFF;
+
+    private OrderEventCodec() {
+    }
+
+    /**
+     * Encodes an event of the given kind from the current state of an order.
+     */
+    public static byte[] encode(OrderEventType type, OrderEntity order, Instant occurredAt) {
+        List<OrderEventField> fields = type.getFields();
+        Writer writer = new Writer(64);
+        writer.writeByte(type.getSchemaId());
+        writer.writeByte(type.getVersion());
+        writer.writeByte(fields.size());
+        for (OrderEventField field : fields) {
+            switch (field) {
+                case ORDER_ID:
+                    writer.writeString(order.getOrderId());
+                    break;
+                case CUSTOMER_ID:
+                    writer.writeString(order.getCustomerId());
+                    break;
+                case OCCURRED_AT:
+                    writer.writeVarLong(occurredAt.toEpochMilli());
+                    break;
+                case STATUS:
+                    writer.writeString(order.getStatus() != null ? order.getStatus().name() : null);
+                    break;
+                case TOTAL_AMOUNT:
+                    writer.writeDecimal(order.getTotalAmount());
+                    break;
+                case ITEM_COUNT:
+                    writer.writeVarLong(order.getItems() != null ? order.getItems().size() : 0);
+                    break;
+                case PAYMENT_ID:
+                    writer.writeString(order.getPaymentInfo() != null ? order.getPaymentInfo().getPaymentId() : null);
+                    break;
+                case AMOUNT_PAID:
+                    writer.writeDecimal(order.getPaymentInfo() != null ? order.getPaymentInfo().getAmountPaid() : null);
+                    break;
+                case PLACED_AT:
+                    writer.writeVarLong(order.getOrderDate().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+                    break;
+                case PAYMENT_METHOD:
+                    writer.writeString(order.getPaymentInfo() != null ? order.getPaymentInfo().getPaymentMethod() : null);
+                    break;
+                case CATEGORY_TOTALS:
+                    writer.writeAmountMap(categoryTotals(order));
+                    break;
+                default:
+                    throw new IllegalStateException("No encoder for field " + field);
+            }
+        }
+        return writer.toByteArray();
+    }
+
+    /**
+     * Order value per item category, in first-seen order. Items without a category are left out.
+     */
+    private static Map<String, BigDecimal> categoryTotals(OrderEntity order) {
+        Map<String, BigDecimal> totals = new LinkedHashMap<>();
+        if (order.getItems() != null) {
+            for (OrderEntity.OrderItem item : order.getItems()) {
+                if (item.getCategory() != null) {
+                    totals.merge(item.getCategory(), item.getTotalPrice(), BigDecimal::add);
+                }
+            }
+        }
+        return totals;
+    }
+
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static final class Writer {
+
+        private byte[] buffer;
+        private int position;
+
+        private Writer(int initialCapacity) {
+            this.buffer = new byte[initialCapacity];
+        }
+
+        void writeByte(int value) {
+            ensureCapacity(1);
+            buffer[position++] = (byte) value;
+        }
+
+        void writeVarLong(long value) {
+            writeUnsignedVarLong(zigzag(value));
+        }
+
+        void writeUnsignedVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                writeUnsignedVarLong(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeUnsignedVarLong(bytes.length + 1L);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        void writeDecimal(BigDecimal value) {
+            if (value == null) {
+                writeByte(NULL_SCALE);
+                return;
+            }
+            BigDecimal normalized = value.scale() < 0 ? value.setScale(0) : value;
+            if (normalized.scale() >= NULL_SCALE) {
+                throw new IllegalArgumentException("Decimal scale too large for order event: " + value);
+            }
+            writeByte(normalized.scale());
+            writeVarLong(normalized.unscaledValue().longValueExact());
+        }
+
+        void writeAmountMap(Map<String, BigDecimal> amounts) {
+            writeUnsignedVarLong(amounts.size());
+            amounts.forEach((key, amount) -> {
+                writeString(key);
+                writeDecimal(amount);
+            });
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+
+        private void ensureCapacity(int extra) {
+            if (position + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+            }
+        }
+    }
+}
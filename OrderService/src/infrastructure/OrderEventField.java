@@ -0,0 +1,42 @@
+package infrastructure;
+
+/**
+ * Fields that can appear in a binary order event, with their wire encoding.
+ */
+public enum OrderEventField {
+    ORDER_ID(Encoding.STRING),
+    CUSTOMER_ID(Encoding.STRING),
+    OCCURRED_AT(Encoding.TIMESTAMP),
+    STATUS(Encoding.STRING),
+    TOTAL_AMOUNT(Encoding.DECIMAL),
+    ITEM_COUNT(Encoding.VARINT),
+    PAYMENT_ID(Encoding.STRING),
+    AMOUNT_PAID(Encoding.DECIMAL),
+    PLACED_AT(Encoding.TIMESTAMP),
+    PAYMENT_METHOD(Encoding.STRING),
+    CATEGORY_TOTALS(Encoding.AMOUNT_MAP);
+
+    /**
+     * Wire encodings. Strings are a varint of byte length plus one (0 for null) followed by UTF-8; decimals a
+     * one-byte scale (0xFF for null) followed by the zigzag varint unscaled value; varints and timestamps
+     * (epoch milliseconds) are zigzag varints. Amount maps are a varint entry count followed by a string key and
+     * a decimal value per entry.
+     */
+    public enum Encoding {
+        STRING,
+        DECIMAL,
+        VARINT,
+        TIMESTAMP,
+        AMOUNT_MAP
+    }
+
+    private final Encoding encoding;
+
+    OrderEventField(Encoding encoding) {
+        this.encoding = encoding;
+    }
+
+    public Encoding getEncoding() {
+        return encoding;
+    }
+}
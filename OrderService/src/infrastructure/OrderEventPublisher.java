@@ -1,27 +1,30 @@
 package infrastructure;
 
 import core.OrderEntity;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.logging.Logger;
 
 /**
  * OrderEventPublisher handles the publishing of order-related events.
+ *
+ * Events are not sent to Kafka here. They are written to the order outbox in the caller's transaction,
+ * so an event exists exactly when the order change it describes was committed, and {@link OutboxRelay}
+ * delivers them in batches. Each event is encoded with {@link OrderEventCodec} using the schema of its
+ * {@link OrderEventType}, carrying only the fields consumers need rather than the whole order.
  */
 @Service
 public class OrderEventPublisher {
 
     private static final Logger logger = Logger.getLogger(OrderEventPublisher.class.getName());
 
-    @Autowired
-    private KafkaTemplate<String, String> kafkaTemplate;
+    private final OrderOutbox orderOutbox;
 
-    private final ObjectMapper objectMapper;
-
-    public OrderEventPublisher(ObjectMapper objectMapper) {
-        this.objectMapper = objectMapper;
+    public OrderEventPublisher(OrderOutbox orderOutbox) {
+        this.orderOutbox = orderOutbox;
     }
 
     /**
@@ -29,13 +32,7 @@ public class OrderEventPublisher {
      * @param order The order that has been placed.
      */
     public void publishOrderPlacedEvent(OrderEntity order) {
-        try {
-            String orderJson = objectMapper.writeValueAsString(order);
-            kafkaTemplate.send("order-placed-topic", orderJson);
-            logger.info("OrderPlacedEvent published successfully for Order ID: " + order.getId());
-        } catch (Exception e) {
-            logger.severe("Failed to publish OrderPlacedEvent for Order ID: " + order.getId() + " Error: " + e.getMessage());
-        }
+        enqueue(OrderEventType.ORDER_PLACED, order);
     }
 
     /**
@@ -43,13 +40,7 @@ public class OrderEventPublisher {
      * @param order The order that has been updated.
      */
     public void publishOrderUpdatedEvent(OrderEntity order) {
-        try {
-            String orderJson = objectMapper.writeValueAsString(order);
-            kafkaTemplate.send("order-updated-topic", orderJson);
-            logger.info("OrderUpdatedEvent published successfully for Order ID: " + order.getId());
-        } catch (Exception e) {
-            logger.severe("Failed to publish OrderUpdatedEvent for Order ID: " + order.getId() + " Error: " + e.getMessage());
-        }
+        enqueue(OrderEventType.ORDER_UPDATED, order);
     }
 
     /**
@@ -57,13 +48,7 @@ public class OrderEventPublisher {
      * @param order The order that has been cancelled.
      */
     public void publishOrderCancelledEvent(OrderEntity order) {
-        try {
-            String orderJson = objectMapper.writeValueAsString(order);
-            kafkaTemplate.send("order-cancelled-topic", orderJson);
-            logger.info("OrderCancelledEvent published successfully for Order ID: " + order.getId());
-        } catch (Exception e) {
-            logger.severe("Failed to publish OrderCancelledEvent for Order ID: " + order.getId() + " Error: " + e.getMessage());
-        }
+        enqueue(OrderEventType.ORDER_CANCELLED, order);
     }
 
     /**
@@ -71,13 +56,7 @@ public class OrderEventPublisher {
      * @param order The order that has been shipped.
      */
     public void publishOrderShippedEvent(OrderEntity order) {
-        try {
-            String orderJson = objectMapper.writeValueAsString(order);
-            kafkaTemplate.send("order-shipped-topic", orderJson);
-            logger.info("OrderShippedEvent published successfully for Order ID: " + order.getId());
-        } catch (Exception e) {
-            logger.severe("Failed to publish OrderShippedEvent for Order ID: " + order.getId() + " Error: " + e.getMessage());
-        }
+        enqueue(OrderEventType.ORDER_SHIPPED, order);
     }
 
     /**
@@ -85,13 +64,7 @@ public class OrderEventPublisher {
      * @param order The order that has been delivered.
      */
     public void publishOrderDeliveredEvent(OrderEntity order) {
-        try {
-            String orderJson = objectMapper.writeValueAsString(order);
-            kafkaTemplate.send("order-delivered-topic", orderJson);
-            logger.info("OrderDeliveredEvent published successfully for Order ID: " + order.getId());
-        } catch (Exception e) {
-            logger.severe("Failed to publish OrderDeliveredEvent for Order ID: " + order.getId() + " Error: " + e.getMessage());
-        }
+        enqueue(OrderEventType.ORDER_DELIVERED, order);
     }
 
     /**
@@ -99,13 +72,7 @@ public class OrderEventPublisher {
      * @param order The order whose payment has been completed.
      */
     public void publishPaymentCompletedEvent(OrderEntity order) {
-        try {
-            String orderJson = objectMapper.writeValueAsString(order);
-            kafkaTemplate.send("payment-completed-topic", orderJson);
-            logger.info("PaymentCompletedEvent published successfully for Order ID: " + order.getId());
-        } catch (Exception e) {
-            logger.severe("Failed to publish PaymentCompletedEvent for Order ID: " + order.getId() + " Error: " + e.getMessage());
-        }
+        enqueue(OrderEventType.PAYMENT_COMPLETED, order);
     }
 
     /**
@@ -113,13 +80,7 @@ public class OrderEventPublisher {
      * @param order The order for which refund is initiated.
      */
     public void publishOrderRefundInitiatedEvent(OrderEntity order) {
-        try {
-            String orderJson = objectMapper.writeValueAsString(order);
-            kafkaTemplate.send("order-refund-initiated-topic", orderJson);
-            logger.info("OrderRefundInitiatedEvent published successfully for Order ID: " + order.getId());
-        } catch (Exception e) {
-            logger.severe("Failed to publish OrderRefundInitiatedEvent for Order ID: " + order.getId() + " Error: " + e.getMessage());
-        }
+        enqueue(OrderEventType.REFUND_INITIATED, order);
     }
 
     /**
@@ -127,12 +88,28 @@ public class OrderEventPublisher {
      * @param order The order for which refund is completed.
      */
     public void publishOrderRefundCompletedEvent(OrderEntity order) {
-        try {
-            String orderJson = objectMapper.writeValueAsString(order);
-            kafkaTemplate.send("order-refund-completed-topic", orderJson);
-            logger.info("OrderRefundCompletedEvent published successfully for Order ID: " + order.getId());
-        } catch (Exception e) {
-            logger.severe("Failed to publish OrderRefundCompletedEvent for Order ID: " + order.getId() + " Error: " + e.getMessage());
+        enqueue(OrderEventType.REFUND_COMPLETED, order);
+    }
+
+    /**
+     * Publishes one event of the given type for each order, written to the outbox as a single batch.
+     * @param type The kind of event, e.g. {@link OrderEventType#ORDER_SHIPPED} after a bulk shipment.
+     * @param orders The orders the events describe.
+     */
+    public void publishBatch(OrderEventType type, List<OrderEntity> orders) {
+        Instant occurredAt = Instant.now();
+        Map<String, byte[]> events = new LinkedHashMap<>(orders.size() * 2);
+        for (OrderEntity order : orders) {
+            events.put(order.getOrderId(), OrderEventCodec.encode(type, order, occurredAt));
         }
+        orderOutbox.appendAll(type.getTopic(), events);
+        logger.fine(orders.size() + " " + type + " events queued");
+    }
+
+    private void enqueue(OrderEventType type, OrderEntity order) {
+        byte[] event = OrderEventCodec.encode(type, order, Instant.now());
+        // Outbox failures propagate so the order change rolls back together with its event
+        orderOutbox.append(order.getOrderId(), type.getTopic(), event);
+        logger.fine(type + " queued for Order ID: " + order.getOrderId());
     }
-}
\ No newline at end of file
+}
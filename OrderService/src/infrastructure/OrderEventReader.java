@@ -0,0 +1,183 @@
+package infrastructure;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reads fields of an encoded order event in place.
+ *
+ * Only the header is parsed up front. Field offsets are found on first access by skipping over the preceding
+ * fields, which reads their lengths but never decodes their contents, so a consumer that only needs the
+ * order id and event kind never builds the other strings or decimals.
+ */
+public final class OrderEventReader {
+
+    private final byte[] data;
+    private final OrderEventType type;
+    private final int version;
+    private final int fieldCount;
+    private int[] offsets;
+    private int position;
+
+    private OrderEventReader(byte[] data) {
+        if (data.length < OrderEventCodec.HEADER_SIZE) {
+            throw new IllegalArgumentException("Order event too short: " + data.length + " bytes");
+        }
+        this.data = data;
+        this.type = OrderEventType.forSchemaId(data[0] & 0xFF);
+        this.version = data[1] & 0xFF;
+        this.fieldCount = data[2] & 0xFF;
+    }
+
+    public static OrderEventReader wrap(byte[] data) {
+        return new OrderEventReader(data);
+    }
+
+    public OrderEventType getType() {
+        return type;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns a string field, or null if the field is null or not carried by this event.
+     */
+    public String getString(OrderEventField field) {
+        int offset = offsetOf(field, OrderEventField.Encoding.STRING);
+        if (offset < 0) {
+            return null;
+        }
+        position = offset;
+        long length = readUnsignedVarLong();
+        if (length == 0) {
+            return null;
+        }
+        return new String(data, position, (int) (length - 1), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns a decimal field, or null if the field is null or not carried by this event.
+     */
+    public BigDecimal getDecimal(OrderEventField field) {
+        int offset = offsetOf(field, OrderEventField.Encoding.DECIMAL);
+        if (offset < 0 || (data[offset] & 0xFF) == OrderEventCodec.NULL_SCALE) {
+            return null;
+        }
+        position = offset + 1;
+        return BigDecimal.valueOf(OrderEventCodec.unzigzag(readUnsignedVarLong()), data[offset] & 0xFF);
+    }
+
+    /**
+     * Returns an integer field, or the default if the event does not carry it.
+     */
+    public long getLong(OrderEventField field, long defaultValue) {
+        int offset = offsetOf(field, OrderEventField.Encoding.VARINT);
+        if (offset < 0) {
+            return defaultValue;
+        }
+        position = offset;
+        return OrderEventCodec.unzigzag(readUnsignedVarLong());
+    }
+
+    /**
+     * Returns a timestamp field, or null if the event does not carry it.
+     */
+    public Instant getInstant(OrderEventField field) {
+        int offset = offsetOf(field, OrderEventField.Encoding.TIMESTAMP);
+        if (offset < 0) {
+            return null;
+        }
+        position = offset;
+        return Instant.ofEpochMilli(OrderEventCodec.unzigzag(readUnsignedVarLong()));
+    }
+
+    /**
+     * Returns an amount map field in encoded order, or an empty map if the event does not carry it.
+     */
+    public Map<String, BigDecimal> getAmounts(OrderEventField field) {
+        int offset = offsetOf(field, OrderEventField.Encoding.AMOUNT_MAP);
+        if (offset < 0) {
+            return Map.of();
+        }
+        position = offset;
+        int size = (int) readUnsignedVarLong();
+        Map<String, BigDecimal> amounts = new LinkedHashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            long length = readUnsignedVarLong();
+            String key = length == 0 ? null : new String(data, position, (int) (length - 1), StandardCharsets.UTF_8);
+            position += length == 0 ? 0 : (int) (length - 1);
+            int scale = data[position++] & 0xFF;
+            BigDecimal amount = scale == OrderEventCodec.NULL_SCALE
+                    ? null
+                    : BigDecimal.valueOf(OrderEventCodec.unzigzag(readUnsignedVarLong()), scale);
+            amounts.put(key, amount);
+        }
+        return amounts;
+    }
+
+    private int offsetOf(OrderEventField field, OrderEventField.Encoding expected) {
+        if (field.getEncoding() != expected) {
+            throw new IllegalArgumentException(field + " is not encoded as " + expected);
+        }
+        int index = type.indexOf(field);
+        if (index < 0 || index >= fieldCount) {
+            return -1;
+        }
+        if (offsets == null) {
+            offsets = scanOffsets();
+        }
+        return offsets[index];
+    }
+
+    private int[] scanOffsets() {
+        // Only fields this schema knows are indexed; trailing fields from a newer writer are never visited
+        int known = Math.min(fieldCount, type.getFields().size());
+        int[] found = new int[known];
+        position = OrderEventCodec.HEADER_SIZE;
+        for (int i = 0; i < known; i++) {
+            found[i] = position;
+            skip(type.getFields().get(i).getEncoding());
+        }
+        return found;
+    }
+
+    private void skip(OrderEventField.Encoding encoding) {
+        switch (encoding) {
+            case STRING:
+                long length = readUnsignedVarLong();
+                position += length == 0 ? 0 : (int) (length - 1);
+                break;
+            case DECIMAL:
+                if ((data[position++] & 0xFF) != OrderEventCodec.NULL_SCALE) {
+                    readUnsignedVarLong();
+                }
+                break;
+            case AMOUNT_MAP:
+                long size = readUnsignedVarLong();
+                for (long i = 0; i < size; i++) {
+                    skip(OrderEventField.Encoding.STRING);
+                    skip(OrderEventField.Encoding.DECIMAL);
+                }
+                break;
+            default:
+                readUnsignedVarLong();
+        }
+    }
+
+    private long readUnsignedVarLong() {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = data[position++];
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint in order event");
+    }
+}
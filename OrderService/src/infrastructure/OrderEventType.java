@@ -0,0 +1,86 @@
+package infrastructure;
+
+import java.util.List;
+
+import static infrastructure.OrderEventField.AMOUNT_PAID;
+import static infrastructure.OrderEventField.CATEGORY_TOTALS;
+import static infrastructure.OrderEventField.CUSTOMER_ID;
+import static infrastructure.OrderEventField.ITEM_COUNT;
+import static infrastructure.OrderEventField.OCCURRED_AT;
+import static infrastructure.OrderEventField.ORDER_ID;
+import static infrastructure.OrderEventField.PAYMENT_ID;
+import static infrastructure.OrderEventField.PAYMENT_METHOD;
+import static infrastructure.OrderEventField.PLACED_AT;
+import static infrastructure.OrderEventField.STATUS;
+import static infrastructure.OrderEventField.TOTAL_AMOUNT;
+
+/**
+ * Versioned schema of each order event kind: its schema id, topic and ordered field list.
+ *
+ * Schemas evolve by appending fields and bumping the version; fields are never removed or reordered.
+ * Every encoded event records how many fields it carries, so a reader on an older schema ignores
+ * trailing fields and a reader on a newer schema sees missing fields as null.
+ */
+public enum OrderEventType {
+    ORDER_PLACED(1, 2, "order-placed-topic", ORDER_ID, CUSTOMER_ID, OCCURRED_AT, TOTAL_AMOUNT, ITEM_COUNT,
+            PLACED_AT, PAYMENT_METHOD, CATEGORY_TOTALS),
+    ORDER_UPDATED(2, 1, "order-updated-topic", ORDER_ID, CUSTOMER_ID, OCCURRED_AT, STATUS, TOTAL_AMOUNT, ITEM_COUNT),
+    // v2 carries what the order contributed when placed, so consumers can reverse it without looking the order up
+    ORDER_CANCELLED(3, 2, "order-cancelled-topic", ORDER_ID, CUSTOMER_ID, OCCURRED_AT,
+            TOTAL_AMOUNT, ITEM_COUNT, PLACED_AT, PAYMENT_METHOD, CATEGORY_TOTALS),
+    ORDER_SHIPPED(4, 1, "order-shipped-topic", ORDER_ID, CUSTOMER_ID, OCCURRED_AT),
+    ORDER_DELIVERED(5, 1, "order-delivered-topic", ORDER_ID, CUSTOMER_ID, OCCURRED_AT),
+    PAYMENT_COMPLETED(6, 1, "payment-completed-topic", ORDER_ID, CUSTOMER_ID, OCCURRED_AT, PAYMENT_ID, AMOUNT_PAID),
+    REFUND_INITIATED(7, 1, "order-refund-initiated-topic", ORDER_ID, CUSTOMER_ID, OCCURRED_AT, PAYMENT_ID, AMOUNT_PAID),
+    REFUND_COMPLETED(8, 1, "order-refund-completed-topic", ORDER_ID, CUSTOMER_ID, OCCURRED_AT, PAYMENT_ID, AMOUNT_PAID);
+
+    private static final OrderEventType[] BY_SCHEMA_ID = new OrderEventType[values().length + 1];
+
+    static {
+        for (OrderEventType type : values()) {
+            BY_SCHEMA_ID[type.schemaId] = type;
+        }
+    }
+
+    private final int schemaId;
+    private final int version;
+    private final String topic;
+    private final List<OrderEventField> fields;
+
+    OrderEventType(int schemaId, int version, String topic, OrderEventField... fields) {
+        this.schemaId = schemaId;
+        this.version = version;
+        this.topic = topic;
+        this.fields = List.of(fields);
+    }
+
+    public static OrderEventType forSchemaId(int schemaId) {
+        if (schemaId <= 0 || schemaId >= BY_SCHEMA_ID.length || BY_SCHEMA_ID[schemaId] == null) {
+            throw new IllegalArgumentException("Unknown order event schema id: " + schemaId);
+        }
+        return BY_SCHEMA_ID[schemaId];
+    }
+
+    public int getSchemaId() {
+        return schemaId;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public List<OrderEventField> getFields() {
+        return fields;
+    }
+
+    /**
+     * Position of a field in this schema, or -1 if the event kind does not carry it.
+     */
+    public int indexOf(OrderEventField field) {
+        return fields.indexOf(field);
+    }
+}
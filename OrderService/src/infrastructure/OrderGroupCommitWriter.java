@@ -0,0 +1,255 @@
+package infrastructure;
+
+import core.OrderEntity;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Inserts new orders with group commit.
+ *
+ * Callers hand over an order and get a future; a single committer thread collects orders for up to
+ * {@code maxDelayMillis} or {@code maxBatchSize} orders, whichever comes first, and writes them in one transaction
+ * with a JDBC batch insert. Every future of the batch completes only after that transaction has committed, so a
+ * completed future means the order is durable, but thousands of concurrent checkouts share one commit instead of
+ * each paying for its own. If a batch fails, its orders are retried one per transaction so that a single bad order
+ * only fails its own caller.
+ *
+ * An order submitted under a {@link RequestDeadline} whose deadline passes while it is queued is not written; its
+ * future fails with {@link RequestDeadline.DeadlineExceededException}. A batch of such orders commits with the
+ * longest time any of them has left as its statement timeout.
+ */
+@Component
+public class OrderGroupCommitWriter {
+
+    private static final Logger logger = Logger.getLogger(OrderGroupCommitWriter.class.getName());
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final PlatformTransactionManager transactionManager;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final long enqueueTimeoutMillis;
+    private final BlockingQueue<PendingOrder> queue;
+    private final Thread committer;
+    private final AtomicLong committedOrders = new AtomicLong();
+    private final AtomicLong committedBatches = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+    private volatile boolean running = true;
+
+    public OrderGroupCommitWriter(PlatformTransactionManager transactionManager,
+                                  @Value("${orders.group-commit.max-batch-size:200}") int maxBatchSize,
+                                  @Value("${orders.group-commit.max-delay-ms:5}") long maxDelayMillis,
+                                  @Value("${orders.group-commit.queue-capacity:10000}") int queueCapacity,
+                                  @Value("${orders.group-commit.enqueue-timeout-ms:1000}") long enqueueTimeoutMillis) {
+        this.transactionManager = transactionManager;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+        this.enqueueTimeoutMillis = enqueueTimeoutMillis;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.committer = new Thread(this::run, "order-group-commit");
+        this.committer.setDaemon(true);
+    }
+
+    @PostConstruct
+    public void start() {
+        committer.start();
+    }
+
+    /**
+     * Commits whatever is still queued, then stops the committer.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        committer.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    /**
+     * Queues a new order for insertion.
+     *
+     * @param order The order to insert.
+     * @param inTransaction Work that must commit atomically with the order, such as appending its outbox event.
+     *                      Runs on the committer thread after the batch insert.
+     * @return A future that completes with the order once it is committed, or fails if it could not be written
+     *         or the caller's deadline passed before it was.
+     */
+    public CompletableFuture<OrderEntity> submit(OrderEntity order, Consumer<OrderEntity> inTransaction) {
+        PendingOrder pending = new PendingOrder(order, inTransaction, RequestDeadline.current().orElse(null));
+        try {
+            if (!running || !queue.offer(pending, enqueueTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                return CompletableFuture.failedFuture(new RejectedExecutionException("Order writer is saturated"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        }
+        return pending.result;
+    }
+
+    public long getCommittedOrderCount() {
+        return committedOrders.get();
+    }
+
+    public long getCommittedBatchCount() {
+        return committedBatches.get();
+    }
+
+    public long getFailedBatchCount() {
+        return failedBatches.get();
+    }
+
+    public int getQueuedOrderCount() {
+        return queue.size();
+    }
+
+    private void run() {
+        List<PendingOrder> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                collect(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                commit(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Waits for the first order, then keeps collecting until the batch is full or the delay has passed.
+     * The wait for the first order is bounded so that the loop notices shutdown without being interrupted
+     * in the middle of a commit.
+     */
+    private void collect(List<PendingOrder> batch) throws InterruptedException {
+        PendingOrder first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + maxDelayNanos;
+        while (batch.size() < maxBatchSize) {
+            queue.drainTo(batch, maxBatchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= maxBatchSize || remaining <= 0) {
+                return;
+            }
+            PendingOrder next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void commit(List<PendingOrder> batch) {
+        // Nobody is waiting for these any more; writing them would only add to the load
+        batch.removeIf(pending -> {
+            if (pending.deadline == null || !pending.deadline.isExpired()) {
+                return false;
+            }
+            pending.result.completeExceptionally(
+                    new RequestDeadline.DeadlineExceededException("Deadline exceeded before order was written"));
+            return true;
+        });
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            write(batch);
+            committedBatches.incrementAndGet();
+            complete(batch);
+        } catch (RuntimeException e) {
+            failedBatches.incrementAndGet();
+            logger.warning("Group commit of " + batch.size() + " orders failed, retrying individually: " + e.getMessage());
+            for (PendingOrder pending : batch) {
+                // The rolled-back insert may have assigned an id; persist would reject the order as detached
+                pending.order.setId(null);
+                try {
+                    write(List.of(pending));
+                    complete(List.of(pending));
+                } catch (RuntimeException single) {
+                    pending.result.completeExceptionally(single);
+                }
+            }
+        }
+    }
+
+    private void write(List<PendingOrder> batch) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        statementTimeoutSeconds(batch).ifPresent(transactionTemplate::setTimeout);
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(batch.size());
+            for (PendingOrder pending : batch) {
+                entityManager.persist(pending.order);
+            }
+            // Send the inserts as one JDBC batch before any per-order work issues its own statements
+            entityManager.flush();
+            for (PendingOrder pending : batch) {
+                if (pending.inTransaction != null) {
+                    pending.inTransaction.accept(pending.order);
+                }
+            }
+            entityManager.flush();
+            entityManager.clear();
+        });
+    }
+
+    private void complete(List<PendingOrder> batch) {
+        committedOrders.addAndGet(batch.size());
+        for (PendingOrder pending : batch) {
+            pending.result.complete(pending.order);
+        }
+    }
+
+    /**
+     * The longest time any order of the batch has left, or none if one of them has no deadline.
+     */
+    private static Optional<Integer> statementTimeoutSeconds(List<PendingOrder> batch) {
+        long longestNanos = 0;
+        for (PendingOrder pending : batch) {
+            if (pending.deadline == null) {
+                return Optional.empty();
+            }
+            longestNanos = Math.max(longestNanos, pending.deadline.remainingNanos());
+        }
+        long seconds = (longestNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+        return Optional.of((int) Math.max(1, Math.min(Integer.MAX_VALUE, seconds)));
+    }
+
+    private static final class PendingOrder {
+        private final OrderEntity order;
+        private final Consumer<OrderEntity> inTransaction;
+        private final RequestDeadline deadline;
+        private final CompletableFuture<OrderEntity> result = new CompletableFuture<>();
+
+        private PendingOrder(OrderEntity order, Consumer<OrderEntity> inTransaction, RequestDeadline deadline) {
+            this.order = order;
+            this.inTransaction = inTransaction;
+            this.deadline = deadline;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package infrastructure;
+
+import org.hibernate.Session;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Write side of the order outbox. Appends join the caller's transaction, so the event row commits or
+ * rolls back together with the order change that produced it. They fail when called outside a transaction
+ * rather than committing the event on its own.
+ */
+@Repository
+public class OrderOutbox {
+
+    private static final String INSERT_EVENT =
+            "INSERT INTO order_outbox (aggregate_id, topic, payload, created_at) VALUES (?, ?, ?, ?)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Appends an event to the outbox.
+     *
+     * @param aggregateId The order the event belongs to; events of one order are relayed in append order.
+     * @param topic The Kafka topic the event is relayed to.
+     * @param payload The encoded event.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(String aggregateId, String topic, byte[] payload) {
+        entityManager.createNativeQuery(INSERT_EVENT)
+                     .setParameter(1, aggregateId)
+                     .setParameter(2, topic)
+                     .setParameter(3, payload)
+                     .setParameter(4, Timestamp.valueOf(LocalDateTime.now()))
+                     .executeUpdate();
+    }
+
+    /**
+     * Appends many events to one topic with a single JDBC batch.
+     *
+     * @param topic The Kafka topic the events are relayed to.
+     * @param payloadsByAggregate Encoded events keyed by the order they belong to, in append order.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void appendAll(String topic, Map<String, byte[]> payloadsByAggregate) {
+        if (payloadsByAggregate.isEmpty()) {
+            return;
+        }
+        Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now());
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_EVENT)) {
+                for (Map.Entry<String, byte[]> event : payloadsByAggregate.entrySet()) {
+                    statement.setString(1, event.getKey());
+                    statement.setString(2, topic);
+                    statement.setBytes(3, event.getValue());
+                    statement.setTimestamp(4, createdAt);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        });
+    }
+}
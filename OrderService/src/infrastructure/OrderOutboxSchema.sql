@@ -0,0 +1,12 @@
+-- Schema for the Order Service transactional outbox
+-- Events are inserted in the same transaction as the order change and deleted once relayed to Kafka
+
+CREATE TABLE order_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    aggregate_id VARCHAR(64) NOT NULL,
+    topic VARCHAR(100) NOT NULL,
+    payload BYTEA NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_order_outbox_aggregate ON order_outbox (aggregate_id, id);
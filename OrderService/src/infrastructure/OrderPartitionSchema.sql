@@ -0,0 +1,35 @@
+-- Schema for time-partitioned order storage
+-- Hot orders live in monthly range partitions of "orders" keyed by order_date, so date-range queries only touch
+-- the partitions they overlap. Closed orders past the retention window are moved to "orders_archive" by
+-- OrderArchiver, and emptied partitions are dropped. Partitions for upcoming months are created ahead of time
+-- by the same job; the default partition only catches rows outside every created range.
+
+CREATE TABLE orders (
+    id BIGSERIAL NOT NULL,
+    order_id VARCHAR(64) NOT NULL,
+    customer_id VARCHAR(64) NOT NULL,
+    status VARCHAR(32) NOT NULL,
+    order_date TIMESTAMP NOT NULL,
+    delivery_date TIMESTAMP,
+    total_amount DECIMAL(12, 2),
+    delivery_address TEXT,
+    payment_method VARCHAR(64),
+    updated_at TIMESTAMP,
+    PRIMARY KEY (id, order_date)
+) PARTITION BY RANGE (order_date);
+
+CREATE TABLE orders_default PARTITION OF orders DEFAULT;
+
+CREATE INDEX idx_orders_status ON orders (status, id);
+CREATE INDEX idx_orders_customer ON orders (customer_id, id);
+CREATE INDEX idx_orders_order_id ON orders (order_id);
+
+-- Cold tier: same columns as "orders", so both tiers map to OrderEntity. Order lines (order_items) are not
+-- moved and keep referring to the order by id in either tier.
+CREATE TABLE orders_archive (LIKE orders INCLUDING DEFAULTS);
+
+ALTER TABLE orders_archive ADD PRIMARY KEY (id);
+
+CREATE INDEX idx_orders_archive_order_date ON orders_archive (order_date);
+CREATE INDEX idx_orders_archive_customer ON orders_archive (customer_id, id);
+CREATE INDEX idx_orders_archive_order_id ON orders_archive (order_id);
@@ -1,34 +1,126 @@
 package infrastructure;
 
-import com.website.orderservice.core.OrderEntity;
+import core.OrderEntity;
+import valueobjects.OrderID;
 import com.website.orderservice.core.OrderRepository;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
-import javax.persistence.EntityManager;
-import javax.persistence.PersistenceContext;
-import javax.transaction.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.Optional;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+/**
+ * Order storage across both tiers: the partitioned "orders" table and the "orders_archive" cold tier that
+ * {@link OrderArchiver} moves closed orders into.
+ *
+ * Lookups of particular orders, customer history, product lookups and the grouped counts read both tiers. The hot
+ * tier is read first: the archiver moves a row in one transaction, so a row moved between the two reads is found
+ * in the archive, and one seen in both is returned once. Archived orders come back detached; they are closed, and
+ * writing one back would insert it into the hot tier. Scans and pages over all orders and the bulk operations only
+ * cover the hot tier, the working set they serve.
+ */
 @Repository
 public class OrderRepositoryImpl implements OrderRepository {
 
+    // Rows fetched per database round trip while streaming; the persistence context is cleared at the same interval
+    private static final int STREAM_FETCH_SIZE = 500;
+    private static final String FETCH_SIZE_HINT = "org.hibernate.fetchSize";
+    private static final String READ_ONLY_HINT = "org.hibernate.readOnly";
+    // Order ids per bulk statement, keeping IN lists well below driver bind-parameter limits
+    private static final int BULK_CHUNK_SIZE = 1000;
+
+    // Locks the candidate rows, moves those whose current status is allowed, and returns each moved id with the
+    // status it moved from, all in one statement
+    private static final String BULK_TRANSITION =
+            "UPDATE orders o SET status = :target, updated_at = :updatedAt FROM ("
+                    + "SELECT id, status FROM orders WHERE id IN (:ids) AND status IN (:allowed) FOR UPDATE) previous "
+                    + "WHERE o.id = previous.id RETURNING o.id, previous.status";
+    // One statement over both tiers, so an order the archiver moves meanwhile is counted exactly once
+    private static final String COUNT_BY_STATUS =
+            "SELECT status, COUNT(*) FROM (SELECT status FROM orders UNION ALL SELECT status FROM orders_archive) o "
+                    + "GROUP BY status";
+    private static final String COUNT_BY_CUSTOMER =
+            "SELECT customer_id, COUNT(*) FROM (SELECT customer_id FROM orders "
+                    + "UNION ALL SELECT customer_id FROM orders_archive) o GROUP BY customer_id";
+
+    // Order lines stay in order_items when an order is archived, so one statement covers both tiers
+    private static final String ORDER_PRODUCTS =
+            "SELECT o.id, i.product_id FROM orders o JOIN order_items i ON i.order_id = o.id "
+                    + "WHERE o.status <> :excludedStatus "
+                    + "UNION ALL SELECT a.id, i.product_id FROM orders_archive a JOIN order_items i ON i.order_id = a.id "
+                    + "WHERE a.status <> :excludedStatus ORDER BY 1";
+
     @PersistenceContext
     private EntityManager entityManager;
 
+    @Autowired
+    private OrderArchiver orderArchiver;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Under a {@link RequestDeadline} a new transaction gets the time remaining as its timeout, which Hibernate
+     * applies to every statement it issues, so a slow database cannot hold the caller past its deadline.
+     */
     @Override
-    @Transactional
     public OrderEntity save(OrderEntity order) {
-        if (order.getId() == null) {
-            entityManager.persist(order);
-            return order;
-        } else {
-            return entityManager.merge(order);
-        }
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        RequestDeadline.current().ifPresent(deadline -> transaction.setTimeout(deadline.remainingSeconds("saving order")));
+        return transaction.execute(status -> {
+            if (order.getId() == null) {
+                entityManager.persist(order);
+                return order;
+            } else {
+                return entityManager.merge(order);
+            }
+        });
     }
 
     @Override
     public Optional<OrderEntity> findById(Long id) {
-        return Optional.ofNullable(entityManager.find(OrderEntity.class, id));
+        OrderEntity order = entityManager.find(OrderEntity.class, id);
+        if (order != null) {
+            return Optional.of(order);
+        }
+        return findArchived("id = :id", Map.of("id", id)).stream().findFirst();
+    }
+
+    /**
+     * Finds an order by its public order id, in either tier.
+     */
+    public Optional<OrderEntity> findOrderById(OrderID orderId) {
+        String query = "SELECT o FROM OrderEntity o WHERE o.orderId = :orderId";
+        Optional<OrderEntity> hot = entityManager.createQuery(query, OrderEntity.class)
+                                                 .setParameter("orderId", orderId.toString())
+                                                 .getResultStream()
+                                                 .findFirst();
+        if (hot.isPresent()) {
+            return hot;
+        }
+        return findArchived("order_id = :orderId", Map.of("orderId", orderId.toString())).stream().findFirst();
     }
 
     @Override
@@ -51,7 +143,7 @@ public class OrderRepositoryImpl implements OrderRepository {
     public void updateStatus(Long orderId, String status) {
         OrderEntity order = entityManager.find(OrderEntity.class, orderId);
         if (order != null) {
-            order.setStatus(status);
+            order.setStatus(OrderEntity.OrderStatus.valueOf(status));
             entityManager.merge(order);
         }
     }
@@ -83,11 +175,65 @@ public class OrderRepositoryImpl implements OrderRepository {
 
     @Override
     public List<OrderEntity> findOrdersByDateRange(String startDate, String endDate) {
-        String query = "SELECT o FROM OrderEntity o WHERE o.orderDate BETWEEN :startDate AND :endDate";
-        return entityManager.createQuery(query, OrderEntity.class)
-                            .setParameter("startDate", startDate)
-                            .setParameter("endDate", endDate)
-                            .getResultList();
+        return findOrdersByDateRange(LocalDate.parse(startDate).atStartOfDay(),
+                                     LocalDate.parse(endDate).plusDays(1).atStartOfDay());
+    }
+
+    /**
+     * Finds orders placed in {@code [start, end)} across both storage tiers, ordered by order date.
+     * The hot query is a plain range on the partition key, so only overlapping monthly partitions are scanned;
+     * the cold tier is only queried when the range reaches back past the archive horizon.
+     */
+    public List<OrderEntity> findOrdersByDateRange(LocalDateTime start, LocalDateTime end) {
+        String query = "SELECT o FROM OrderEntity o WHERE o.orderDate >= :start AND o.orderDate < :end ORDER BY o.orderDate";
+        List<OrderEntity> hot = entityManager.createQuery(query, OrderEntity.class)
+                                             .setParameter("start", start)
+                                             .setParameter("end", end)
+                                             .getResultList();
+        if (!start.isBefore(orderArchiver.archiveHorizon())) {
+            return hot;
+        }
+
+        List<OrderEntity> cold = findArchived("order_date >= :start AND order_date < :end",
+                Map.of("start", Timestamp.valueOf(start), "end", Timestamp.valueOf(end)));
+        return merge(hot, cold, Comparator.comparing(OrderEntity::getOrderDate), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Reads archived orders matching a condition on the archive's columns. They are detached right away, since
+     * they have no row in the hot table to write back to.
+     */
+    @SuppressWarnings("unchecked")
+    private List<OrderEntity> findArchived(String condition, Map<String, Object> parameters) {
+        Query query = entityManager.createNativeQuery("SELECT * FROM orders_archive WHERE " + condition, OrderEntity.class)
+                                   .setHint(READ_ONLY_HINT, true);
+        parameters.forEach(query::setParameter);
+        List<OrderEntity> orders = query.getResultList();
+        orders.forEach(entityManager::detach);
+        return orders;
+    }
+
+    /**
+     * Merges hot and archived results in the given order, keeping the hot copy of an order read from both tiers.
+     */
+    private static List<OrderEntity> merge(List<OrderEntity> hot, List<OrderEntity> cold,
+                                           Comparator<OrderEntity> order, int limit) {
+        if (cold.isEmpty()) {
+            return hot.size() > limit ? hot.subList(0, limit) : hot;
+        }
+        Set<Long> hotIds = new HashSet<>(hot.size() * 2);
+        List<OrderEntity> orders = new ArrayList<>(hot.size() + cold.size());
+        for (OrderEntity entity : hot) {
+            hotIds.add(entity.getId());
+            orders.add(entity);
+        }
+        for (OrderEntity entity : cold) {
+            if (!hotIds.contains(entity.getId())) {
+                orders.add(entity);
+            }
+        }
+        orders.sort(order);
+        return orders.size() > limit ? orders.subList(0, limit) : orders;
     }
 
     @Override
@@ -112,8 +258,8 @@ public class OrderRepositoryImpl implements OrderRepository {
     @Transactional
     public void markOrderAsShipped(Long orderId) {
         OrderEntity order = entityManager.find(OrderEntity.class, orderId);
-        if (order != null && "PROCESSING".equals(order.getStatus())) {
-            order.setStatus("SHIPPED");
+        if (order != null && order.getStatus() == OrderEntity.OrderStatus.PROCESSING) {
+            order.setStatus(OrderEntity.OrderStatus.SHIPPED);
             entityManager.merge(order);
         }
     }
@@ -122,8 +268,8 @@ public class OrderRepositoryImpl implements OrderRepository {
     @Transactional
     public void cancelOrder(Long orderId) {
         OrderEntity order = entityManager.find(OrderEntity.class, orderId);
-        if (order != null && !"SHIPPED".equals(order.getStatus())) {
-            order.setStatus("CANCELED");
+        if (order != null && order.getStatus() != OrderEntity.OrderStatus.SHIPPED) {
+            order.setStatus(OrderEntity.OrderStatus.CANCELED);
             entityManager.merge(order);
         }
     }
@@ -136,12 +282,19 @@ public class OrderRepositoryImpl implements OrderRepository {
                             .getResultList();
     }
 
+    /**
+     * Finds the orders containing a product in either tier, ordered by id. Order lines stay in place when an order
+     * is archived.
+     */
     @Override
-    public List<OrderEntity> findOrdersByProductId(Long productId) {
-        String query = "SELECT o FROM OrderEntity o JOIN o.orderItems i WHERE i.productId = :productId";
-        return entityManager.createQuery(query, OrderEntity.class)
-                            .setParameter("productId", productId)
-                            .getResultList();
+    public List<OrderEntity> findOrdersByProductId(String productId) {
+        String query = "SELECT o FROM OrderEntity o JOIN o.orderItems i WHERE i.productId = :productId ORDER BY o.id";
+        List<OrderEntity> hot = entityManager.createQuery(query, OrderEntity.class)
+                                             .setParameter("productId", productId)
+                                             .getResultList();
+        List<OrderEntity> cold = findArchived("id IN (SELECT order_id FROM order_items WHERE product_id = :productId) "
+                + "ORDER BY id", Map.of("productId", productId));
+        return merge(hot, cold, Comparator.comparing(OrderEntity::getId), Integer.MAX_VALUE);
     }
 
     @Override
@@ -174,6 +327,32 @@ public class OrderRepositoryImpl implements OrderRepository {
                             .getSingleResult();
     }
 
+    /**
+     * Counts orders per status across both tiers in a single grouped query. Used to rebuild and verify the
+     * in-memory counters, which count archived orders too.
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, Long> countOrdersGroupedByStatus() {
+        return toCountMap(entityManager.createNativeQuery(COUNT_BY_STATUS).getResultList());
+    }
+
+    /**
+     * Counts orders per customer across both tiers in a single grouped query. Used to rebuild and verify the
+     * in-memory counters.
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, Long> countOrdersGroupedByCustomerId() {
+        return toCountMap(entityManager.createNativeQuery(COUNT_BY_CUSTOMER).getResultList());
+    }
+
+    private static Map<String, Long> toCountMap(List<Object[]> rows) {
+        Map<String, Long> counts = new HashMap<>(rows.size() * 2);
+        for (Object[] row : rows) {
+            counts.put(String.valueOf(row[0]), ((Number) row[1]).longValue());
+        }
+        return counts;
+    }
+
     @Override
     @Transactional
     public void deleteAllOrders() {
@@ -185,8 +364,10 @@ public class OrderRepositoryImpl implements OrderRepository {
     @Transactional
     public void updatePaymentMethod(Long orderId, String paymentMethod) {
         OrderEntity order = entityManager.find(OrderEntity.class, orderId);
-        if (order != null) {
-            order.setPaymentMethod(paymentMethod);
+        if (order != null && order.getPaymentInfo() != null) {
+            OrderEntity.PaymentInfo payment = order.getPaymentInfo();
+            order.setPaymentInfo(new OrderEntity.PaymentInfo(payment.getPaymentId(), payment.getAmountPaid(),
+                    payment.isPaymentCompleted(), paymentMethod));
             entityManager.merge(order);
         }
     }
@@ -199,4 +380,328 @@ public class OrderRepositoryImpl implements OrderRepository {
                                   .getSingleResult();
         return count > 0;
     }
-}
\ No newline at end of file
+
+    /**
+     * Moves many orders to one status with set-based statements instead of a find and merge per order.
+     * Only orders whose current status is in {@code allowedFrom} are changed; the rest are reported with the
+     * reason they were skipped. Runs in one transaction.
+     *
+     * @param orderIds The orders to transition; duplicates are ignored.
+     * @param targetStatus The status to move them to.
+     * @param allowedFrom The statuses from which the transition is valid.
+     * @return One outcome per distinct order id, in request order.
+     */
+    @Transactional
+    @SuppressWarnings("unchecked")
+    public List<TransitionOutcome> transitionStatuses(Collection<Long> orderIds, String targetStatus,
+                                                      Set<String> allowedFrom) {
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(orderIds));
+        // Same clock as OrderEntity.setStatus, so bulk and single transitions stamp updated_at alike
+        LocalDateTime updatedAt = LocalDateTime.now();
+        Map<Long, String> movedFrom = new HashMap<>(ids.size() * 2);
+        Map<Long, String> currentStatus = new HashMap<>(ids.size() * 2);
+
+        for (int from = 0; from < ids.size(); from += BULK_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + BULK_CHUNK_SIZE, ids.size()));
+            List<Object[]> moved = entityManager.createNativeQuery(BULK_TRANSITION)
+                                                .setParameter("target", targetStatus)
+                                                .setParameter("updatedAt", Timestamp.valueOf(updatedAt))
+                                                .setParameter("ids", chunk)
+                                                .setParameter("allowed", allowedFrom)
+                                                .getResultList();
+            for (Object[] row : moved) {
+                movedFrom.put(((Number) row[0]).longValue(), (String) row[1]);
+            }
+
+            List<Long> skipped = new ArrayList<>();
+            for (Long id : chunk) {
+                if (!movedFrom.containsKey(id)) {
+                    skipped.add(id);
+                }
+            }
+            if (!skipped.isEmpty()) {
+                String query = "SELECT o.id, o.status FROM OrderEntity o WHERE o.id IN :ids";
+                for (Object[] row : entityManager.createQuery(query, Object[].class)
+                                                 .setParameter("ids", skipped)
+                                                 .getResultList()) {
+                    currentStatus.put((Long) row[0], String.valueOf(row[1]));
+                }
+            }
+        }
+        // The native update bypassed the persistence context, so managed copies may be stale
+        entityManager.clear();
+
+        List<TransitionOutcome> outcomes = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            if (movedFrom.containsKey(id)) {
+                outcomes.add(new TransitionOutcome(id, TransitionOutcome.Result.TRANSITIONED, movedFrom.get(id)));
+            } else if (!currentStatus.containsKey(id)) {
+                outcomes.add(new TransitionOutcome(id, TransitionOutcome.Result.NOT_FOUND, null));
+            } else if (targetStatus.equals(currentStatus.get(id))) {
+                outcomes.add(new TransitionOutcome(id, TransitionOutcome.Result.ALREADY_IN_STATUS, currentStatus.get(id)));
+            } else {
+                outcomes.add(new TransitionOutcome(id, TransitionOutcome.Result.INVALID_TRANSITION, currentStatus.get(id)));
+            }
+        }
+        return outcomes;
+    }
+
+    /**
+     * Loads many orders by id, in chunks.
+     */
+    public List<OrderEntity> findAllByIds(Collection<Long> orderIds) {
+        List<Long> ids = new ArrayList<>(orderIds);
+        List<OrderEntity> orders = new ArrayList<>(ids.size());
+        String query = "SELECT o FROM OrderEntity o WHERE o.id IN :ids";
+        for (int from = 0; from < ids.size(); from += BULK_CHUNK_SIZE) {
+            orders.addAll(entityManager.createQuery(query, OrderEntity.class)
+                                       .setParameter("ids", ids.subList(from, Math.min(from + BULK_CHUNK_SIZE, ids.size())))
+                                       .getResultList());
+        }
+        return orders;
+    }
+
+    /**
+     * Keyset pagination over all orders, ordered by id. Pass the id of the last order of the previous page
+     * (or null for the first page); cost per page does not grow with the offset.
+     */
+    public List<OrderEntity> findOrdersAfter(Long afterId, int limit) {
+        String query = "SELECT o FROM OrderEntity o WHERE o.id > :afterId ORDER BY o.id";
+        return entityManager.createQuery(query, OrderEntity.class)
+                            .setParameter("afterId", afterId != null ? afterId : 0L)
+                            .setMaxResults(limit)
+                            .getResultList();
+    }
+
+    /**
+     * Keyset pagination over orders with the given status, ordered by id.
+     */
+    public List<OrderEntity> findOrdersByStatusAfter(String status, Long afterId, int limit) {
+        String query = "SELECT o FROM OrderEntity o WHERE o.status = :status AND o.id > :afterId ORDER BY o.id";
+        return entityManager.createQuery(query, OrderEntity.class)
+                            .setParameter("status", status)
+                            .setParameter("afterId", afterId != null ? afterId : 0L)
+                            .setMaxResults(limit)
+                            .getResultList();
+    }
+
+    /**
+     * Keyset pagination over a customer's orders in both tiers, newest first. Pass the id of the oldest order
+     * already shown (or null for the most recent page).
+     */
+    public List<OrderEntity> findOrdersByCustomerIdBefore(String customerId, Long beforeId, int limit) {
+        long before = beforeId != null ? beforeId : Long.MAX_VALUE;
+        String query = "SELECT o FROM OrderEntity o WHERE o.customerId = :customerId AND o.id < :beforeId ORDER BY o.id DESC";
+        List<OrderEntity> hot = entityManager.createQuery(query, OrderEntity.class)
+                                             .setParameter("customerId", customerId)
+                                             .setParameter("beforeId", before)
+                                             .setMaxResults(limit)
+                                             .getResultList();
+        List<OrderEntity> cold = findArchived("customer_id = :customerId AND id < :beforeId ORDER BY id DESC LIMIT :limit",
+                Map.of("customerId", customerId, "beforeId", before, "limit", limit));
+        return merge(hot, cold, Comparator.comparing(OrderEntity::getId).reversed(), limit);
+    }
+
+    /**
+     * Streams (order id, product id) for every order line of orders not in the excluded status, in either tier, in
+     * order id order. Reads only the two columns, so building an index over all orders does not load entities or
+     * items.
+     *
+     * @return The number of pairs streamed.
+     */
+    @Transactional
+    @SuppressWarnings("unchecked")
+    public long streamOrderProducts(String excludedStatus, BiConsumer<Long, String> consumer) {
+        long count = 0;
+        try (Stream<Object[]> rows = entityManager.createNativeQuery(ORDER_PRODUCTS)
+                                                  .setParameter("excludedStatus", excludedStatus)
+                                                  .setHint(FETCH_SIZE_HINT, STREAM_FETCH_SIZE)
+                                                  .setHint(READ_ONLY_HINT, true)
+                                                  .getResultStream()) {
+            Iterator<Object[]> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                Object[] row = iterator.next();
+                consumer.accept(((Number) row[0]).longValue(), String.valueOf(row[1]));
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Streams customer, total and order date of every order placed in {@code [from, to)}. Reads only the three
+     * columns, so warming per-customer state does not load entities.
+     *
+     * @return The number of orders streamed.
+     */
+    @Transactional
+    public long streamOrderTotalsPlacedBetween(LocalDateTime from, LocalDateTime to, OrderTotalConsumer consumer) {
+        String query = "SELECT o.customerId, o.totalAmount, o.orderDate FROM OrderEntity o "
+                + "WHERE o.orderDate >= :from AND o.orderDate < :to";
+        long count = 0;
+        try (Stream<Object[]> rows = entityManager.createQuery(query, Object[].class)
+                                                  .setParameter("from", from)
+                                                  .setParameter("to", to)
+                                                  .setHint(FETCH_SIZE_HINT, STREAM_FETCH_SIZE)
+                                                  .setHint(READ_ONLY_HINT, true)
+                                                  .getResultStream()) {
+            Iterator<Object[]> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                Object[] row = iterator.next();
+                consumer.accept(String.valueOf(row[0]), (BigDecimal) row[1], (LocalDateTime) row[2]);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Counts a customer's orders with a total above {@code threshold} placed since the given time.
+     */
+    public long countOrdersAboveTotalPlacedSince(String customerId, BigDecimal threshold, LocalDateTime since) {
+        String query = "SELECT COUNT(o) FROM OrderEntity o WHERE o.customerId = :customerId "
+                + "AND o.totalAmount > :threshold AND o.orderDate >= :since";
+        return entityManager.createQuery(query, Long.class)
+                            .setParameter("customerId", customerId)
+                            .setParameter("threshold", threshold)
+                            .setParameter("since", since)
+                            .getSingleResult();
+    }
+
+    /**
+     * Loads orders by id placed in {@code [from, to)} from either tier; either bound may be null. Ordered by id.
+     * The archive is only read for ids missing from the hot tier, and only if the range reaches past the archive
+     * horizon.
+     */
+    public List<OrderEntity> findOrdersByIdsPlacedBetween(Collection<Long> orderIds, LocalDateTime from, LocalDateTime to) {
+        String query = "SELECT o FROM OrderEntity o WHERE o.id IN :ids"
+                + (from != null ? " AND o.orderDate >= :from" : "")
+                + (to != null ? " AND o.orderDate < :to" : "")
+                + " ORDER BY o.id";
+        TypedQuery<OrderEntity> typedQuery = entityManager.createQuery(query, OrderEntity.class)
+                                                          .setParameter("ids", orderIds)
+                                                          .setHint(READ_ONLY_HINT, true);
+        if (from != null) {
+            typedQuery.setParameter("from", from);
+        }
+        if (to != null) {
+            typedQuery.setParameter("to", to);
+        }
+        List<OrderEntity> hot = typedQuery.getResultList();
+        if (hot.size() == orderIds.size() || (from != null && !from.isBefore(orderArchiver.archiveHorizon()))) {
+            return hot;
+        }
+
+        Set<Long> missing = new HashSet<>(orderIds);
+        hot.forEach(order -> missing.remove(order.getId()));
+        if (missing.isEmpty()) {
+            return hot;
+        }
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("ids", missing);
+        if (from != null) {
+            parameters.put("from", Timestamp.valueOf(from));
+        }
+        if (to != null) {
+            parameters.put("to", Timestamp.valueOf(to));
+        }
+        List<OrderEntity> cold = findArchived("id IN (:ids)"
+                + (from != null ? " AND order_date >= :from" : "")
+                + (to != null ? " AND order_date < :to" : ""), parameters);
+        return merge(hot, cold, Comparator.comparing(OrderEntity::getId), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Streams every order, optionally restricted to one status, to the consumer in id order, with its items loaded.
+     * Orders are read in keyset chunks of {@value #STREAM_FETCH_SIZE}: one query pages the ids, a second loads those
+     * orders with their items joined in, so a chunk costs two round trips however many orders and lines it holds.
+     * The persistence context is cleared after every chunk, so memory stays flat regardless of table size. Entities
+     * must not be retained by the consumer.
+     *
+     * @return The number of orders streamed.
+     */
+    @Transactional
+    public long streamOrders(String status, Consumer<OrderEntity> consumer) {
+        String idQuery = status == null
+                ? "SELECT o.id FROM OrderEntity o WHERE o.id > :afterId ORDER BY o.id"
+                : "SELECT o.id FROM OrderEntity o WHERE o.status = :status AND o.id > :afterId ORDER BY o.id";
+        String chunkQuery = "SELECT DISTINCT o FROM OrderEntity o LEFT JOIN FETCH o.orderItems "
+                + "WHERE o.id IN :ids ORDER BY o.id";
+
+        long count = 0;
+        long afterId = 0L;
+        while (true) {
+            TypedQuery<Long> ids = entityManager.createQuery(idQuery, Long.class)
+                                                .setParameter("afterId", afterId)
+                                                .setMaxResults(STREAM_FETCH_SIZE);
+            if (status != null) {
+                ids.setParameter("status", status);
+            }
+            List<Long> chunk = ids.getResultList();
+            if (chunk.isEmpty()) {
+                return count;
+            }
+
+            List<OrderEntity> orders = entityManager.createQuery(chunkQuery, OrderEntity.class)
+                                                    .setParameter("ids", chunk)
+                                                    .setHint(READ_ONLY_HINT, true)
+                                                    .getResultList();
+            for (OrderEntity order : orders) {
+                consumer.accept(order);
+            }
+            count += orders.size();
+            entityManager.clear();
+
+            if (chunk.size() < STREAM_FETCH_SIZE) {
+                return count;
+            }
+            afterId = chunk.get(chunk.size() - 1);
+        }
+    }
+
+    /**
+     * Receives the rows of {@link #streamOrderTotalsPlacedBetween}.
+     */
+    @FunctionalInterface
+    public interface OrderTotalConsumer {
+        void accept(String customerId, BigDecimal totalAmount, LocalDateTime orderDate);
+    }
+
+    /**
+     * What happened to one order in a bulk status transition.
+     */
+    public static final class TransitionOutcome {
+
+        public enum Result {
+            TRANSITIONED,
+            ALREADY_IN_STATUS,
+            INVALID_TRANSITION,
+            NOT_FOUND
+        }
+
+        private final Long orderId;
+        private final Result result;
+        private final String previousStatus;
+
+        TransitionOutcome(Long orderId, Result result, String previousStatus) {
+            this.orderId = orderId;
+            this.result = result;
+            this.previousStatus = previousStatus;
+        }
+
+        public Long getOrderId() {
+            return orderId;
+        }
+
+        public Result getResult() {
+            return result;
+        }
+
+        /**
+         * The status before the transition, or the current status if the order was not transitioned.
+         */
+        public String getPreviousStatus() {
+            return previousStatus;
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package infrastructure;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Streams order placed and cancelled events into {@link OrderRollups}.
+ *
+ * The consumer keeps its offsets in the rollup database rather than in Kafka: every poll is applied together with
+ * the offsets after it, and partitions are positioned from the stored offsets when assigned. A failed apply rewinds
+ * to the stored offsets and retries the same records. Partitions never seen before start from the earliest
+ * retained event. Any other failure closes the consumer and creates a new one after a back-off; since offsets live
+ * with the rollups, the new consumer resumes exactly where the last applied batch ended.
+ */
+@Component
+public class OrderRollupConsumer {
+
+    private static final Logger logger = Logger.getLogger(OrderRollupConsumer.class.getName());
+
+    private static final List<String> TOPICS =
+            List.of(OrderEventType.ORDER_PLACED.getTopic(), OrderEventType.ORDER_CANCELLED.getTopic());
+    private static final long PURGE_INTERVAL_NANOS = TimeUnit.HOURS.toNanos(1);
+
+    private final OrderRollups rollups;
+    private final KafkaProperties kafkaProperties;
+    private final boolean enabled;
+    private final String groupId;
+    private final int maxPollRecords;
+    private final Duration pollTimeout;
+    private final long retryBackoffMillis;
+    private final AtomicLong consumedRecords = new AtomicLong();
+    private final AtomicLong skippedRecords = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+    private final AtomicLong consumerRestarts = new AtomicLong();
+    private final Set<TopicPartition> pendingSeek = new HashSet<>();
+    private volatile boolean running;
+    private volatile KafkaConsumer<String, byte[]> consumer;
+    private Thread thread;
+
+    public OrderRollupConsumer(OrderRollups rollups, KafkaProperties kafkaProperties,
+                               @Value("${orders.rollups.enabled:true}") boolean enabled,
+                               @Value("${orders.rollups.group-id:order-rollups}") String groupId,
+                               @Value("${orders.rollups.max-poll-records:2000}") int maxPollRecords,
+                               @Value("${orders.rollups.poll-timeout-ms:500}") long pollTimeoutMillis,
+                               @Value("${orders.rollups.retry-backoff-ms:1000}") long retryBackoffMillis) {
+        this.rollups = rollups;
+        this.kafkaProperties = kafkaProperties;
+        this.enabled = enabled;
+        this.groupId = groupId;
+        this.maxPollRecords = maxPollRecords;
+        this.pollTimeout = Duration.ofMillis(pollTimeoutMillis);
+        this.retryBackoffMillis = retryBackoffMillis;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this::run, "order-rollups");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        KafkaConsumer<String, byte[]> current = consumer;
+        if (current != null) {
+            current.wakeup();
+        }
+        if (thread != null) {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    public long getConsumedRecordCount() {
+        return consumedRecords.get();
+    }
+
+    /**
+     * Records that could not be rolled up: malformed payloads, and cancellations encoded before the cancelled event
+     * carried the order's placement details.
+     */
+    public long getSkippedRecordCount() {
+        return skippedRecords.get();
+    }
+
+    public long getFailedBatchCount() {
+        return failedBatches.get();
+    }
+
+    public long getConsumerRestartCount() {
+        return consumerRestarts.get();
+    }
+
+    /**
+     * Rollups need a byte array deserializer and manual offsets, so the consumer is built here instead of using
+     * the shared listener container factory.
+     */
+    private KafkaConsumer<String, byte[]> createConsumer() {
+        Map<String, Object> config = new HashMap<>(kafkaProperties.buildConsumerProperties());
+        config.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
+        config.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        config.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        config.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+        return new KafkaConsumer<>(config, new StringDeserializer(), new ByteArrayDeserializer());
+    }
+
+    private void run() {
+        long lastPurge = System.nanoTime() - PURGE_INTERVAL_NANOS;
+        while (running) {
+            try (KafkaConsumer<String, byte[]> kafkaConsumer = createConsumer()) {
+                consumer = kafkaConsumer;
+                kafkaConsumer.subscribe(TOPICS, new StoredOffsets(kafkaConsumer));
+                while (running) {
+                    if (!pendingSeek.isEmpty()) {
+                        sleepQuietly(retryBackoffMillis);
+                        List<TopicPartition> partitions = new ArrayList<>(pendingSeek);
+                        pendingSeek.clear();
+                        seekToStored(kafkaConsumer, partitions);
+                    }
+                    ConsumerRecords<String, byte[]> records = kafkaConsumer.poll(pollTimeout);
+                    if (!records.isEmpty()) {
+                        applyOrRewind(kafkaConsumer, records);
+                    }
+                    if (System.nanoTime() - lastPurge >= PURGE_INTERVAL_NANOS) {
+                        lastPurge = System.nanoTime();
+                        purge();
+                    }
+                }
+            } catch (WakeupException e) {
+                if (running) {
+                    logger.warning("Order rollup consumer woken up unexpectedly, recreating it");
+                }
+            } catch (RuntimeException e) {
+                logger.warning("Order rollup consumer failed, recreating it in " + retryBackoffMillis + " ms: "
+                        + e.getMessage());
+            } finally {
+                consumer = null;
+                // The next consumer positions its partitions from the stored offsets when they are assigned
+                pendingSeek.clear();
+            }
+            if (running) {
+                consumerRestarts.incrementAndGet();
+                sleepQuietly(retryBackoffMillis);
+            }
+        }
+    }
+
+    private void applyOrRewind(KafkaConsumer<String, byte[]> kafkaConsumer, ConsumerRecords<String, byte[]> records) {
+        List<OrderRollups.Event> events = new ArrayList<>(records.count());
+        Map<TopicPartition, Long> nextOffsets = new HashMap<>();
+        int skipped = 0;
+        for (ConsumerRecord<String, byte[]> record : records) {
+            nextOffsets.merge(new TopicPartition(record.topic(), record.partition()), record.offset() + 1, Math::max);
+            OrderRollups.Event event = read(record);
+            if (event != null) {
+                events.add(event);
+            } else {
+                skipped++;
+            }
+        }
+
+        try {
+            rollups.apply(events, nextOffsets);
+            consumedRecords.addAndGet(records.count());
+            skippedRecords.addAndGet(skipped);
+        } catch (SQLException | RuntimeException e) {
+            failedBatches.incrementAndGet();
+            logger.warning("Failed to apply " + records.count() + " order events to rollups, retrying: " + e.getMessage());
+            sleepQuietly(retryBackoffMillis);
+            seekToStored(kafkaConsumer, kafkaConsumer.assignment());
+        }
+    }
+
+    private static OrderRollups.Event read(ConsumerRecord<String, byte[]> record) {
+        if (record.value() == null) {
+            return null;
+        }
+        try {
+            return OrderRollups.Event.read(OrderEventReader.wrap(record.value()));
+        } catch (RuntimeException e) {
+            logger.warning("Skipping malformed order event at " + record.topic() + "-" + record.partition()
+                    + "@" + record.offset() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void purge() {
+        try {
+            rollups.purgeExpired();
+        } catch (SQLException e) {
+            logger.warning("Failed to purge expired order rollups: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Positions the partitions at the offsets stored with the rollups; partitions without one fall back to the
+     * reset policy. If the offsets cannot be read, the partitions are paused so nothing is counted twice.
+     */
+    private void seekToStored(KafkaConsumer<String, byte[]> kafkaConsumer, Collection<TopicPartition> partitions) {
+        if (partitions.isEmpty()) {
+            return;
+        }
+        try {
+            Map<TopicPartition, Long> stored = rollups.loadOffsets();
+            List<TopicPartition> unseen = new ArrayList<>();
+            for (TopicPartition partition : partitions) {
+                Long offset = stored.get(partition);
+                if (offset != null) {
+                    kafkaConsumer.seek(partition, offset);
+                } else {
+                    unseen.add(partition);
+                }
+            }
+            if (!unseen.isEmpty()) {
+                kafkaConsumer.seekToBeginning(unseen);
+            }
+            kafkaConsumer.resume(partitions);
+        } catch (SQLException e) {
+            logger.warning("Failed to load order rollup offsets, pausing " + partitions + ": " + e.getMessage());
+            kafkaConsumer.pause(partitions);
+            pendingSeek.addAll(partitions);
+        }
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private final class StoredOffsets implements ConsumerRebalanceListener {
+        private final KafkaConsumer<String, byte[]> kafkaConsumer;
+
+        private StoredOffsets(KafkaConsumer<String, byte[]> kafkaConsumer) {
+            this.kafkaConsumer = kafkaConsumer;
+        }
+
+        @Override
+        public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+            pendingSeek.removeAll(partitions);
+        }
+
+        @Override
+        public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+            seekToStored(kafkaConsumer, partitions);
+        }
+    }
+}
@@ -0,0 +1,499 @@
+package infrastructure;
+
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Pre-aggregated order analytics: net order count, item count, revenue and cancellations per minute, hour and day,
+ * overall and by payment method and item category.
+ *
+ * {@link OrderRollupConsumer} hands over the placed and cancelled events of each Kafka poll. They are folded into
+ * one delta per rollup row and applied with one upsert per touched row, together with the consumer's offsets, in a
+ * single transaction, so each Kafka record counts exactly once even across restarts. The outbox relay may still
+ * deliver an event twice; a short-lived table of applied (order, event kind) pairs drops those repeats.
+ * A cancellation is subtracted from the windows its order was placed in. Minute and hour rows are purged after
+ * their retention period, and events are not applied to windows past it; day rows are kept.
+ */
+@Component
+public class OrderRollups {
+
+    private static final Logger logger = Logger.getLogger(OrderRollups.class.getName());
+
+    static final String UNKNOWN = "UNKNOWN";
+    private static final int MAX_QUERY_WINDOWS = 10_000;
+
+    private static final String CLAIM_EVENTS =
+            "INSERT INTO order_rollup_applied (order_id, event_type) "
+                    + "SELECT * FROM unnest(?::varchar[], ?::smallint[]) "
+                    + "ON CONFLICT DO NOTHING RETURNING order_id, event_type";
+    private static final String UPSERT_ROLLUP =
+            "INSERT INTO order_rollups (granularity, dimension, window_start, dimension_value, "
+                    + "order_count, item_count, revenue, cancelled_count) VALUES (?, ?, ?, ?, ?, ?, ?, ?) "
+                    + "ON CONFLICT (granularity, dimension, window_start, dimension_value) DO UPDATE SET "
+                    + "order_count = order_rollups.order_count + EXCLUDED.order_count, "
+                    + "item_count = order_rollups.item_count + EXCLUDED.item_count, "
+                    + "revenue = order_rollups.revenue + EXCLUDED.revenue, "
+                    + "cancelled_count = order_rollups.cancelled_count + EXCLUDED.cancelled_count";
+    private static final String SAVE_OFFSET =
+            "INSERT INTO order_rollup_offsets (topic, kafka_partition, next_offset) VALUES (?, ?, ?) "
+                    + "ON CONFLICT (topic, kafka_partition) DO UPDATE SET next_offset = EXCLUDED.next_offset";
+    private static final String LOAD_OFFSETS = "SELECT topic, kafka_partition, next_offset FROM order_rollup_offsets";
+    private static final String SELECT_ROWS =
+            "SELECT window_start, dimension_value, order_count, item_count, revenue, cancelled_count "
+                    + "FROM order_rollups WHERE granularity = ? AND dimension = ? AND window_start >= ? AND window_start < ? "
+                    + "ORDER BY window_start, dimension_value";
+    private static final String PURGE_ROLLUPS = "DELETE FROM order_rollups WHERE granularity = ? AND window_start < ?";
+    private static final String PURGE_APPLIED = "DELETE FROM order_rollup_applied WHERE applied_at < ?";
+
+    private final DataSource dataSource;
+    private final Duration minuteRetention;
+    private final Duration hourRetention;
+    private final Duration duplicateWindow;
+    private final AtomicLong appliedEvents = new AtomicLong();
+    private final AtomicLong duplicateEvents = new AtomicLong();
+
+    public OrderRollups(DataSource dataSource,
+                        @Value("${orders.rollups.minute-retention-hours:48}") long minuteRetentionHours,
+                        @Value("${orders.rollups.hour-retention-days:90}") long hourRetentionDays,
+                        @Value("${orders.rollups.duplicate-window-hours:24}") long duplicateWindowHours) {
+        this.dataSource = dataSource;
+        this.minuteRetention = Duration.ofHours(minuteRetentionHours);
+        this.hourRetention = Duration.ofDays(hourRetentionDays);
+        this.duplicateWindow = Duration.ofHours(duplicateWindowHours);
+    }
+
+    /**
+     * Rollup rows of one granularity and dimension whose window starts in {@code [from, to)}, oldest first.
+     *
+     * @throws IllegalArgumentException if the range is empty or spans more than 10,000 windows.
+     */
+    public List<Row> find(Granularity granularity, Dimension dimension, Instant from, Instant to) {
+        Instant start = granularity.truncate(from);
+        if (!start.isBefore(to)) {
+            throw new IllegalArgumentException("Empty time range");
+        }
+        if (granularity.unit.between(start, to) > MAX_QUERY_WINDOWS) {
+            throw new IllegalArgumentException("Time range spans more than " + MAX_QUERY_WINDOWS + " "
+                    + granularity.name().toLowerCase() + " windows");
+        }
+        List<Row> rows = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SELECT_ROWS)) {
+            statement.setString(1, granularity.code);
+            statement.setString(2, dimension.name());
+            statement.setTimestamp(3, toTimestamp(start));
+            statement.setTimestamp(4, toTimestamp(to));
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    rows.add(new Row(granularity, dimension,
+                            resultSet.getTimestamp(1).toLocalDateTime().toInstant(ZoneOffset.UTC),
+                            resultSet.getString(2), resultSet.getLong(3), resultSet.getLong(4),
+                            resultSet.getBigDecimal(5), resultSet.getLong(6)));
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to read order rollups", e);
+        }
+        return rows;
+    }
+
+    public long getAppliedEventCount() {
+        return appliedEvents.get();
+    }
+
+    public long getDuplicateEventCount() {
+        return duplicateEvents.get();
+    }
+
+    /**
+     * Next offset to read for every partition the rollups have consumed from.
+     */
+    Map<TopicPartition, Long> loadOffsets() throws SQLException {
+        Map<TopicPartition, Long> offsets = new HashMap<>();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(LOAD_OFFSETS);
+             ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                offsets.put(new TopicPartition(resultSet.getString(1), resultSet.getInt(2)), resultSet.getLong(3));
+            }
+        }
+        return offsets;
+    }
+
+    /**
+     * Applies one poll's events and records the offsets after them, all or nothing.
+     */
+    void apply(List<Event> events, Map<TopicPartition, Long> nextOffsets) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                List<Event> fresh = claim(connection, events);
+                upsert(connection, fold(fresh, Instant.now()));
+                saveOffsets(connection, nextOffsets);
+                connection.commit();
+                appliedEvents.addAndGet(fresh.size());
+                duplicateEvents.addAndGet(events.size() - fresh.size());
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    /**
+     * Drops minute and hour rows past their retention, and applied-event markers past the duplicate window.
+     */
+    void purgeExpired() throws SQLException {
+        Instant now = Instant.now();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement rollups = connection.prepareStatement(PURGE_ROLLUPS);
+             PreparedStatement applied = connection.prepareStatement(PURGE_APPLIED)) {
+            rollups.setString(1, Granularity.MINUTE.code);
+            rollups.setTimestamp(2, toTimestamp(now.minus(minuteRetention)));
+            int minutes = rollups.executeUpdate();
+            rollups.setString(1, Granularity.HOUR.code);
+            rollups.setTimestamp(2, toTimestamp(now.minus(hourRetention)));
+            int hours = rollups.executeUpdate();
+            applied.setTimestamp(1, toTimestamp(now.minus(duplicateWindow)));
+            applied.executeUpdate();
+            if (minutes + hours > 0) {
+                logger.fine("Purged " + minutes + " minute and " + hours + " hour order rollups");
+            }
+        }
+    }
+
+    /**
+     * Records every event as applied and returns those that were not applied before, each once.
+     */
+    private static List<Event> claim(Connection connection, List<Event> events) throws SQLException {
+        Map<String, Event> byKey = new LinkedHashMap<>();
+        for (Event event : events) {
+            byKey.putIfAbsent(event.key(), event);
+        }
+        if (byKey.isEmpty()) {
+            return List.of();
+        }
+        String[] orderIds = new String[byKey.size()];
+        Short[] eventTypes = new Short[byKey.size()];
+        int i = 0;
+        for (Event event : byKey.values()) {
+            orderIds[i] = event.orderId;
+            eventTypes[i] = (short) event.type.getSchemaId();
+            i++;
+        }
+
+        Set<String> claimed = new HashSet<>();
+        Array orderIdArray = connection.createArrayOf("varchar", orderIds);
+        Array eventTypeArray = connection.createArrayOf("smallint", eventTypes);
+        try (PreparedStatement statement = connection.prepareStatement(CLAIM_EVENTS)) {
+            statement.setArray(1, orderIdArray);
+            statement.setArray(2, eventTypeArray);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    claimed.add(resultSet.getString(1) + "/" + resultSet.getShort(2));
+                }
+            }
+        } finally {
+            orderIdArray.free();
+            eventTypeArray.free();
+        }
+
+        List<Event> fresh = new ArrayList<>(claimed.size());
+        for (Map.Entry<String, Event> entry : byKey.entrySet()) {
+            if (claimed.contains(entry.getKey())) {
+                fresh.add(entry.getValue());
+            }
+        }
+        return fresh;
+    }
+
+    /**
+     * Folds events into one delta per rollup row, so a burst of orders in the same minute costs one upsert.
+     * Windows past their granularity's retention are skipped: their rows may already be purged, and a late
+     * cancellation would otherwise bring one back holding only the negative delta.
+     */
+    Map<Key, Delta> fold(List<Event> events, Instant now) {
+        Map<Granularity, Instant> retainedFrom = new EnumMap<>(Granularity.class);
+        retainedFrom.put(Granularity.MINUTE, now.minus(minuteRetention));
+        retainedFrom.put(Granularity.HOUR, now.minus(hourRetention));
+        Map<Key, Delta> deltas = new LinkedHashMap<>();
+        for (Event event : events) {
+            boolean cancelled = event.type == OrderEventType.ORDER_CANCELLED;
+            int sign = cancelled ? -1 : 1;
+            BigDecimal revenue = event.totalAmount != null ? event.totalAmount : BigDecimal.ZERO;
+            for (Granularity granularity : Granularity.values()) {
+                Instant window = granularity.truncate(event.placedAt);
+                Instant oldestRetained = retainedFrom.get(granularity);
+                if (oldestRetained != null && window.isBefore(oldestRetained)) {
+                    continue;
+                }
+                deltas.computeIfAbsent(new Key(granularity, Dimension.ALL, window, ""), key -> new Delta())
+                        .add(sign, event.itemCount, revenue, cancelled);
+                deltas.computeIfAbsent(new Key(granularity, Dimension.PAYMENT_METHOD, window, event.paymentMethod),
+                        key -> new Delta()).add(sign, event.itemCount, revenue, cancelled);
+                event.categoryTotals.forEach((category, amount) -> deltas
+                        .computeIfAbsent(new Key(granularity, Dimension.CATEGORY, window, category), key -> new Delta())
+                        .add(sign, 0, amount != null ? amount : BigDecimal.ZERO, cancelled));
+            }
+        }
+        return deltas;
+    }
+
+    private static void upsert(Connection connection, Map<Key, Delta> deltas) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(UPSERT_ROLLUP)) {
+            for (Map.Entry<Key, Delta> entry : deltas.entrySet()) {
+                Key key = entry.getKey();
+                Delta delta = entry.getValue();
+                statement.setString(1, key.granularity.code);
+                statement.setString(2, key.dimension.name());
+                statement.setTimestamp(3, toTimestamp(key.windowStart));
+                statement.setString(4, key.dimensionValue);
+                statement.setLong(5, delta.orderCount);
+                statement.setLong(6, delta.itemCount);
+                statement.setBigDecimal(7, delta.revenue);
+                statement.setLong(8, delta.cancelledCount);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    private static void saveOffsets(Connection connection, Map<TopicPartition, Long> nextOffsets) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(SAVE_OFFSET)) {
+            for (Map.Entry<TopicPartition, Long> entry : nextOffsets.entrySet()) {
+                statement.setString(1, entry.getKey().topic());
+                statement.setInt(2, entry.getKey().partition());
+                statement.setLong(3, entry.getValue());
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    private static Timestamp toTimestamp(Instant instant) {
+        return Timestamp.valueOf(LocalDateTime.ofInstant(instant, ZoneOffset.UTC));
+    }
+
+    public enum Granularity {
+        MINUTE("M", ChronoUnit.MINUTES),
+        HOUR("H", ChronoUnit.HOURS),
+        DAY("D", ChronoUnit.DAYS);
+
+        private final String code;
+        private final ChronoUnit unit;
+
+        Granularity(String code, ChronoUnit unit) {
+            this.code = code;
+            this.unit = unit;
+        }
+
+        /**
+         * Start of the UTC window containing the instant.
+         */
+        public Instant truncate(Instant instant) {
+            return instant.truncatedTo(unit);
+        }
+
+        public ChronoUnit getUnit() {
+            return unit;
+        }
+    }
+
+    public enum Dimension {
+        ALL,
+        PAYMENT_METHOD,
+        CATEGORY
+    }
+
+    /**
+     * The rollup-relevant content of an order placed or cancelled event.
+     */
+    static final class Event {
+        private final OrderEventType type;
+        private final String orderId;
+        private final Instant placedAt;
+        private final BigDecimal totalAmount;
+        private final long itemCount;
+        private final String paymentMethod;
+        private final Map<String, BigDecimal> categoryTotals;
+
+        private Event(OrderEventType type, String orderId, Instant placedAt, BigDecimal totalAmount, long itemCount,
+                      String paymentMethod, Map<String, BigDecimal> categoryTotals) {
+            this.type = type;
+            this.orderId = orderId;
+            this.placedAt = placedAt;
+            this.totalAmount = totalAmount;
+            this.itemCount = itemCount;
+            this.paymentMethod = paymentMethod;
+            this.categoryTotals = categoryTotals;
+        }
+
+        /**
+         * Reads a placed or cancelled event. Returns null for other kinds, and for cancellations written before
+         * the event carried the order's placement time and amounts, which cannot be attributed to a window.
+         */
+        static Event read(OrderEventReader reader) {
+            OrderEventType type = reader.getType();
+            if (type != OrderEventType.ORDER_PLACED && type != OrderEventType.ORDER_CANCELLED) {
+                return null;
+            }
+            Instant placedAt = reader.getInstant(OrderEventField.PLACED_AT);
+            if (placedAt == null) {
+                if (type == OrderEventType.ORDER_CANCELLED) {
+                    return null;
+                }
+                placedAt = reader.getInstant(OrderEventField.OCCURRED_AT);
+            }
+            String paymentMethod = reader.getString(OrderEventField.PAYMENT_METHOD);
+            return new Event(type, reader.getString(OrderEventField.ORDER_ID), placedAt,
+                    reader.getDecimal(OrderEventField.TOTAL_AMOUNT), reader.getLong(OrderEventField.ITEM_COUNT, 0),
+                    paymentMethod != null ? paymentMethod : UNKNOWN, reader.getAmounts(OrderEventField.CATEGORY_TOTALS));
+        }
+
+        private String key() {
+            return orderId + "/" + type.getSchemaId();
+        }
+    }
+
+    static final class Key {
+        private final Granularity granularity;
+        private final Dimension dimension;
+        private final Instant windowStart;
+        private final String dimensionValue;
+
+        Key(Granularity granularity, Dimension dimension, Instant windowStart, String dimensionValue) {
+            this.granularity = granularity;
+            this.dimension = dimension;
+            this.windowStart = windowStart;
+            this.dimensionValue = dimensionValue;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key that = (Key) o;
+            return granularity == that.granularity && dimension == that.dimension
+                    && windowStart.equals(that.windowStart) && dimensionValue.equals(that.dimensionValue);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(granularity, dimension, windowStart, dimensionValue);
+        }
+    }
+
+    static final class Delta {
+        private long orderCount;
+        private long itemCount;
+        private BigDecimal revenue = BigDecimal.ZERO;
+        private long cancelledCount;
+
+        private void add(int sign, long items, BigDecimal amount, boolean cancelled) {
+            orderCount += sign;
+            itemCount += sign * items;
+            revenue = sign > 0 ? revenue.add(amount) : revenue.subtract(amount);
+            if (cancelled) {
+                cancelledCount++;
+            }
+        }
+    }
+
+    /**
+     * One rollup window. Counts and revenue are net of cancellations; {@code cancelledCount} is how many orders
+     * placed in the window were cancelled later. Item counts are only tracked for ALL and PAYMENT_METHOD.
+     */
+    public static final class Row {
+        private final Granularity granularity;
+        private final Dimension dimension;
+        private final Instant windowStart;
+        private final String dimensionValue;
+        private final long orderCount;
+        private final long itemCount;
+        private final BigDecimal revenue;
+        private final long cancelledCount;
+
+        Row(Granularity granularity, Dimension dimension, Instant windowStart, String dimensionValue,
+            long orderCount, long itemCount, BigDecimal revenue, long cancelledCount) {
+            this.granularity = granularity;
+            this.dimension = dimension;
+            this.windowStart = windowStart;
+            this.dimensionValue = dimensionValue;
+            this.orderCount = orderCount;
+            this.itemCount = itemCount;
+            this.revenue = revenue;
+            this.cancelledCount = cancelledCount;
+        }
+
+        public Granularity getGranularity() {
+            return granularity;
+        }
+
+        public Dimension getDimension() {
+            return dimension;
+        }
+
+        public Instant getWindowStart() {
+            return windowStart;
+        }
+
+        public String getDimensionValue() {
+            return dimensionValue;
+        }
+
+        public long getOrderCount() {
+            return orderCount;
+        }
+
+        public long getItemCount() {
+            return itemCount;
+        }
+
+        public BigDecimal getRevenue() {
+            return revenue;
+        }
+
+        public long getCancelledCount() {
+            return cancelledCount;
+        }
+
+        /**
+         * Average order value in the window, or zero if no orders remain.
+         */
+        public BigDecimal getAverageBasket() {
+            return orderCount > 0
+                    ? revenue.divide(BigDecimal.valueOf(orderCount), 2, RoundingMode.HALF_UP)
+                    : BigDecimal.ZERO;
+        }
+    }
+}
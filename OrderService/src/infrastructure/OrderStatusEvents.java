@@ -0,0 +1,204 @@
+package infrastructure;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Broadcasts order status changes from the order event topics to in-process listeners, whichever instance made
+ * the change.
+ *
+ * Every instance reads every event: the consumer joins a group of its own and never commits offsets, so it starts
+ * from the latest events and the group disappears with the instance. Order placement carries no status change and
+ * is not listened to. A failing consumer is closed and recreated after a back-off; events published meanwhile
+ * are missed, which listeners must tolerate.
+ */
+@Component
+public class OrderStatusEvents {
+
+    private static final Logger logger = Logger.getLogger(OrderStatusEvents.class.getName());
+
+    private static final List<String> TOPICS = List.of(
+            OrderEventType.ORDER_UPDATED.getTopic(),
+            OrderEventType.PAYMENT_COMPLETED.getTopic(),
+            OrderEventType.ORDER_SHIPPED.getTopic(),
+            OrderEventType.ORDER_DELIVERED.getTopic(),
+            OrderEventType.ORDER_CANCELLED.getTopic());
+
+    public interface Listener {
+        void onStatusChanged(String orderId, String status, Instant occurredAt);
+    }
+
+    private final KafkaProperties kafkaProperties;
+    private final boolean enabled;
+    private final String groupIdPrefix;
+    private final Duration pollTimeout;
+    private final long retryBackoffMillis;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong deliveredEvents = new AtomicLong();
+    private final AtomicLong consumerRestarts = new AtomicLong();
+    private volatile boolean running;
+    private volatile KafkaConsumer<String, byte[]> consumer;
+    private Thread thread;
+
+    public OrderStatusEvents(KafkaProperties kafkaProperties,
+                             @Value("${orders.status-events.enabled:true}") boolean enabled,
+                             @Value("${orders.status-events.group-id-prefix:order-status-}") String groupIdPrefix,
+                             @Value("${orders.status-events.poll-timeout-ms:500}") long pollTimeoutMillis,
+                             @Value("${orders.status-events.retry-backoff-ms:5000}") long retryBackoffMillis) {
+        this.kafkaProperties = kafkaProperties;
+        this.enabled = enabled;
+        this.groupIdPrefix = groupIdPrefix;
+        this.pollTimeout = Duration.ofMillis(pollTimeoutMillis);
+        this.retryBackoffMillis = retryBackoffMillis;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this::run, "order-status-events");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        KafkaConsumer<String, byte[]> current = consumer;
+        if (current != null) {
+            current.wakeup();
+        }
+        if (thread != null) {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    public long getDeliveredEventCount() {
+        return deliveredEvents.get();
+    }
+
+    public long getConsumerRestartCount() {
+        return consumerRestarts.get();
+    }
+
+    private KafkaConsumer<String, byte[]> createConsumer() {
+        Map<String, Object> config = new HashMap<>(kafkaProperties.buildConsumerProperties());
+        config.put(ConsumerConfig.GROUP_ID_CONFIG, groupIdPrefix + UUID.randomUUID());
+        config.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        config.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        return new KafkaConsumer<>(config, new StringDeserializer(), new ByteArrayDeserializer());
+    }
+
+    private void run() {
+        while (running) {
+            try (KafkaConsumer<String, byte[]> kafkaConsumer = createConsumer()) {
+                consumer = kafkaConsumer;
+                kafkaConsumer.subscribe(TOPICS);
+                while (running) {
+                    ConsumerRecords<String, byte[]> records = kafkaConsumer.poll(pollTimeout);
+                    for (ConsumerRecord<String, byte[]> record : records) {
+                        deliver(record);
+                    }
+                }
+            } catch (WakeupException e) {
+                if (running) {
+                    logger.warning("Order status consumer woken up unexpectedly, recreating it");
+                }
+            } catch (RuntimeException e) {
+                logger.warning("Order status consumer failed, recreating it in " + retryBackoffMillis + " ms: "
+                        + e.getMessage());
+            } finally {
+                consumer = null;
+            }
+            if (running) {
+                consumerRestarts.incrementAndGet();
+                sleepQuietly(retryBackoffMillis);
+            }
+        }
+    }
+
+    private void deliver(ConsumerRecord<String, byte[]> record) {
+        if (record.value() == null) {
+            return;
+        }
+        String orderId;
+        String status;
+        Instant occurredAt;
+        try {
+            OrderEventReader event = OrderEventReader.wrap(record.value());
+            status = statusOf(event);
+            orderId = event.getString(OrderEventField.ORDER_ID);
+            occurredAt = event.getInstant(OrderEventField.OCCURRED_AT);
+        } catch (RuntimeException e) {
+            logger.warning("Skipping malformed order event at " + record.topic() + "-" + record.partition()
+                    + "@" + record.offset() + ": " + e.getMessage());
+            return;
+        }
+        if (orderId == null || status == null || occurredAt == null) {
+            return;
+        }
+        for (Listener listener : listeners) {
+            try {
+                listener.onStatusChanged(orderId, status, occurredAt);
+            } catch (RuntimeException e) {
+                logger.warning("Order status listener failed for order " + orderId + ": " + e.getMessage());
+            }
+        }
+        deliveredEvents.incrementAndGet();
+    }
+
+    /**
+     * The status an event moves its order to; status names match the orders table.
+     */
+    private static String statusOf(OrderEventReader event) {
+        switch (event.getType()) {
+            case ORDER_UPDATED:
+                return event.getString(OrderEventField.STATUS);
+            case PAYMENT_COMPLETED:
+                return "PROCESSING";
+            case ORDER_SHIPPED:
+                return "SHIPPED";
+            case ORDER_DELIVERED:
+                return "DELIVERED";
+            case ORDER_CANCELLED:
+                return "CANCELED";
+            default:
+                return null;
+        }
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
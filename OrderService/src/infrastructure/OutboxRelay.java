@@ -0,0 +1,306 @@
+package infrastructure;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Drains the order outbox to Kafka in batches.
+ *
+ * Each pass reads up to {@code batchSize} events in id order and splits them into lanes by order id, so all events
+ * of one order stay in one lane, keyed by order id. An order's events on one topic share a partition and are
+ * pipelined in the order they were written. Kafka does not order partitions relative to each other, so an event on
+ * a different topic from the order's previous one is only sent once that one is acknowledged; an order's events are
+ * therefore written to Kafka in outbox order, though consumers of different topics may still read them in any
+ * order. Lanes are sent in parallel and delivered rows are deleted in one batched statement. Delivery is at least
+ * once: if a send fails the lane stops, its remaining rows stay in the outbox and are retried on the next pass.
+ *
+ * Every replica runs a relay, but each pass runs in one transaction that first takes a transaction-scoped
+ * Postgres advisory lock; a relay that does not get it skips the pass. So one relay drains at a time and no row is
+ * sent twice by two instances. Claiming rows with {@code SKIP LOCKED} instead would let two relays split the
+ * events of one order and send them out of order. The lock is released by the commit or rollback that ends the
+ * pass, including when the holder dies.
+ */
+@Component
+public class OutboxRelay {
+
+    private static final Logger logger = Logger.getLogger(OutboxRelay.class.getName());
+
+    private static final String SELECT_BATCH =
+            "SELECT id, aggregate_id, topic, payload FROM order_outbox ORDER BY id LIMIT ?";
+    private static final String DELETE_EVENT = "DELETE FROM order_outbox WHERE id = ?";
+    private static final String TRY_RELAY_LOCK = "SELECT pg_try_advisory_xact_lock(?)";
+    // Arbitrary advisory lock key shared by all relays of the order outbox
+    private static final long RELAY_LOCK_KEY = 0x6f726465726f7574L;
+
+    private final DataSource dataSource;
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final int batchSize;
+    private final int parallelism;
+    private final long pollIntervalMillis;
+    private final long sendTimeoutMillis;
+    private final ScheduledExecutorService poller;
+    private final ExecutorService lanes;
+    private final AtomicLong relayedEvents = new AtomicLong();
+    private final AtomicLong failedSends = new AtomicLong();
+    private final AtomicLong skippedPasses = new AtomicLong();
+
+    public OutboxRelay(DataSource dataSource, KafkaProperties kafkaProperties,
+                       @Value("${orders.outbox.batch-size:1000}") int batchSize,
+                       @Value("${orders.outbox.parallelism:4}") int parallelism,
+                       @Value("${orders.outbox.poll-interval-ms:200}") long pollIntervalMillis,
+                       @Value("${orders.outbox.send-timeout-ms:10000}") long sendTimeoutMillis) {
+        this.dataSource = dataSource;
+        this.kafkaTemplate = new KafkaTemplate<>(producerFactory(kafkaProperties));
+        this.batchSize = batchSize;
+        this.parallelism = Math.max(1, parallelism);
+        this.pollIntervalMillis = pollIntervalMillis;
+        this.sendTimeoutMillis = sendTimeoutMillis;
+        this.poller = Executors.newSingleThreadScheduledExecutor(daemonThreads("order-outbox-relay"));
+        this.lanes = Executors.newFixedThreadPool(this.parallelism, daemonThreads("order-outbox-lane"));
+    }
+
+    /**
+     * Binary events need a byte array serializer, so the relay owns its producer instead of using the shared
+     * string template. Idempotence keeps pipelined sends of one order in order across retries.
+     */
+    private static ProducerFactory<String, byte[]> producerFactory(KafkaProperties kafkaProperties) {
+        Map<String, Object> config = new HashMap<>(kafkaProperties.buildProducerProperties());
+        config.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        config.putIfAbsent(ProducerConfig.LINGER_MS_CONFIG, 5);
+        return new DefaultKafkaProducerFactory<>(config, new StringSerializer(), new ByteArraySerializer());
+    }
+
+    @PostConstruct
+    public void start() {
+        poller.scheduleWithFixedDelay(this::drain, pollIntervalMillis, pollIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        poller.shutdown();
+        lanes.shutdown();
+        kafkaTemplate.getProducerFactory().reset();
+    }
+
+    public long getRelayedEventCount() {
+        return relayedEvents.get();
+    }
+
+    public long getFailedSendCount() {
+        return failedSends.get();
+    }
+
+    /**
+     * Passes skipped because another instance held the relay lock.
+     */
+    public long getSkippedPassCount() {
+        return skippedPasses.get();
+    }
+
+    /**
+     * Relays full batches back to back until the outbox holds less than one batch, then waits for the next poll.
+     */
+    void drain() {
+        try {
+            int relayed;
+            do {
+                relayed = relayBatch();
+            } while (relayed == batchSize);
+        } catch (SQLException | RuntimeException e) {
+            logger.warning("Order outbox relay pass failed: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private int relayBatch() throws SQLException, InterruptedException {
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                if (!tryRelayLock(connection)) {
+                    skippedPasses.incrementAndGet();
+                    connection.rollback();
+                    return 0;
+                }
+                int relayed = relayBatch(connection);
+                connection.commit();
+                return relayed;
+            } catch (SQLException | InterruptedException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    private static boolean tryRelayLock(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(TRY_RELAY_LOCK)) {
+            statement.setLong(1, RELAY_LOCK_KEY);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() && resultSet.getBoolean(1);
+            }
+        }
+    }
+
+    private int relayBatch(Connection connection) throws SQLException, InterruptedException {
+        List<List<OutboxEvent>> laneEvents = readBatch(connection);
+        List<Future<List<Long>>> results = new ArrayList<>(laneEvents.size());
+        for (List<OutboxEvent> events : laneEvents) {
+            if (!events.isEmpty()) {
+                results.add(lanes.submit(() -> sendInOrder(events)));
+            }
+        }
+
+        List<Long> delivered = new ArrayList<>();
+        for (Future<List<Long>> result : results) {
+            try {
+                delivered.addAll(result.get());
+            } catch (ExecutionException e) {
+                logger.warning("Order outbox lane failed: " + e.getCause());
+            }
+        }
+        deleteDelivered(connection, delivered);
+        relayedEvents.addAndGet(delivered.size());
+        return delivered.size();
+    }
+
+    private List<List<OutboxEvent>> readBatch(Connection connection) throws SQLException {
+        List<List<OutboxEvent>> laneEvents = new ArrayList<>(parallelism);
+        for (int i = 0; i < parallelism; i++) {
+            laneEvents.add(new ArrayList<>());
+        }
+        try (PreparedStatement statement = connection.prepareStatement(SELECT_BATCH)) {
+            statement.setInt(1, batchSize);
+            statement.setFetchSize(batchSize);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    OutboxEvent event = new OutboxEvent(resultSet.getLong(1), resultSet.getString(2),
+                            resultSet.getString(3), resultSet.getBytes(4));
+                    laneEvents.get(Math.floorMod(event.aggregateId.hashCode(), parallelism)).add(event);
+                }
+            }
+        }
+        return laneEvents;
+    }
+
+    /**
+     * Sends one lane's events in id order and returns the ids that were acknowledged. Sends are pipelined, except
+     * that an event waits for its order's previous event when that went to another topic. After the first failure
+     * nothing further is sent or reported as delivered, so later events of the same order are retried together with
+     * the failed one.
+     */
+    private List<Long> sendInOrder(List<OutboxEvent> events) throws InterruptedException {
+        List<CompletableFuture<?>> sends = new ArrayList<>(events.size());
+        Map<String, Integer> lastSendByOrder = new HashMap<>();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sendTimeoutMillis);
+        for (OutboxEvent event : events) {
+            Integer previous = lastSendByOrder.get(event.aggregateId);
+            if (previous != null && !events.get(previous).topic.equals(event.topic)) {
+                kafkaTemplate.flush();
+                if (!awaitSend(sends.get(previous), events.get(previous), deadline)) {
+                    return delivered(sends, events, previous, deadline);
+                }
+            }
+            lastSendByOrder.put(event.aggregateId, sends.size());
+            sends.add(kafkaTemplate.send(event.topic, event.aggregateId, event.payload));
+        }
+        kafkaTemplate.flush();
+        return delivered(sends, events, sends.size(), deadline);
+    }
+
+    /**
+     * Ids of the leading events, among the first {@code count} sent, that were acknowledged before the first one
+     * that was not.
+     */
+    private List<Long> delivered(List<CompletableFuture<?>> sends, List<OutboxEvent> events, int count, long deadline)
+            throws InterruptedException {
+        List<Long> delivered = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            if (!awaitSend(sends.get(i), events.get(i), deadline)) {
+                break;
+            }
+            delivered.add(events.get(i).id);
+        }
+        return delivered;
+    }
+
+    private boolean awaitSend(CompletableFuture<?> send, OutboxEvent event, long deadline) throws InterruptedException {
+        try {
+            send.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            return true;
+        } catch (ExecutionException | TimeoutException e) {
+            failedSends.incrementAndGet();
+            logger.warning("Failed to relay outbox event " + event.id + " to " + event.topic + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static void deleteDelivered(Connection connection, List<Long> ids) throws SQLException {
+        if (ids.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement statement = connection.prepareStatement(DELETE_EVENT)) {
+            for (Long id : ids) {
+                statement.setLong(1, id);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static final class OutboxEvent {
+        private final long id;
+        private final String aggregateId;
+        private final String topic;
+        private final byte[] payload;
+
+        private OutboxEvent(long id, String aggregateId, String topic, byte[] payload) {
+            this.id = id;
+            this.aggregateId = aggregateId;
+            this.topic = topic;
+            this.payload = payload;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package infrastructure;
+
+import common.threads.VirtualThreads;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Reports virtual threads that block while pinned to their carrier thread, e.g. doing IO inside a synchronized
+ * block or a native frame. A pinned virtual thread holds one of the few carrier threads for the whole wait, so a
+ * handful of pinning call sites can cap throughput at the carrier count.
+ *
+ * Only runs in virtual-thread mode. Pinned waits longer than {@code threads.virtual.pinning-threshold-ms} are read
+ * from an in-process JFR stream and counted per call site, the first application frame of the pinned stack. The
+ * first occurrence of each site is logged with its stack.
+ */
+@Component
+public class PinningMonitor {
+
+    private static final Logger logger = Logger.getLogger(PinningMonitor.class.getName());
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int LOGGED_FRAMES = 12;
+
+    private final Duration threshold;
+    private final Map<String, AtomicLong> sites = new ConcurrentHashMap<>();
+    private final LongAdder pinnedEvents = new LongAdder();
+    private RecordingStream stream;
+
+    public PinningMonitor(@Value("${threads.virtual.pinning-threshold-ms:20}") long thresholdMillis) {
+        this.threshold = Duration.ofMillis(thresholdMillis);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!VirtualThreads.isEnabled()) {
+            return;
+        }
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::record);
+        stream.startAsync();
+        logger.info("Reporting virtual thread pinning longer than " + threshold.toMillis() + " ms");
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    public long getPinnedEventCount() {
+        return pinnedEvents.sum();
+    }
+
+    /**
+     * Pinned wait count per call site, most frequent first.
+     */
+    public Map<String, Long> getPinningSites() {
+        Map<String, Long> snapshot = new LinkedHashMap<>();
+        sites.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, AtomicLong> entry) -> entry.getValue().get()).reversed())
+                .forEach(entry -> snapshot.put(entry.getKey(), entry.getValue().get()));
+        return snapshot;
+    }
+
+    private void record(RecordedEvent event) {
+        pinnedEvents.increment();
+        RecordedStackTrace stackTrace = event.getStackTrace();
+        List<RecordedFrame> frames = stackTrace != null ? stackTrace.getFrames() : List.of();
+        String site = callSite(frames);
+
+        if (sites.computeIfAbsent(site, key -> new AtomicLong()).incrementAndGet() == 1) {
+            StringBuilder message = new StringBuilder("Virtual thread pinned for ")
+                    .append(event.getDuration().toMillis()).append(" ms at ").append(site);
+            frames.stream().limit(LOGGED_FRAMES).forEach(frame -> message.append("\n\tat ").append(describe(frame)));
+            logger.warning(message.toString());
+        }
+    }
+
+    private static String callSite(List<RecordedFrame> frames) {
+        for (RecordedFrame frame : frames) {
+            String type = frame.getMethod().getType().getName();
+            if (!type.startsWith("java.") && !type.startsWith("jdk.") && !type.startsWith("sun.")) {
+                return describe(frame);
+            }
+        }
+        return frames.isEmpty() ? "unknown" : describe(frames.get(0));
+    }
+
+    private static String describe(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+}
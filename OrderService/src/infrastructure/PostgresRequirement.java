@@ -0,0 +1,42 @@
+package infrastructure;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.logging.Logger;
+
+/**
+ * Fails startup unless the order database is PostgreSQL.
+ *
+ * Partition maintenance, archival, bulk transitions and rollups use Postgres-only SQL (UPDATE ... FROM ...
+ * RETURNING, ON CONFLICT, unnest, pg_inherits, advisory locks). On another database they would only fail once
+ * each feature first runs, so the check is made up front.
+ */
+@Component
+public class PostgresRequirement {
+
+    private static final Logger logger = Logger.getLogger(PostgresRequirement.class.getName());
+
+    private static final String POSTGRES_PRODUCT_NAME = "PostgreSQL";
+
+    private final DataSource dataSource;
+
+    public PostgresRequirement(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @PostConstruct
+    public void verify() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            String product = connection.getMetaData().getDatabaseProductName();
+            if (!POSTGRES_PRODUCT_NAME.equals(product)) {
+                throw new IllegalStateException("OrderService requires PostgreSQL, but the configured database is "
+                        + product);
+            }
+            logger.info("Order database is " + product + " " + connection.getMetaData().getDatabaseProductVersion());
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package infrastructure;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * The point in time after which nobody is waiting for a piece of work any more.
+ *
+ * A deadline is installed for the current thread with {@link #call} and read by the clients that do blocking work:
+ * JDBC statements and inventory HTTP calls cap their own timeouts at the time remaining, and refuse to start once
+ * it is gone. The payment client takes no timeout, so a payment attempt only refuses to start; its caller stops
+ * waiting for it at the deadline instead. {@link #wrap} carries the deadline onto executor threads. Code running
+ * without a deadline keeps its configured timeouts.
+ */
+public final class RequestDeadline {
+
+    /**
+     * Time budget in milliseconds that a client grants a request, and that this service forwards downstream.
+     */
+    public static final String HEADER = "X-Request-Timeout-Ms";
+
+    private static final ThreadLocal<RequestDeadline> CURRENT = new ThreadLocal<>();
+
+    private final long deadlineNanos;
+
+    private RequestDeadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    public static RequestDeadline after(Duration budget) {
+        return new RequestDeadline(System.nanoTime() + budget.toNanos());
+    }
+
+    public static Optional<RequestDeadline> current() {
+        return Optional.ofNullable(CURRENT.get());
+    }
+
+    /**
+     * Caps a configured timeout at the time left on the current thread's deadline, if it has one.
+     *
+     * @throws DeadlineExceededException if the current deadline has already passed.
+     */
+    public static Duration capToCurrent(Duration timeout, String work) {
+        RequestDeadline deadline = CURRENT.get();
+        return deadline != null ? deadline.cap(timeout, work) : timeout;
+    }
+
+    /**
+     * Runs the action with this deadline as the current one, restoring the previous deadline afterwards.
+     */
+    public <T> T call(Supplier<T> action) {
+        RequestDeadline previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return action.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    public <T> Supplier<T> wrap(Supplier<T> action) {
+        return () -> call(action);
+    }
+
+    public long remainingNanos() {
+        return Math.max(0, deadlineNanos - System.nanoTime());
+    }
+
+    public Duration remaining() {
+        return Duration.ofNanos(remainingNanos());
+    }
+
+    public boolean isExpired() {
+        return deadlineNanos - System.nanoTime() <= 0;
+    }
+
+    /**
+     * @throws DeadlineExceededException if the deadline has passed, so {@code work} should not start.
+     */
+    public void check(String work) {
+        if (isExpired()) {
+            throw new DeadlineExceededException("Deadline exceeded before " + work);
+        }
+    }
+
+    /**
+     * The shorter of the configured timeout and the time remaining.
+     *
+     * @throws DeadlineExceededException if the deadline has already passed.
+     */
+    public Duration cap(Duration timeout, String work) {
+        long remaining = remainingNanos();
+        if (remaining <= 0) {
+            throw new DeadlineExceededException("Deadline exceeded before " + work);
+        }
+        return timeout.toNanos() <= remaining ? timeout : Duration.ofNanos(remaining);
+    }
+
+    /**
+     * Time remaining in whole seconds, rounded up, for APIs such as JDBC query timeouts that take seconds.
+     *
+     * @throws DeadlineExceededException if the deadline has already passed.
+     */
+    public int remainingSeconds(String work) {
+        check(work);
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(1, (remainingNanos() + TimeUnit.SECONDS.toNanos(1) - 1)
+                / TimeUnit.SECONDS.toNanos(1)));
+    }
+
+    public static class DeadlineExceededException extends RuntimeException {
+        public DeadlineExceededException(String message) {
+            super(message);
+        }
+    }
+}
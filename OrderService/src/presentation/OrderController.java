@@ -5,13 +5,35 @@ import com.website.order.application.TrackOrderQueryHandler;
 import com.website.order.application.dtos.OrderDTO;
 import com.website.order.application.commands.PlaceOrderCommand;
 import com.website.order.application.queries.TrackOrderQuery;
-import com.website.order.core.entities.OrderEntity;
-import com.website.order.infrastructure.OrderEventPublisher;
+import application.OrderPage;
+import application.OrderPlacementStatus;
+import application.OrderSummary;
+import common.idempotency.IdempotentRequests;
+import core.OrderEntity;
+import infrastructure.AdmissionControl;
+import infrastructure.OrderRepositoryImpl;
+import infrastructure.OrderRollups;
+import infrastructure.RequestDeadline;
+import valueobjects.OrderID;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
 import java.util.UUID;
 import java.util.List;
 import java.util.Optional;
@@ -22,22 +44,48 @@ public class OrderController {
 
     private final PlaceOrderCommandHandler placeOrderCommandHandler;
     private final TrackOrderQueryHandler trackOrderQueryHandler;
-    private final OrderEventPublisher orderEventPublisher;
+    private final ObjectMapper objectMapper;
+    private final IdempotentRequests idempotentRequests;
+    private final AdmissionControl admissionControl;
 
     @Autowired
     public OrderController(PlaceOrderCommandHandler placeOrderCommandHandler, 
                            TrackOrderQueryHandler trackOrderQueryHandler,
-                           OrderEventPublisher orderEventPublisher) {
+                           ObjectMapper objectMapper,
+                           IdempotentRequests idempotentRequests,
+                           AdmissionControl admissionControl) {
         this.placeOrderCommandHandler = placeOrderCommandHandler;
         this.trackOrderQueryHandler = trackOrderQueryHandler;
-        this.orderEventPublisher = orderEventPublisher;
+        this.objectMapper = objectMapper;
+        this.idempotentRequests = idempotentRequests;
+        this.admissionControl = admissionControl;
     }
 
     @PostMapping
-    public ResponseEntity<OrderDTO> placeOrder(@RequestBody PlaceOrderCommand placeOrderCommand) {
-        OrderDTO orderDTO = placeOrderCommandHandler.handle(placeOrderCommand);
-        orderEventPublisher.publishOrderPlacedEvent(orderDTO.getOrderId());
-        return new ResponseEntity<>(orderDTO, HttpStatus.CREATED);
+    public ResponseEntity<OrderPlacementStatus> placeOrder(
+            @RequestHeader(value = IdempotentRequests.HEADER, required = false) String idempotencyKey,
+            @RequestHeader(value = RequestDeadline.HEADER, required = false) Long timeoutMillis,
+            @RequestBody PlaceOrderCommand placeOrderCommand) {
+        String customerId = placeOrderCommand.getCustomerID() != null ? placeOrderCommand.getCustomerID().toString() : null;
+        Duration clientBudget = timeoutMillis != null ? Duration.ofMillis(timeoutMillis) : null;
+        // Replays are answered before admission, so a retry never spends a token or a slot, and is never refused
+        return idempotentRequests.execute(idempotencyKey, placeOrderCommand, () -> {
+            // The slot is held until the saga finishes, so its inventory and payment work counts against the limit
+            AdmissionControl.Admission admission = admissionControl.admit(customerId, clientBudget);
+            OrderID orderId = admission.call(() -> placeOrderCommandHandler.handle(placeOrderCommand, admission::release));
+            return placeOrderCommandHandler.getPlacementStatus(orderId.toString())
+                    .map(status -> ResponseEntity.accepted()
+                            .location(URI.create("/api/orders/" + orderId + "/placement"))
+                            .body(status))
+                    .orElseGet(() -> new ResponseEntity<>(HttpStatus.ACCEPTED));
+        });
+    }
+
+    @GetMapping("/{orderId}/placement")
+    public ResponseEntity<OrderPlacementStatus> getPlacementStatus(@PathVariable String orderId) {
+        return placeOrderCommandHandler.getPlacementStatus(orderId)
+                .map(status -> new ResponseEntity<>(status, HttpStatus.OK))
+                .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
     }
 
     @GetMapping("/{orderId}")
@@ -53,11 +101,102 @@ public class OrderController {
         return new ResponseEntity<>(orderList, HttpStatus.OK);
     }
 
+    /**
+     * Keyset-paginated listing. Pass the returned nextCursor as {@code after} to get the next page.
+     */
+    @GetMapping("/page")
+    public ResponseEntity<OrderPage> getOrdersPage(@RequestParam(required = false) Long after,
+                                                   @RequestParam(defaultValue = "50") int limit,
+                                                   @RequestParam(required = false) String status) {
+        return new ResponseEntity<>(trackOrderQueryHandler.getOrdersPage(after, limit, status), HttpStatus.OK);
+    }
+
+    /**
+     * A customer's orders, newest first. Pass the id of the last order returned as {@code before} to page back.
+     */
+    @GetMapping("/customer/{customerId}")
+    public ResponseEntity<List<OrderSummary>> getCustomerOrders(@PathVariable String customerId,
+                                                                @RequestParam(required = false) Long before,
+                                                                @RequestParam(defaultValue = "20") int limit) {
+        return new ResponseEntity<>(trackOrderQueryHandler.getCustomerOrderHistory(customerId, before, limit), HttpStatus.OK);
+    }
+
+    /**
+     * Orders containing a product, in id order, optionally limited to orders placed in {@code [from, to)}.
+     * Pass the id of the last order returned as {@code after} to get the next page.
+     */
+    @GetMapping("/product/{productId}")
+    public ResponseEntity<List<OrderSummary>> getOrdersByProduct(
+            @PathVariable String productId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "100") int limit) {
+        return new ResponseEntity<>(trackOrderQueryHandler.findOrdersByProduct(productId, from, to, after, limit),
+                HttpStatus.OK);
+    }
+
+    /**
+     * Pre-aggregated order analytics for dashboards: one row per window (and payment method or category) whose
+     * window starts in {@code [from, to)}. Defaults to the last 24 windows up to now.
+     */
+    @GetMapping("/analytics/rollups")
+    public ResponseEntity<List<OrderRollups.Row>> getOrderRollups(
+            @RequestParam(defaultValue = "HOUR") String granularity,
+            @RequestParam(defaultValue = "ALL") String dimension,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to) {
+        try {
+            OrderRollups.Granularity windowSize = OrderRollups.Granularity.valueOf(granularity.toUpperCase());
+            Instant end = to != null ? to : Instant.now();
+            Instant start = from != null ? from : windowSize.truncate(end).minus(23, windowSize.getUnit());
+            return new ResponseEntity<>(trackOrderQueryHandler.getOrderRollups(windowSize,
+                    OrderRollups.Dimension.valueOf(dimension.toUpperCase()), start, end), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    /**
+     * Streams all matching orders as newline-delimited JSON without buffering the result set.
+     */
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportOrders(@RequestParam(required = false) String status) {
+        StreamingResponseBody body = outputStream -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            trackOrderQueryHandler.streamOrders(status, orderDTO -> {
+                try {
+                    writer.write(objectMapper.writeValueAsString(orderDTO));
+                    writer.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.flush();
+        };
+        return new ResponseEntity<>(body, HttpStatus.OK);
+    }
+
+    /**
+     * Moves many orders to one status, e.g. a warehouse shipping confirmation. Returns one outcome per order id.
+     */
+    @PostMapping("/transitions")
+    public ResponseEntity<List<OrderRepositoryImpl.TransitionOutcome>> transitionOrders(@RequestBody BulkTransitionRequest request) {
+        if (request.getOrderIds() == null || request.getTargetStatus() == null) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        try {
+            return new ResponseEntity<>(placeOrderCommandHandler.transitionOrders(request.getOrderIds(),
+                    OrderEntity.OrderStatus.valueOf(request.getTargetStatus())), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+
     @DeleteMapping("/{orderId}")
     public ResponseEntity<Void> cancelOrder(@PathVariable UUID orderId) {
         boolean success = placeOrderCommandHandler.cancelOrder(orderId);
         if (success) {
-            orderEventPublisher.publishOrderCancelledEvent(orderId);
             return new ResponseEntity<>(HttpStatus.NO_CONTENT);
         } else {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
@@ -68,13 +207,29 @@ public class OrderController {
     public ResponseEntity<OrderDTO> updateOrder(@PathVariable UUID orderId, @RequestBody PlaceOrderCommand updateOrderCommand) {
         Optional<OrderDTO> updatedOrder = placeOrderCommandHandler.updateOrder(orderId, updateOrderCommand);
         if (updatedOrder.isPresent()) {
-            orderEventPublisher.publishOrderUpdatedEvent(orderId);
             return new ResponseEntity<>(updatedOrder.get(), HttpStatus.OK);
         } else {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
     }
 
+    @ExceptionHandler(AdmissionControl.AdmissionRejectedException.class)
+    public ResponseEntity<String> handleAdmissionRejected(AdmissionControl.AdmissionRejectedException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body("Error: " + e.getMessage());
+    }
+
+    @ExceptionHandler(RequestDeadline.DeadlineExceededException.class)
+    public ResponseEntity<String> handleDeadlineExceeded(RequestDeadline.DeadlineExceededException e) {
+        return new ResponseEntity<>("Error: " + e.getMessage(), HttpStatus.GATEWAY_TIMEOUT);
+    }
+
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<String> handleIllegalState(IllegalStateException e) {
+        return new ResponseEntity<>("Error: " + e.getMessage(), HttpStatus.CONFLICT);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<String> handleException(Exception e) {
         return new ResponseEntity<>("Error: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
@@ -92,4 +247,26 @@ public class OrderController {
         return orderDTO.map(dto -> new ResponseEntity<>(dto, HttpStatus.OK))
                        .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
     }
-}
\ No newline at end of file
+
+    public static class BulkTransitionRequest {
+
+        private List<Long> orderIds;
+        private String targetStatus;
+
+        public List<Long> getOrderIds() {
+            return orderIds;
+        }
+
+        public void setOrderIds(List<Long> orderIds) {
+            this.orderIds = orderIds;
+        }
+
+        public String getTargetStatus() {
+            return targetStatus;
+        }
+
+        public void setTargetStatus(String targetStatus) {
+            this.targetStatus = targetStatus;
+        }
+    }
+}
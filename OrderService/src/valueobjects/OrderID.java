@@ -0,0 +1,61 @@
+package valueobjects;
+
+import common.ids.TimeOrderedIds;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Value object representing a unique Order ID.
+ */
+public final class OrderID implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String value;
+
+    /**
+     * Creates an OrderID from an existing identifier.
+     *
+     * @param value The order ID string.
+     * @throws IllegalArgumentException if the order ID is null or empty.
+     */
+    public OrderID(String value) {
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Order ID cannot be null or empty.");
+        }
+        this.value = value;
+    }
+
+    /**
+     * Generates a new time-ordered OrderID. Ids generated later sort after earlier ones,
+     * which keeps inserts into the orders primary key sequential.
+     *
+     * @return A new OrderID.
+     */
+    public static OrderID generate() {
+        return new OrderID(TimeOrderedIds.next().toString());
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        OrderID orderID = (OrderID) o;
+        return value.equals(orderID.value);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(value);
+    }
+
+    @Override
+    public String toString() {
+        return value;
+    }
+}
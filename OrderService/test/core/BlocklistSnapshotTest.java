@@ -0,0 +1,84 @@
+package core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BlocklistSnapshotTest {
+
+    @Test
+    void findsEveryListedKey() {
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            keys.add("card-" + i);
+        }
+        BlocklistSnapshot snapshot = BlocklistSnapshot.of(keys);
+
+        assertEquals(keys.size(), snapshot.size());
+        for (String key : keys) {
+            assertEquals(BlocklistSnapshot.Lookup.LISTED, snapshot.lookup(key));
+        }
+    }
+
+    @Test
+    void rejectsUnlistedKeysMostlyInTheBloomFilter() {
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            keys.add("listed-" + i);
+        }
+        BlocklistSnapshot snapshot = BlocklistSnapshot.of(keys);
+
+        int bloomFalsePositives = 0;
+        int probes = 100000;
+        for (int i = 0; i < probes; i++) {
+            BlocklistSnapshot.Lookup lookup = snapshot.lookup("unlisted-" + i);
+            assertFalse(lookup.isListed());
+            if (lookup == BlocklistSnapshot.Lookup.BLOOM_FALSE_POSITIVE) {
+                bloomFalsePositives++;
+            }
+        }
+        // Ten bits and seven hash functions per entry give a false positive rate of about 1%
+        assertTrue(bloomFalsePositives < probes * 0.02, "Bloom false positives: " + bloomFalsePositives);
+    }
+
+    @Test
+    void countsDuplicateKeysOnce() {
+        BlocklistSnapshot snapshot = BlocklistSnapshot.of(List.of("a@example.com", "b@example.com", "a@example.com"));
+
+        assertEquals(2, snapshot.size());
+        assertTrue(snapshot.lookup("a@example.com").isListed());
+        assertTrue(snapshot.lookup("b@example.com").isListed());
+    }
+
+    @Test
+    void listsAKeyWhoseHashIsTheEmptySlotMarker() {
+        // The empty string hashes to zero, which the open-addressing table uses for empty slots
+        assertEquals(0L, BlocklistSnapshot.hash("")[0]);
+
+        BlocklistSnapshot snapshot = BlocklistSnapshot.of(List.of("", "x"));
+
+        assertEquals(2, snapshot.size());
+        assertTrue(snapshot.lookup("").isListed());
+        assertFalse(BlocklistSnapshot.of(List.of("x")).lookup("").isListed());
+    }
+
+    @Test
+    void emptySnapshotListsNothing() {
+        BlocklistSnapshot snapshot = BlocklistSnapshot.empty();
+
+        assertEquals(0, snapshot.size());
+        assertEquals(BlocklistSnapshot.Lookup.BLOOM_NEGATIVE, snapshot.lookup("anything"));
+    }
+
+    @Test
+    void hashesWithMurmur3() {
+        // MurmurHash3 x64 128-bit with seed 0, whose digest 029bbd41b3a7d8cb191dae486a901e5b is h1 then h2 little-endian
+        assertArrayEquals(new long[] {0xcbd8a7b341bd9b02L, 0x5b1e906a48ae1d19L}, BlocklistSnapshot.hash("hello"));
+    }
+}
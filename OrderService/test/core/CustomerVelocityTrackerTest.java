@@ -0,0 +1,85 @@
+package core;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CustomerVelocityTrackerTest {
+
+    private final CustomerVelocityTracker tracker = new CustomerVelocityTracker(new BigDecimal("500"));
+
+    @Test
+    void countsOrdersInsideTheWindow() {
+        Instant now = Instant.now();
+        tracker.record("c-1", new BigDecimal("10"), now);
+        tracker.record("c-1", new BigDecimal("10"), now.minus(Duration.ofMinutes(5)));
+        tracker.record("c-1", new BigDecimal("10"), now.minus(Duration.ofMinutes(30)));
+
+        assertEquals(1, tracker.countOrders("c-1", Duration.ofMinutes(2)));
+        assertEquals(2, tracker.countOrders("c-1", Duration.ofMinutes(10)));
+        assertEquals(3, tracker.countOrders("c-1", CustomerVelocityTracker.MAX_WINDOW));
+    }
+
+    @Test
+    void ignoresOrdersOlderThanTheLongestWindow() {
+        Instant now = Instant.now();
+        tracker.record("c-1", new BigDecimal("10"), now.minus(Duration.ofHours(2)));
+        tracker.record("c-1", new BigDecimal("10"), now);
+
+        assertEquals(1, tracker.countOrders("c-1", CustomerVelocityTracker.MAX_WINDOW));
+    }
+
+    @Test
+    void keepsTheCurrentBucketWhenAnOrderAnHourOlderArrivesLate() {
+        Instant now = Instant.now();
+        tracker.record("c-1", new BigDecimal("10"), now);
+        tracker.record("c-1", new BigDecimal("10"), now);
+        tracker.record("c-1", new BigDecimal("10"), now.minus(CustomerVelocityTracker.MAX_WINDOW));
+
+        assertEquals(2, tracker.countOrders("c-1", Duration.ofMinutes(1)));
+    }
+
+    @Test
+    void countsOnlyOrdersAboveTheHighValueThreshold() {
+        Instant now = Instant.now();
+        tracker.record("c-1", new BigDecimal("500"), now);
+        tracker.record("c-1", new BigDecimal("500.01"), now);
+        tracker.record("c-1", null, now);
+
+        assertEquals(3, tracker.countOrders("c-1", Duration.ofMinutes(10)));
+        assertEquals(1, tracker.countHighValueOrders("c-1", Duration.ofMinutes(10)));
+    }
+
+    @Test
+    void keepsCustomersApart() {
+        tracker.record("c-1", new BigDecimal("10"), Instant.now());
+
+        assertEquals(0, tracker.countOrders("c-2", Duration.ofMinutes(10)));
+        assertEquals(1, tracker.trackedCustomerCount());
+    }
+
+    @Test
+    void rejectsWindowsLongerThanItTracks() {
+        tracker.record("c-1", new BigDecimal("10"), Instant.now());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> tracker.countOrders("c-1", CustomerVelocityTracker.MAX_WINDOW.plusMinutes(1)));
+    }
+
+    @Test
+    void isColdUntilSeededOrRunningForTheWindow() {
+        assertFalse(tracker.isWarm(Duration.ofMinutes(10)));
+        assertTrue(tracker.isWarm(Duration.ZERO));
+
+        tracker.markSeeded();
+
+        assertTrue(tracker.isWarm(CustomerVelocityTracker.MAX_WINDOW));
+    }
+}
@@ -0,0 +1,145 @@
+package core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PostingListTest {
+
+    @Test
+    void pagesThroughAppendedIdsWithACursor() {
+        PostingList list = new PostingList();
+        for (long id = 0; id < 3000; id += 3) {
+            assertTrue(list.add(id));
+        }
+
+        assertEquals(1000, list.size());
+        assertArrayEquals(new long[] {0, 3, 6}, list.idsAfter(-1, 3));
+        assertArrayEquals(new long[] {1503, 1506}, list.idsAfter(1500, 2));
+        assertArrayEquals(new long[] {1503}, list.idsAfter(1501, 1));
+        assertArrayEquals(new long[] {2997}, list.idsAfter(2994, 10));
+        assertArrayEquals(new long[0], list.idsAfter(2997, 10));
+        assertArrayEquals(new long[0], list.idsAfter(-1, 0));
+    }
+
+    @Test
+    void keepsOutOfOrderIdsSortedAndRejectsDuplicates() {
+        PostingList list = new PostingList();
+        assertTrue(list.add(10));
+        assertTrue(list.add(5));
+        assertTrue(list.add(7));
+        assertFalse(list.add(7));
+        assertFalse(list.add(10));
+
+        assertArrayEquals(new long[] {5, 7, 10}, list.toArray());
+    }
+
+    @Test
+    void buffersOutOfOrderIdsUntilTheNextReencode() {
+        PostingList list = new PostingList();
+        for (long id = 10_000; id < 20_000; id += 2) {
+            list.add(id);
+        }
+        int encodedSize = list.byteSize();
+
+        for (long id = 1; id < 100; id += 2) {
+            assertTrue(list.add(id));
+        }
+        assertFalse(list.add(51));
+
+        assertEquals(encodedSize, list.byteSize());
+        assertEquals(5050, list.size());
+        assertArrayEquals(new long[] {1, 3}, list.idsAfter(-1, 2));
+        assertArrayEquals(new long[] {99, 10_000, 10_002}, list.idsAfter(97, 3));
+        assertTrue(list.remove(3));
+        assertArrayEquals(new long[] {1, 5}, list.idsAfter(-1, 2));
+
+        for (long id = 101; id < 1000; id += 2) {
+            list.add(id);
+        }
+
+        assertTrue(list.byteSize() > encodedSize);
+        assertEquals(5499, list.size());
+        assertArrayEquals(new long[] {997, 999, 10_000}, list.idsAfter(995, 3));
+    }
+
+    @Test
+    void removedIdsAreSkippedAndCanBeAddedBack() {
+        PostingList list = new PostingList();
+        for (long id = 1; id <= 5; id++) {
+            list.add(id);
+        }
+
+        assertTrue(list.remove(3));
+        assertFalse(list.remove(3));
+        assertFalse(list.remove(42));
+        assertEquals(4, list.size());
+        assertArrayEquals(new long[] {2, 4, 5}, list.idsAfter(1, 10));
+
+        assertTrue(list.add(3));
+        assertArrayEquals(new long[] {1, 2, 3, 4, 5}, list.toArray());
+    }
+
+    @Test
+    void compactsOnceEnoughIdsAreRemoved() {
+        PostingList list = new PostingList();
+        long[] firstHalf = new long[5000];
+        for (int i = 0; i < 10000; i++) {
+            list.add(i * 1000L);
+            if (i < firstHalf.length) {
+                firstHalf[i] = i * 1000L;
+            }
+        }
+        int fullSize = list.byteSize();
+
+        assertEquals(5000, list.removeAll(firstHalf));
+
+        assertEquals(5000, list.size());
+        assertTrue(list.byteSize() < fullSize);
+        assertArrayEquals(new long[] {5_000_000L, 5_001_000L}, list.idsAfter(-1, 2));
+    }
+
+    @Test
+    void rejectsNegativeIds() {
+        assertThrows(IllegalArgumentException.class, () -> new PostingList().add(-1));
+    }
+
+    @Test
+    void matchesASortedSetUnderRandomOperations() {
+        Random random = new Random(42);
+        PostingList list = new PostingList();
+        TreeSet<Long> expected = new TreeSet<>();
+        long next = 0;
+        for (int i = 0; i < 20000; i++) {
+            int operation = random.nextInt(10);
+            if (operation < 6) {
+                // Mostly increasing ids, as orders arrive, with some back-filled ones
+                next += 1 + random.nextInt(300);
+                long id = random.nextInt(8) == 0 ? (long) (random.nextDouble() * next) : next;
+                assertEquals(expected.add(id), list.add(id));
+            } else if (operation < 9 && !expected.isEmpty()) {
+                long id = (long) (random.nextDouble() * next);
+                assertEquals(expected.remove(id), list.remove(id));
+                Long present = expected.ceiling(id);
+                if (present != null) {
+                    assertTrue(list.remove(present));
+                    expected.remove(present);
+                }
+            } else {
+                long afterId = (long) (random.nextDouble() * next) - 1;
+                long[] page = list.idsAfter(afterId, 50);
+                long[] expectedPage = expected.tailSet(afterId, false).stream().limit(50).mapToLong(Long::longValue).toArray();
+                assertArrayEquals(expectedPage, page);
+            }
+            assertEquals(expected.size(), list.size());
+        }
+        assertArrayEquals(expected.stream().mapToLong(Long::longValue).toArray(), list.toArray());
+    }
+}
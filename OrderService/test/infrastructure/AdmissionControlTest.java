@@ -0,0 +1,204 @@
+package infrastructure;
+
+import infrastructure.AdmissionControl.AdmissionRejectedException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdmissionControlTest {
+
+    @Test
+    void rateLimitsEachCustomerToItsBurst() {
+        AdmissionControl admission = admission(0.001, 3, 50, 10, 2000);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals("ok", admission.execute("c-1", () -> "ok"));
+        }
+        AdmissionRejectedException rejected = assertThrows(AdmissionRejectedException.class,
+                () -> admission.execute("c-1", () -> "ok"));
+
+        assertTrue(rejected.getRetryAfterSeconds() >= 1);
+        assertEquals(1, admission.getRejectedByRateCount());
+        assertEquals("ok", admission.execute("c-2", () -> "ok"));
+        assertEquals("ok", admission.execute(null, () -> "ok"));
+    }
+
+    @Test
+    void refillsTokensOverTime() throws InterruptedException {
+        AdmissionControl admission = admission(100, 1, 50, 10, 2000);
+
+        admission.execute("c-1", () -> "ok");
+        assertThrows(AdmissionRejectedException.class, () -> admission.execute("c-1", () -> "ok"));
+        Thread.sleep(50);
+
+        assertEquals("ok", admission.execute("c-1", () -> "ok"));
+    }
+
+    @Test
+    void rejectsWhenAtTheLimitAndTheQueueIsFull() throws Exception {
+        AdmissionControl admission = admission(1000, 1000, 1, 0, 2000);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        CompletableFuture<String> holder = holdSlot(admission, running, finish);
+
+        try {
+            assertTrue(running.await(5, TimeUnit.SECONDS));
+            assertThrows(AdmissionRejectedException.class, () -> admission.execute(null, () -> "ok"));
+            assertEquals(1, admission.getRejectedByLimitCount());
+        } finally {
+            finish.countDown();
+        }
+        assertEquals("held", holder.get(5, TimeUnit.SECONDS));
+        assertEquals(0, admission.getInFlight());
+    }
+
+    @Test
+    void admitsAQueuedRequestWhenASlotFrees() throws Exception {
+        AdmissionControl admission = admission(1000, 1000, 1, 1, 5000);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        CompletableFuture<String> holder = holdSlot(admission, running, finish);
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> admission.execute(null, () -> "queued"));
+        Thread.sleep(50);
+        assertFalse(queued.isDone());
+        finish.countDown();
+
+        assertEquals("held", holder.get(5, TimeUnit.SECONDS));
+        assertEquals("queued", queued.get(5, TimeUnit.SECONDS));
+        assertEquals(2, admission.getAdmittedCount());
+    }
+
+    @Test
+    void dropsAQueuedRequestWhoseDeadlinePasses() throws Exception {
+        AdmissionControl admission = admission(1000, 1000, 1, 1, 5000);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+        CompletableFuture<String> holder = holdSlot(admission, running, finish);
+
+        try {
+            assertTrue(running.await(5, TimeUnit.SECONDS));
+            assertThrows(AdmissionRejectedException.class,
+                    () -> admission.execute(null, Duration.ofMillis(50), () -> "late"));
+            assertEquals(1, admission.getDroppedExpiredCount());
+        } finally {
+            finish.countDown();
+        }
+        holder.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void runsTheActionUnderTheRequestDeadline() {
+        AdmissionControl admission = admission(1000, 1000, 10, 10, 2000);
+
+        long remaining = admission.execute(null, Duration.ofMillis(500),
+                () -> RequestDeadline.current().orElseThrow().remainingNanos());
+
+        assertTrue(remaining > 0 && remaining <= TimeUnit.MILLISECONDS.toNanos(500));
+        assertTrue(RequestDeadline.current().isEmpty());
+    }
+
+    @Test
+    void holdsAnAdmissionSlotUntilItIsReleased() {
+        AdmissionControl admission = admission(1000, 1000, 1, 0, 2000);
+
+        AdmissionControl.Admission held = admission.admit(null, null);
+        assertEquals("done", held.call(() -> "done"));
+        assertEquals(1, admission.getInFlight());
+        assertThrows(AdmissionRejectedException.class, () -> admission.execute(null, () -> "ok"));
+
+        held.release();
+        held.release();
+        assertEquals(0, admission.getInFlight());
+        assertEquals("ok", admission.execute(null, () -> "ok"));
+    }
+
+    @Test
+    void growsTheLimitWhileItIsUsedAndLatencyIsSteady() {
+        AdmissionControl admission = admission(1000, 1000, 2, 10, 2000);
+
+        for (int i = 0; i < 100; i++) {
+            admission.execute(null, () -> "ok");
+        }
+
+        assertTrue(admission.getLimit() > 2, "limit " + admission.getLimit());
+    }
+
+    @Test
+    void backsOffWhenLatencyRisesAboveTheBaseline() {
+        AdmissionControl admission = admission(1000, 1000, 50, 10, 2000);
+        assertEquals(-1, admission.getBaselineNanos());
+
+        for (int i = 0; i < 500; i++) {
+            admission.execute(null, () -> "fast");
+        }
+        long baseline = admission.getBaselineNanos();
+        assertTrue(baseline >= 0);
+        int limitBefore = admission.getLimit();
+
+        for (int i = 0; i < 20; i++) {
+            admission.execute(null, () -> {
+                sleep(Math.max(2, TimeUnit.NANOSECONDS.toMillis(baseline) * 10));
+                return "slow";
+            });
+        }
+
+        assertTrue(admission.getLimit() < limitBefore, admission.getLimit() + " >= " + limitBefore);
+        assertEquals(baseline, admission.getBaselineNanos());
+    }
+
+    @Test
+    void neverBacksOffBelowTheMinimumLimit() {
+        AdmissionControl admission = new AdmissionControl(1000, 1000, 1000, 5, 4, 100, 10, 2000, 2.0, 0.5);
+
+        for (int i = 0; i < 500; i++) {
+            admission.execute(null, () -> "fast");
+        }
+        for (int i = 0; i < 20; i++) {
+            admission.execute(null, () -> {
+                sleep(5);
+                return "slow";
+            });
+        }
+
+        assertEquals(4, admission.getLimit());
+    }
+
+    private static AdmissionControl admission(double ratePerSecond, double burst, int initialLimit, int maxQueue,
+                                              long timeoutMs) {
+        return new AdmissionControl(ratePerSecond, burst, 1000, initialLimit, 1, 1000, maxQueue, timeoutMs, 2.0, 0.9);
+    }
+
+    /**
+     * Occupies one admission slot on another thread until {@code finish} is counted down.
+     */
+    private static CompletableFuture<String> holdSlot(AdmissionControl admission, CountDownLatch running,
+                                                      CountDownLatch finish) {
+        return CompletableFuture.supplyAsync(() -> admission.execute(null, () -> {
+            running.countDown();
+            try {
+                finish.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "held";
+        }));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
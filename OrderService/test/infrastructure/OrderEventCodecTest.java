@@ -0,0 +1,219 @@
+package infrastructure;
+
+import core.OrderEntity;
+import core.OrderEntity.OrderItem;
+import core.OrderEntity.PaymentInfo;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderEventCodecTest {
+
+    private static final Instant OCCURRED_AT = Instant.parse("2024-03-01T12:30:45.123Z");
+
+    @Test
+    void roundTripsEveryFieldOfAPlacedOrder() {
+        OrderEntity order = order(new PaymentInfo("pay-1", new BigDecimal("59.97"), true, "CARD"),
+                new OrderItem("p-1", "Kettle", 2, new BigDecimal("19.99"), "kitchen"),
+                new OrderItem("p-2", "Mug", 1, new BigDecimal("19.99"), "kitchen"),
+                new OrderItem("p-3", "Gift card", 1, new BigDecimal("0.00")));
+
+        OrderEventReader reader = OrderEventReader.wrap(OrderEventCodec.encode(OrderEventType.ORDER_PLACED, order, OCCURRED_AT));
+
+        assertEquals(OrderEventType.ORDER_PLACED, reader.getType());
+        assertEquals(OrderEventType.ORDER_PLACED.getVersion(), reader.getVersion());
+        assertEquals(order.getOrderId(), reader.getString(OrderEventField.ORDER_ID));
+        assertEquals("customer-1", reader.getString(OrderEventField.CUSTOMER_ID));
+        assertEquals(OCCURRED_AT, reader.getInstant(OrderEventField.OCCURRED_AT));
+        assertEquals(new BigDecimal("59.97"), reader.getDecimal(OrderEventField.TOTAL_AMOUNT));
+        assertEquals(3, reader.getLong(OrderEventField.ITEM_COUNT, -1));
+        assertEquals(order.getOrderDate().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(),
+                reader.getInstant(OrderEventField.PLACED_AT).toEpochMilli());
+        assertEquals("CARD", reader.getString(OrderEventField.PAYMENT_METHOD));
+        assertEquals(Map.of("kitchen", new BigDecimal("59.97")), reader.getAmounts(OrderEventField.CATEGORY_TOTALS));
+    }
+
+    @Test
+    void readsFieldsInAnyOrder() {
+        OrderEntity order = order(null, new OrderItem("p-1", "Kettle", 1, new BigDecimal("5.00"), "kitchen"));
+        OrderEventReader reader = OrderEventReader.wrap(OrderEventCodec.encode(OrderEventType.ORDER_PLACED, order, OCCURRED_AT));
+
+        assertEquals(Map.of("kitchen", new BigDecimal("5.00")), reader.getAmounts(OrderEventField.CATEGORY_TOTALS));
+        assertEquals(order.getOrderId(), reader.getString(OrderEventField.ORDER_ID));
+        assertEquals(new BigDecimal("5.00"), reader.getDecimal(OrderEventField.TOTAL_AMOUNT));
+        assertEquals("customer-1", reader.getString(OrderEventField.CUSTOMER_ID));
+    }
+
+    @Test
+    void roundTripsNullAndNegativeValues() {
+        OrderEntity withoutPayment = order(null, new OrderItem("p-1", "Kettle", 1, new BigDecimal("5.00")));
+        OrderEventReader unpaid = OrderEventReader.wrap(
+                OrderEventCodec.encode(OrderEventType.PAYMENT_COMPLETED, withoutPayment, OCCURRED_AT));
+        assertNull(unpaid.getString(OrderEventField.PAYMENT_ID));
+        assertNull(unpaid.getDecimal(OrderEventField.AMOUNT_PAID));
+
+        OrderEntity refunded = order(new PaymentInfo("pay-2", new BigDecimal("-1234.5678"), true),
+                new OrderItem("p-1", "Kettle", 1, new BigDecimal("5.00")));
+        OrderEventReader refund = OrderEventReader.wrap(
+                OrderEventCodec.encode(OrderEventType.REFUND_INITIATED, refunded, Instant.ofEpochMilli(-1)));
+        assertEquals("pay-2", refund.getString(OrderEventField.PAYMENT_ID));
+        assertEquals(new BigDecimal("-1234.5678"), refund.getDecimal(OrderEventField.AMOUNT_PAID));
+        assertEquals(Instant.ofEpochMilli(-1), refund.getInstant(OrderEventField.OCCURRED_AT));
+    }
+
+    @Test
+    void roundTripsMultiByteStrings() {
+        OrderEntity order = new OrderEntity("клиент-ß-😀", List.of(new OrderItem("p-1", "Kettle", 1, BigDecimal.ONE)),
+                "Main St 1", null);
+        OrderEventReader reader = OrderEventReader.wrap(OrderEventCodec.encode(OrderEventType.ORDER_SHIPPED, order, OCCURRED_AT));
+
+        assertEquals("клиент-ß-😀", reader.getString(OrderEventField.CUSTOMER_ID));
+        assertEquals(OCCURRED_AT, reader.getInstant(OrderEventField.OCCURRED_AT));
+    }
+
+    @Test
+    void fieldsOutsideTheSchemaReadAsAbsent() {
+        OrderEntity order = order(null, new OrderItem("p-1", "Kettle", 1, BigDecimal.ONE, "kitchen"));
+        OrderEventReader reader = OrderEventReader.wrap(OrderEventCodec.encode(OrderEventType.ORDER_SHIPPED, order, OCCURRED_AT));
+
+        assertNull(reader.getString(OrderEventField.STATUS));
+        assertNull(reader.getDecimal(OrderEventField.TOTAL_AMOUNT));
+        assertEquals(-1, reader.getLong(OrderEventField.ITEM_COUNT, -1));
+        assertNull(reader.getInstant(OrderEventField.PLACED_AT));
+        assertTrue(reader.getAmounts(OrderEventField.CATEGORY_TOTALS).isEmpty());
+    }
+
+    @Test
+    void rejectsReadsWithTheWrongEncoding() {
+        OrderEntity order = order(null, new OrderItem("p-1", "Kettle", 1, BigDecimal.ONE));
+        OrderEventReader reader = OrderEventReader.wrap(OrderEventCodec.encode(OrderEventType.ORDER_UPDATED, order, OCCURRED_AT));
+
+        assertThrows(IllegalArgumentException.class, () -> reader.getString(OrderEventField.TOTAL_AMOUNT));
+        assertThrows(IllegalArgumentException.class, () -> reader.getDecimal(OrderEventField.ORDER_ID));
+    }
+
+    @Test
+    void rejectsTruncatedHeadersAndUnknownSchemas() {
+        assertThrows(IllegalArgumentException.class, () -> OrderEventReader.wrap(new byte[] {1, 1}));
+        assertThrows(IllegalArgumentException.class, () -> OrderEventReader.wrap(new byte[] {99, 1, 0}));
+        assertThrows(IllegalArgumentException.class, () -> OrderEventReader.wrap(new byte[] {0, 1, 0}));
+    }
+
+    @Test
+    void readsAnEventFromAnOlderWriter() {
+        // ORDER_PLACED version 1 ended after ITEM_COUNT
+        byte[] v1 = new EventWriter(OrderEventType.ORDER_PLACED, 1, 5)
+                .string("order-1")
+                .string("customer-1")
+                .varLong(OCCURRED_AT.toEpochMilli())
+                .decimal(new BigDecimal("12.50"))
+                .varLong(2)
+                .toByteArray();
+
+        OrderEventReader reader = OrderEventReader.wrap(v1);
+
+        assertEquals(1, reader.getVersion());
+        assertEquals("order-1", reader.getString(OrderEventField.ORDER_ID));
+        assertEquals(new BigDecimal("12.50"), reader.getDecimal(OrderEventField.TOTAL_AMOUNT));
+        assertEquals(2, reader.getLong(OrderEventField.ITEM_COUNT, -1));
+        assertNull(reader.getInstant(OrderEventField.PLACED_AT));
+        assertNull(reader.getString(OrderEventField.PAYMENT_METHOD));
+        assertTrue(reader.getAmounts(OrderEventField.CATEGORY_TOTALS).isEmpty());
+    }
+
+    @Test
+    void ignoresFieldsAppendedByANewerWriter() {
+        OrderEntity order = order(new PaymentInfo("pay-1", new BigDecimal("10.00"), true, "CARD"),
+                new OrderItem("p-1", "Kettle", 1, new BigDecimal("10.00"), "kitchen"));
+        byte[] current = OrderEventCodec.encode(OrderEventType.ORDER_PLACED, order, OCCURRED_AT);
+
+        // A later version appends two fields of its own after the ones this reader knows
+        byte[] trailing = new EventWriter(null, 0, 0).string("gift-wrap").decimal(new BigDecimal("2.99")).toByteArray();
+        byte[] newer = Arrays.copyOf(current, current.length + trailing.length - OrderEventCodec.HEADER_SIZE);
+        System.arraycopy(trailing, OrderEventCodec.HEADER_SIZE, newer, current.length,
+                trailing.length - OrderEventCodec.HEADER_SIZE);
+        newer[1] = (byte) (OrderEventType.ORDER_PLACED.getVersion() + 1);
+        newer[2] = (byte) (OrderEventType.ORDER_PLACED.getFields().size() + 2);
+
+        OrderEventReader reader = OrderEventReader.wrap(newer);
+
+        assertEquals(OrderEventType.ORDER_PLACED.getVersion() + 1, reader.getVersion());
+        assertEquals(order.getOrderId(), reader.getString(OrderEventField.ORDER_ID));
+        assertEquals("CARD", reader.getString(OrderEventField.PAYMENT_METHOD));
+        assertEquals(Map.of("kitchen", new BigDecimal("10.00")), reader.getAmounts(OrderEventField.CATEGORY_TOTALS));
+    }
+
+    @Test
+    void keepsCategoryTotalsInFirstSeenOrder() {
+        OrderEntity order = order(null,
+                new OrderItem("p-1", "Shirt", 1, new BigDecimal("20.00"), "apparel"),
+                new OrderItem("p-2", "Kettle", 1, new BigDecimal("30.00"), "kitchen"),
+                new OrderItem("p-3", "Socks", 3, new BigDecimal("4.00"), "apparel"));
+        OrderEventReader reader = OrderEventReader.wrap(OrderEventCodec.encode(OrderEventType.ORDER_CANCELLED, order, OCCURRED_AT));
+
+        Map<String, BigDecimal> expected = new LinkedHashMap<>();
+        expected.put("apparel", new BigDecimal("32.00"));
+        expected.put("kitchen", new BigDecimal("30.00"));
+        assertEquals(List.copyOf(expected.entrySet()), List.copyOf(reader.getAmounts(OrderEventField.CATEGORY_TOTALS).entrySet()));
+    }
+
+    private static OrderEntity order(PaymentInfo paymentInfo, OrderItem... items) {
+        return new OrderEntity("customer-1", List.of(items), "Main St 1", paymentInfo);
+    }
+
+    /**
+     * Writes events field by field in the documented wire format, to stand in for writers of other versions.
+     */
+    private static final class EventWriter {
+
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        EventWriter(OrderEventType type, int version, int fieldCount) {
+            out.write(type != null ? type.getSchemaId() : 0);
+            out.write(version);
+            out.write(fieldCount);
+        }
+
+        EventWriter string(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            unsignedVarLong(bytes.length + 1L);
+            out.writeBytes(bytes);
+            return this;
+        }
+
+        EventWriter decimal(BigDecimal value) {
+            out.write(value.scale());
+            return varLong(value.unscaledValue().longValueExact());
+        }
+
+        EventWriter varLong(long value) {
+            return unsignedVarLong(OrderEventCodec.zigzag(value));
+        }
+
+        private EventWriter unsignedVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                out.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.write((int) value);
+            return this;
+        }
+
+        byte[] toByteArray() {
+            return out.toByteArray();
+        }
+    }
+}
@@ -2,6 +2,7 @@ package application;
 
 import com.website.paymentservice.core.PaymentEntity;
 import com.website.paymentservice.core.PaymentService;
+import common.ids.TimeOrderedIds;
 import com.website.paymentservice.infrastructure.PaymentGatewayIntegration;
 import com.website.paymentservice.infrastructure.PaymentRepositoryImpl;
 import com.website.common.commands.ProcessPaymentCommand;
@@ -18,7 +19,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.UUID;
+import java.util.Optional;
 
 @Component
 public class ProcessPaymentCommandHandler {
@@ -45,9 +46,16 @@ public class ProcessPaymentCommandHandler {
     @Transactional
     public PaymentStatus handle(ProcessPaymentCommand command) {
         logger.info("Processing payment for Order ID: {}", command.getOrderId());
+        PaymentDetails paymentDetails;
+        PaymentEntity payment;
+        try {
+            paymentDetails = preparePaymentDetails(command);
+            payment = initializePayment(command);
+        } catch (RuntimeException e) {
+            logger.error("Payment could not be initialized: {}", e.getMessage());
+            throw new GatewayNotCalledException("Payment could not be initialized for Order ID: " + command.getOrderId(), e);
+        }
         try {
-            PaymentDetails paymentDetails = preparePaymentDetails(command);
-            PaymentEntity payment = initializePayment(command);
             PaymentStatus paymentStatus = processPaymentWithGateway(paymentDetails);
 
             if (paymentStatus == PaymentStatus.SUCCESS) {
@@ -79,7 +87,7 @@ public class ProcessPaymentCommandHandler {
 
     private PaymentEntity initializePayment(ProcessPaymentCommand command) {
         PaymentEntity payment = new PaymentEntity();
-        payment.setId(UUID.randomUUID().toString());
+        payment.setId(TimeOrderedIds.next().toString());
         payment.setOrderId(command.getOrderId());
         payment.setAmount(command.getPaymentAmount());
         payment.setStatus(PaymentStatus.PENDING);
@@ -164,6 +172,33 @@ public class ProcessPaymentCommandHandler {
         logger.info("Published RefundProcessedEvent for Order ID: {}", payment.getOrderId());
     }
 
+    /**
+     * Compensates a payment taken for an order that could not be completed. A successful payment is refunded,
+     * a pending one is marked failed so it is never captured, and anything else is left as it is.
+     */
+    @Transactional
+    public void voidPayment(String paymentId) {
+        logger.info("Voiding payment {}", paymentId);
+        Optional<PaymentEntity> found = paymentRepository.findById(paymentId);
+
+        if (found.isEmpty()) {
+            logger.warn("Payment {} not found, nothing to void", paymentId);
+            return;
+        }
+
+        PaymentEntity payment = found.get();
+        if (payment.getStatus() == PaymentStatus.SUCCESS) {
+            PaymentStatus refundStatus = paymentGateway.processRefund(payment.getAmount());
+            if (refundStatus != PaymentStatus.REFUNDED) {
+                throw new PaymentFailedException("Void failed for payment: " + paymentId);
+            }
+            finalizeRefund(payment, refundStatus);
+            publishRefundProcessedEvent(payment);
+        } else if (payment.getStatus() == PaymentStatus.PENDING) {
+            finalizePayment(payment, PaymentStatus.FAILED);
+        }
+    }
+
     public PaymentStatus retryPayment(ProcessPaymentCommand command) {
         logger.info("Retrying payment for Order ID: {}", command.getOrderId());
         PaymentEntity payment = paymentRepository.findByOrderId(command.getOrderId());
@@ -175,4 +210,13 @@ public class ProcessPaymentCommandHandler {
 
         return handle(command); 
     }
-}
\ No newline at end of file
+
+    /**
+     * Thrown when a payment failed before the gateway was called, so nothing can have been charged.
+     */
+    public static class GatewayNotCalledException extends RuntimeException {
+        public GatewayNotCalledException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
@@ -8,19 +8,23 @@ import javax.persistence.Entity;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.Table;
 import javax.persistence.PrePersist;
 import javax.persistence.PreUpdate;
 import javax.validation.constraints.NotNull;
 
+import common.ids.TimeOrderedIds;
+import infrastructure.TimeOrderedIdGenerator;
+import org.hibernate.annotations.GenericGenerator;
+
 @Entity
 @Table(name = "payments")
 public class PaymentEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(generator = TimeOrderedIdGenerator.NAME)
+    @GenericGenerator(name = TimeOrderedIdGenerator.NAME, strategy = "infrastructure.TimeOrderedIdGenerator")
     @Column(name = "payment_id", updatable = false, nullable = false)
     private UUID paymentId;
 
@@ -89,7 +93,7 @@ public class PaymentEntity {
     }
 
     private String generateTransactionId() {
-        return UUID.randomUUID().toString();
+        return TimeOrderedIds.next().toString();
     }
 
     // Getters and setters
@@ -5,6 +5,7 @@ import infrastructure.PaymentGatewayIntegration;
 import infrastructure.PaymentRepositoryImpl;
 import application.ProcessPaymentCommandHandler;
 import application.PaymentStatusQueryHandler;
+import common.ids.TimeOrderedIds;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -28,7 +29,7 @@ public class PaymentService {
     public PaymentEntity processPayment(UUID orderId, BigDecimal amount, String paymentMethod) throws Exception {
         validatePaymentDetails(orderId, amount, paymentMethod);
 
-        PaymentEntity payment = new PaymentEntity(UUID.randomUUID(), orderId, amount, paymentMethod, LocalDateTime.now(), "PENDING");
+        PaymentEntity payment = new PaymentEntity(TimeOrderedIds.next(), orderId, amount, paymentMethod, LocalDateTime.now(), "PENDING");
         paymentRepository.save(payment);
 
         boolean paymentSuccess = paymentGateway.processPayment(payment);
@@ -132,7 +133,7 @@ public class PaymentService {
     public PaymentEntity initiatePayment(UUID orderId, BigDecimal amount, String paymentMethod) {
         validatePaymentDetails(orderId, amount, paymentMethod);
 
-        PaymentEntity payment = new PaymentEntity(UUID.randomUUID(), orderId, amount, paymentMethod, LocalDateTime.now(), "PENDING");
+        PaymentEntity payment = new PaymentEntity(TimeOrderedIds.next(), orderId, amount, paymentMethod, LocalDateTime.now(), "PENDING");
         paymentRepository.save(payment);
         return payment;
     }
@@ -0,0 +1,22 @@
+package infrastructure;
+
+import common.ids.TimeOrderedIds;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+
+import java.io.Serializable;
+
+/**
+ * Hibernate id generator for UUID primary keys that hands out time-ordered ids from {@link TimeOrderedIds},
+ * so payment inserts append to the end of the clustered index. An id assigned before persisting is kept.
+ */
+public class TimeOrderedIdGenerator implements IdentifierGenerator {
+
+    public static final String NAME = "time-ordered-uuid";
+
+    @Override
+    public Serializable generate(SharedSessionContractImplementor session, Object object) {
+        Serializable assigned = session.getEntityPersister(null, object).getIdentifier(object, session);
+        return assigned != null ? assigned : TimeOrderedIds.next();
+    }
+}
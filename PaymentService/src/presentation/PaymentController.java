@@ -4,6 +4,7 @@ import com.paymentservice.application.ProcessPaymentCommandHandler;
 import com.paymentservice.application.PaymentStatusQueryHandler;
 import com.paymentservice.core.PaymentEntity;
 import com.paymentservice.presentation.viewmodel.PaymentViewModel;
+import common.idempotency.IdempotentRequests;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -18,23 +19,33 @@ public class PaymentController {
 
     private final ProcessPaymentCommandHandler processPaymentCommandHandler;
     private final PaymentStatusQueryHandler paymentStatusQueryHandler;
+    private final IdempotentRequests idempotentRequests;
 
     @Autowired
     public PaymentController(ProcessPaymentCommandHandler processPaymentCommandHandler,
-                             PaymentStatusQueryHandler paymentStatusQueryHandler) {
+                             PaymentStatusQueryHandler paymentStatusQueryHandler,
+                             IdempotentRequests idempotentRequests) {
         this.processPaymentCommandHandler = processPaymentCommandHandler;
         this.paymentStatusQueryHandler = paymentStatusQueryHandler;
+        this.idempotentRequests = idempotentRequests;
     }
 
     @PostMapping("/process")
-    public ResponseEntity<PaymentViewModel> processPayment(@Validated @RequestBody PaymentViewModel paymentRequest) {
-        try {
-            PaymentEntity paymentEntity = processPaymentCommandHandler.handle(paymentRequest.toCommand());
-            PaymentViewModel response = PaymentViewModel.fromEntity(paymentEntity);
-            return new ResponseEntity<>(response, HttpStatus.CREATED);
-        } catch (Exception e) {
-            return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
-        }
+    public ResponseEntity<PaymentViewModel> processPayment(
+            @RequestHeader(value = IdempotentRequests.HEADER, required = false) String idempotencyKey,
+            @Validated @RequestBody PaymentViewModel paymentRequest) {
+        // A failed charge may still have reached the gateway, so its key is kept and a retry is not charged again
+        return idempotentRequests.executeOnce(idempotencyKey, paymentRequest, () -> {
+            try {
+                PaymentEntity paymentEntity = processPaymentCommandHandler.handle(paymentRequest.toCommand());
+                PaymentViewModel response = PaymentViewModel.fromEntity(paymentEntity);
+                return new ResponseEntity<>(response, HttpStatus.CREATED);
+            } catch (ProcessPaymentCommandHandler.GatewayNotCalledException e) {
+                throw new IdempotentRequests.NotExecutedException(e.getMessage(), e);
+            } catch (Exception e) {
+                return new ResponseEntity<>(null, HttpStatus.INTERNAL_SERVER_ERROR);
+            }
+        });
     }
 
     @GetMapping("/status/{paymentId}")